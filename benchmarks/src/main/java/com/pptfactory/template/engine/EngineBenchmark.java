@@ -0,0 +1,255 @@
+package com.pptfactory.template.engine;
+
+import com.aspose.slides.ISlide;
+import com.aspose.slides.Presentation;
+import com.aspose.slides.SaveFormat;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pptfactory.style.SafetyStyle;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * PPTTemplateEngine 热点路径的基准测试
+ *
+ * 每个基准按页数（deckSize = 10 / 100 / 500）参数化，一次调用处理整份PPT：
+ * - renderDeck：按布局类型（layout，只对这个基准生效）渲染 deckSize 页，每次调用使用新的引擎（引擎创建不计时）
+ * - replaceText / replaceImage：对 deckSize 张从 master_template.pptx 克隆到新引擎的幻灯片（循环取各个经典布局）
+ *   执行文本替换 / 图片替换，每次调用重新克隆（只有含"模板文字"的幻灯片才会被替换）
+ * - saveToStream / saveToFile：保存已渲染的PPT（含流式移除水印）
+ * - removeWatermarks：对带评估版水印的PPT文件执行 XML 方式的水印移除，每次调用前恢复原文件
+ *
+ * 基准测试需要在项目根目录运行（按相对路径读取 templates/、examples/ 和 produce/images/），
+ * 运行期间引擎的控制台日志写入空输出流，只保留格式化的开销。
+ * templates/master_template.pptx 不在版本库中，运行前先执行 ExtractLayouts 生成，缺少时直接报错退出。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EngineBenchmark {
+
+    private static final String TEMPLATE_FILE = "templates/safety/theme.pptx";
+    private static final String MASTER_TEMPLATE_FILE = "templates/master_template.pptx";
+    private static final String SAMPLE_FILE = "examples/safety_slides_extended.json";
+
+    @Param({"10", "100", "500"})
+    public int deckSize;
+
+    private PrintStream originalOut;
+    private List<Map<String, Object>> samples;
+    private Map<String, Object> replaceData;
+    private Presentation master;
+
+    // saveToStream / saveToFile / removeWatermarks 使用的已渲染PPT
+    private PPTTemplateEngine renderedEngine;
+    private Path workDir;
+    private Path watermarked;
+
+    /**
+     * 每次调用新建的引擎
+     */
+    @State(Scope.Thread)
+    public static class FreshEngine {
+        PPTTemplateEngine engine;
+
+        @Setup(Level.Invocation)
+        public void setUp() throws Exception {
+            engine = new PPTTemplateEngine(TEMPLATE_FILE, new SafetyStyle());
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws Exception {
+            engine.close();
+        }
+    }
+
+    /**
+     * 每次调用重新克隆到新引擎中的 deckSize 张未替换的幻灯片（循环取 master_template.pptx 中的各个经典布局）
+     */
+    @State(Scope.Thread)
+    public static class ClonedSlides {
+        List<ISlide> slides;
+
+        @Setup(Level.Invocation)
+        public void setUp(EngineBenchmark bench, FreshEngine fresh) {
+            Presentation deck = fresh.engine.getPresentation();
+            slides = new ArrayList<>(bench.deckSize);
+            int masterCount = bench.master.getSlides().size();
+            for (int i = 0; i < bench.deckSize; i++) {
+                slides.add(deck.getSlides().addClone(bench.master.getSlides().get_Item(i % masterCount)));
+            }
+        }
+    }
+
+    /**
+     * renderDeck 使用的某一布局类型的示例数据
+     */
+    @State(Scope.Benchmark)
+    public static class LayoutSample {
+        @Param({"title_page", "chapter_cover", "title_with_content", "two_column", "three_column",
+                "classic_image_text_5", "pure_content", "quote_page"})
+        public String layout;
+
+        Map<String, Object> slide;
+
+        @Setup(Level.Trial)
+        public void setUp(EngineBenchmark bench) {
+            for (Map<String, Object> sample : bench.samples) {
+                if (layout.equals(sample.get("layout"))) {
+                    slide = sample;
+                    return;
+                }
+            }
+            throw new IllegalStateException("示例文件中没有布局 " + layout + " 的幻灯片: " + SAMPLE_FILE);
+        }
+    }
+
+    /**
+     * 每次调用前从带水印的原文件恢复的工作副本（水印移除会直接改写文件）
+     */
+    @State(Scope.Thread)
+    public static class WatermarkedCopy {
+        Path file;
+
+        @Setup(Level.Invocation)
+        public void setUp(EngineBenchmark bench) throws Exception {
+            file = bench.workDir.resolve("work.pptx");
+            Files.copy(bench.watermarked, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws Exception {
+        requireFile(TEMPLATE_FILE, "请在项目根目录运行基准测试");
+        requireFile(MASTER_TEMPLATE_FILE, "请先在项目根目录执行 mvn exec:java -Dexec.mainClass=\"com.pptfactory.cli.ExtractLayouts\" "
+                + "-Dexec.args=\"1.2 安全生产方针政策.pptx\" 生成模板文件");
+        requireFile(SAMPLE_FILE, "请在项目根目录运行基准测试");
+
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream(), false, "UTF-8"));
+
+        Map<String, Object> data = new ObjectMapper().readValue(new File(SAMPLE_FILE),
+                new TypeReference<Map<String, Object>>() {});
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> slides = (List<Map<String, Object>>) data.get("slides");
+        samples = slides;
+
+        // 文本替换、图片替换使用同一份数据（包含各布局会用到的字段）
+        replaceData = new HashMap<>();
+        replaceData.put("title", "安全防护措施");
+        replaceData.put("subtitle", "安全第一，预防为主");
+        replaceData.put("text", "安全帽是保护头部的重要防护用品，佩戴时应选择合适尺寸并系紧帽带。");
+        replaceData.put("bullets", Arrays.asList("严格遵守安全操作规程", "正确佩戴和使用劳动防护用品", "定期进行安全检查和隐患排查"));
+        replaceData.put("left_content", Arrays.asList("电气安全", "• 电线老化、破损"));
+        replaceData.put("middle_content", Arrays.asList("设备防护", "• 安全装置"));
+        replaceData.put("right_content", Arrays.asList("消防安全", "• 消防通道堵塞"));
+        String image = findSampleImage();
+        if (image != null) {
+            replaceData.put("image_path", image);
+        }
+
+        master = new Presentation(MASTER_TEMPLATE_FILE);
+
+        // 保存和水印移除使用同一份已渲染的PPT
+        renderedEngine = new PPTTemplateEngine(TEMPLATE_FILE, new SafetyStyle());
+        for (int i = 0; i < deckSize; i++) {
+            renderedEngine.renderSlide(samples.get(i % samples.size()));
+        }
+        workDir = Files.createTempDirectory("pptfactory_bench_");
+        Path clean = workDir.resolve("clean.pptx");
+        renderedEngine.save(clean.toString());
+        // 用 Aspose 重新保存一次，得到带评估版水印的文件
+        watermarked = workDir.resolve("watermarked.pptx");
+        Presentation reopened = new Presentation(clean.toString());
+        try {
+            reopened.save(watermarked.toString(), SaveFormat.Pptx);
+        } finally {
+            reopened.dispose();
+        }
+    }
+
+    /**
+     * 基准依赖的文件不存在时直接失败，不要等到 Aspose 打开文件时才报出难懂的错误
+     */
+    private static void requireFile(String path, String hint) {
+        if (!new File(path).isFile()) {
+            throw new IllegalStateException("基准测试依赖的文件不存在: " + new File(path).getAbsolutePath() + "，" + hint);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws Exception {
+        renderedEngine.close();
+        master.dispose();
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public void renderDeck(FreshEngine fresh, LayoutSample sample, Blackhole bh) {
+        for (int i = 0; i < deckSize; i++) {
+            bh.consume(fresh.engine.renderSlide(sample.slide));
+        }
+    }
+
+    @Benchmark
+    public void replaceText(FreshEngine fresh, ClonedSlides cloned) {
+        for (ISlide slide : cloned.slides) {
+            fresh.engine.replaceSlideTextContent(slide, replaceData);
+        }
+    }
+
+    @Benchmark
+    public void replaceImage(FreshEngine fresh, ClonedSlides cloned) {
+        for (ISlide slide : cloned.slides) {
+            fresh.engine.replaceSlideImageContent(slide, replaceData);
+        }
+    }
+
+    @Benchmark
+    public void saveToStream() throws Exception {
+        renderedEngine.save(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void saveToFile() throws Exception {
+        renderedEngine.save(workDir.resolve("saved.pptx").toString());
+    }
+
+    @Benchmark
+    public void removeWatermarks(WatermarkedCopy copy) throws Exception {
+        renderedEngine.removeWatermarksFromXML(copy.file.toString());
+    }
+
+    /**
+     * produce/images 下的第一张图片，没有时返回 null（replaceImage 只测到查找图片路径为止）
+     */
+    private static String findSampleImage() throws Exception {
+        Path images = Path.of("produce/images");
+        if (!Files.isDirectory(images)) {
+            return null;
+        }
+        try (Stream<Path> paths = Files.walk(images)) {
+            return paths.filter(p -> p.toString().endsWith(".png"))
+                    .sorted()
+                    .map(Path::toString)
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.pptfactory.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 生产流程（纯 zip/XML 操作）热点路径的基准测试
+ *
+ * 按页数（deckSize = 10 / 100 / 500）参数化，页面映射循环取 produce/ppt内容映射.txt 中的各页：
+ * - replaceTexts：ProduceUtil.replaceTextsInPPT，对只拷贝了模板页、尚未替换文本的PPT执行文本替换（不含字号调整）
+ * - replaceImages：ReplacePPTImagesByMappingUtil.replaceImages，对已替换文本的PPT按图片路径映射替换图片
+ * 两个基准都会直接改写PPT文件，每次调用前从准备好的原文件恢复。
+ *
+ * 基准测试需要在项目根目录运行（按相对路径读取 templates/ 和 produce/），
+ * 准备阶段通过 ProduceUtil.producePPT 在临时目录中生成PPT，不改动 produce 目录。
+ * 模板页从 templates/master_template.pptx 拷贝，这个文件不在版本库中，运行前先执行 ExtractLayouts 生成。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProduceBenchmark {
+
+    private static final String MAPPING_FILE = "produce/ppt内容映射.txt";
+    private static final String MASTER_TEMPLATE_FILE = "templates/master_template.pptx";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Param({"10", "100", "500"})
+    public int deckSize;
+
+    private PrintStream originalOut;
+    private List<Map<String, Object>> mappings;
+    private Path workDir;
+    private Path templateDeck;
+    private Path textDeck;
+
+    /**
+     * 每次调用前恢复的工作副本
+     */
+    @State(Scope.Thread)
+    public static class WorkCopies {
+        Path textWork;
+        Path imageWork;
+
+        @Setup(Level.Invocation)
+        public void setUp(ProduceBenchmark bench) throws Exception {
+            textWork = bench.workDir.resolve("text_work.pptx");
+            imageWork = bench.workDir.resolve("image_work.pptx");
+            Files.copy(bench.templateDeck, textWork, StandardCopyOption.REPLACE_EXISTING);
+            Files.copy(bench.textDeck, imageWork, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws Exception {
+        if (!new File(MASTER_TEMPLATE_FILE).isFile()) {
+            throw new IllegalStateException("基准测试依赖的文件不存在: " + new File(MASTER_TEMPLATE_FILE).getAbsolutePath()
+                    + "，请先在项目根目录执行 mvn exec:java -Dexec.mainClass=\"com.pptfactory.cli.ExtractLayouts\" "
+                    + "-Dexec.args=\"1.2 安全生产方针政策.pptx\" 生成模板文件");
+        }
+        if (!new File(MAPPING_FILE).isFile()) {
+            throw new IllegalStateException("基准测试依赖的文件不存在: " + new File(MAPPING_FILE).getAbsolutePath() + "，请在项目根目录运行基准测试");
+        }
+
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream(), false, "UTF-8"));
+
+        List<Map<String, Object>> source = MAPPER.readValue(new File(MAPPING_FILE),
+                new TypeReference<List<Map<String, Object>>>() {});
+        mappings = new ArrayList<>(deckSize);
+        for (int i = 0; i < deckSize; i++) {
+            mappings.add(source.get(i % source.size()));
+        }
+
+        workDir = Files.createTempDirectory("pptfactory_bench_");
+
+        // 只拷贝模板页、不替换文本的PPT（replaceTexts 的输入）
+        List<Map<String, Object>> templateOnly = new ArrayList<>(deckSize);
+        for (Map<String, Object> mapping : mappings) {
+            Map<String, Object> copy = new LinkedHashMap<>(mapping);
+            copy.put("文本映射", Collections.emptyMap());
+            templateOnly.add(copy);
+        }
+        templateDeck = produce(templateOnly, "template_only");
+
+        // 已替换文本的PPT（replaceImages 的输入）
+        textDeck = produce(mappings, "with_text");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws Exception {
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public void replaceTexts(WorkCopies copies) throws Exception {
+        ProduceUtil.replaceTextsInPPT(copies.textWork.toString(), mappings, null);
+    }
+
+    @Benchmark
+    public boolean replaceImages(WorkCopies copies) throws Exception {
+        return ReplacePPTImagesByMappingUtil.replaceImages(copies.imageWork.toString(), mappings);
+    }
+
+    /**
+     * 按映射在临时目录中生产一份PPT
+     */
+    private Path produce(List<Map<String, Object>> pageMappings, String name) throws Exception {
+        Path dir = Files.createDirectories(workDir.resolve(name));
+        Path mappingFile = dir.resolve("ppt内容映射.txt");
+        MAPPER.writeValue(mappingFile.toFile(), pageMappings);
+        return Paths.get(ProduceUtil.producePPT(mappingFile.toString(), dir.toString()));
+    }
+}
@@ -1,6 +1,6 @@
 -- 建表：ppt_image_map，用于按页存储图片相关映射：
 -- 包括 图片提示词准备、图片提示词（若有）、图片链接映射、图片路径映射
--- 关联主表：ppt_mapping (ppt_name, page_number)
+-- 关联主表：ppt_page (ppt_name, page_number)，由 PptMappingBulkLoader 整体写入
 
 CREATE DATABASE IF NOT EXISTS pptfactory DEFAULT CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci;
 USE pptfactory;
@@ -15,7 +15,7 @@ CREATE TABLE IF NOT EXISTS ppt_image_map (
   image_path VARCHAR(1024) NULL COMMENT '下载到本地后的图片路径（相对仓库路径）',
   created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
   PRIMARY KEY (ppt_name, page_number, map_key),
-  CONSTRAINT fk_ppt_image_map_page FOREIGN KEY (ppt_name, page_number) REFERENCES ppt_mapping (ppt_name, page_number) ON DELETE CASCADE
+  CONSTRAINT fk_ppt_image_map_page FOREIGN KEY (ppt_name, page_number) REFERENCES ppt_page (ppt_name, page_number) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
 
 -- 示例：
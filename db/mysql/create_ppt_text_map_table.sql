@@ -1,5 +1,5 @@
 -- 建表：ppt_text_map，用于按页存储 `文本映射` 的每一条键值对
--- 关联主表：ppt_mapping (ppt_name, page_number)
+-- 关联主表：ppt_page (ppt_name, page_number)，由 PptMappingBulkLoader 整体写入
 
 CREATE DATABASE IF NOT EXISTS pptfactory DEFAULT CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci;
 USE pptfactory;
@@ -11,7 +11,7 @@ CREATE TABLE IF NOT EXISTS ppt_text_map (
   map_value LONGTEXT NULL COMMENT '对应的文本值',
   created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
   PRIMARY KEY (ppt_name, page_number, map_key),
-  CONSTRAINT fk_ppt_text_map_page FOREIGN KEY (ppt_name, page_number) REFERENCES ppt_mapping (ppt_name, page_number) ON DELETE CASCADE
+  CONSTRAINT fk_ppt_text_map_page FOREIGN KEY (ppt_name, page_number) REFERENCES ppt_page (ppt_name, page_number) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
 
 -- 示例：
@@ -0,0 +1,121 @@
+#!/bin/bash
+# 使用 AppCDS 归档快速启动 GeneratePPT / ProduceUtil
+#
+# 单个PPT的短任务大部分时间花在 JVM 加载 Aspose、POI、Jackson、Tika 的类上。
+# 先执行一次 train：运行 AppCdsTraining（渲染示例PPT + 生产一份PPT），JVM 退出时把加载过的类写入归档；
+# 之后 generate / produce 以该归档启动，直接映射已解析好的类。
+#
+# 用法：
+#   ./fast_start.sh train                                   训练并生成归档（重新打包或依赖变化后需要重新执行）
+#   ./fast_start.sh generate <输入JSON> -o <输出> [--style 风格] [--template 模板]
+#   ./fast_start.sh produce                                 按 produce/ppt内容映射.txt 生产PPT
+#   ./fast_start.sh bench [次数]                            对比有无归档时 ProduceUtil 的启动+运行耗时
+#
+# 注意：归档只对训练时的 classpath 有效（同样的 JAR 文件、同样的顺序），
+# classpath 不匹配时 JVM 会忽略归档并正常启动（只是没有加速）。
+
+ASPOSE_JAR="lib/aspose-slides-25.11-jdk16.jar"
+JAR_FILE="target/ppt-template-engine-1.0.0-jar-with-dependencies.jar"
+ARCHIVE="target/pptfactory.jsa"
+
+# 检查 Aspose JAR 是否存在
+if [ ! -f "$ASPOSE_JAR" ]; then
+    echo "错误：找不到 Aspose.Slides JAR 文件"
+    echo "请将 aspose-slides-25.11-jdk16.jar 下载到 lib/ 文件夹"
+    echo "下载地址：https://products.aspose.com/slides/java"
+    exit 1
+fi
+
+# 检查 JAR 文件是否存在，如果不存在则打包
+if [ ! -f "$JAR_FILE" ]; then
+    echo "正在打包项目（包含所有依赖）..."
+    mvn package -DskipTests
+    if [ $? -ne 0 ]; then
+        echo "打包失败，请检查错误信息"
+        exit 1
+    fi
+    echo "✓ 打包完成"
+fi
+
+# 设置区域设置为 en-US，避免 Aspose.Slides 不支持的系统区域设置问题（与 run_pptx.sh 相同）
+export LC_ALL=en_US.UTF-8
+export LANG=en_US.UTF-8
+export LANGUAGE=en_US
+
+# 训练和运行必须使用完全相同的 classpath
+CLASSPATH_ARG="$JAR_FILE:$ASPOSE_JAR"
+JAVA_OPTS=(-Duser.language=en -Duser.country=US -Djava.locale.providers=COMPAT -Dfile.encoding=UTF-8)
+
+run_with_archive() {
+    if [ -f "$ARCHIVE" ] && [ "$ARCHIVE" -nt "$JAR_FILE" ]; then
+        java "${JAVA_OPTS[@]}" -XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto -cp "$CLASSPATH_ARG" "$@"
+    else
+        echo "⚠ 没有可用的 CDS 归档（或归档早于 $JAR_FILE），按普通方式启动；执行 ./fast_start.sh train 生成归档" >&2
+        java "${JAVA_OPTS[@]}" -cp "$CLASSPATH_ARG" "$@"
+    fi
+}
+
+case "$1" in
+    train)
+        echo "正在训练 CDS 归档..."
+        rm -f "$ARCHIVE"
+        java "${JAVA_OPTS[@]}" -XX:ArchiveClassesAtExit="$ARCHIVE" -Xlog:cds=off -Xlog:cds+dynamic=off \
+            -cp "$CLASSPATH_ARG" com.pptfactory.cli.AppCdsTraining
+        if [ ! -f "$ARCHIVE" ]; then
+            echo "✗ 归档生成失败，请检查错误信息"
+            exit 1
+        fi
+        echo "✓ 归档已生成: $ARCHIVE ($(du -h "$ARCHIVE" | cut -f1))"
+        ;;
+    generate)
+        shift
+        run_with_archive com.pptfactory.cli.GeneratePPT "$@"
+        ;;
+    produce)
+        shift
+        run_with_archive com.pptfactory.util.ProduceUtil "$@"
+        ;;
+    bench)
+        if [ ! -f "$ARCHIVE" ]; then
+            echo "错误：找不到归档 $ARCHIVE，请先执行 ./fast_start.sh train"
+            exit 1
+        fi
+        RUNS=${2:-5}
+        MAPPING="produce/ppt内容映射.txt"
+        BACKUP=$(mktemp)
+        cp "$MAPPING" "$BACKUP"
+        elapsed_ms() {
+            local start end
+            start=$(date +%s%N)
+            java "${JAVA_OPTS[@]}" "$@" -cp "$CLASSPATH_ARG" com.pptfactory.util.ProduceUtil > /dev/null 2>&1
+            end=$(date +%s%N)
+            # 每次运行都会改写映射文件并生成新PPT，恢复原状保证每次做同样的工作
+            cp "$BACKUP" "$MAPPING"
+            echo $(( (end - start) / 1000000 ))
+        }
+        BEFORE=$(ls produce/new_ppt_*.pptx 2>/dev/null)
+        TOTAL_OFF=0
+        TOTAL_ON=0
+        for i in $(seq 1 "$RUNS"); do
+            OFF=$(elapsed_ms -Xshare:auto)
+            ON=$(elapsed_ms -XX:SharedArchiveFile="$ARCHIVE")
+            echo "第 $i 次：无归档 ${OFF} ms，有归档 ${ON} ms"
+            TOTAL_OFF=$((TOTAL_OFF + OFF))
+            TOTAL_ON=$((TOTAL_ON + ON))
+        done
+        # 删除测试中生成的PPT
+        for f in produce/new_ppt_*.pptx; do
+            if [ -f "$f" ] && ! echo "$BEFORE" | grep -qx "$f"; then
+                rm -f "$f"
+            fi
+        done
+        rm -f "$BACKUP"
+        AVG_OFF=$((TOTAL_OFF / RUNS))
+        AVG_ON=$((TOTAL_ON / RUNS))
+        echo "平均：无归档 ${AVG_OFF} ms，有归档 ${AVG_ON} ms，缩短 $(( (AVG_OFF - AVG_ON) * 100 / AVG_OFF ))%"
+        ;;
+    *)
+        echo "用法: $0 {train|generate <参数>|produce|bench [次数]}"
+        exit 1
+        ;;
+esac
@@ -1,16 +1,71 @@
 package com.pptfactory.ai;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.stream.Stream;
 
 /**
  * 内容生成器类
  * 
  * 负责与大模型交互，将用户的输入转换为结构化的PPT内容（JSON格式）。
  * 在实际实现中，这里会调用大模型API（如GPT、Claude等）。
+ * 
+ * 配置了模型接口地址（OpenAI 兼容的 /chat/completions，stream=true）时，按流式方式生成：
+ * 模型每输出一段文本就交给 SlideStreamParser 增量解析，slides 数组中的每一页一结束就立即交出，
+ * 调用方（例如 PPTTemplateEngine.renderFromStream）可以在后面的页还在生成时先渲染前面的页。
+ * 未配置接口地址时返回示例结构。
+ * 
+ * 模型输出按（提示词, 模型, 模板集合）缓存在磁盘上（GenerationCache），同样的需求文本再次生成时直接读缓存，
+ * 只调整模板时不再等待模型。
+ * 
+ * 接口地址和密钥也可以通过 -Dpptfactory.llm.endpoint 和环境变量 LLM_API_KEY 指定。
  */
 public class ContentGenerator {
     
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    
+    // 要求模型输出的格式
+    private static final String SYSTEM_PROMPT = "你是PPT内容生成助手。只输出JSON，格式为 {\"slides\": [...]}，"
+            + "每一页包含 layout、title，以及 subtitle、bullets、text、image_path 等字段，不要输出其他文字。";
+    
     private String modelName;
+    private final String endpoint;
+    private final String apiKey;
+    private final GenerationCache cache;
+    
+    /**
+     * 逐页接收生成结果的回调
+     */
+    public interface SlideListener {
+        /**
+         * 解析出一页幻灯片
+         * 
+         * @param index 页码（从0开始）
+         * @param slide 幻灯片数据
+         */
+        void onSlide(int index, Map<String, Object> slide);
+        
+        /**
+         * 生成结束
+         */
+        default void onComplete(int slideCount) {
+        }
+    }
     
     /**
      * 初始化内容生成器
@@ -18,7 +73,34 @@ public class ContentGenerator {
      * @param modelName 模型名称，用于指定使用哪个大模型
      */
     public ContentGenerator(String modelName) {
+        this(modelName, System.getProperty("pptfactory.llm.endpoint"), System.getenv("LLM_API_KEY"));
+    }
+    
+    /**
+     * 初始化内容生成器，并指定模型接口
+     * 
+     * @param modelName 模型名称
+     * @param endpoint 模型接口地址（OpenAI 兼容的 /chat/completions），为 null 时返回示例结构
+     * @param apiKey 接口密钥，可为 null
+     */
+    public ContentGenerator(String modelName, String endpoint, String apiKey) {
+        this(modelName, endpoint, apiKey, GenerationCache.getDefault());
+    }
+    
+    /**
+     * 初始化内容生成器，并指定模型接口和生成缓存
+     * 
+     * @param cache 生成缓存，为 null 时每次都调用模型
+     */
+    public ContentGenerator(String modelName, String endpoint, String apiKey, GenerationCache cache) {
         this.modelName = modelName;
+        this.endpoint = endpoint;
+        this.apiKey = apiKey;
+        this.cache = cache;
+    }
+    
+    public GenerationCache getCache() {
+        return cache;
     }
     
     /**
@@ -30,8 +112,15 @@ public class ContentGenerator {
      * @return 包含slides数组的Map
      */
     public Map<String, Object> generateSlides(String userInput) {
-        // TODO: 实际实现中，这里应该调用大模型API
-        // 示例：返回一个示例结构
+        if (endpoint != null) {
+            List<Map<String, Object>> slides = new ArrayList<>();
+            generateSlides(userInput, (index, slide) -> slides.add(slide));
+            Map<String, Object> result = new HashMap<>();
+            result.put("slides", slides);
+            return result;
+        }
+        
+        // 未配置模型接口：返回一个示例结构
         Map<String, Object> result = new HashMap<>();
         List<Map<String, Object>> slides = new ArrayList<>();
         
@@ -50,5 +139,157 @@ public class ContentGenerator {
         result.put("slides", slides);
         return result;
     }
+    
+    /**
+     * 流式生成：每解析出一页就回调一次，在当前线程上阻塞直到模型输出结束
+     * 
+     * @param userInput 用户的自然语言输入
+     * @param listener 逐页回调
+     * @return 生成的页数
+     */
+    public int generateSlides(String userInput, SlideListener listener) {
+        if (endpoint == null) {
+            // 未配置模型接口：把示例结构逐页交出
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> slides = (List<Map<String, Object>>) generateSlides(userInput).get("slides");
+            for (int i = 0; i < slides.size(); i++) {
+                listener.onSlide(i, slides.get(i));
+            }
+            listener.onComplete(slides.size());
+            return slides.size();
+        }
+        
+        try {
+            int[] count = {0};
+            SlideStreamParser parser = new SlideStreamParser(slide -> listener.onSlide(count[0]++, slide));
+            String cacheKey = cache != null ? cache.key(SYSTEM_PROMPT + "\n" + userInput, modelName) : null;
+            String cached = cacheKey != null ? cache.get(cacheKey) : null;
+            if (cached != null) {
+                System.out.println("✓ 命中生成缓存，跳过模型调用（" + cache.getStats() + "）");
+                parser.feed(cached);
+                parser.finish();
+            } else {
+                String response = streamCompletion(userInput, parser::feed);
+                parser.finish();
+                // 解析成功才写入缓存，不完整的输出下次重新生成
+                if (cacheKey != null) {
+                    cache.put(cacheKey, modelName, response);
+                }
+            }
+            listener.onComplete(parser.getSlideCount());
+            return parser.getSlideCount();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("流式生成失败: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 模型输出的一段文本
+     */
+    private interface ChunkHandler {
+        void accept(String chunk) throws Exception;
+    }
+    
+    /**
+     * 调用模型流式接口，每收到一段文本就交给 onChunk，返回完整输出
+     */
+    private String streamCompletion(String userInput, ChunkHandler onChunk) throws Exception {
+        HttpResponse<Stream<String>> response;
+        try {
+            response = CLIENT.send(buildRequest(userInput), HttpResponse.BodyHandlers.ofLines());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("流式生成被中断", e);
+        }
+        if (response.statusCode() / 100 != 2) {
+            response.body().close();
+            throw new RuntimeException("模型接口返回错误状态: " + response.statusCode());
+        }
+        StringBuilder text = new StringBuilder();
+        try (Stream<String> lines = response.body()) {
+            Iterator<String> it = lines.iterator();
+            while (it.hasNext()) {
+                String chunk = contentOf(it.next());
+                if (chunk == null) {
+                    break;
+                }
+                text.append(chunk);
+                onChunk.accept(chunk);
+            }
+        }
+        return text.toString();
+    }
+    
+    /**
+     * 流式生成，以 Flow.Publisher 的形式逐页发布幻灯片
+     * 
+     * 每个订阅者订阅时才发起一次生成（在后台线程上调用模型），
+     * 订阅者处理较慢时最多缓存 Flow.defaultBufferSize() 页，之后生成线程等待。
+     * 
+     * @param userInput 用户的自然语言输入
+     * @return 幻灯片发布者
+     */
+    public Flow.Publisher<Map<String, Object>> streamSlides(String userInput) {
+        return subscriber -> {
+            SubmissionPublisher<Map<String, Object>> publisher = new SubmissionPublisher<>();
+            publisher.subscribe(subscriber);
+            Thread worker = new Thread(() -> {
+                try {
+                    generateSlides(userInput, (index, slide) -> publisher.submit(slide));
+                    publisher.close();
+                } catch (Throwable e) {
+                    publisher.closeExceptionally(e);
+                }
+            }, "content-generator-stream");
+            worker.setDaemon(true);
+            worker.start();
+        };
+    }
+    
+    private HttpRequest buildRequest(String userInput) throws Exception {
+        ObjectNode body = MAPPER.createObjectNode();
+        body.put("model", modelName);
+        body.put("stream", true);
+        ArrayNode messages = body.putArray("messages");
+        messages.addObject().put("role", "system").put("content", SYSTEM_PROMPT);
+        messages.addObject().put("role", "user").put("content", userInput);
+        
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(endpoint))
+                .timeout(Duration.ofMinutes(5))
+                .header("Content-Type", "application/json; charset=utf-8")
+                .header("Accept", "text/event-stream")
+                .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body), StandardCharsets.UTF_8));
+        if (apiKey != null && !apiKey.isEmpty()) {
+            builder.header("Authorization", "Bearer " + apiKey);
+        }
+        return builder.build();
+    }
+    
+    /**
+     * 从响应的一行中取出模型输出的文本
+     * 
+     * SSE 格式（data: {...choices[0].delta.content...}）取增量内容，data: [DONE] 返回 null 表示结束，
+     * 事件之间的空行和注释行忽略；其他行（非流式接口直接返回的正文）原样返回。
+     */
+    private static String contentOf(String line) throws Exception {
+        if (line.startsWith("data:")) {
+            String data = line.substring(5).trim();
+            if ("[DONE]".equals(data)) {
+                return null;
+            }
+            if (data.isEmpty()) {
+                return "";
+            }
+            JsonNode node = MAPPER.readTree(data);
+            JsonNode content = node.path("choices").path(0).path("delta").path("content");
+            return content.isTextual() ? content.asText() : "";
+        }
+        if (line.isEmpty() || line.startsWith("event:") || line.startsWith("id:") || line.startsWith(":")) {
+            return "";
+        }
+        return line + "\n";
+    }
 }
-
@@ -0,0 +1,324 @@
+package com.pptfactory.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pptfactory.util.TemplateMetadataCatalog;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 大模型生成结果的磁盘缓存
+ *
+ * 生成大纲目录、生成内容页时经常用同样的需求文本反复调用模型（只是在调整模板）。
+ * 这里按（规范化后的提示词, 模型名称, 模板集合）的 SHA-256 缓存模型输出的完整文本，命中时不再调用模型：
+ * - 提示词规范化：统一换行符、去掉每行首尾空白、合并连续空行，只改格式的提示词也能命中
+ * - 模板集合：元信息目录中各模板的目录键、layout_type 和占位符组成；只改模板样式、图片时仍然命中，
+ *   增删模板或改变占位符结构时失效（模型输出依赖这些信息）。元信息文件的修改时间或大小变化时重新计算，
+ *   长期运行的进程（例如 RenderServer）不需要重启
+ * - 每项一个 JSON 文件（cache/llm/<key>.json），先写临时文件再原子替换，多个进程可以共用一个目录
+ * - 超过 TTL 的项在读取时删除；写入后总大小超过上限时，按最后访问时间从旧到新删除
+ *
+ * 配置（系统属性）：
+ * - pptfactory.llm.cache=false 关闭缓存
+ * - pptfactory.llm.cache.dir 缓存目录（默认 cache/llm）
+ * - pptfactory.llm.cache.ttlHours 有效期（小时，默认 168）
+ * - pptfactory.llm.cache.maxMb 总大小上限（MB，默认 64）
+ */
+public class GenerationCache {
+
+    private static final String PROJECT_ROOT = System.getProperty("user.dir");
+    private static final String DEFAULT_DIR = PROJECT_ROOT + "/cache/llm";
+    private static final String TEMPLATES_DIR = PROJECT_ROOT + "/templates";
+    private static final String TYPE_DIR_PREFIX = "type_";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static volatile GenerationCache defaultCache;
+
+    private final File dir;
+    private final long ttlMillis;
+    private final long maxBytes;
+    private final String templatesDir;
+    private volatile TemplateSet templateSet;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * 模板集合的指纹及计算时各元信息文件的修改时间和大小
+     */
+    private static final class TemplateSet {
+        final String fingerprint;
+        final String fileState;
+
+        TemplateSet(String fingerprint, String fileState) {
+            this.fingerprint = fingerprint;
+            this.fileState = fileState;
+        }
+    }
+
+    /**
+     * @param dir 缓存目录
+     * @param ttlMillis 有效期（毫秒）
+     * @param maxBytes 总大小上限（字节）
+     */
+    public GenerationCache(File dir, long ttlMillis, long maxBytes) {
+        this(dir, ttlMillis, maxBytes, TEMPLATES_DIR);
+    }
+
+    /**
+     * @param templatesDir 计算模板集合指纹的 templates 目录（其下的 metadata 和 type_xxx/metadata）
+     */
+    GenerationCache(File dir, long ttlMillis, long maxBytes, String templatesDir) {
+        this.dir = dir;
+        this.ttlMillis = ttlMillis;
+        this.maxBytes = maxBytes;
+        this.templatesDir = templatesDir;
+    }
+
+    /**
+     * 进程级的默认缓存（按系统属性配置），关闭缓存时返回 null
+     */
+    public static GenerationCache getDefault() {
+        if ("false".equals(System.getProperty("pptfactory.llm.cache"))) {
+            return null;
+        }
+        GenerationCache cache = defaultCache;
+        if (cache == null) {
+            synchronized (GenerationCache.class) {
+                cache = defaultCache;
+                if (cache == null) {
+                    long ttlHours = Long.getLong("pptfactory.llm.cache.ttlHours", 168);
+                    long maxMb = Long.getLong("pptfactory.llm.cache.maxMb", 64);
+                    cache = new GenerationCache(new File(System.getProperty("pptfactory.llm.cache.dir", DEFAULT_DIR)),
+                            ttlHours * 3600_000L, maxMb * 1024 * 1024);
+                    defaultCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * 缓存键：SHA-256(规范化提示词, 模型名称, 模板集合)
+     */
+    public String key(String prompt, String modelName) {
+        return sha256(normalize(prompt) + "\u0000" + modelName + "\u0000" + getTemplateSet());
+    }
+
+    /**
+     * 查询缓存，未命中或已过期时返回 null
+     */
+    public String get(String key) {
+        File file = fileFor(key);
+        if (!file.isFile()) {
+            misses.incrementAndGet();
+            return null;
+        }
+        try {
+            JsonNode node = MAPPER.readTree(file);
+            long createdAt = node.path("createdAt").asLong();
+            if (System.currentTimeMillis() - createdAt > ttlMillis) {
+                Files.deleteIfExists(file.toPath());
+                expired.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+            // 记录最后访问时间，淘汰时优先删除最久未使用的项
+            file.setLastModified(System.currentTimeMillis());
+            hits.incrementAndGet();
+            return node.path("response").asText();
+        } catch (Exception e) {
+            System.err.println("警告：读取生成缓存失败 " + file.getPath() + ": " + e.getMessage());
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * 写入缓存（写入失败只打印警告，不影响生成）
+     */
+    public void put(String key, String modelName, String response) {
+        try {
+            if (!dir.exists()) {
+                dir.mkdirs();
+            }
+            ObjectNode node = MAPPER.createObjectNode();
+            node.put("key", key);
+            node.put("model", modelName);
+            node.put("createdAt", System.currentTimeMillis());
+            node.put("response", response);
+
+            File file = fileFor(key);
+            Path tmp = Files.createTempFile(dir.toPath(), key.substring(0, 8), ".json.tmp");
+            try {
+                MAPPER.writeValue(tmp.toFile(), node);
+                try {
+                    Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            evictIfNeeded();
+        } catch (Exception e) {
+            System.err.println("警告：写入生成缓存失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 总大小超过上限时，按最后访问时间从旧到新删除
+     */
+    private void evictIfNeeded() {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".json"));
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File f : files) {
+            total += f.length();
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File f : files) {
+            if (total <= maxBytes) {
+                break;
+            }
+            long length = f.length();
+            if (f.delete()) {
+                total -= length;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public String getStats() {
+        long h = hits.get();
+        long m = misses.get();
+        return String.format("命中 %d，未命中 %d（命中率 %.0f%%），过期 %d，淘汰 %d",
+                h, m, h + m > 0 ? 100.0 * h / (h + m) : 0.0, expired.get(), evictions.get());
+    }
+
+    /**
+     * 提示词规范化：统一换行符、去掉每行首尾空白、合并连续空行、去掉开头和结尾的空行
+     */
+    static String normalize(String prompt) {
+        if (prompt == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        boolean blank = false;
+        for (String line : prompt.replace("\r\n", "\n").replace('\r', '\n').split("\n", -1)) {
+            String trimmed = line.strip();
+            if (trimmed.isEmpty()) {
+                blank = sb.length() > 0;
+                continue;
+            }
+            if (blank) {
+                sb.append('\n');
+                blank = false;
+            }
+            if (sb.length() > 0) {
+                sb.append('\n');
+            }
+            sb.append(trimmed);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 模板集合的指纹：元信息文件的修改时间和大小都没变时复用上次的结果，否则重新加载元信息目录计算
+     */
+    private String getTemplateSet() {
+        String fileState = metadataFileState();
+        TemplateSet set = templateSet;
+        if (set != null && set.fileState.equals(fileState)) {
+            return set.fingerprint;
+        }
+        synchronized (this) {
+            set = templateSet;
+            if (set == null || !set.fileState.equals(fileState)) {
+                // 文件状态在加载前取得：加载期间文件又被改写时，下次计算会发现状态不一致并重新加载
+                StringBuilder sb = new StringBuilder();
+                try {
+                    List<TemplateMetadataCatalog.TemplateMetadata> all = new ArrayList<>(TemplateMetadataCatalog.load(templatesDir).getAll());
+                    all.sort(Comparator.comparing(TemplateMetadataCatalog.TemplateMetadata::getKey));
+                    for (TemplateMetadataCatalog.TemplateMetadata m : all) {
+                        sb.append(m.getKey()).append('|').append(m.getLayoutType()).append('|')
+                                .append(new TreeMap<>(m.getPlaceholderCounts())).append('\n');
+                    }
+                } catch (Exception e) {
+                    System.err.println("警告：读取模板元信息失败，缓存键不包含模板集合: " + e.getMessage());
+                }
+                set = new TemplateSet(sha256(sb.toString()), fileState);
+                templateSet = set;
+            }
+            return set.fingerprint;
+        }
+    }
+
+    /**
+     * 各元信息文件的路径、修改时间和大小（metadata 和 type_xxx/metadata 下的 *.json）
+     */
+    private String metadataFileState() {
+        List<File> files = new ArrayList<>();
+        collectMetadataFiles(new File(templatesDir, "metadata"), files);
+        File[] typeDirs = new File(templatesDir).listFiles(f -> f.isDirectory() && f.getName().startsWith(TYPE_DIR_PREFIX));
+        if (typeDirs != null) {
+            for (File typeDir : typeDirs) {
+                collectMetadataFiles(new File(typeDir, "metadata"), files);
+            }
+        }
+        files.sort(Comparator.comparing(File::getPath));
+        StringBuilder sb = new StringBuilder();
+        for (File f : files) {
+            sb.append(f.getPath()).append('|').append(f.lastModified()).append('|').append(f.length()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void collectMetadataFiles(File metadataDir, List<File> files) {
+        File[] jsonFiles = metadataDir.listFiles((d, name) -> name.endsWith(".json"));
+        if (jsonFiles != null) {
+            files.addAll(Arrays.asList(jsonFiles));
+        }
+    }
+
+    private File fileFor(String key) {
+        return new File(dir, key + ".json");
+    }
+
+    private static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (Exception e) {
+            throw new RuntimeException("计算缓存键失败: " + e.getMessage(), e);
+        }
+    }
+}
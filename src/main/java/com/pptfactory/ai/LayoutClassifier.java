@@ -7,15 +7,33 @@ import java.util.*;
  * 
  * 负责根据内容特征自动选择合适的PPT布局类型。
  * 可以使用大模型、规则引擎或机器学习模型来实现分类逻辑。
+ * 
+ * 提供模板特征索引（TemplateFeatureIndex）时，还会为每页内容匹配最接近的模板页（template_id），
+ * 按占位符组成、文本长度和面积做最近邻查找，不调用大模型。
  */
 public class LayoutClassifier {
     
     private List<String> availableLayouts;
     
+    /**
+     * 模板特征索引，为 null 时只做规则分类
+     */
+    private final TemplateFeatureIndex templateIndex;
+    
     /**
      * 初始化布局分类器
      */
     public LayoutClassifier() {
+        this(null);
+    }
+    
+    /**
+     * 初始化布局分类器，并使用模板特征索引匹配模板页
+     * 
+     * @param templateIndex 模板特征索引，为 null 时只做规则分类
+     */
+    public LayoutClassifier(TemplateFeatureIndex templateIndex) {
+        this.templateIndex = templateIndex;
         // 可用的布局类型
         this.availableLayouts = Arrays.asList(
             "title_page",      // 标题页
@@ -55,9 +73,33 @@ public class LayoutClassifier {
         return "content_page";
     }
     
+    /**
+     * 为内容匹配最接近的模板页
+     * 
+     * @param content 内容Map
+     * @return 匹配结果，未提供模板特征索引或索引为空时返回 null
+     */
+    public TemplateFeatureIndex.Match classifyTemplate(Map<String, Object> content) {
+        return templateIndex != null ? templateIndex.nearest(content) : null;
+    }
+    
+    /**
+     * 批量匹配模板页（结果与输入顺序一致）
+     */
+    public List<TemplateFeatureIndex.Match> classifyTemplates(List<Map<String, Object>> contents) {
+        List<TemplateFeatureIndex.Match> matches = new ArrayList<>(contents.size());
+        for (Map<String, Object> content : contents) {
+            matches.add(classifyTemplate(content));
+        }
+        return matches;
+    }
+    
     /**
      * 自动为所有幻灯片分类布局类型
      * 
+     * 配置了模板特征索引时同时写入 template_id，值为模板目录键（通用模板为 "T003"，
+     * 类型模板为 "purchase/T002"），可直接用 TemplateMetadataCatalog.get(key) 查询。
+     * 
      * @param slidesData 包含slides数组的Map，可能没有layout字段
      * @return 添加了layout字段的slides数据
      */
@@ -75,6 +117,13 @@ public class LayoutClassifier {
                     if (!slide.containsKey("layout")) {
                         slide.put("layout", classifyLayout(slide));
                     }
+                    // 同样保留已有的template_id；写入目录键，不同类型下的同名模板ID不会混淆
+                    if (templateIndex != null && !slide.containsKey("template_id")) {
+                        TemplateFeatureIndex.Match match = templateIndex.nearest(slide);
+                        if (match != null) {
+                            slide.put("template_id", match.getKey());
+                        }
+                    }
                     slides.add(slide);
                 }
             }
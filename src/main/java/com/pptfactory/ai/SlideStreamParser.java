@@ -0,0 +1,157 @@
+package com.pptfactory.ai;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 幻灯片JSON增量解析器
+ *
+ * 大模型以流的方式逐段输出 {"slides": [{...}, {...}, ...]}（或直接输出 [{...}, ...]），
+ * 每收到一段文本就调用 feed() 喂给 Jackson 的非阻塞解析器；slides 数组中的某一项一结束就立即回调，
+ * 不需要等整个JSON输出完毕，第1页可以在第20页还在生成时就开始渲染。
+ *
+ * 模型在JSON前后输出的多余文字（例如 ```json 代码块标记）会被忽略。
+ * 非线程安全，同一个解析器只能由一个线程喂数据。
+ */
+public class SlideStreamParser {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<Map<String, Object>>() {};
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final Consumer<Map<String, Object>> onSlide;
+
+    private boolean started = false;
+    private boolean finished = false;
+    private int depth = 0;
+    // slides 数组所在的深度（数组本身的 START_ARRAY 之后），-1 表示还没进入 slides 数组
+    private int slidesDepth = -1;
+    private boolean expectSlidesArray = false;
+    private TokenBuffer current = null;
+    private int slideCount = 0;
+
+    /**
+     * @param onSlide 每解析出一页幻灯片时回调（在调用 feed() 的线程上执行）
+     */
+    public SlideStreamParser(Consumer<Map<String, Object>> onSlide) throws IOException {
+        this.parser = new JsonFactory().createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.onSlide = onSlide;
+    }
+
+    /**
+     * 喂入模型输出的一段文本
+     */
+    public void feed(String chunk) throws IOException {
+        if (finished || chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        if (!started) {
+            // 跳过JSON开始之前的多余文字
+            int start = indexOfJsonStart(chunk);
+            if (start < 0) {
+                return;
+            }
+            chunk = chunk.substring(start);
+            started = true;
+        }
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        feeder.feedInput(bytes, 0, bytes.length);
+        drain();
+    }
+
+    /**
+     * 输入结束，JSON不完整时抛出异常（已经回调的幻灯片不受影响）
+     */
+    public void finish() throws IOException {
+        if (!finished) {
+            feeder.endOfInput();
+            if (started) {
+                drain();
+            }
+        }
+        if (!finished) {
+            throw new IOException("模型输出的JSON不完整，已解析 " + slideCount + " 页");
+        }
+    }
+
+    public int getSlideCount() {
+        return slideCount;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while (!finished && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (current != null) {
+                current.copyCurrentEvent(parser);
+            }
+            switch (token) {
+                case START_OBJECT:
+                    if (current == null && depth == slidesDepth) {
+                        current = new TokenBuffer(parser);
+                        current.copyCurrentEvent(parser);
+                    }
+                    depth++;
+                    break;
+                case START_ARRAY:
+                    if (depth == 0 || expectSlidesArray) {
+                        slidesDepth = depth + 1;
+                    }
+                    expectSlidesArray = false;
+                    depth++;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    depth--;
+                    if (token == JsonToken.END_OBJECT && current != null && depth == slidesDepth) {
+                        emit();
+                    }
+                    if (depth == 0) {
+                        finished = true;
+                    }
+                    break;
+                case FIELD_NAME:
+                    expectSlidesArray = depth == 1 && slidesDepth < 0 && "slides".equals(parser.getCurrentName());
+                    break;
+                default:
+                    expectSlidesArray = false;
+                    break;
+            }
+        }
+    }
+
+    private void emit() throws IOException {
+        TokenBuffer buffer = current;
+        current = null;
+        try (JsonParser slideParser = buffer.asParser(MAPPER)) {
+            Map<String, Object> slide = MAPPER.readValue(slideParser, MAP_TYPE);
+            slideCount++;
+            onSlide.accept(slide);
+        }
+    }
+
+    private static int indexOfJsonStart(String chunk) {
+        for (int i = 0; i < chunk.length(); i++) {
+            char c = chunk.charAt(i);
+            if (c == '{' || c == '[') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
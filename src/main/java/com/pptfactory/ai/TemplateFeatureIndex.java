@@ -0,0 +1,342 @@
+package com.pptfactory.ai;
+
+import com.pptfactory.util.TemplateMetadataCatalog;
+import com.pptfactory.util.TextFitter;
+
+import java.util.*;
+
+/**
+ * 模板特征索引（最近邻匹配）
+ *
+ * 构建时把 templates/metadata/*.json 中每个模板的占位符转成一个定长特征向量：
+ * - 各类占位符数量：标题（title / section_title）、副标题、小标题、正文、图注、图片
+ * - 文本长度：标题、小标题、正文的建议字数（suggested_length 取中值后求和，取对数）
+ * - 面积：图片占位符和文本占位符的 bbox 面积之和（相对页面）
+ *
+ * 各维度按模板间的标准差归一化并乘以权重后，连续存放在一个 double 数组里；
+ * 查询时把幻灯片内容（title、subtitle、bullets、text、image_path 等字段）转成同样的向量，
+ * 线性扫描求欧氏距离最近的模板（距离超过当前最优时提前结束该模板的计算）。
+ * 模板数量通常只有几十个，线性扫描比树形索引更快，批量分类几千页也只需几毫秒，不调用大模型。
+ */
+public class TemplateFeatureIndex {
+
+    // 特征维度
+    static final int TITLE = 0;
+    static final int SUBTITLE = 1;
+    static final int HEADING = 2;
+    static final int BODY = 3;
+    static final int CAPTION = 4;
+    static final int IMAGE = 5;
+    static final int TITLE_CHARS = 6;
+    static final int HEADING_CHARS = 7;
+    static final int BODY_CHARS = 8;
+    static final int IMAGE_AREA = 9;
+    static final int TEXT_AREA = 10;
+    static final int DIMENSIONS = 11;
+
+    /**
+     * 各维度的权重：占位符数量决定版面结构，权重最高；字数和面积只用于在结构相近的模板之间区分
+     */
+    private static final double[] WEIGHTS = {2.0, 1.5, 1.5, 1.5, 1.0, 2.5, 0.5, 0.5, 0.8, 0.6, 0.6};
+
+    /**
+     * 单个匹配结果
+     */
+    public static class Match {
+        private final String key;
+        private final String templateId;
+        private final String layoutType;
+        private final double distance;
+
+        Match(String key, String templateId, String layoutType, double distance) {
+            this.key = key;
+            this.templateId = templateId;
+            this.layoutType = layoutType;
+            this.distance = distance;
+        }
+
+        /**
+         * 目录键（通用模板为模板ID，类型模板为 "类型/模板ID"）
+         */
+        public String getKey() { return key; }
+        public String getTemplateId() { return templateId; }
+        public String getLayoutType() { return layoutType; }
+        public double getDistance() { return distance; }
+
+        @Override
+        public String toString() {
+            return String.format("%s(%s, 距离 %.3f)", key, layoutType, distance);
+        }
+    }
+
+    private final String[] keys;
+    private final String[] templateIds;
+    private final String[] layoutTypes;
+    // 归一化并加权后的模板向量，第 i 个模板占 [i * DIMENSIONS, (i + 1) * DIMENSIONS)
+    private final double[] vectors;
+    private final double[] scale = new double[DIMENSIONS];
+    // 由模板统计得到的换算系数，用于估算内容向量中无法直接观察的面积维度
+    private final double areaPerImage;
+    private final double areaPerChar;
+
+    private TemplateFeatureIndex(List<TemplateMetadataCatalog.TemplateMetadata> templates) {
+        int n = templates.size();
+        keys = new String[n];
+        templateIds = new String[n];
+        layoutTypes = new String[n];
+        double[][] raw = new double[n][];
+        double imageArea = 0, images = 0, textArea = 0, chars = 0;
+        for (int i = 0; i < n; i++) {
+            TemplateMetadataCatalog.TemplateMetadata m = templates.get(i);
+            keys[i] = m.getKey();
+            templateIds[i] = m.getTemplateId();
+            layoutTypes[i] = m.getLayoutType();
+            raw[i] = templateVector(m.getRaw());
+            images += raw[i][IMAGE];
+            imageArea += raw[i][IMAGE_AREA];
+            textArea += raw[i][TEXT_AREA];
+            chars += Math.expm1(raw[i][TITLE_CHARS]) + Math.expm1(raw[i][HEADING_CHARS]) + Math.expm1(raw[i][BODY_CHARS]);
+        }
+        areaPerImage = images > 0 ? imageArea / images : 0;
+        areaPerChar = chars > 0 ? textArea / chars : 0;
+
+        // 按模板间的标准差归一化（某一维度所有模板都相同时不缩放）
+        for (int d = 0; d < DIMENSIONS; d++) {
+            double mean = 0;
+            for (double[] v : raw) {
+                mean += v[d];
+            }
+            mean /= Math.max(1, n);
+            double variance = 0;
+            for (double[] v : raw) {
+                variance += (v[d] - mean) * (v[d] - mean);
+            }
+            double std = Math.sqrt(variance / Math.max(1, n));
+            scale[d] = WEIGHTS[d] / (std > 1e-9 ? std : 1.0);
+        }
+        vectors = new double[n * DIMENSIONS];
+        for (int i = 0; i < n; i++) {
+            for (int d = 0; d < DIMENSIONS; d++) {
+                vectors[i * DIMENSIONS + d] = raw[i][d] * scale[d];
+            }
+        }
+    }
+
+    /**
+     * 用默认元信息目录中的通用模板构建索引
+     */
+    public static TemplateFeatureIndex fromDefaultCatalog() throws Exception {
+        return build(TemplateMetadataCatalog.getDefault(), "");
+    }
+
+    /**
+     * 用元信息目录中指定类型的模板构建索引
+     *
+     * @param templateType 模板类型，空字符串表示通用模板，null 表示全部模板
+     */
+    public static TemplateFeatureIndex build(TemplateMetadataCatalog catalog, String templateType) {
+        List<TemplateMetadataCatalog.TemplateMetadata> templates = new ArrayList<>();
+        for (TemplateMetadataCatalog.TemplateMetadata m : catalog.getAll()) {
+            if (templateType == null || templateType.equals(m.getTemplateType())) {
+                templates.add(m);
+            }
+        }
+        return new TemplateFeatureIndex(templates);
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * 与幻灯片内容最接近的模板，索引为空时返回 null
+     */
+    public Match nearest(Map<String, Object> content) {
+        return nearest(contentVector(content));
+    }
+
+    /**
+     * 与特征向量（未归一化）最接近的模板，索引为空时返回 null
+     */
+    public Match nearest(double[] vector) {
+        double[] q = new double[DIMENSIONS];
+        for (int d = 0; d < DIMENSIONS; d++) {
+            q[d] = vector[d] * scale[d];
+        }
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        for (int i = 0; i < keys.length; i++) {
+            int base = i * DIMENSIONS;
+            double distance = 0;
+            for (int d = 0; d < DIMENSIONS && distance < bestDistance; d++) {
+                double diff = vectors[base + d] - q[d];
+                distance += diff * diff;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = i;
+            }
+        }
+        if (best < 0) {
+            return null;
+        }
+        return new Match(keys[best], templateIds[best], layoutTypes[best], Math.sqrt(bestDistance));
+    }
+
+    /**
+     * 按距离从近到远返回前 k 个模板
+     */
+    public List<Match> nearest(Map<String, Object> content, int k) {
+        double[] vector = contentVector(content);
+        Integer[] order = new Integer[keys.length];
+        double[] distances = new double[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = i;
+            double distance = 0;
+            for (int d = 0; d < DIMENSIONS; d++) {
+                double diff = vectors[i * DIMENSIONS + d] - vector[d] * scale[d];
+                distance += diff * diff;
+            }
+            distances[i] = distance;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> distances[i]));
+        List<Match> matches = new ArrayList<>();
+        for (int i = 0; i < Math.min(k, order.length); i++) {
+            int t = order[i];
+            matches.add(new Match(keys[t], templateIds[t], layoutTypes[t], Math.sqrt(distances[t])));
+        }
+        return matches;
+    }
+
+    /**
+     * 模板元信息的特征向量
+     */
+    @SuppressWarnings("unchecked")
+    static double[] templateVector(Map<String, Object> metadata) {
+        double[] v = new double[DIMENSIONS];
+        double titleChars = 0, headingChars = 0, bodyChars = 0;
+        Object placeholders = metadata.get("placeholders");
+        if (!(placeholders instanceof List)) {
+            return v;
+        }
+        for (Object o : (List<Object>) placeholders) {
+            if (!(o instanceof Map)) {
+                continue;
+            }
+            Map<String, Object> p = (Map<String, Object>) o;
+            String type = String.valueOf(p.get("type"));
+            double area = bboxArea(p.get("bbox"));
+            double[] range = TextFitter.parseRange(p.get("suggested_length"));
+            double length = range != null ? (range[0] + range[1]) / 2 : 0;
+            switch (type) {
+                case "title":
+                case "section_title":
+                    v[TITLE]++;
+                    titleChars += length;
+                    break;
+                case "subtitle":
+                    v[SUBTITLE]++;
+                    break;
+                case "heading":
+                    v[HEADING]++;
+                    headingChars += length;
+                    break;
+                case "body_text":
+                    v[BODY]++;
+                    bodyChars += length;
+                    break;
+                case "caption":
+                    v[CAPTION]++;
+                    break;
+                case "image":
+                    v[IMAGE]++;
+                    v[IMAGE_AREA] += area;
+                    continue;
+                default:
+                    continue;
+            }
+            v[TEXT_AREA] += area;
+        }
+        v[TITLE_CHARS] = Math.log1p(titleChars);
+        v[HEADING_CHARS] = Math.log1p(headingChars);
+        v[BODY_CHARS] = Math.log1p(bodyChars);
+        return v;
+    }
+
+    /**
+     * 幻灯片内容的特征向量
+     *
+     * 识别的字段：title、subtitle、bullets / paragraphs（字符串，或含 heading/title 与 text/content 的对象）、
+     * text、left_content、right_content、captions、image_path / image、images。
+     * 面积维度无法从内容直接得到，按模板统计的每张图片面积、每个字所占面积估算。
+     */
+    public double[] contentVector(Map<String, Object> content) {
+        double[] v = new double[DIMENSIONS];
+        double titleChars = 0, headingChars = 0, bodyChars = 0;
+
+        if (content.get("title") != null) {
+            v[TITLE] = 1;
+            titleChars = content.get("title").toString().length();
+        }
+        if (content.get("subtitle") != null) {
+            v[SUBTITLE] = 1;
+        }
+        for (String key : new String[] {"bullets", "paragraphs"}) {
+            Object items = content.get(key);
+            if (!(items instanceof List)) {
+                continue;
+            }
+            for (Object item : (List<?>) items) {
+                if (item instanceof Map) {
+                    Map<?, ?> m = (Map<?, ?>) item;
+                    Object heading = m.get("heading") != null ? m.get("heading") : m.get("title");
+                    Object text = m.get("text") != null ? m.get("text") : m.get("content");
+                    if (heading != null) {
+                        v[HEADING]++;
+                        headingChars += heading.toString().length();
+                    }
+                    if (text != null) {
+                        v[BODY]++;
+                        bodyChars += text.toString().length();
+                    }
+                } else if (item != null) {
+                    v[BODY]++;
+                    bodyChars += item.toString().length();
+                }
+            }
+        }
+        for (String key : new String[] {"text", "left_content", "right_content"}) {
+            if (content.get(key) != null) {
+                v[BODY]++;
+                bodyChars += content.get(key).toString().length();
+            }
+        }
+        if (content.get("captions") instanceof List) {
+            v[CAPTION] = ((List<?>) content.get("captions")).size();
+        }
+        if (content.get("image_path") != null || content.get("image") != null) {
+            v[IMAGE]++;
+        }
+        if (content.get("images") instanceof List) {
+            v[IMAGE] += ((List<?>) content.get("images")).size();
+        }
+
+        v[TITLE_CHARS] = Math.log1p(titleChars);
+        v[HEADING_CHARS] = Math.log1p(headingChars);
+        v[BODY_CHARS] = Math.log1p(bodyChars);
+        v[IMAGE_AREA] = v[IMAGE] * areaPerImage;
+        v[TEXT_AREA] = (titleChars + headingChars + bodyChars) * areaPerChar;
+        return v;
+    }
+
+    private static double bboxArea(Object bbox) {
+        if (!(bbox instanceof List) || ((List<?>) bbox).size() < 4) {
+            return 0;
+        }
+        List<?> b = (List<?>) bbox;
+        if (!(b.get(2) instanceof Number) || !(b.get(3) instanceof Number)) {
+            return 0;
+        }
+        return ((Number) b.get(2)).doubleValue() * ((Number) b.get(3)).doubleValue();
+    }
+}
@@ -0,0 +1,107 @@
+package com.pptfactory.cli;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pptfactory.template.engine.PPTTemplateEngine;
+import com.pptfactory.util.ProduceUtil;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * AppCDS 训练程序
+ *
+ * 在 -XX:ArchiveClassesAtExit=<归档文件> 下运行一次典型任务，JVM 退出时把运行中加载的类
+ * （Aspose.Slides、POI、Jackson、Tika 以及本项目的类）写入 CDS 归档；
+ * 之后 GeneratePPT / ProduceUtil 以 -XX:SharedArchiveFile=<归档文件> 启动时直接映射归档，
+ * 省去类的查找、解析和校验，单个PPT的短任务启动时间明显缩短。
+ *
+ * 训练任务：
+ * 1. 按 GeneratePPT 的流程渲染 examples/safety_slides.json（safety 风格、safety 模板）
+ * 2. 按 ProduceUtil 的流程生产 produce/ppt内容映射.txt，并生成图片映射（映射文件复制到临时目录，不改动 produce 目录）
+ * 输出都写到临时目录，结束后删除。某个任务失败只打印警告，已经加载的类仍会写入归档。
+ *
+ * 注意：归档只对训练时的 classpath 有效（必须是同样的 JAR 文件，且顺序相同），重新打包或依赖变化后需要重新训练。
+ *
+ * 使用方法：
+ * ./fast_start.sh train（或 mvn verify -Pappcds -DskipTests）
+ */
+public class AppCdsTraining {
+
+    // 与 GeneratePPT 相同，必须在任何 Aspose.Slides 类加载之前设置
+    static {
+        Locale.setDefault(Locale.US);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== AppCDS 训练 ===");
+        Path workDir = Files.createTempDirectory("pptfactory_cds_");
+        try {
+            trainGenerate(workDir);
+            trainProduce(workDir);
+        } finally {
+            deleteRecursively(workDir);
+        }
+        System.out.println("✓ 训练完成，JVM 退出时写入归档");
+    }
+
+    /**
+     * 按 GeneratePPT 的流程渲染一份示例PPT
+     */
+    private static void trainGenerate(Path workDir) {
+        long start = System.nanoTime();
+        try {
+            Map<String, Object> slidesData = new ObjectMapper().readValue(
+                    new File("examples/safety_slides.json"), new TypeReference<Map<String, Object>>() {});
+            String templateFile = GeneratePPT.getTemplateFile("safety");
+            if (templateFile == null) {
+                templateFile = "templates/default/theme.pptx";
+            }
+            PPTTemplateEngine engine = new PPTTemplateEngine(templateFile, GeneratePPT.getStyleStrategy("safety"));
+            try {
+                engine.renderFromJson(slidesData);
+                engine.save(workDir.resolve("generate.pptx").toString());
+            } finally {
+                engine.close();
+            }
+            System.out.println(String.format("✓ GeneratePPT 训练完成，耗时 %.0f ms", (System.nanoTime() - start) / 1e6));
+        } catch (Exception e) {
+            System.err.println("警告：GeneratePPT 训练失败（已加载的类仍会写入归档）: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 按 ProduceUtil 的流程生产一份PPT并生成图片映射
+     */
+    private static void trainProduce(Path workDir) {
+        long start = System.nanoTime();
+        try {
+            File mapping = new File("produce/ppt内容映射.txt");
+            if (!mapping.isFile()) {
+                System.err.println("警告：找不到 " + mapping.getPath() + "，跳过 ProduceUtil 训练");
+                return;
+            }
+            Path mappingCopy = workDir.resolve("ppt内容映射.txt");
+            Files.copy(mapping.toPath(), mappingCopy, StandardCopyOption.REPLACE_EXISTING);
+            String outputFile = ProduceUtil.producePPT(mappingCopy.toString(), workDir.toString());
+            ProduceUtil.generateImageMappings(outputFile, mappingCopy.toString());
+            System.out.println(String.format("✓ ProduceUtil 训练完成，耗时 %.0f ms", (System.nanoTime() - start) / 1e6));
+        } catch (Exception e) {
+            System.err.println("警告：ProduceUtil 训练失败（已加载的类仍会写入归档）: " + e.getMessage());
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (Exception e) {
+            System.err.println("警告：删除临时目录失败 " + dir + ": " + e.getMessage());
+        }
+    }
+}
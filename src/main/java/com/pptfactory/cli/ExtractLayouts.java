@@ -0,0 +1,53 @@
+package com.pptfactory.cli;
+
+import com.pptfactory.template.engine.PPTTemplateEngine;
+
+import java.util.Locale;
+
+/**
+ * 经典布局提取入口
+ *
+ * 用安全生产模板创建引擎，从参考PPT（第5页到倒数第2页）提取经典布局：
+ * 重新生成 templates/master_template.pptx，并把布局样式写入 config/layouts.json 的 styles。
+ * 逐页的布局、样式分析加 -Dpptfactory.extract.parallel=true 后并行执行，每个线程单独打开一份参考PPT
+ * （线程数 -Dpptfactory.extract.threads=N，默认 min(CPU 核数, 4)），克隆和组装模板仍按页序单线程完成。
+ *
+ * 需要在项目根目录运行（按相对路径读写 templates/ 和 config/）。
+ * 运行期间会覆盖 master_template.pptx，先停掉使用该文件的渲染服务。
+ *
+ * 使用方法：
+ * mvn exec:java -Dpptfactory.extract.parallel=true -Dexec.mainClass="com.pptfactory.cli.ExtractLayouts" \
+ *     -Dexec.args="[参考PPT，默认 1.2 安全生产方针政策.pptx]"
+ */
+public class ExtractLayouts {
+
+    // 设置Locale为US，避免Aspose.Slides不支持某些Locale格式的问题
+    static {
+        Locale.setDefault(Locale.US);
+    }
+
+    private static final String DEFAULT_REFERENCE_FILE = "1.2 安全生产方针政策.pptx";
+
+    public static void main(String[] args) {
+        String referenceFile = args.length > 0 ? args[0] : DEFAULT_REFERENCE_FILE;
+        String templateFile = GeneratePPT.getTemplateFile("safety");
+        if (templateFile == null) {
+            templateFile = "templates/default/theme.pptx";
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            PPTTemplateEngine engine = new PPTTemplateEngine(templateFile, GeneratePPT.getStyleStrategy("safety"));
+            try {
+                engine.extractClassicLayouts(referenceFile);
+            } finally {
+                engine.close();
+            }
+            System.out.println("✓ 经典布局提取完成，耗时 " + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception e) {
+            System.err.println("错误：" + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
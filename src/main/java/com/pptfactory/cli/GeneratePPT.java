@@ -1,6 +1,7 @@
 package com.pptfactory.cli;
 
 import com.pptfactory.template.engine.PPTTemplateEngine;
+import com.pptfactory.template.engine.ShardedRenderer;
 import com.pptfactory.style.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -29,14 +30,33 @@ public class GeneratePPT {
         Locale.setDefault(Locale.US);
     }
     
+    /**
+     * 规范化风格名称：大小写无关，未知的风格名称归为 default（与 getStyleStrategy 的选择一致）
+     * 
+     * @param styleName 风格名称
+     * @return chinese, math, finance, safety 或 default
+     */
+    static String normalizeStyleName(String styleName) {
+        String name = styleName == null ? "default" : styleName.toLowerCase(Locale.ROOT);
+        switch (name) {
+            case "chinese":
+            case "math":
+            case "finance":
+            case "safety":
+                return name;
+            default:
+                return "default";
+        }
+    }
+    
     /**
      * 根据风格名称获取风格策略对象
      * 
      * @param styleName 风格名称（default, chinese, math, finance, safety）
      * @return 风格策略对象
      */
-    private static StyleStrategy getStyleStrategy(String styleName) {
-        switch (styleName.toLowerCase()) {
+    static StyleStrategy getStyleStrategy(String styleName) {
+        switch (normalizeStyleName(styleName)) {
             case "chinese":
                 return new ChineseStyle();
             case "math":
@@ -57,7 +77,7 @@ public class GeneratePPT {
      * @param templateName 模板名称（chinese, math, finance, safety）
      * @return 模板文件路径
      */
-    private static String getTemplateFile(String templateName) {
+    static String getTemplateFile(String templateName) {
         // 如果提供了完整路径，直接返回
         File template = new File(templateName);
         if (template.exists()) {
@@ -96,6 +116,8 @@ public class GeneratePPT {
             String outputFile = "output.pptx";
             String style = "default";
             String template = "default";
+            // 分片并行渲染的线程数：1 表示不分片，0 表示按 CPU 核数
+            int shards = 1;
             
             for (int i = 0; i < args.length; i++) {
                 String arg = args[i];
@@ -111,6 +133,10 @@ public class GeneratePPT {
                     if (i + 1 < args.length) {
                         template = args[++i];
                     }
+                } else if (arg.equals("--shards")) {
+                    if (i + 1 < args.length) {
+                        shards = Integer.parseInt(args[++i]);
+                    }
                 } else if (!arg.startsWith("-")) {
                     inputFile = arg;
                 }
@@ -144,6 +170,16 @@ public class GeneratePPT {
             }
             System.out.println("✓ 使用模板文件: " + templateFile);
             
+            // 分片并行渲染（大型PPT）
+            if (shards != 1) {
+                final String styleName = style;
+                ShardedRenderer renderer = new ShardedRenderer(templateFile, () -> getStyleStrategy(styleName), shards);
+                System.out.println("正在分片渲染PPT: " + outputFile);
+                renderer.render(slidesData, outputFile);
+                System.out.println("✓ PPT保存成功: " + outputFile);
+                return;
+            }
+            
             // 创建引擎
             PPTTemplateEngine engine = new PPTTemplateEngine(templateFile, styleStrategy);
             System.out.println("✓ 模板引擎创建成功");
@@ -184,6 +220,7 @@ public class GeneratePPT {
         System.out.println("  -o, --output <file>     输出的PPT文件名（默认: output.pptx）");
         System.out.println("  --style <style>         风格选择（default, chinese, math, finance, safety）");
         System.out.println("  --template <template>   模板选择（chinese, math, finance, safety）");
+        System.out.println("  --shards <n>            分片并行渲染的线程数（大型PPT，0 表示按 CPU 核数，默认 1 不分片）");
         System.out.println();
         System.out.println("示例:");
         System.out.println("  java -cp target/ppt-template-engine-1.0.0-jar-with-dependencies.jar \\");
@@ -0,0 +1,552 @@
+package com.pptfactory.cli;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pptfactory.style.StyleStrategy;
+import com.pptfactory.template.engine.MemoryProfile;
+import com.pptfactory.template.engine.PPTTemplateEngine;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PPT渲染服务
+ *
+ * 常驻 JVM，启动时加载 Aspose.Slides、布局配置并完成一次预热渲染，之后通过本机 HTTP 接口接收 slides.json，
+ * 渲染后把 PPTX 直接写回响应，不再为每个请求启动 run_pptx.sh / GeneratePPT（JVM 和 Aspose 冷启动）。
+ *
+ * 接口（仅监听 127.0.0.1）：
+ * - POST /render?style=safety&template=safety
+ *       请求体为 slides.json 的内容（{"slides": [...]}，也可以在其中带 "style"、"template" 字段，查询参数优先）
+ *       成功返回 200 和 PPTX 文件（分块传输，边保存边写回，不经过临时文件）；
+ *       渲染槽位和等待队列都满时返回 429（带 Retry-After）；开始写回之前超过渲染超时返回 504
+ *       （超时的渲染不会被中断，继续占用渲染槽位直到渲染结束，结果丢弃，不再写回）
+ *       响应头带各阶段耗时：X-Queue-Ms（排队）、X-Engine-Ms（取引擎）、X-Render-Ms（渲染）、
+ *       X-Total-Ms（到开始写回为止的合计），同时以 Server-Timing 头给出；X-Engine-Warm 表示是否用上了预热好的引擎；
+ *       保存耗时在响应头发出之后才知道，只记录在服务日志中
+ * - GET  /status 查询服务状态（并发数、队列长度、已完成/失败/拒绝/超时的请求数，堆内存使用量和存活引擎数）
+ *
+ * 并发控制：最多 concurrency 个请求同时渲染，另有 queueCapacity 个请求可以排队，其余直接拒绝。
+ * 预热引擎：每种（风格, 模板）组合在后台提前创建好引擎（模板PPT已加载），请求到来时直接取用，
+ * 用掉一个就在后台补一个；没有现成引擎时在请求线程上创建（X-Engine-Warm: false）。
+ * 只为 templates/ 下的模板预热，风格名称大小写无关、未知风格按 default 处理；
+ * 预热的组合最多 render.pool.maxCombinations 个（默认 4），超出时淘汰最久未用的组合。
+ * 内存：每个存活的引擎都持有已加载的模板PPT，容器内存紧张时加 -Dpptfactory.lowMemory=true 启用低内存配置
+ * （见 MemoryProfile），并用 EngineMemoryProbe 测出的单引擎内存确定并发数。
+ *
+ * 使用方法：
+ * mvn exec:java -Dexec.mainClass="com.pptfactory.cli.RenderServer" -Dexec.args="[端口] [并发数] [队列容量]"
+ * curl -o out.pptx --data-binary @examples/safety_slides.json "http://127.0.0.1:18081/render?style=safety&template=safety"
+ */
+public class RenderServer {
+
+    // 设置Locale为US，避免Aspose.Slides不支持某些Locale格式的问题
+    static {
+        Locale.setDefault(Locale.US);
+    }
+
+    private static final int DEFAULT_PORT = 18081;
+    private static final int DEFAULT_CONCURRENCY = 2;
+    private static final int DEFAULT_QUEUE_CAPACITY = 8;
+    private static final long RENDER_TIMEOUT_SECONDS = Long.getLong("render.timeoutSeconds", 120);
+    // 最多为多少种（风格, 模板）组合保留预热引擎
+    private static final int MAX_POOLED_COMBINATIONS = Integer.getInteger("render.pool.maxCombinations", 4);
+    private static final String DEFAULT_TEMPLATE_FILE = "templates/default/theme.pptx";
+    private static final String PPTX_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.presentationml.presentation";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final int port;
+    private final int concurrency;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor renderers;
+    private final EnginePool enginePool;
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private HttpServer server;
+
+    /**
+     * 一次渲染各阶段的耗时（毫秒）
+     */
+    static class Timing {
+        final long submittedAt = System.nanoTime();
+        long queueMs;
+        long engineMs;
+        long renderMs;
+        long saveMs;
+        boolean warmEngine;
+        // 响应只能由一方认领：工作线程认领后写回 PPTX，HTTP 线程认领后返回 504 / 500
+        final AtomicBoolean responded = new AtomicBoolean();
+    }
+
+    /**
+     * 预热好的引擎池：每种（风格, 模板）组合保留最多 spares 个已加载模板的引擎
+     *
+     * 键为规范化后的组合（风格名称按 GeneratePPT.normalizeStyleName 归一，模板为规范路径），
+     * 只为 templates/ 目录下的模板预热，其他路径的模板每次请求现建引擎、用完即关。
+     * 组合数超过 maxKeys 时淘汰最久未用的组合并关闭其引擎，预热引擎的总数不超过 maxKeys * spares。
+     */
+    static class EnginePool {
+        private final int spares;
+        private final int maxKeys;
+        private final File templatesRoot;
+        // 按访问顺序排列，队首是最久未用的组合；所有访问都在 this 上同步
+        private final LinkedHashMap<String, BlockingQueue<PPTTemplateEngine>> ready = new LinkedHashMap<>(16, 0.75f, true);
+        private final ExecutorService refill = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "render-engine-refill");
+            t.setDaemon(true);
+            return t;
+        });
+
+        EnginePool(int spares, int maxKeys) {
+            this.spares = spares;
+            this.maxKeys = Math.max(1, maxKeys);
+            this.templatesRoot = canonical(new File("templates"));
+        }
+
+        /**
+         * 取一个引擎：优先取预热好的，没有时当场创建；取走后在后台补充
+         *
+         * @param warm 输出参数，warm[0] 表示是否取到了预热好的引擎
+         */
+        PPTTemplateEngine take(String style, String templateFile, boolean[] warm) throws IOException {
+            String key = keyOf(style, templateFile);
+            PPTTemplateEngine engine = key != null ? queueFor(key).poll() : null;
+            warm[0] = engine != null;
+            if (engine == null) {
+                engine = create(style, templateFile);
+            }
+            if (key != null) {
+                scheduleRefill(style, templateFile);
+            }
+            return engine;
+        }
+
+        /**
+         * 为（风格, 模板）组合补满预热引擎（不预热的模板直接忽略）
+         */
+        void scheduleRefill(String style, String templateFile) {
+            String key = keyOf(style, templateFile);
+            if (key == null) {
+                return;
+            }
+            refill.execute(() -> {
+                BlockingQueue<PPTTemplateEngine> queue = queueFor(key);
+                while (queue.size() < spares && isCurrent(key, queue)) {
+                    try {
+                        PPTTemplateEngine engine = create(style, templateFile);
+                        if (!queue.offer(engine)) {
+                            closeQuietly(engine);
+                            break;
+                        }
+                    } catch (Exception e) {
+                        System.err.println("警告：预热引擎失败 " + key + ": " + e.getMessage());
+                        break;
+                    }
+                }
+                // 补充期间该组合被淘汰：队列已脱离引擎池，关闭刚放进去的引擎
+                if (!isCurrent(key, queue)) {
+                    drain(queue);
+                }
+            });
+        }
+
+        /**
+         * 规范化的组合键；模板不在 templates/ 目录下时返回 null（不预热）
+         */
+        String keyOf(String style, String templateFile) {
+            File template = canonical(new File(templateFile));
+            if (!template.getPath().startsWith(templatesRoot.getPath() + File.separator)) {
+                return null;
+            }
+            return GeneratePPT.normalizeStyleName(style) + "|" + template.getPath();
+        }
+
+        private synchronized BlockingQueue<PPTTemplateEngine> queueFor(String key) {
+            BlockingQueue<PPTTemplateEngine> queue = ready.get(key);
+            if (queue == null) {
+                queue = new LinkedBlockingQueue<>(spares);
+                ready.put(key, queue);
+                Iterator<Map.Entry<String, BlockingQueue<PPTTemplateEngine>>> eldest = ready.entrySet().iterator();
+                while (ready.size() > maxKeys) {
+                    Map.Entry<String, BlockingQueue<PPTTemplateEngine>> evicted = eldest.next();
+                    eldest.remove();
+                    System.out.println("提示：预热组合超过 " + maxKeys + " 个，淘汰 " + evicted.getKey());
+                    drain(evicted.getValue());
+                }
+            }
+            return queue;
+        }
+
+        private synchronized boolean isCurrent(String key, BlockingQueue<PPTTemplateEngine> queue) {
+            // 不用 get()，避免改变访问顺序
+            for (Map.Entry<String, BlockingQueue<PPTTemplateEngine>> e : ready.entrySet()) {
+                if (e.getKey().equals(key)) {
+                    return e.getValue() == queue;
+                }
+            }
+            return false;
+        }
+
+        private static PPTTemplateEngine create(String style, String templateFile) throws IOException {
+            StyleStrategy strategy = GeneratePPT.getStyleStrategy(style);
+            return new PPTTemplateEngine(templateFile, strategy);
+        }
+
+        /**
+         * 当前预热好、尚未取走的引擎数
+         */
+        synchronized int pooled() {
+            int count = 0;
+            for (BlockingQueue<PPTTemplateEngine> queue : ready.values()) {
+                count += queue.size();
+            }
+            return count;
+        }
+
+        synchronized int keys() {
+            return ready.size();
+        }
+
+        void shutdown() {
+            refill.shutdownNow();
+            synchronized (this) {
+                for (BlockingQueue<PPTTemplateEngine> queue : ready.values()) {
+                    drain(queue);
+                }
+                ready.clear();
+            }
+        }
+
+        private static void drain(BlockingQueue<PPTTemplateEngine> queue) {
+            PPTTemplateEngine engine;
+            while ((engine = queue.poll()) != null) {
+                closeQuietly(engine);
+            }
+        }
+
+        private static void closeQuietly(PPTTemplateEngine engine) {
+            try {
+                engine.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        private static File canonical(File file) {
+            try {
+                return file.getCanonicalFile();
+            } catch (IOException e) {
+                return file.getAbsoluteFile();
+            }
+        }
+    }
+
+    public RenderServer(int port, int concurrency, int queueCapacity) {
+        this.port = port;
+        this.concurrency = concurrency;
+        this.queueCapacity = queueCapacity;
+        this.renderers = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "render-worker");
+                    t.setDaemon(false);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.enginePool = new EnginePool(concurrency, MAX_POOLED_COMBINATIONS);
+    }
+
+    /**
+     * 主方法
+     */
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_CONCURRENCY;
+        int queueCapacity = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_QUEUE_CAPACITY;
+
+        try {
+            System.out.println("=== PPT渲染服务 ===");
+            RenderServer renderServer = new RenderServer(port, concurrency, queueCapacity);
+            renderServer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(renderServer::stop, "render-server-shutdown"));
+        } catch (Exception e) {
+            System.err.println("错误: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 预热并启动 HTTP 服务
+     */
+    public void start() throws Exception {
+        System.out.println("1. 预热：加载 Aspose.Slides 并渲染示例页");
+        warmUp("safety", "safety");
+
+        System.out.println("\n2. 启动 HTTP 服务");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        // 每个排队或渲染中的请求都占用一个 HTTP 线程等待结果，再多留两个处理 /status 和拒绝
+        ExecutorService httpExecutor = Executors.newFixedThreadPool(concurrency + queueCapacity + 2, r -> {
+            Thread t = new Thread(r, "render-http");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(httpExecutor);
+        server.createContext("/render", this::handleRender);
+        server.createContext("/status", this::handleStatus);
+        server.start();
+        System.out.println("   ✓ 已监听 http://127.0.0.1:" + port + "（并发 " + concurrency + "，队列容量 " + queueCapacity + "）");
+    }
+
+    /**
+     * 停止接收新请求，等待渲染中的请求结束
+     */
+    public void stop() {
+        System.out.println("\n正在停止PPT渲染服务...");
+        if (server != null) {
+            server.stop(0);
+        }
+        renderers.shutdown();
+        try {
+            if (!renderers.awaitTermination(RENDER_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                renderers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            renderers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        enginePool.shutdown();
+        System.out.println("✓ 已停止");
+    }
+
+    /**
+     * 用一份示例数据完整渲染、保存一次，让类加载、布局配置和 JIT 在第一个请求之前完成，
+     * 然后为该组合准备好预热引擎
+     */
+    private void warmUp(String style, String template) {
+        String templateFile = resolveTemplateFile(template);
+        File sample = new File("examples/safety_slides.json");
+        long start = System.nanoTime();
+        try {
+            if (sample.exists()) {
+                Map<String, Object> slidesData = MAPPER.readValue(sample, new TypeReference<Map<String, Object>>() {});
+                PPTTemplateEngine engine = new PPTTemplateEngine(templateFile, GeneratePPT.getStyleStrategy(style));
+                try {
+                    engine.renderFromJson(slidesData);
+                    engine.save(OutputStream.nullOutputStream());
+                } finally {
+                    engine.close();
+                }
+            }
+            enginePool.scheduleRefill(style, templateFile);
+            System.out.println(String.format("   ✓ 预热完成（%s / %s），耗时 %.0f ms", style, template, (System.nanoTime() - start) / 1e6));
+        } catch (Exception e) {
+            System.err.println("警告：预热失败（服务仍会启动，首个请求较慢）: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 渲染并直接保存到响应体（在渲染槽位内完成，保存同样受并发数限制）
+     *
+     * 渲染完成后先认领响应：请求已超时（HTTP 线程已返回 504）时丢弃渲染结果，不再保存和写回。
+     */
+    private Void render(Map<String, Object> slidesData, String style, String templateFile, Timing timing,
+                        HttpExchange exchange) throws Exception {
+        long start = System.nanoTime();
+        timing.queueMs = (start - timing.submittedAt) / 1_000_000;
+        if (timing.responded.get()) {
+            // 排队期间已经超时
+            return null;
+        }
+
+        boolean[] warm = new boolean[1];
+        PPTTemplateEngine engine = enginePool.take(style, templateFile, warm);
+        timing.warmEngine = warm[0];
+        long engineReady = System.nanoTime();
+        timing.engineMs = (engineReady - start) / 1_000_000;
+
+        try {
+            engine.renderFromJson(slidesData);
+            long rendered = System.nanoTime();
+            timing.renderMs = (rendered - engineReady) / 1_000_000;
+
+            if (!timing.responded.compareAndSet(false, true)) {
+                System.err.println(String.format("警告：%s / %s 渲染完成时请求已超时（已返回 504），丢弃渲染结果，渲染 %d ms",
+                        style, templateFile, timing.renderMs));
+                return null;
+            }
+            long totalMs = (rendered - timing.submittedAt) / 1_000_000;
+            exchange.getResponseHeaders().set("Content-Type", PPTX_CONTENT_TYPE);
+            exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename=\"output.pptx\"");
+            exchange.getResponseHeaders().set("X-Queue-Ms", String.valueOf(timing.queueMs));
+            exchange.getResponseHeaders().set("X-Engine-Ms", String.valueOf(timing.engineMs));
+            exchange.getResponseHeaders().set("X-Render-Ms", String.valueOf(timing.renderMs));
+            exchange.getResponseHeaders().set("X-Total-Ms", String.valueOf(totalMs));
+            exchange.getResponseHeaders().set("X-Engine-Warm", String.valueOf(timing.warmEngine));
+            exchange.getResponseHeaders().set("Server-Timing", String.format("queue;dur=%d, engine;dur=%d, render;dur=%d",
+                    timing.queueMs, timing.engineMs, timing.renderMs));
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream os = exchange.getResponseBody()) {
+                engine.save(os);
+            }
+            timing.saveMs = (System.nanoTime() - rendered) / 1_000_000;
+            return null;
+        } finally {
+            engine.close();
+        }
+    }
+
+    private void handleRender(HttpExchange exchange) throws IOException {
+        if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            sendJson(exchange, 405, Collections.singletonMap("error", "只支持 POST"));
+            return;
+        }
+        Timing timing = new Timing();
+        Map<String, Object> slidesData;
+        try (InputStream in = exchange.getRequestBody()) {
+            slidesData = MAPPER.readValue(in, new TypeReference<Map<String, Object>>() {});
+        } catch (Exception e) {
+            sendJson(exchange, 400, Collections.singletonMap("error", "slides.json 格式错误: " + e.getMessage()));
+            return;
+        }
+        if (!(slidesData.get("slides") instanceof List)) {
+            sendJson(exchange, 400, Collections.singletonMap("error", "slides.json 缺少 slides 数组"));
+            return;
+        }
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String style = firstNonBlank(query.get("style"), slidesData.get("style"), "default");
+        String template = firstNonBlank(query.get("template"), slidesData.get("template"), "default");
+        String templateFile = resolveTemplateFile(template);
+
+        Future<Void> future;
+        try {
+            future = renderers.submit(() -> render(slidesData, style, templateFile, timing, exchange));
+        } catch (RejectedExecutionException e) {
+            // 背压：渲染槽位和队列都已满，拒绝并提示稍后重试
+            rejected.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", "2");
+            Map<String, Object> resp = new LinkedHashMap<>();
+            resp.put("error", "渲染队列已满，请稍后重试");
+            resp.put("concurrency", concurrency);
+            resp.put("queue_capacity", queueCapacity);
+            sendJson(exchange, 429, resp);
+            return;
+        }
+
+        try {
+            try {
+                future.get(RENDER_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                if (timing.responded.compareAndSet(false, true)) {
+                    // 认领了响应：工作线程渲染完后会丢弃结果。Aspose 渲染不响应中断，所以不中断它，
+                    // 渲染槽位要到它渲染结束才释放（/status 的 rendering 仍计入）；还在排队的任务直接取消
+                    future.cancel(false);
+                    failed.incrementAndGet();
+                    timedOut.incrementAndGet();
+                    sendJson(exchange, 504, Collections.singletonMap("error", "渲染超时（" + RENDER_TIMEOUT_SECONDS + " 秒）"));
+                    return;
+                }
+                // 工作线程已经认领响应、正在写回：等它写完（保存不受渲染超时限制）
+                future.get();
+            }
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            if (timing.responded.compareAndSet(false, true)) {
+                sendJson(exchange, 500, Collections.singletonMap("error", String.valueOf(cause.getMessage())));
+            } else {
+                // 已经在写回，无法再返回错误状态，直接断开让客户端看到不完整的响应
+                System.err.println("警告：写回 PPTX 时出错: " + cause.getMessage());
+                exchange.close();
+            }
+            return;
+        }
+
+        completed.incrementAndGet();
+        long totalMs = (System.nanoTime() - timing.submittedAt) / 1_000_000;
+        System.out.println(String.format("✓ 渲染完成 %s / %s：排队 %d ms，取引擎 %d ms%s，渲染 %d ms，保存 %d ms，合计 %d ms",
+                style, template, timing.queueMs, timing.engineMs, timing.warmEngine ? "（预热）" : "（冷）",
+                timing.renderMs, timing.saveMs, totalMs));
+    }
+
+    private void handleStatus(HttpExchange exchange) throws IOException {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("concurrency", concurrency);
+        status.put("rendering", renderers.getActiveCount());
+        status.put("queue_size", renderers.getQueue().size());
+        status.put("queue_capacity", queueCapacity);
+        status.put("completed", completed.get());
+        status.put("failed", failed.get());
+        status.put("rejected", rejected.get());
+        status.put("timed_out", timedOut.get());
+        // 内存：存活的引擎 = 渲染中 + 预热池中；heap_used_per_live_engine_mb 只是堆使用量按存活引擎数平摊
+        // （含服务自身和已释放未回收的对象），准确的单引擎常驻内存用 EngineMemoryProbe（测试目录）测量
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        int liveEngines = renderers.getActiveCount() + enginePool.pooled();
+        status.put("memory_profile", MemoryProfile.fromSystemProperties().toString());
+        status.put("heap_used_mb", heap.getUsed() / (1024 * 1024));
+        status.put("heap_max_mb", heap.getMax() / (1024 * 1024));
+        status.put("live_engines", liveEngines);
+        status.put("pooled_combinations", enginePool.keys());
+        status.put("heap_used_per_live_engine_mb", liveEngines > 0 ? heap.getUsed() / liveEngines / (1024 * 1024) : null);
+        sendJson(exchange, 200, status);
+    }
+
+    /**
+     * 模板名称对应的模板文件（与 GeneratePPT 相同的查找规则），找不到时使用默认模板
+     */
+    private static String resolveTemplateFile(String template) {
+        String templateFile = GeneratePPT.getTemplateFile(template);
+        return templateFile != null ? templateFile : DEFAULT_TEMPLATE_FILE;
+    }
+
+    private static String firstNonBlank(String fromQuery, Object fromBody, String defaultValue) {
+        if (fromQuery != null && !fromQuery.isBlank()) {
+            return fromQuery;
+        }
+        if (fromBody != null && !fromBody.toString().isBlank()) {
+            return fromBody.toString();
+        }
+        return defaultValue;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static void sendJson(HttpExchange exchange, int code, Object body) throws IOException {
+        byte[] bytes = MAPPER.writerWithDefaultPrettyPrinter().writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
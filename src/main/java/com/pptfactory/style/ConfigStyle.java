@@ -0,0 +1,182 @@
+package com.pptfactory.style;
+
+import com.aspose.slides.IPortion;
+import java.awt.Color;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 配置驱动的风格策略类
+ *
+ * 由 config/layouts.json 中 styles 下的一项构建，取代原来为每个布局生成的 ImageTextNStyle.java。
+ * 字体大小和颜色在构建时一次解析完毕，之后只读，可在多线程间共享（由 StyleRegistry 按布局统一分发）。
+ *
+ * 支持的字段（均可省略）：
+ * - titleFontSize（默认32）、mainTitleFontSize（默认同 titleFontSize）、subtitleFontSize（默认 titleFontSize * 0.7）
+ * - contentFontSize（默认18）、bulletFontSize（默认同 contentFontSize）、bulletSpacing（默认12）
+ * - titleColor（默认 #DC143C）、contentColor（默认 #000000），格式为 "#RRGGBB" 或 [r, g, b]
+ */
+public final class ConfigStyle implements StyleStrategy {
+
+    private final String layoutName;
+
+    // 字体大小配置
+    private final double mainTitleSize;
+    private final double titleSize;
+    private final double subtitleSize;
+    private final double contentSize;
+    private final double bulletSize;
+
+    // 颜色配置
+    private final Color titleColor;
+    private final Color contentColor;
+
+    // 间距配置
+    private final double bulletSpacing;
+
+    // 由上面的字段构建的格式原型，apply 方法直接拷贝原型
+    private final StylePrototypes prototypes;
+
+    /**
+     * @param layoutName 布局名称（仅用于日志和错误信息）
+     * @param config styles 下该布局的配置
+     */
+    public ConfigStyle(String layoutName, Map<String, Object> config) {
+        this.layoutName = layoutName;
+        this.titleSize = number(config, "titleFontSize", 32.0);
+        this.mainTitleSize = number(config, "mainTitleFontSize", titleSize);
+        this.subtitleSize = number(config, "subtitleFontSize", titleSize * 0.7);
+        this.contentSize = number(config, "contentFontSize", 18.0);
+        this.bulletSize = number(config, "bulletFontSize", contentSize);
+        this.bulletSpacing = number(config, "bulletSpacing", 12.0);
+        this.titleColor = color(config, "titleColor", new Color(220, 20, 60));
+        this.contentColor = color(config, "contentColor", new Color(0, 0, 0));
+        this.prototypes = new StylePrototypes(
+                new PortionStyle((float) mainTitleSize, titleColor, null),
+                new PortionStyle((float) titleSize, titleColor, null),
+                new PortionStyle((float) subtitleSize, titleColor, null),
+                new PortionStyle((float) contentSize, contentColor, null),
+                new PortionStyle((float) bulletSize, contentColor, null),
+                StylePrototypes.bulletParagraph(bulletSpacing));
+    }
+
+    public String getLayoutName() {
+        return layoutName;
+    }
+
+    public Color getTitleColor() {
+        return titleColor;
+    }
+
+    public Color getContentColor() {
+        return contentColor;
+    }
+
+    @Override
+    public void applyTitleStyle(IPortion portion, boolean isMainTitle) {
+        prototypes.title(isMainTitle).apply(portion);
+    }
+
+    @Override
+    public void applySubtitleStyle(IPortion portion) {
+        prototypes.subtitle().apply(portion);
+    }
+
+    @Override
+    public void applyContentStyle(IPortion portion) {
+        prototypes.content().apply(portion);
+    }
+
+    @Override
+    public void applyBulletStyle(IPortion portion) {
+        prototypes.bullet().apply(portion);
+    }
+
+    @Override
+    public StylePrototypes createPrototypes() {
+        return prototypes;
+    }
+
+    @Override
+    public double getBulletSpacing() {
+        return bulletSpacing;
+    }
+
+    @Override
+    public double getTitleFontSize(boolean isMainTitle) {
+        return isMainTitle ? mainTitleSize : titleSize;
+    }
+
+    @Override
+    public double getSubtitleFontSize() {
+        return subtitleSize;
+    }
+
+    @Override
+    public double getContentFontSize() {
+        return contentSize;
+    }
+
+    @Override
+    public double getBulletFontSize() {
+        return bulletSize;
+    }
+
+    /**
+     * 转成 styles 下的配置项（颜色写成 "#RRGGBB"），供提取模板时写入 config/layouts.json
+     */
+    public static Map<String, Object> toConfig(double titleFontSize, double contentFontSize,
+                                               Color titleColor, Color contentColor, int sourcePage) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("sourcePage", sourcePage);
+        config.put("titleFontSize", titleFontSize);
+        config.put("subtitleFontSize", titleFontSize * 0.7);
+        config.put("contentFontSize", contentFontSize);
+        config.put("titleColor", toHex(titleColor));
+        config.put("contentColor", toHex(contentColor));
+        return config;
+    }
+
+    static String toHex(Color color) {
+        return String.format("#%02X%02X%02X", color.getRed(), color.getGreen(), color.getBlue());
+    }
+
+    private double number(Map<String, Object> config, String key, double defaultValue) {
+        Object value = config.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        try {
+            return Double.parseDouble(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("布局 " + layoutName + " 的样式字段 " + key + " 不是数字: " + value);
+        }
+    }
+
+    private Color color(Map<String, Object> config, String key, Color defaultValue) {
+        Object value = config.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            if (value instanceof List) {
+                List<?> rgb = (List<?>) value;
+                return new Color(((Number) rgb.get(0)).intValue(), ((Number) rgb.get(1)).intValue(), ((Number) rgb.get(2)).intValue());
+            }
+            String hex = value.toString().trim();
+            if (hex.startsWith("#")) {
+                hex = hex.substring(1);
+            }
+            if (hex.length() != 6) {
+                throw new IllegalArgumentException(hex);
+            }
+            return new Color(Integer.parseInt(hex, 16));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("布局 " + layoutName + " 的样式字段 " + key + " 不是有效颜色: " + value);
+        }
+    }
+}
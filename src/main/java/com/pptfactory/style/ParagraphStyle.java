@@ -0,0 +1,50 @@
+package com.pptfactory.style;
+
+import com.aspose.slides.BulletType;
+import com.aspose.slides.IParagraph;
+import com.aspose.slides.IParagraphFormat;
+
+/**
+ * 预先解析好的段落格式原型（项目符号、缩进、段后间距）
+ *
+ * 只读，apply() 把全部属性一次拷贝到目标段落。
+ */
+public final class ParagraphStyle {
+
+    /**
+     * 圆点项目符号
+     */
+    public static final char BULLET_CHAR = (char) 8226;
+
+    private final char bulletChar;
+    private final float indent;
+    private final float spaceAfter;
+
+    /**
+     * @param bulletChar 项目符号字符，0 表示不设置项目符号
+     * @param indent 缩进（点）
+     * @param spaceAfter 段后间距（点）
+     */
+    public ParagraphStyle(char bulletChar, float indent, float spaceAfter) {
+        this.bulletChar = bulletChar;
+        this.indent = indent;
+        this.spaceAfter = spaceAfter;
+    }
+
+    public float getSpaceAfter() {
+        return spaceAfter;
+    }
+
+    /**
+     * 把原型的全部属性拷贝到目标段落
+     */
+    public void apply(IParagraph paragraph) {
+        IParagraphFormat format = paragraph.getParagraphFormat();
+        if (bulletChar != 0) {
+            format.getBullet().setType(BulletType.Symbol);
+            format.getBullet().setChar(bulletChar);
+        }
+        format.setIndent(indent);
+        format.setSpaceAfter(spaceAfter);
+    }
+}
@@ -0,0 +1,72 @@
+package com.pptfactory.style;
+
+import com.aspose.slides.FillType;
+import com.aspose.slides.IFontData;
+import com.aspose.slides.IPortion;
+import com.aspose.slides.IPortionFormat;
+import com.aspose.slides.Portion;
+import java.awt.Color;
+import java.util.function.Consumer;
+
+/**
+ * 预先解析好的文本部分格式原型（字体大小、纯色填充颜色、西文字体）
+ *
+ * 由风格策略一次性生成，之后只读；apply() 把全部属性一次拷贝到目标 IPortion，
+ * 颜色和字体对象在原型创建时生成一次，所有文本部分共用，不再每个 run 各建一份。
+ */
+public final class PortionStyle {
+
+    private final float fontHeight;
+    private final Color fillColor;
+    private final IFontData latinFont;
+
+    /**
+     * @param fontHeight 字体大小（点），NaN 表示不设置
+     * @param fillColor 纯色填充颜色，null 表示不设置
+     * @param latinFont 西文字体，null 表示不设置
+     */
+    public PortionStyle(float fontHeight, Color fillColor, IFontData latinFont) {
+        this.fontHeight = fontHeight;
+        this.fillColor = fillColor;
+        this.latinFont = latinFont;
+    }
+
+    /**
+     * 在一个临时 Portion 上执行 styler，读回其结果作为原型
+     *
+     * 用于从只实现了 applyXxxStyle 的风格策略中提取原型，每种文本角色只需执行一次。
+     */
+    public static PortionStyle capture(Consumer<IPortion> styler) {
+        Portion scratch = new Portion();
+        styler.accept(scratch);
+        IPortionFormat format = scratch.getPortionFormat();
+        Color color = format.getFillFormat().getFillType() == FillType.Solid
+                ? format.getFillFormat().getSolidFillColor().getColor() : null;
+        return new PortionStyle(format.getFontHeight(), color, format.getLatinFont());
+    }
+
+    public float getFontHeight() {
+        return fontHeight;
+    }
+
+    public Color getFillColor() {
+        return fillColor;
+    }
+
+    /**
+     * 把原型的全部属性拷贝到目标文本部分
+     */
+    public void apply(IPortion portion) {
+        IPortionFormat format = portion.getPortionFormat();
+        if (!Float.isNaN(fontHeight)) {
+            format.setFontHeight(fontHeight);
+        }
+        if (fillColor != null) {
+            format.getFillFormat().setFillType(FillType.Solid);
+            format.getFillFormat().getSolidFillColor().setColor(fillColor);
+        }
+        if (latinFont != null) {
+            format.setLatinFont(latinFont);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.pptfactory.style;
+
+import com.aspose.slides.FillType;
+import com.aspose.slides.IPortion;
+import java.awt.Color;
+
+/**
+ * 一个风格策略的全部格式原型：主标题、标题、副标题、正文、要点，以及要点段落
+ *
+ * 由 StyleStrategy.createPrototypes() 生成，模板引擎每个风格只生成一次，
+ * 渲染时对每个文本部分 / 段落调用原型的 apply()。
+ */
+public final class StylePrototypes {
+
+    private static final Color DEFAULT_TEXT_COLOR = new Color(0, 0, 0);
+    private static final Color DEFAULT_SUBTITLE_COLOR = new Color(64, 64, 64);
+    private static final float BULLET_INDENT = (float) (0.5 * 72);
+
+    private final PortionStyle mainTitle;
+    private final PortionStyle title;
+    private final PortionStyle subtitle;
+    private final PortionStyle content;
+    private final PortionStyle bullet;
+    private final ParagraphStyle bulletParagraph;
+
+    public StylePrototypes(PortionStyle mainTitle, PortionStyle title, PortionStyle subtitle,
+                           PortionStyle content, PortionStyle bullet, ParagraphStyle bulletParagraph) {
+        this.mainTitle = mainTitle;
+        this.title = title;
+        this.subtitle = subtitle;
+        this.content = content;
+        this.bullet = bullet;
+        this.bulletParagraph = bulletParagraph;
+    }
+
+    /**
+     * 通过执行风格策略的 applyXxxStyle 提取原型（每种文本角色执行一次）
+     *
+     * 与模板引擎原来在自己创建的幻灯片上的设置顺序一致：先设置 getXxxFontSize() 和默认颜色，再由策略覆盖。
+     * 写入模板已有形状的文字原来只执行 applyTitleStyle，不能用这里的原型（会覆盖形状自身的填充和字号），
+     * 应直接用 PortionStyle.capture(p -> strategy.applyTitleStyle(p, isMainTitle))。
+     */
+    public static StylePrototypes capture(StyleStrategy strategy) {
+        PortionStyle mainTitle = PortionStyle.capture(p -> {
+            preset(p, strategy.getTitleFontSize(true), DEFAULT_TEXT_COLOR);
+            strategy.applyTitleStyle(p, true);
+        });
+        PortionStyle title = PortionStyle.capture(p -> {
+            preset(p, strategy.getTitleFontSize(false), DEFAULT_TEXT_COLOR);
+            strategy.applyTitleStyle(p, false);
+        });
+        PortionStyle subtitle = PortionStyle.capture(p -> {
+            preset(p, strategy.getSubtitleFontSize(), DEFAULT_SUBTITLE_COLOR);
+            strategy.applySubtitleStyle(p);
+        });
+        PortionStyle content = PortionStyle.capture(p -> {
+            preset(p, strategy.getContentFontSize(), DEFAULT_TEXT_COLOR);
+            strategy.applyContentStyle(p);
+        });
+        PortionStyle bullet = PortionStyle.capture(p -> {
+            preset(p, strategy.getBulletFontSize(), DEFAULT_TEXT_COLOR);
+            strategy.applyBulletStyle(p);
+        });
+        return new StylePrototypes(mainTitle, title, subtitle, content, bullet, bulletParagraph(strategy.getBulletSpacing()));
+    }
+
+    /**
+     * 要点段落原型：圆点项目符号、0.5英寸缩进、指定段后间距
+     */
+    public static ParagraphStyle bulletParagraph(double spacing) {
+        return new ParagraphStyle(ParagraphStyle.BULLET_CHAR, BULLET_INDENT, (float) spacing);
+    }
+
+    private static void preset(IPortion portion, double fontSize, Color color) {
+        portion.getPortionFormat().setFontHeight((float) fontSize);
+        portion.getPortionFormat().getFillFormat().setFillType(FillType.Solid);
+        portion.getPortionFormat().getFillFormat().getSolidFillColor().setColor(color);
+    }
+
+    public PortionStyle title(boolean isMainTitle) {
+        return isMainTitle ? mainTitle : title;
+    }
+
+    public PortionStyle subtitle() {
+        return subtitle;
+    }
+
+    public PortionStyle content() {
+        return content;
+    }
+
+    public PortionStyle bullet() {
+        return bullet;
+    }
+
+    public ParagraphStyle bulletParagraph() {
+        return bulletParagraph;
+    }
+}
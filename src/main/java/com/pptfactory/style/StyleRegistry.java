@@ -0,0 +1,150 @@
+package com.pptfactory.style;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 布局风格注册表
+ *
+ * 加载时把 config/layouts.json 中 styles 下的每一项构建成一个 ConfigStyle，
+ * 之后按布局名称分发同一个共享实例；新增模板只需要改配置文件，不需要生成 Java 类、重新编译。
+ *
+ * 注册表创建后不可修改。引擎通过 forConfigFile()/getDefault() 取按配置文件缓存的注册表，
+ * 同一份配置只解析一次、所有引擎共享；配置文件的修改时间或大小变化后，下次获取时重新加载。
+ */
+public final class StyleRegistry {
+
+    public static final String DEFAULT_CONFIG_FILE = "config/layouts.json";
+
+    // 按配置文件绝对路径缓存的注册表
+    private static final Map<String, Cached> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 缓存项：注册表及加载时配置文件的修改时间和大小
+     */
+    private static final class Cached {
+        final StyleRegistry registry;
+        final long lastModified;
+        final long length;
+
+        Cached(StyleRegistry registry, long lastModified, long length) {
+            this.registry = registry;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        boolean isCurrent(File file) {
+            return file.lastModified() == lastModified && file.length() == length;
+        }
+    }
+
+    private final Map<String, StyleStrategy> styles;
+
+    private StyleRegistry(Map<String, StyleStrategy> styles) {
+        this.styles = Collections.unmodifiableMap(styles);
+    }
+
+    /**
+     * 从 styles 配置构建注册表，某一项配置无效时跳过该项并打印警告
+     */
+    public static StyleRegistry fromConfig(Map<String, Map<String, Object>> stylesConfig) {
+        Map<String, StyleStrategy> styles = new LinkedHashMap<>();
+        if (stylesConfig != null) {
+            for (Map.Entry<String, Map<String, Object>> e : stylesConfig.entrySet()) {
+                try {
+                    styles.put(e.getKey(), new ConfigStyle(e.getKey(), e.getValue()));
+                } catch (IllegalArgumentException ex) {
+                    System.err.println("警告：跳过无效的布局样式 " + e.getKey() + ": " + ex.getMessage());
+                }
+            }
+        }
+        return new StyleRegistry(styles);
+    }
+
+    /**
+     * 从配置文件加载（文件不存在或没有 styles 时返回空注册表）
+     */
+    @SuppressWarnings("unchecked")
+    public static StyleRegistry load(String configFile) {
+        File file = new File(configFile);
+        if (!file.exists()) {
+            return new StyleRegistry(new LinkedHashMap<>());
+        }
+        try {
+            Map<String, Object> config = new ObjectMapper().readValue(file, new TypeReference<Map<String, Object>>() {});
+            return fromConfig((Map<String, Map<String, Object>>) config.get("styles"));
+        } catch (Exception e) {
+            System.err.println("警告：加载布局样式失败: " + configFile + "，" + e.getMessage());
+            return new StyleRegistry(new LinkedHashMap<>());
+        }
+    }
+
+    /**
+     * 按配置文件缓存的注册表（首次调用或配置文件改动后重新加载，否则返回同一个实例）
+     */
+    public static StyleRegistry forConfigFile(String configFile) {
+        File file = new File(configFile).getAbsoluteFile();
+        Cached cached = CACHE.get(file.getPath());
+        if (cached != null && cached.isCurrent(file)) {
+            return cached.registry;
+        }
+        synchronized (StyleRegistry.class) {
+            cached = CACHE.get(file.getPath());
+            if (cached == null || !cached.isCurrent(file)) {
+                // 先取文件状态再加载：加载期间文件又被改写时，下次获取会发现状态不一致并重新加载
+                long lastModified = file.lastModified();
+                long length = file.length();
+                cached = new Cached(load(file.getPath()), lastModified, length);
+                CACHE.put(file.getPath(), cached);
+            }
+            return cached.registry;
+        }
+    }
+
+    /**
+     * 丢弃配置文件的缓存（同一时间戳内改写配置文件后调用，确保下次获取时重新加载）
+     */
+    public static void invalidate(String configFile) {
+        CACHE.remove(new File(configFile).getAbsoluteFile().getPath());
+    }
+
+    /**
+     * 进程级的默认注册表（config/layouts.json，按 forConfigFile() 缓存）
+     */
+    public static StyleRegistry getDefault() {
+        return forConfigFile(DEFAULT_CONFIG_FILE);
+    }
+
+    /**
+     * 布局对应的风格，没有配置时返回 null
+     */
+    public StyleStrategy get(String layoutName) {
+        return styles.get(layoutName);
+    }
+
+    /**
+     * 布局对应的风格，没有配置时返回 fallback
+     */
+    public StyleStrategy getOrDefault(String layoutName, StyleStrategy fallback) {
+        return styles.getOrDefault(layoutName, fallback);
+    }
+
+    public boolean contains(String layoutName) {
+        return styles.containsKey(layoutName);
+    }
+
+    public Set<String> layoutNames() {
+        return styles.keySet();
+    }
+
+    public int size() {
+        return styles.size();
+    }
+}
@@ -81,5 +81,17 @@ public interface StyleStrategy {
      * @return 字体大小（点）
      */
     double getBulletFontSize();
+    
+    /**
+     * 生成预先解析好的格式原型（颜色、字体对象只创建一次），模板引擎每个风格只调用一次
+     * 
+     * 默认实现在临时文本部分上执行一次各个 applyXxxStyle 并读回结果；
+     * 配置驱动的风格可以直接用已解析的字段构建。
+     * 
+     * @return 格式原型
+     */
+    default StylePrototypes createPrototypes() {
+        return StylePrototypes.capture(this);
+    }
 }
 
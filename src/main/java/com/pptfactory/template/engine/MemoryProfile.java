@@ -0,0 +1,128 @@
+package com.pptfactory.template.engine;
+
+import com.aspose.slides.IBlobManagementOptions;
+import com.aspose.slides.LoadOptions;
+import com.aspose.slides.Presentation;
+import com.aspose.slides.PresentationLockingBehavior;
+
+import java.io.File;
+
+/**
+ * 引擎加载演示文稿时的内存配置
+ *
+ * 默认配置下 Aspose 把模板PPT、master_template.pptx、安全生产参考PPT以及输出PPT中的所有图片、媒体
+ * 都读入堆内存，一个引擎常驻几十到上百 MB，并发引擎一多就会超过容器内存上限。
+ *
+ * 低内存配置通过 LoadOptions 的 BlobManagementOptions：
+ * - 模板类PPT以 KeepLocked 方式打开，二进制数据留在源文件中按需读取，不整体复制到内存
+ *   （引擎存活期间源文件保持打开，不能被覆盖；重新提取 master_template.pptx 前先停掉渲染服务）
+ * - 允许使用临时文件，超过内存阈值的图片、媒体写到临时目录，输出PPT中替换进来的图片同样适用
+ * - 内存阈值：所有二进制数据在堆内存中的总字节数上限，超过后新的数据改用临时文件
+ *
+ * 系统属性：
+ * - pptfactory.lowMemory=true             启用低内存配置（默认关闭，行为与之前完全相同）
+ * - pptfactory.lowMemory.thresholdMb=8    每个演示文稿留在内存中的二进制数据上限（MB）
+ * - pptfactory.lowMemory.tempDir=<目录>   临时文件目录（默认为系统临时目录）
+ *
+ * 临时文件在演示文稿 dispose 时删除，因此引擎用完必须 close()。
+ */
+public final class MemoryProfile {
+
+    // 默认配置：全部在内存中
+    public static final MemoryProfile DEFAULT = new MemoryProfile(false, 0, null);
+
+    // 低内存配置的默认内存阈值
+    public static final long DEFAULT_THRESHOLD_MB = 8;
+
+    private final boolean lowMemory;
+    private final long maxBlobsBytesInMemory;
+    private final String tempDir;
+
+    private MemoryProfile(boolean lowMemory, long maxBlobsBytesInMemory, String tempDir) {
+        this.lowMemory = lowMemory;
+        this.maxBlobsBytesInMemory = maxBlobsBytesInMemory;
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * 低内存配置
+     *
+     * @param thresholdMb 每个演示文稿留在内存中的二进制数据上限（MB），小于 0 时取默认值
+     * @param tempDir 临时文件目录，为 null 时使用系统临时目录
+     */
+    public static MemoryProfile lowMemory(long thresholdMb, String tempDir) {
+        long mb = thresholdMb >= 0 ? thresholdMb : DEFAULT_THRESHOLD_MB;
+        return new MemoryProfile(true, mb * 1024 * 1024, tempDir);
+    }
+
+    /**
+     * 从系统属性读取配置（未设置 pptfactory.lowMemory 时返回 DEFAULT）
+     */
+    public static MemoryProfile fromSystemProperties() {
+        if (!Boolean.getBoolean("pptfactory.lowMemory")) {
+            return DEFAULT;
+        }
+        return lowMemory(Long.getLong("pptfactory.lowMemory.thresholdMb", DEFAULT_THRESHOLD_MB),
+                System.getProperty("pptfactory.lowMemory.tempDir"));
+    }
+
+    public boolean isLowMemory() {
+        return lowMemory;
+    }
+
+    public long getMaxBlobsBytesInMemory() {
+        return maxBlobsBytesInMemory;
+    }
+
+    /**
+     * 打开只读的模板类PPT（模板、master_template.pptx、安全生产参考PPT）
+     *
+     * @param file PPT文件路径
+     */
+    public Presentation open(String file) {
+        if (!lowMemory) {
+            return new Presentation(file);
+        }
+        LoadOptions options = createLoadOptions();
+        options.getBlobManagementOptions().setPresentationLockingBehavior(PresentationLockingBehavior.KeepLocked);
+        return new Presentation(file, options);
+    }
+
+    /**
+     * 创建新的空白演示文稿（输出PPT）
+     */
+    public Presentation create() {
+        if (!lowMemory) {
+            return new Presentation();
+        }
+        return new Presentation(createLoadOptions());
+    }
+
+    /**
+     * 允许临时文件并设置内存阈值的 LoadOptions（不锁定源文件）
+     */
+    LoadOptions createLoadOptions() {
+        LoadOptions options = new LoadOptions();
+        IBlobManagementOptions blobs = options.getBlobManagementOptions();
+        blobs.setTemporaryFilesAllowed(true);
+        blobs.setMaxBlobsBytesInMemory(maxBlobsBytesInMemory);
+        if (tempDir != null && !tempDir.isEmpty()) {
+            File dir = new File(tempDir);
+            if (!dir.exists() && !dir.mkdirs()) {
+                System.err.println("警告：无法创建临时目录 " + tempDir + "，使用系统临时目录");
+            } else {
+                blobs.setTempFilesRootPath(dir.getAbsolutePath());
+            }
+        }
+        return options;
+    }
+
+    @Override
+    public String toString() {
+        if (!lowMemory) {
+            return "默认（全部在内存中）";
+        }
+        return "低内存（内存阈值 " + maxBlobsBytesInMemory / (1024 * 1024) + " MB，临时目录 "
+                + (tempDir != null ? tempDir : "系统默认") + "）";
+    }
+}
@@ -2,6 +2,12 @@ package com.pptfactory.template.engine;
 
 import com.pptfactory.style.StyleStrategy;
 import com.pptfactory.style.DefaultStyle;
+import com.pptfactory.style.ConfigStyle;
+import com.pptfactory.style.StyleRegistry;
+import com.pptfactory.style.StylePrototypes;
+import com.pptfactory.style.PortionStyle;
+import com.pptfactory.template.extractor.SlideHashManifest;
+import com.pptfactory.util.NoImagePlaceholderCache;
 import com.aspose.slides.*;
 import com.aspose.slides.Presentation;
 import com.aspose.slides.SaveFormat;
@@ -19,9 +25,15 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
+import java.nio.charset.StandardCharsets;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.Transformer;
@@ -69,13 +81,21 @@ public class PPTTemplateEngine {
     
     private Presentation presentation;
     private StyleStrategy styleStrategy;
+    private StylePrototypes stylePrototypes; // styleStrategy 的格式原型，构造时生成一次（用于引擎自己创建的幻灯片）
+    private PortionStyle templateMainTitleStyle; // 写入模板形状的文字：只含 applyTitleStyle(主标题) 设置的属性
+    private PortionStyle templateTitleStyle; // 写入模板形状的文字：只含 applyTitleStyle(标题) 设置的属性
     private String templateFile;
     private Presentation templatePresentation;
     private Presentation safetyReferencePresentation; // 安全生产参考PPT（用于获取布局和样式）
+    private String safetyReferenceFile; // 参考PPT的绝对路径（并行分析时每个线程从这里单独打开一份）
     private Presentation masterTemplatePresentation; // 统一的模板文件 master_template.pptx
+    private final MemoryProfile memoryProfile; // 加载演示文稿时的内存配置（默认或低内存）
     private Map<String, Integer> classicLayoutMap; // 经典布局映射：布局名称 -> 源PPT页码
     private Map<String, Map<String, Object>> layoutConfigMap; // 布局配置映射：布局名称 -> 配置信息
-    private Map<String, Map<String, Object>> layoutStyleMap; // 布局样式映射：布局名称 -> 样式信息
+    private static final double LAYOUT_TITLE_MIN_FONT_SIZE = 24; // 布局样式中按标题处理的最小字号
+    private StyleRegistry styleRegistry; // 布局风格注册表：布局名称 -> 共享的 ConfigStyle（来自 config/layouts.json 的 styles）
+    private final Map<String, Map<String, Object>> pendingLayoutDescriptions = new LinkedHashMap<>(); // 待写入 config/layouts.json 的布局描述
+    private final Map<String, Map<String, Object>> pendingStyles = new LinkedHashMap<>(); // 待写入 config/layouts.json 的布局样式
     
     /**
      * 初始化PPT模板引擎
@@ -90,6 +110,23 @@ public class PPTTemplateEngine {
      * @throws IOException 如果模板文件不存在或无法读取
      */
     public PPTTemplateEngine(String templateFile, StyleStrategy styleStrategy) throws IOException {
+        this(templateFile, styleStrategy, MemoryProfile.fromSystemProperties());
+    }
+    
+    /**
+     * 初始化PPT模板引擎，并指定加载演示文稿时的内存配置
+     * 
+     * @param templateFile 模板PPT文件路径（必需）
+     * @param styleStrategy 风格策略对象，可选
+     * @param memoryProfile 内存配置，为 null 时使用 MemoryProfile.DEFAULT
+     * @throws IOException 如果模板文件不存在或无法读取
+     */
+    public PPTTemplateEngine(String templateFile, StyleStrategy styleStrategy, MemoryProfile memoryProfile) throws IOException {
+        this.memoryProfile = memoryProfile != null ? memoryProfile : MemoryProfile.DEFAULT;
+        if (this.memoryProfile.isLowMemory()) {
+            System.out.println("✓ 内存配置: " + this.memoryProfile);
+        }
+        
         // 检查模板文件是否存在
         File template = new File(templateFile);
         if (!template.exists()) {
@@ -98,10 +135,10 @@ public class PPTTemplateEngine {
         
         // 加载模板文件
         this.templateFile = templateFile;
-        this.templatePresentation = new Presentation(templateFile);
+        this.templatePresentation = this.memoryProfile.open(templateFile);
         
         // 创建新的演示文稿，使用 Aspose.Slides
-        this.presentation = new Presentation();
+        this.presentation = this.memoryProfile.create();
         // 删除默认空白页，避免生成多余的首张空白幻灯片
         if (this.presentation.getSlides().size() > 0) {
             this.presentation.getSlides().removeAt(0);
@@ -120,6 +157,11 @@ public class PPTTemplateEngine {
         } else {
             this.styleStrategy = styleStrategy;
         }
+        this.stylePrototypes = this.styleStrategy.createPrototypes();
+        // 模板形状中的文字不预设字号和黑色填充（保留形状自身的格式），只执行风格策略的 applyTitleStyle
+        StyleStrategy strategy = this.styleStrategy;
+        this.templateMainTitleStyle = PortionStyle.capture(p -> strategy.applyTitleStyle(p, true));
+        this.templateTitleStyle = PortionStyle.capture(p -> strategy.applyTitleStyle(p, false));
         
         // 如果是安全生产类型，加载布局配置和模板文件
         if (isSafetyTemplate()) {
@@ -131,7 +173,7 @@ public class PPTTemplateEngine {
             } else {
                 // 如果配置文件不存在，创建空的布局映射（需要在提取模板时生成配置文件）
                 this.classicLayoutMap = new HashMap<>();
-                System.out.println("提示：布局配置文件不存在，请先运行模板提取工具生成模板文件");
+                System.out.println("提示：布局配置文件不存在，请先运行 ExtractLayouts 从参考PPT提取布局");
             }
             // 加载已存在的 master_template.pptx 模板文件
             loadMasterTemplate();
@@ -157,7 +199,7 @@ public class PPTTemplateEngine {
         }
         
         try {
-            this.masterTemplatePresentation = new Presentation(masterTemplateFileName);
+            this.masterTemplatePresentation = memoryProfile.open(masterTemplateFileName);
             System.out.println("✓ 已加载 master_template.pptx 到内存（共 " + this.masterTemplatePresentation.getSlides().size() + " 张模板幻灯片）");
         } catch (Exception e) {
             System.err.println("警告：加载 master_template.pptx 失败: " + e.getMessage());
@@ -196,10 +238,10 @@ public class PPTTemplateEngine {
                 System.out.println("✓ 已从配置文件加载 " + layoutConfigMap.size() + " 个布局定义");
             }
             
-            // 加载样式配置
+            // 加载样式配置：所有引擎共享按配置文件缓存的注册表，每个布局一个共享的 ConfigStyle
             if (config.containsKey("styles")) {
-                this.layoutStyleMap = (Map<String, Map<String, Object>>) config.get("styles");
-                System.out.println("✓ 已从配置文件加载 " + (layoutStyleMap != null ? layoutStyleMap.size() : 0) + " 个布局样式");
+                this.styleRegistry = StyleRegistry.forConfigFile(configFile.getPath());
+                System.out.println("✓ 已从配置文件加载 " + styleRegistry.size() + " 个布局样式");
             }
         } catch (Exception e) {
             System.err.println("警告：加载布局配置文件失败: " + e.getMessage());
@@ -340,13 +382,41 @@ public class PPTTemplateEngine {
         return null;
     }
     
+    /**
+     * 从参考PPT提取经典布局，重新生成 master_template.pptx 和 config/layouts.json 中的布局样式
+     * 
+     * 参考PPT只在提取期间加载，提取结束后释放。
+     * -Dpptfactory.extract.parallel=true 时逐页分析并行执行，每个线程单独打开一份参考PPT（见 analyzeSlides）。
+     * 命令行入口：ExtractLayouts
+     * 
+     * @param referenceFile 参考PPT文件路径（如 "1.2 安全生产方针政策.pptx"）
+     * @throws IOException 如果参考PPT不存在
+     */
+    public void extractClassicLayouts(String referenceFile) throws IOException {
+        File reference = new File(referenceFile);
+        if (!reference.exists()) {
+            throw new FileNotFoundException("参考PPT不存在: " + referenceFile);
+        }
+        if (safetyReferencePresentation != null) {
+            safetyReferencePresentation.dispose();
+        }
+        safetyReferenceFile = reference.getAbsolutePath();
+        safetyReferencePresentation = memoryProfile.open(safetyReferenceFile);
+        try {
+            extractAndRegisterClassicLayouts();
+        } finally {
+            safetyReferencePresentation.dispose();
+            safetyReferencePresentation = null;
+            safetyReferenceFile = null;
+        }
+    }
+    
     /**
      * 从源PPT中提取布局并注册为经典布局类型
      * 
      * 分析《1.2 安全生产方针政策.pptx》第5页到倒数第2页的布局结构，
      * 为每个布局创建一个经典的布局类型名称，供所有PPT类型使用。
-     * 
-     * 如果配置文件存在，此方法不会被调用。
+     * 每页只分析一次，分析结果同时用于注册布局和抽离模板、样式。
      */
     private void extractAndRegisterClassicLayouts() {
         if (safetyReferencePresentation == null) {
@@ -367,45 +437,40 @@ public class PPTTemplateEngine {
         
         System.out.println("开始提取经典布局（从第5页到第" + (endIndex + 1) + "页）...");
         
-        for (int i = startIndex; i <= endIndex; i++) {
-            try {
-                ISlide slide = safetyReferencePresentation.getSlides().get_Item(i);
-                String layoutName = analyzeAndNameLayout(slide, i + 1);
-                
-                // 注册布局：布局名称 -> 页码（从1开始）
-                classicLayoutMap.put(layoutName, i + 1);
-                System.out.println("  ✓ 注册经典布局: " + layoutName + " (源PPT第" + (i + 1) + "页)");
-            } catch (Exception e) {
-                System.err.println("警告：分析第" + (i + 1) + "页布局失败: " + e.getMessage());
+        // 逐页分析（只读）：并行模式下每个线程使用自己的参考PPT副本，结果仍按页序返回
+        List<SlideAnalysis> analyses = analyzeSlides(startIndex, endIndex);
+        
+        for (SlideAnalysis analysis : analyses) {
+            int pageNumber = analysis.sourceIndex + 1;
+            if (analysis.error != null) {
+                System.err.println("警告：分析第" + pageNumber + "页布局失败: " + analysis.error.getMessage());
+                continue;
             }
+            // 注册布局：布局名称 -> 页码（从1开始）
+            classicLayoutMap.put(analysis.layoutName, pageNumber);
+            System.out.println("  ✓ 注册经典布局: " + analysis.layoutName + " (源PPT第" + pageNumber + "页)");
         }
         
         System.out.println("✓ 共提取并注册 " + classicLayoutMap.size() + " 个经典布局类型");
         
         // 抽离模板文件和策略类风格
-        extractTemplatesAndStyles();
+        extractTemplatesAndStyles(analyses);
     }
     
     /**
      * 抽离模板文件和策略类风格
      * 
-     * 从源PPT的第5页到倒数第2页，将所有模板幻灯片合并到一个 master_template.pptx 文件中，
-     * 并为每个模板创建对应的策略类风格。
+     * 把已分析的源PPT页（第5页到倒数第2页）按页序合并到一个 master_template.pptx 文件中，
+     * 并把每个模板的样式写入 config/layouts.json 的 styles（运行时由 StyleRegistry 构建 ConfigStyle）。
+     * 
+     * @param analyses analyzeSlides 的结果（按页序）
      */
-    private void extractTemplatesAndStyles() {
+    private void extractTemplatesAndStyles(List<SlideAnalysis> analyses) {
         if (safetyReferencePresentation == null) {
             System.out.println("提示：参考PPT未加载，跳过模板和风格抽离");
             return;
         }
         
-        int slideCount = safetyReferencePresentation.getSlides().size();
-        System.out.println("调试：源PPT共有 " + slideCount + " 页");
-        
-        if (slideCount < 5) {
-            System.out.println("提示：源PPT页数不足（" + slideCount + "页），无法抽离模板");
-            return;
-        }
-        
         // 创建模板目录
         File templatesDir = new File("templates");
         if (!templatesDir.exists()) {
@@ -415,7 +480,7 @@ public class PPTTemplateEngine {
         
         // 创建统一的 master_template.pptx 文件
         String masterTemplateFileName = "templates/master_template.pptx";
-        Presentation masterTemplate = new Presentation();
+        Presentation masterTemplate = memoryProfile.create();
         
         // 设置幻灯片尺寸（与源PPT一致）
         masterTemplate.getSlideSize().setSize(
@@ -429,129 +494,216 @@ public class PPTTemplateEngine {
             masterTemplate.getSlides().removeAt(0);
         }
         
-        // 从第5页开始到倒数第2页（索引4到slideCount-2）
-        int startIndex = 4; // 第5页（索引4）
-        int endIndex = slideCount - 2; // 倒数第2页（索引slideCount-2）
-        
-        System.out.println("开始抽离模板文件和策略类风格（从第5页到第" + (endIndex + 1) + "页，共" + (endIndex - startIndex + 1) + "页）...");
+        System.out.println("开始抽离模板文件和策略类风格（共" + analyses.size() + "页）...");
         System.out.println("所有模板将统一保存到: " + masterTemplateFileName);
         
-        for (int i = startIndex; i <= endIndex; i++) {
+        // 单线程按页序组装：克隆到 master_template.pptx 并暂存布局样式
+        for (SlideAnalysis analysis : analyses) {
+            int pageNumber = analysis.sourceIndex + 1;
+            if (analysis.error != null) {
+                System.err.println("警告：抽离第" + pageNumber + "页模板和风格失败: " + analysis.error.getMessage());
+                analysis.error.printStackTrace();
+                continue;
+            }
             try {
-                ISlide slide = safetyReferencePresentation.getSlides().get_Item(i);
-                int pageNumber = i + 1;
-                String layoutName = analyzeAndNameLayout(slide, pageNumber);
+                ISlide slide = safetyReferencePresentation.getSlides().get_Item(analysis.sourceIndex);
                 
-                // 1. 将幻灯片添加到 master_template.pptx
+                // 将幻灯片添加到 master_template.pptx
                 masterTemplate.getSlides().addClone(slide);
                 int masterIndex = masterTemplate.getSlides().size() - 1; // 当前添加的幻灯片在master_template中的索引
                 
-                System.out.println("  ✓ 已将源PPT第" + pageNumber + "页添加到 master_template.pptx (索引: " + masterIndex + ", 布局: " + layoutName + ")");
-                
-                // 2. 创建对应的策略类风格
-                createStyleClassForTemplate(layoutName, slide, pageNumber);
+                System.out.println("  ✓ 已将源PPT第" + pageNumber + "页添加到 master_template.pptx (索引: " + masterIndex + ", 布局: " + analysis.layoutName + ")");
                 
-                System.out.println("  ✓ 已创建风格类: " + layoutName);
+                // 暂存对应的布局样式，由 commitLayoutConfig() 写入 config/layouts.json 的 styles
+                if (analysis.styleInfo != null) {
+                    stageLayoutStyle(analysis.layoutName, analysis.styleInfo, pageNumber);
+                }
             } catch (Exception e) {
-                System.err.println("警告：抽离第" + (i + 1) + "页模板和风格失败: " + e.getMessage());
+                System.err.println("警告：抽离第" + pageNumber + "页模板和风格失败: " + e.getMessage());
                 e.printStackTrace();
             }
         }
         
-        // 保存 master_template.pptx（临时保存，用于后续处理）
-        masterTemplate.save(masterTemplateFileName, SaveFormat.Pptx);
-        masterTemplate.dispose();
-        
-        // 去除 master_template.pptx 中的水印（包括水印的文本框）
-        try {
-            removeWatermarksFromXML(masterTemplateFileName);
-            System.out.println("    ✓ 已去除 master_template.pptx 中的水印");
-        } catch (Exception e) {
-            System.err.println("警告：去除 master_template.pptx 水印失败: " + e.getMessage());
-        }
-        
-        // 重新加载文件（水印已去除），替换文字和图片
-        Presentation finalMasterTemplate = new Presentation(masterTemplateFileName);
-        
-        // 处理每一张幻灯片
-        for (int i = 0; i < finalMasterTemplate.getSlides().size(); i++) {
-            ISlide slide = finalMasterTemplate.getSlides().get_Item(i);
+        // 直接在内存中的克隆页上替换文字和图片（源幻灯片不受影响），之后只保存、去水印各一次
+        Map<String, IPPImage> noImageBySize = new HashMap<>(); // 取整尺寸相同的图片框共用同一张占位图
+        for (int i = 0; i < masterTemplate.getSlides().size(); i++) {
+            ISlide slide = masterTemplate.getSlides().get_Item(i);
             
             // 将模板文件中的所有文字替换为"模板文字模板文字模板文字"，保留文字的大小、字体和对齐方式
             replaceAllTextWithTemplateTextPreservingStyle(slide);
             
             // 将模板文件中的所有图片替换为"No Image"（顶部图标除外）
-            replaceAllImagesWithNoImage(slide, finalMasterTemplate);
+            replaceAllImagesWithNoImage(slide, masterTemplate, noImageBySize);
         }
+        System.out.println("    ✓ \"No Image\" 占位图共 " + noImageBySize.size() + " 张（" + NoImagePlaceholderCache.stats() + "）");
         
         System.out.println("    ✓ 已替换所有文本为模板文字");
         
-        // 最终保存 master_template.pptx
-        finalMasterTemplate.save(masterTemplateFileName, SaveFormat.Pptx);
-        finalMasterTemplate.dispose();
+        // 保存 master_template.pptx（先释放已加载的旧文件，低内存配置下它以 KeepLocked 方式打开，不能在使用中被覆盖）
+        if (this.masterTemplatePresentation != null) {
+            this.masterTemplatePresentation.dispose();
+            this.masterTemplatePresentation = null;
+        }
+        masterTemplate.save(masterTemplateFileName, SaveFormat.Pptx);
+        masterTemplate.dispose();
+        
+        // 模板是整体重建的，TemplateExtractor 的增量清单（源页 -> 模板索引）已不再对应，删除后下次提取走全量
+        try {
+            if (Files.deleteIfExists(SlideHashManifest.manifestFileFor(masterTemplateFileName).toPath())) {
+                System.out.println("    ✓ 已删除过期的模板清单");
+            }
+        } catch (IOException e) {
+            System.err.println("警告：删除模板清单失败，下次提取请加 -Dpptfactory.extract.full=true: " + e.getMessage());
+        }
         
-        // 最终保存后，再次去除水印（因为 Aspose.Slides 可能在保存时重新添加水印）
+        // 去除 master_template.pptx 中的水印（Aspose.Slides 在保存时添加，包括水印的文本框）
         // 注意：只去除水印，不要影响已替换的"模板文字"
         try {
             removeWatermarksFromXML(masterTemplateFileName);
-            System.out.println("    ✓ 已再次去除 master_template.pptx 中的水印");
+            System.out.println("    ✓ 已去除 master_template.pptx 中的水印");
         } catch (Exception e) {
-            System.err.println("警告：最终去除 master_template.pptx 水印失败: " + e.getMessage());
+            System.err.println("警告：去除 master_template.pptx 水印失败: " + e.getMessage());
         }
         
         // 加载 master_template.pptx 到内存，供后续使用
         try {
-            this.masterTemplatePresentation = new Presentation(masterTemplateFileName);
+            this.masterTemplatePresentation = memoryProfile.open(masterTemplateFileName);
             System.out.println("✓ 已加载 master_template.pptx 到内存（共 " + this.masterTemplatePresentation.getSlides().size() + " 张模板幻灯片）");
         } catch (Exception e) {
             System.err.println("警告：加载 master_template.pptx 失败: " + e.getMessage());
             this.masterTemplatePresentation = null;
         }
         
+        // 暂存的布局描述一次性写入 config/layouts.json（没有暂存时不读写文件）
+        commitLayoutConfig();
+        
         System.out.println("✓ 模板文件和策略类风格抽离完成");
     }
     
     /**
-     * 为模板创建对应的策略类风格
+     * 单页分析结果（布局名称 + 样式信息）：布局分析失败时 error 不为空，样式分析失败时 styleInfo 为空
+     */
+    private static class SlideAnalysis {
+        final int sourceIndex;
+        String layoutName;
+        Map<String, Object> styleInfo;
+        Exception error;
+        
+        SlideAnalysis(int sourceIndex) {
+            this.sourceIndex = sourceIndex;
+        }
+    }
+    
+    /**
+     * 分析源PPT中 [startIndex, endIndex] 的每一页（布局命名 + 样式分析），结果按页序返回
      * 
-     * @param layoutName 布局名称
-     * @param slide 源幻灯片
-     * @param pageNumber 页码
+     * 这些分析只读取各自的源幻灯片，互不依赖。
+     * -Dpptfactory.extract.parallel=true 时把页码范围分成连续的几段并行执行，
+     * 线程数默认为 min(CPU核数, 4)，可用 -Dpptfactory.extract.threads=N 指定。
+     * Aspose.Slides 未承诺同一个 Presentation 的并发读取安全，所以每个线程从参考PPT文件单独打开一份
+     * （内存占用随线程数成倍增加），不与 safetyReferencePresentation 共享；
+     * 参考PPT不是通过 extractClassicLayouts 加载时没有文件路径，按单线程执行。
      */
-    private void createStyleClassForTemplate(String layoutName, ISlide slide, int pageNumber) {
-        try {
-            // 分析幻灯片中的样式信息
-            Map<String, Object> styleInfo = analyzeSlideStyle(slide);
-            
-            // 生成风格类文件名
-            String className = toClassName(layoutName);
-            String styleFileName = "src/main/java/com/pptfactory/style/" + className + ".java";
-            
-            // 检查文件是否已存在
-            File styleFile = new File(styleFileName);
-            if (styleFile.exists()) {
-                System.out.println("    ⚠ 风格类文件已存在，跳过: " + styleFileName);
-                return;
+    private List<SlideAnalysis> analyzeSlides(int startIndex, int endIndex) {
+        int count = endIndex - startIndex + 1;
+        if (count <= 0) {
+            return new ArrayList<>();
+        }
+        boolean parallel = Boolean.getBoolean("pptfactory.extract.parallel") && safetyReferenceFile != null;
+        int threads = Math.min(count, Integer.getInteger("pptfactory.extract.threads",
+                Math.min(Runtime.getRuntime().availableProcessors(), 4)));
+        if (threads < 2) {
+            parallel = false;
+        }
+        
+        long start = System.currentTimeMillis();
+        List<SlideAnalysis> analyses;
+        if (parallel) {
+            analyses = analyzeSlidesInParallel(startIndex, count, threads);
+        } else {
+            analyses = new ArrayList<>(count);
+            for (int i = startIndex; i <= endIndex; i++) {
+                analyses.add(analyzeSlide(safetyReferencePresentation, i));
             }
-            
-            // 生成风格类代码
-            String styleClassCode = generateStyleClassCode(className, layoutName, styleInfo, pageNumber);
-            
-            // 保存风格类文件
-            File styleDir = new File("src/main/java/com/pptfactory/style");
-            if (!styleDir.exists()) {
-                styleDir.mkdirs();
+        }
+        System.out.println("  ✓ 已分析 " + count + " 页（" + (parallel ? "并行，线程数 " + threads : "单线程")
+                + "，耗时 " + (System.currentTimeMillis() - start) + " ms）");
+        return analyses;
+    }
+    
+    /**
+     * 并行分析：每个线程打开自己的参考PPT副本，分析一段连续的页，用完即释放
+     */
+    private List<SlideAnalysis> analyzeSlidesInParallel(int startIndex, int count, int threads) {
+        SlideAnalysis[] results = new SlideAnalysis[count];
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(threads);
+        try {
+            List<java.util.concurrent.Future<?>> futures = new ArrayList<>();
+            int chunk = (count + threads - 1) / threads;
+            for (int from = 0; from < count; from += chunk) {
+                int first = from;
+                int last = Math.min(count, from + chunk);
+                futures.add(pool.submit(() -> {
+                    Presentation own = memoryProfile.open(safetyReferenceFile);
+                    try {
+                        for (int k = first; k < last; k++) {
+                            results[k] = analyzeSlide(own, startIndex + k);
+                        }
+                    } finally {
+                        own.dispose();
+                    }
+                }));
             }
-            
-            try (FileWriter writer = new FileWriter(styleFile)) {
-                writer.write(styleClassCode);
+            for (java.util.concurrent.Future<?> future : futures) {
+                future.get();
             }
-            
-            System.out.println("    ✓ 已创建风格类: " + styleFileName);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("并行分析被中断", e);
+        } catch (java.util.concurrent.ExecutionException e) {
+            throw new RuntimeException("并行分析失败: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return new ArrayList<>(Arrays.asList(results));
+    }
+    
+    /**
+     * 分析单页：只读取 source 中的源幻灯片，不修改任何共享状态
+     */
+    private SlideAnalysis analyzeSlide(Presentation source, int sourceIndex) {
+        SlideAnalysis analysis = new SlideAnalysis(sourceIndex);
+        ISlide slide;
+        try {
+            slide = source.getSlides().get_Item(sourceIndex);
+            analysis.layoutName = analyzeAndNameLayout(slide, sourceIndex + 1);
         } catch (Exception e) {
-            System.err.println("警告：创建风格类失败: " + e.getMessage());
-            e.printStackTrace();
+            analysis.error = e;
+            return analysis;
         }
+        try {
+            analysis.styleInfo = analyzeSlideStyle(slide);
+        } catch (Exception e) {
+            // 样式分析失败只影响布局样式，模板页仍然拷贝
+            System.err.println("警告：分析布局样式失败: " + e.getMessage());
+        }
+        return analysis;
+    }
+    
+    /**
+     * 暂存模板对应的布局样式（已在 config/layouts.json 中配置的样式不会被覆盖）
+     * 
+     * @param layoutName 布局名称
+     * @param styleInfo analyzeSlideStyle 的结果
+     * @param pageNumber 页码
+     */
+    private void stageLayoutStyle(String layoutName, Map<String, Object> styleInfo, int pageNumber) {
+        double titleSize = ((Number) styleInfo.getOrDefault("titleFontSize", 32.0)).doubleValue();
+        double contentSize = ((Number) styleInfo.getOrDefault("contentFontSize", 18.0)).doubleValue();
+        java.awt.Color titleColor = (java.awt.Color) styleInfo.getOrDefault("titleColor", new java.awt.Color(220, 20, 60));
+        java.awt.Color contentColor = (java.awt.Color) styleInfo.getOrDefault("contentColor", new java.awt.Color(0, 0, 0));
+        pendingStyles.put(layoutName, ConfigStyle.toConfig(titleSize, contentSize, titleColor, contentColor, pageNumber));
+        System.out.println("  ✓ 已暂存布局样式: " + layoutName);
     }
     
     /**
@@ -583,7 +735,7 @@ public class PPTTemplateEngine {
                             double fontSize = portion.getPortionFormat().getFontHeight();
                             
                             // 判断是标题还是正文（根据字体大小）
-                            if (fontSize >= 24) {
+                            if (fontSize >= LAYOUT_TITLE_MIN_FONT_SIZE) {
                                 titleSizes.add(fontSize);
                                 if (portion.getPortionFormat().getFillFormat().getFillType() == FillType.Solid) {
                                     titleColors.add(portion.getPortionFormat().getFillFormat().getSolidFillColor().getColor());
@@ -631,116 +783,6 @@ public class PPTTemplateEngine {
         return styleInfo;
     }
     
-    /**
-     * 将布局名称转换为类名
-     * 
-     * @param layoutName 布局名称（如 "classic_image_text_5"）
-     * @return 类名（如 "ClassicImageText5Style"）
-     */
-    private String toClassName(String layoutName) {
-        // 移除 "classic_" 前缀
-        String name = layoutName.replaceFirst("^classic_", "");
-        
-        // 将下划线分隔的名称转换为驼峰命名
-        String[] parts = name.split("_");
-        StringBuilder className = new StringBuilder();
-        for (String part : parts) {
-            if (!part.isEmpty()) {
-                className.append(Character.toUpperCase(part.charAt(0)));
-                if (part.length() > 1) {
-                    className.append(part.substring(1));
-                }
-            }
-        }
-        className.append("Style");
-        
-        return className.toString();
-    }
-    
-    /**
-     * 生成风格类代码
-     * 
-     * @param className 类名
-     * @param layoutName 布局名称
-     * @param styleInfo 样式信息
-     * @param pageNumber 页码
-     * @return 风格类代码
-     */
-    private String generateStyleClassCode(String className, String layoutName, Map<String, Object> styleInfo, int pageNumber) {
-        double titleSize = ((Number) styleInfo.getOrDefault("titleFontSize", 32.0)).doubleValue();
-        double contentSize = ((Number) styleInfo.getOrDefault("contentFontSize", 18.0)).doubleValue();
-        java.awt.Color titleColor = (java.awt.Color) styleInfo.getOrDefault("titleColor", new java.awt.Color(220, 20, 60));
-        java.awt.Color contentColor = (java.awt.Color) styleInfo.getOrDefault("contentColor", new java.awt.Color(0, 0, 0));
-        
-        return "package com.pptfactory.style;\n\n" +
-               "import com.aspose.slides.IPortion;\n" +
-               "import com.aspose.slides.FillType;\n" +
-               "import java.awt.Color;\n\n" +
-               "/**\n" +
-               " * " + layoutName + " 风格策略类\n" +
-               " * \n" +
-               " * 从《1.2 安全生产方针政策.pptx》第" + pageNumber + "页提取的风格。\n" +
-               " * 此风格类保留了源PPT页面的样式特征。\n" +
-               " */\n" +
-               "public class " + className + " implements StyleStrategy {\n\n" +
-               "    // 字体大小配置（从源PPT第" + pageNumber + "页提取）\n" +
-               "    private static final double MAIN_TITLE_SIZE = " + titleSize + ";\n" +
-               "    private static final double TITLE_SIZE = " + titleSize + ";\n" +
-               "    private static final double SUBTITLE_SIZE = " + (titleSize * 0.7) + ";\n" +
-               "    private static final double CONTENT_SIZE = " + contentSize + ";\n" +
-               "    private static final double BULLET_SIZE = " + contentSize + ";\n\n" +
-               "    // 颜色配置（从源PPT第" + pageNumber + "页提取）\n" +
-               "    private static final Color TITLE_COLOR = new Color(" + titleColor.getRed() + ", " + titleColor.getGreen() + ", " + titleColor.getBlue() + ");\n" +
-               "    private static final Color CONTENT_COLOR = new Color(" + contentColor.getRed() + ", " + contentColor.getGreen() + ", " + contentColor.getBlue() + ");\n\n" +
-               "    // 间距配置\n" +
-               "    private static final double BULLET_SPACING = 12.0;\n\n" +
-               "    @Override\n" +
-               "    public void applyTitleStyle(IPortion portion, boolean isMainTitle) {\n" +
-               "        portion.getPortionFormat().setFontHeight((float)(isMainTitle ? MAIN_TITLE_SIZE : TITLE_SIZE));\n" +
-               "        portion.getPortionFormat().getFillFormat().setFillType(FillType.Solid);\n" +
-               "        portion.getPortionFormat().getFillFormat().getSolidFillColor().setColor(TITLE_COLOR);\n" +
-               "    }\n\n" +
-               "    @Override\n" +
-               "    public void applySubtitleStyle(IPortion portion) {\n" +
-               "        portion.getPortionFormat().setFontHeight((float)SUBTITLE_SIZE);\n" +
-               "        portion.getPortionFormat().getFillFormat().setFillType(FillType.Solid);\n" +
-               "        portion.getPortionFormat().getFillFormat().getSolidFillColor().setColor(TITLE_COLOR);\n" +
-               "    }\n\n" +
-               "    @Override\n" +
-               "    public void applyContentStyle(IPortion portion) {\n" +
-               "        portion.getPortionFormat().setFontHeight((float)CONTENT_SIZE);\n" +
-               "        portion.getPortionFormat().getFillFormat().setFillType(FillType.Solid);\n" +
-               "        portion.getPortionFormat().getFillFormat().getSolidFillColor().setColor(CONTENT_COLOR);\n" +
-               "    }\n\n" +
-               "    @Override\n" +
-               "    public void applyBulletStyle(IPortion portion) {\n" +
-               "        portion.getPortionFormat().setFontHeight((float)BULLET_SIZE);\n" +
-               "        portion.getPortionFormat().getFillFormat().setFillType(FillType.Solid);\n" +
-               "        portion.getPortionFormat().getFillFormat().getSolidFillColor().setColor(CONTENT_COLOR);\n" +
-               "    }\n\n" +
-               "    @Override\n" +
-               "    public double getBulletSpacing() {\n" +
-               "        return BULLET_SPACING;\n" +
-               "    }\n\n" +
-               "    @Override\n" +
-               "    public double getTitleFontSize(boolean isMainTitle) {\n" +
-               "        return isMainTitle ? MAIN_TITLE_SIZE : TITLE_SIZE;\n" +
-               "    }\n\n" +
-               "    @Override\n" +
-               "    public double getSubtitleFontSize() {\n" +
-               "        return SUBTITLE_SIZE;\n" +
-               "    }\n\n" +
-               "    @Override\n" +
-               "    public double getContentFontSize() {\n" +
-               "        return CONTENT_SIZE;\n" +
-               "    }\n\n" +
-               "    @Override\n" +
-               "    public double getBulletFontSize() {\n" +
-               "        return BULLET_SIZE;\n" +
-               "    }\n" +
-               "}\n";
-    }
-    
     /**
      * 分析幻灯片布局并生成布局名称
      * 
@@ -1044,55 +1086,125 @@ public class PPTTemplateEngine {
      * 更新布局配置文件（已废弃，改为手动维护配置文件）
      * 
      * 注意：此方法已不再使用，排版格式描述信息改为手动在 config/layouts.json 中维护。
+     * 只把布局描述暂存在内存中，由 commitLayoutConfig() 在抽离结束时一次性写入。
      * 
      * @deprecated 已废弃，改为手动维护配置文件
      */
     @Deprecated
     private void updateLayoutConfig(String layoutName, Map<String, Object> layoutDescription) {
+        pendingLayoutDescriptions.put(layoutName, layoutDescription);
+    }
+    
+    /**
+     * 把暂存的布局描述和布局样式一次性合并写入 config/layouts.json
+     * 
+     * 合并规则（保留手工修改）：
+     * - 新布局追加到 layouts 末尾
+     * - 已存在的布局（按 name 匹配）只补充缺少的字段，已有字段（包括嵌套对象里的字段）保持不变
+     * 
+     * 先写临时文件再原子替换，写入中途失败不会留下半个配置文件。
+     */
+    private void commitLayoutConfig() {
+        if (pendingLayoutDescriptions.isEmpty() && pendingStyles.isEmpty()) {
+            return;
+        }
         try {
             File configFile = new File("config/layouts.json");
-            Map<String, Object> config = new HashMap<>();
+            ObjectMapper mapper = new ObjectMapper();
+            Map<String, Object> config = new LinkedHashMap<>();
             
-            // 读取现有配置
+            // 读取现有配置（只读一次）
             if (configFile.exists()) {
-                ObjectMapper mapper = new ObjectMapper();
-                config = mapper.readValue(configFile, new TypeReference<Map<String, Object>>() {});
+                config = mapper.readValue(configFile, new TypeReference<LinkedHashMap<String, Object>>() {});
             }
             
-            // 获取或创建layouts数组
             @SuppressWarnings("unchecked")
             List<Map<String, Object>> layouts = (List<Map<String, Object>>) config.getOrDefault("layouts", new ArrayList<>());
             
-            // 检查是否已存在该布局
-            boolean exists = false;
-            for (int i = 0; i < layouts.size(); i++) {
-                Map<String, Object> layout = layouts.get(i);
-                if (layoutName.equals(layout.get("name"))) {
-                    // 更新现有布局
-                    layouts.set(i, layoutDescription);
-                    exists = true;
-                    break;
+            // 按名称建立索引，避免每个布局都线性查找
+            Map<String, Map<String, Object>> byName = new HashMap<>();
+            for (Map<String, Object> layout : layouts) {
+                Object name = layout.get("name");
+                if (name != null) {
+                    byName.put(name.toString(), layout);
                 }
             }
             
-            // 如果不存在，添加新布局
-            if (!exists) {
-                layouts.add(layoutDescription);
+            int added = 0;
+            int merged = 0;
+            for (Map.Entry<String, Map<String, Object>> e : pendingLayoutDescriptions.entrySet()) {
+                Map<String, Object> existing = byName.get(e.getKey());
+                if (existing == null) {
+                    layouts.add(e.getValue());
+                    byName.put(e.getKey(), e.getValue());
+                    added++;
+                } else {
+                    mergeMissingFields(existing, e.getValue());
+                    merged++;
+                }
             }
-            
             config.put("layouts", layouts);
             
-            // 保存配置文件
-            ObjectMapper mapper = new ObjectMapper();
-            mapper.writerWithDefaultPrettyPrinter().writeValue(configFile, config);
+            // 布局样式（styles）同样只补充缺少的布局和字段，手工调整过的样式保持不变
+            @SuppressWarnings("unchecked")
+            Map<String, Object> styles = (Map<String, Object>) config.getOrDefault("styles", new LinkedHashMap<>());
+            int stylesAdded = 0;
+            for (Map.Entry<String, Map<String, Object>> e : pendingStyles.entrySet()) {
+                Object existing = styles.get(e.getKey());
+                if (existing instanceof Map) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> existingStyle = (Map<String, Object>) existing;
+                    mergeMissingFields(existingStyle, e.getValue());
+                } else {
+                    styles.put(e.getKey(), e.getValue());
+                    stylesAdded++;
+                }
+            }
+            config.put("styles", styles);
             
-            System.out.println("    ✓ 已更新布局配置文件: " + layoutName);
+            // 写临时文件后原子替换
+            File configDir = configFile.getAbsoluteFile().getParentFile();
+            if (!configDir.exists()) {
+                configDir.mkdirs();
+            }
+            Path tmp = Files.createTempFile(configDir.toPath(), "layouts", ".json.tmp");
+            try {
+                mapper.writerWithDefaultPrettyPrinter().writeValue(tmp.toFile(), config);
+                try {
+                    Files.move(tmp, configFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(tmp, configFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            
+            System.out.println("    ✓ 已更新布局配置文件（新增 " + added + " 个，合并 " + merged + " 个，新增样式 " + stylesAdded + " 个）");
+            pendingLayoutDescriptions.clear();
+            pendingStyles.clear();
+            StyleRegistry.invalidate(configFile.getPath());
+            this.styleRegistry = StyleRegistry.forConfigFile(configFile.getPath());
         } catch (Exception e) {
             System.err.println("警告：更新布局配置文件失败: " + e.getMessage());
             // 不抛出异常，继续执行
         }
     }
     
+    /**
+     * 把 source 中 target 没有的字段补充到 target；两边都是对象的字段递归合并，其余已有字段保持不变
+     */
+    @SuppressWarnings("unchecked")
+    private static void mergeMissingFields(Map<String, Object> target, Map<String, Object> source) {
+        for (Map.Entry<String, Object> e : source.entrySet()) {
+            Object current = target.get(e.getKey());
+            if (current == null && !target.containsKey(e.getKey())) {
+                target.put(e.getKey(), e.getValue());
+            } else if (current instanceof Map && e.getValue() instanceof Map) {
+                mergeMissingFields((Map<String, Object>) current, (Map<String, Object>) e.getValue());
+            }
+        }
+    }
+    
     /**
      * 根据slide_data渲染单张幻灯片
      * 
@@ -1226,11 +1338,7 @@ public class PPTTemplateEngine {
             
             // 应用样式
             IPortion titlePortion = titleFrame.getParagraphs().get_Item(0).getPortions().get_Item(0);
-            titlePortion.getPortionFormat().setFontHeight((float)styleStrategy.getTitleFontSize(true));
-            // titlePortion.getPortionFormat().setBold(NullableBool.True); // TODO: 根据实际 Aspose.Slides API 调整
-            titlePortion.getPortionFormat().getFillFormat().setFillType(FillType.Solid);
-            titlePortion.getPortionFormat().getFillFormat().getSolidFillColor().setColor(new java.awt.Color(0, 0, 0));
-            styleStrategy.applyTitleStyle(titlePortion, true);
+            stylePrototypes.title(true).apply(titlePortion);
             
             System.out.println("    添加标题: \"" + title + "\"");
         }
@@ -1252,11 +1360,7 @@ public class PPTTemplateEngine {
                 
                 // 应用样式
                 IPortion subtitlePortion = subtitleFrame.getParagraphs().get_Item(0).getPortions().get_Item(0);
-                subtitlePortion.getPortionFormat().setFontHeight((float)styleStrategy.getSubtitleFontSize());
-                // subtitlePortion.getPortionFormat().setBold(NullableBool.False); // TODO: 根据实际 Aspose.Slides API 调整
-                subtitlePortion.getPortionFormat().getFillFormat().setFillType(FillType.Solid);
-                subtitlePortion.getPortionFormat().getFillFormat().getSolidFillColor().setColor(new java.awt.Color(64, 64, 64));
-                styleStrategy.applySubtitleStyle(subtitlePortion);
+                stylePrototypes.subtitle().apply(subtitlePortion);
                 
                 System.out.println("    添加副标题: \"" + subtitle + "\"");
             }
@@ -1292,11 +1396,7 @@ public class PPTTemplateEngine {
             
             // 应用样式
             IPortion titlePortion = titleFrame.getParagraphs().get_Item(0).getPortions().get_Item(0);
-            titlePortion.getPortionFormat().setFontHeight((float)styleStrategy.getTitleFontSize(false));
-            // titlePortion.getPortionFormat().setBold(NullableBool.True); // TODO: 根据实际 Aspose.Slides API 调整
-            titlePortion.getPortionFormat().getFillFormat().setFillType(FillType.Solid);
-            titlePortion.getPortionFormat().getFillFormat().getSolidFillColor().setColor(new java.awt.Color(0, 0, 0));
-            styleStrategy.applyTitleStyle(titlePortion, false);
+            stylePrototypes.title(false).apply(titlePortion);
             
             System.out.println("    添加标题: \"" + title + "\"");
         }
@@ -1325,21 +1425,14 @@ public class PPTTemplateEngine {
                         // 创建段落并添加到集合
                         IParagraph para = new Paragraph();
                         contentFrame.getParagraphs().add(para);
-                        para.getParagraphFormat().getBullet().setType(BulletType.Symbol);
-                        para.getParagraphFormat().getBullet().setChar((char)8226); // 圆点符号
-                        para.getParagraphFormat().setIndent((float)(0.5 * 72));
-                        para.getParagraphFormat().setSpaceAfter((float)styleStrategy.getBulletSpacing());
+                        stylePrototypes.bulletParagraph().apply(para); // 圆点符号、缩进、段后间距
                         
                         // 创建文本部分并添加到段落
                         IPortion portion = new Portion();
                         para.getPortions().add(portion);
                         String bulletText = bullets.get(i);
                         portion.setText(bulletText);
-                        portion.getPortionFormat().setFontHeight((float)styleStrategy.getBulletFontSize());
-                        // portion.getPortionFormat().setBold(NullableBool.False); // TODO: 根据实际 Aspose.Slides API 调整
-                        portion.getPortionFormat().getFillFormat().setFillType(FillType.Solid);
-                        portion.getPortionFormat().getFillFormat().getSolidFillColor().setColor(new java.awt.Color(0, 0, 0));
-                        styleStrategy.applyBulletStyle(portion);
+                        stylePrototypes.bullet().apply(portion);
                     }
                 }
             }
@@ -1371,11 +1464,7 @@ public class PPTTemplateEngine {
                 titleFrame.setText(title);
                 
                 IPortion titlePortion = titleFrame.getParagraphs().get_Item(0).getPortions().get_Item(0);
-                titlePortion.getPortionFormat().setFontHeight((float)styleStrategy.getTitleFontSize(false));
-                // titlePortion.getPortionFormat().setBold(NullableBool.True); // TODO: 根据实际 Aspose.Slides API 调整
-                titlePortion.getPortionFormat().getFillFormat().setFillType(FillType.Solid);
-                titlePortion.getPortionFormat().getFillFormat().getSolidFillColor().setColor(new java.awt.Color(0, 0, 0));
-                styleStrategy.applyTitleStyle(titlePortion, false);
+                stylePrototypes.title(false).apply(titlePortion);
             }
         }
         
@@ -1393,11 +1482,7 @@ public class PPTTemplateEngine {
                 leftFrame.setText(leftContent.toString());
                 
                 IPortion leftPortion = leftFrame.getParagraphs().get_Item(0).getPortions().get_Item(0);
-                leftPortion.getPortionFormat().setFontHeight((float)styleStrategy.getContentFontSize());
-                // leftPortion.getPortionFormat().setBold(NullableBool.False); // TODO: 根据实际 Aspose.Slides API 调整
-                leftPortion.getPortionFormat().getFillFormat().setFillType(FillType.Solid);
-                leftPortion.getPortionFormat().getFillFormat().getSolidFillColor().setColor(new java.awt.Color(0, 0, 0));
-                styleStrategy.applyContentStyle(leftPortion);
+                stylePrototypes.content().apply(leftPortion);
             }
         }
         
@@ -1415,11 +1500,7 @@ public class PPTTemplateEngine {
                 rightFrame.setText(rightContent.toString());
                 
                 IPortion rightPortion = rightFrame.getParagraphs().get_Item(0).getPortions().get_Item(0);
-                rightPortion.getPortionFormat().setFontHeight((float)styleStrategy.getContentFontSize());
-                // rightPortion.getPortionFormat().setBold(NullableBool.False); // TODO: 根据实际 Aspose.Slides API 调整
-                rightPortion.getPortionFormat().getFillFormat().setFillType(FillType.Solid);
-                rightPortion.getPortionFormat().getFillFormat().getSolidFillColor().setColor(new java.awt.Color(0, 0, 0));
-                styleStrategy.applyContentStyle(rightPortion);
+                stylePrototypes.content().apply(rightPortion);
             }
         }
         
@@ -1449,11 +1530,7 @@ public class PPTTemplateEngine {
                 titleFrame.setText(title);
                 
                 IPortion titlePortion = titleFrame.getParagraphs().get_Item(0).getPortions().get_Item(0);
-                titlePortion.getPortionFormat().setFontHeight((float)styleStrategy.getTitleFontSize(false));
-                // titlePortion.getPortionFormat().setBold(NullableBool.True); // TODO: 根据实际 Aspose.Slides API 调整
-                titlePortion.getPortionFormat().getFillFormat().setFillType(FillType.Solid);
-                titlePortion.getPortionFormat().getFillFormat().getSolidFillColor().setColor(new java.awt.Color(0, 0, 0));
-                styleStrategy.applyTitleStyle(titlePortion, false);
+                stylePrototypes.title(false).apply(titlePortion);
             }
         }
         
@@ -1502,11 +1579,7 @@ public class PPTTemplateEngine {
                 textFrame.setText(textContent.toString());
                 
                 IPortion textPortion = textFrame.getParagraphs().get_Item(0).getPortions().get_Item(0);
-                textPortion.getPortionFormat().setFontHeight((float)styleStrategy.getContentFontSize());
-                // textPortion.getPortionFormat().setBold(NullableBool.False); // TODO: 根据实际 Aspose.Slides API 调整
-                textPortion.getPortionFormat().getFillFormat().setFillType(FillType.Solid);
-                textPortion.getPortionFormat().getFillFormat().getSolidFillColor().setColor(new java.awt.Color(0, 0, 0));
-                styleStrategy.applyContentStyle(textPortion);
+                stylePrototypes.content().apply(textPortion);
             }
         }
         
@@ -1539,11 +1612,7 @@ public class PPTTemplateEngine {
             contentFrame.setText(content.toString());
             
             IPortion portion = contentFrame.getParagraphs().get_Item(0).getPortions().get_Item(0);
-            portion.getPortionFormat().setFontHeight((float)styleStrategy.getContentFontSize());
-            // portion.getPortionFormat().setBold(NullableBool.False); // TODO: 根据实际 Aspose.Slides API 调整
-            portion.getPortionFormat().getFillFormat().setFillType(FillType.Solid);
-            portion.getPortionFormat().getFillFormat().getSolidFillColor().setColor(new java.awt.Color(0, 0, 0));
-            styleStrategy.applyContentStyle(portion);
+            stylePrototypes.content().apply(portion);
         }
         return slide;
     }
@@ -1572,25 +1641,117 @@ public class PPTTemplateEngine {
     public void renderFromJson(Map<String, Object> slidesData) {
         Object slidesObj = slidesData.get("slides");
         if (slidesObj instanceof List) {
-            List<Map<String, Object>> slides = (List<Map<String, Object>>) slidesObj;
-            
-            // 如果是安全生产类型，先插入固定的前四张幻灯片
+            renderSlides((List<Map<String, Object>>) slidesObj, true, true);
+        }
+    }
+
+    /**
+     * 渲染一组幻灯片（整份PPT，或分片渲染时的一个分片）
+     *
+     * @param slides 幻灯片数据列表
+     * @param withCoverSlides 是否在最前面插入安全生产类型固定的前四张幻灯片（只有第一个分片需要）
+     * @param withLastSlide 是否在最后插入安全生产类型固定的最后一张幻灯片（只有最后一个分片需要）
+     */
+    public void renderSlides(List<Map<String, Object>> slides, boolean withCoverSlides, boolean withLastSlide) {
+        // 如果是安全生产类型，先插入固定的前四张幻灯片
+        if (withCoverSlides) {
             addSafetyCoverSlidesIfNeeded();
+        }
+
+        System.out.println("开始渲染 " + slides.size() + " 张幻灯片...");
+        for (int i = 0; i < slides.size(); i++) {
+            Map<String, Object> slideData = slides.get(i);
+            String layout = (String) slideData.getOrDefault("layout", "unknown");
+            System.out.println("  渲染第 " + (i + 1) + " 张幻灯片，布局: " + layout);
+            ISlide slide = renderSlide(slideData);
+            System.out.println("    ✓ 幻灯片创建成功，包含 " + slide.getShapes().size() + " 个形状");
+        }
+
+        // 如果是安全生产类型，在最后插入固定的最后一张幻灯片
+        if (withLastSlide) {
+            addSafetyLastSlideIfNeeded();
+        }
+
+        System.out.println("所有幻灯片渲染完成，共 " + presentation.getSlides().size() + " 张");
+    }
+    
+    // 流式渲染队列中表示"生成结束"的标记
+    private static final Object STREAM_END = new Object();
+    
+    /**
+     * 从幻灯片流渲染整个PPT（例如 ContentGenerator.streamSlides 的结果）
+     * 
+     * 每收到一页就在当前线程上立即渲染，不等后面的页生成完；渲染完一页再向发布者请求下一页。
+     * 发布者报错时，已渲染的页保留，异常以 RuntimeException 抛出。
+     * 
+     * @param slides 幻灯片发布者
+     * @return 渲染的幻灯片数量（不含安全生产类型固定插入的页）
+     */
+    @SuppressWarnings("unchecked")
+    public int renderFromStream(Flow.Publisher<Map<String, Object>> slides) {
+        BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+        Flow.Subscription[] subscription = new Flow.Subscription[1];
+        slides.subscribe(new Flow.Subscriber<Map<String, Object>>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription[0] = s;
+                s.request(1);
+            }
             
-            System.out.println("开始渲染 " + slides.size() + " 张幻灯片...");
-            for (int i = 0; i < slides.size(); i++) {
-                Map<String, Object> slideData = slides.get(i);
-                String layout = (String) slideData.getOrDefault("layout", "unknown");
-                System.out.println("  渲染第 " + (i + 1) + " 张幻灯片，布局: " + layout);
-                ISlide slide = renderSlide(slideData);
-                System.out.println("    ✓ 幻灯片创建成功，包含 " + slide.getShapes().size() + " 个形状");
+            @Override
+            public void onNext(Map<String, Object> slide) {
+                queue.add(slide);
             }
             
-            // 如果是安全生产类型，在最后插入固定的最后一张幻灯片
-            addSafetyLastSlideIfNeeded();
+            @Override
+            public void onError(Throwable e) {
+                queue.add(e);
+            }
             
-            System.out.println("所有幻灯片渲染完成，共 " + presentation.getSlides().size() + " 张");
+            @Override
+            public void onComplete() {
+                queue.add(STREAM_END);
+            }
+        });
+        
+        addSafetyCoverSlidesIfNeeded();
+        
+        System.out.println("开始流式渲染幻灯片...");
+        long start = System.nanoTime();
+        int count = 0;
+        try {
+            while (true) {
+                Object item = queue.take();
+                if (item == STREAM_END) {
+                    break;
+                }
+                if (item instanceof Throwable) {
+                    throw new RuntimeException("幻灯片流出错，已渲染 " + count + " 张: " + ((Throwable) item).getMessage(), (Throwable) item);
+                }
+                Map<String, Object> slideData = (Map<String, Object>) item;
+                String layout = (String) slideData.getOrDefault("layout", "unknown");
+                System.out.println("  渲染第 " + (count + 1) + " 张幻灯片，布局: " + layout);
+                ISlide slide = renderSlide(slideData);
+                count++;
+                if (count == 1) {
+                    System.out.println(String.format("    ✓ 首张幻灯片已渲染，距开始 %.0f ms", (System.nanoTime() - start) / 1e6));
+                } else {
+                    System.out.println("    ✓ 幻灯片创建成功，包含 " + slide.getShapes().size() + " 个形状");
+                }
+                subscription[0].request(1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (subscription[0] != null) {
+                subscription[0].cancel();
+            }
+            throw new RuntimeException("流式渲染被中断，已渲染 " + count + " 张", e);
         }
+        
+        addSafetyLastSlideIfNeeded();
+        
+        System.out.println(String.format("流式渲染完成，共 %d 张，用时 %.0f ms", presentation.getSlides().size(), (System.nanoTime() - start) / 1e6));
+        return count;
     }
     
     /**
@@ -1717,7 +1878,7 @@ public class PPTTemplateEngine {
         }
         Presentation safetyPresentation = null;
         try {
-            safetyPresentation = new Presentation(safetyCover.getAbsolutePath());
+            safetyPresentation = memoryProfile.open(safetyCover.getAbsolutePath());
             int slideCount = safetyPresentation.getSlides().size();
             
             if (slideCount == 0) {
@@ -1773,7 +1934,7 @@ public class PPTTemplateEngine {
                 }
                 
                 // 加载 master_template.pptx
-                masterTemplate = new Presentation(masterTemplateFile.getAbsolutePath());
+                masterTemplate = memoryProfile.open(masterTemplateFile.getAbsolutePath());
                 
                 if (masterTemplate.getSlides().size() == 0) {
                     masterTemplate.dispose();
@@ -1811,8 +1972,9 @@ public class PPTTemplateEngine {
             replaceSlideImageContent(clonedSlide, slideData);
             
             // 6. 如果配置文件中有样式定义，应用样式
-            if (layoutStyleMap != null && layoutStyleMap.containsKey(layoutName)) {
-                applyLayoutStyle(clonedSlide, layoutName, layoutStyleMap.get(layoutName));
+            StyleStrategy layoutStyle = styleRegistry != null ? styleRegistry.get(layoutName) : null;
+            if (layoutStyle != null) {
+                applyLayoutStyle(clonedSlide, layoutName, layoutStyle);
             }
             
             // 获取布局的详细信息用于日志输出
@@ -1841,7 +2003,7 @@ public class PPTTemplateEngine {
      * @param slide 目标幻灯片
      * @param slideData 包含要替换的图片数据（image_path 或 imagePath）
      */
-    private void replaceSlideImageContent(ISlide slide, Map<String, Object> slideData) {
+    void replaceSlideImageContent(ISlide slide, Map<String, Object> slideData) {
         try {
             // 获取图片路径（支持多种字段名）
             String imagePath = null;
@@ -1911,7 +2073,7 @@ public class PPTTemplateEngine {
      * @param slide 目标幻灯片
      * @param slideData 包含要替换的文本数据
      */
-    private void replaceSlideTextContent(ISlide slide, Map<String, Object> slideData) {
+    void replaceSlideTextContent(ISlide slide, Map<String, Object> slideData) {
         try {
             // 收集所有可替换的文本框（包含"模板文字"的文本框，且不在顶部标题栏）
             List<IAutoShape> replaceableTextShapes = new ArrayList<>();
@@ -2213,10 +2375,8 @@ public class PPTTemplateEngine {
                     portion.setText(lines[i]);
                     para.getPortions().add(portion);
                     
-                    // 应用样式（第一行如果是标题，使用标题样式）
-                    if (styleStrategy != null) {
-                        styleStrategy.applyTitleStyle(portion, isTitle && i == 0);
-                    }
+                    // 应用样式（第一行如果是标题，使用主标题样式）；只套用风格策略本身设置的属性
+                    (isTitle && i == 0 ? templateMainTitleStyle : templateTitleStyle).apply(portion);
                 }
             }
         } catch (Exception e) {
@@ -2227,18 +2387,41 @@ public class PPTTemplateEngine {
     /**
      * 应用布局样式
      * 
+     * 按提取样式时（analyzeSlideStyle）的划分，把模板页上字号不小于 24 的文字设为布局的标题样式，
+     * 其余文字设为正文样式。在文本和图片替换之后调用，按文字当前的字号划分，空白文字不处理。
+     * 
      * @param slide 目标幻灯片
      * @param layoutName 布局名称
-     * @param styleConfig 样式配置
+     * @param layoutStyle 布局风格（StyleRegistry 中的共享实例）
      */
-    private void applyLayoutStyle(ISlide slide, String layoutName, Map<String, Object> styleConfig) {
+    private void applyLayoutStyle(ISlide slide, String layoutName, StyleStrategy layoutStyle) {
         try {
-            // 这里可以实现根据样式配置应用样式的逻辑
-            // 例如：设置字体大小、颜色等
-            // 目前先保留接口，后续可以根据需要扩展
-            if (styleConfig != null && !styleConfig.isEmpty()) {
-                System.out.println("    ✓ 已应用布局样式: " + layoutName);
+            StylePrototypes prototypes = layoutStyle.createPrototypes();
+            int styled = 0;
+            for (int i = 0; i < slide.getShapes().size(); i++) {
+                IShape shape = slide.getShapes().get_Item(i);
+                if (!(shape instanceof IAutoShape) || ((IAutoShape) shape).getTextFrame() == null) {
+                    continue;
+                }
+                ITextFrame textFrame = ((IAutoShape) shape).getTextFrame();
+                for (int j = 0; j < textFrame.getParagraphs().getCount(); j++) {
+                    IParagraph para = textFrame.getParagraphs().get_Item(j);
+                    for (int k = 0; k < para.getPortions().getCount(); k++) {
+                        IPortion portion = para.getPortions().get_Item(k);
+                        if (portion.getText() == null || portion.getText().trim().isEmpty()) {
+                            continue;
+                        }
+                        // 与 analyzeSlideStyle 的划分一致：按模板页上的字号区分标题和正文
+                        if (portion.getPortionFormat().getFontHeight() >= LAYOUT_TITLE_MIN_FONT_SIZE) {
+                            prototypes.title(false).apply(portion);
+                        } else {
+                            prototypes.content().apply(portion);
+                        }
+                        styled++;
+                    }
+                }
             }
+            System.out.println("    ✓ 已应用布局样式: " + layoutName + "（" + styled + " 段文字）");
         } catch (Exception e) {
             System.err.println("警告：应用布局样式失败: " + e.getMessage());
         }
@@ -2260,7 +2443,7 @@ public class PPTTemplateEngine {
         
         Presentation safetyPresentation = null;
         try {
-            safetyPresentation = new Presentation(safetyCover.getAbsolutePath());
+            safetyPresentation = memoryProfile.open(safetyCover.getAbsolutePath());
             int slideCount = safetyPresentation.getSlides().size();
             
             // 计算源PPT中的实际页码（第5页到倒数第2页，即索引4到slideCount-2）
@@ -2690,8 +2873,9 @@ public class PPTTemplateEngine {
      * 
      * @param slide 目标幻灯片
      * @param presentation 演示文稿对象（用于创建文本形状）
+     * @param noImageBySize 本演示文稿中已添加的占位图（取整尺寸键 -> 图片），同一尺寸只添加一次
      */
-    private void replaceAllImagesWithNoImage(ISlide slide, Presentation presentation) {
+    private void replaceAllImagesWithNoImage(ISlide slide, Presentation presentation, Map<String, IPPImage> noImageBySize) {
         try {
             String noImageText = "No Image";
             double topIconThreshold = 72.0; // 72点 = 1英寸，Y坐标小于此值的图片被认为是顶部图标
@@ -2703,22 +2887,18 @@ public class PPTTemplateEngine {
             // 替换每个图片框为带有"No Image"文字标识的图片
             for (IPictureFrame pictureFrame : imagesToReplace) {
                 try {
-                    // 获取图片框的位置和大小
-                    float x = pictureFrame.getFrame().getX();
-                    float y = pictureFrame.getFrame().getY();
+                    // 获取图片框的大小
                     float width = pictureFrame.getFrame().getWidth();
                     float height = pictureFrame.getFrame().getHeight();
                     
-                    // 创建带有"No Image"文字标识的图片
-                    java.awt.image.BufferedImage noImageBufferedImage = createNoImageImage((int)width, (int)height, noImageText);
-                    
-                    // 将 BufferedImage 转换为字节数组
-                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                    javax.imageio.ImageIO.write(noImageBufferedImage, "PNG", baos);
-                    byte[] imageBytes = baos.toByteArray();
-                    
-                    // 添加到演示文稿的图片集合
-                    IPPImage noImage = presentation.getImages().addImage(imageBytes);
+                    // 取整尺寸相同的图片框复用同一张占位图；否则从缓存取该尺寸编码好的PNG
+                    String sizeKey = NoImagePlaceholderCache.sizeKey(width, height);
+                    IPPImage noImage = noImageBySize.get(sizeKey);
+                    if (noImage == null) {
+                        byte[] imageBytes = NoImagePlaceholderCache.getEncoded((int) width, (int) height, "png", noImageText);
+                        noImage = presentation.getImages().addImage(imageBytes);
+                        noImageBySize.put(sizeKey, noImage);
+                    }
                     
                     // 替换原图片框的图片
                     pictureFrame.getPictureFormat().getPicture().setImage(noImage);
@@ -2766,56 +2946,6 @@ public class PPTTemplateEngine {
         }
     }
     
-    /**
-     * 创建带有"No Image"文字标识的图片
-     * 
-     * @param width 图片宽度（像素）
-     * @param height 图片高度（像素）
-     * @param text 要显示的文字
-     * @return BufferedImage 对象
-     */
-    private java.awt.image.BufferedImage createNoImageImage(int width, int height, String text) {
-        // 创建图片
-        java.awt.image.BufferedImage image = new java.awt.image.BufferedImage(
-            width, height, java.awt.image.BufferedImage.TYPE_INT_RGB);
-        
-        // 获取 Graphics2D 对象用于绘制
-        java.awt.Graphics2D g2d = image.createGraphics();
-        
-        // 设置抗锯齿
-        g2d.setRenderingHint(java.awt.RenderingHints.KEY_ANTIALIASING, 
-            java.awt.RenderingHints.VALUE_ANTIALIAS_ON);
-        
-        // 填充白色背景
-        g2d.setColor(java.awt.Color.WHITE);
-        g2d.fillRect(0, 0, width, height);
-        
-        // 绘制边框
-        g2d.setColor(java.awt.Color.LIGHT_GRAY);
-        g2d.setStroke(new java.awt.BasicStroke(2.0f));
-        g2d.drawRect(2, 2, width - 4, height - 4);
-        
-        // 绘制文字
-        g2d.setColor(java.awt.Color.GRAY);
-        java.awt.Font font = new java.awt.Font("Arial", java.awt.Font.PLAIN, Math.max(12, Math.min(width, height) / 10));
-        g2d.setFont(font);
-        
-        // 计算文字位置（居中）
-        java.awt.FontMetrics fm = g2d.getFontMetrics();
-        int textWidth = fm.stringWidth(text);
-        int textHeight = fm.getHeight();
-        int x = (width - textWidth) / 2;
-        int y = (height - textHeight) / 2 + fm.getAscent();
-        
-        // 绘制文字
-        g2d.drawString(text, x, y);
-        
-        // 释放资源
-        g2d.dispose();
-        
-        return image;
-    }
-    
     /**
      * 替换幻灯片中第一个文本形状的内容
      */
@@ -2835,10 +2965,8 @@ public class PPTTemplateEngine {
                         IPortion portion = new Portion();
                         portion.setText(newText);
                         para.getPortions().add(portion);
-                        // 应用样式
-                        if (styleStrategy != null) {
-                            styleStrategy.applyTitleStyle(portion, false);
-                        }
+                        // 应用样式（只套用风格策略本身设置的属性，保留形状自身的填充）
+                        templateTitleStyle.apply(portion);
                         break; // 只替换第一个
                     }
                 }
@@ -2862,7 +2990,7 @@ public class PPTTemplateEngine {
         }
         Presentation safetyPresentation = null;
         try {
-            safetyPresentation = new Presentation(safetyCover.getAbsolutePath());
+            safetyPresentation = memoryProfile.open(safetyCover.getAbsolutePath());
             int slideCount = safetyPresentation.getSlides().size();
             
             if (slideCount == 0) {
@@ -2946,6 +3074,15 @@ public class PPTTemplateEngine {
         }
     }
     
+    // 水印关键词
+    private static final String[] WATERMARK_KEYWORDS = {
+        "Evaluation only",
+        "Created with Aspose.Slides",
+        "Copyright",
+        "Aspose Pty Ltd",
+        "Aspose"
+    };
+    
     /**
      * 通过直接操作 PPTX 文件的 XML 结构来移除水印
      * 
@@ -2959,17 +3096,10 @@ public class PPTTemplateEngine {
      * @param filename PPTX 文件路径
      * @throws Exception 如果处理失败
      */
-    private void removeWatermarksFromXML(String filename) throws Exception {
+    void removeWatermarksFromXML(String filename) throws Exception {
         System.out.println("  使用 XML 方式移除水印...");
         
-        // 定义水印关键词
-        String[] watermarkKeywords = {
-            "Evaluation only",
-            "Created with Aspose.Slides",
-            "Copyright",
-            "Aspose Pty Ltd",
-            "Aspose"
-        };
+        String[] watermarkKeywords = WATERMARK_KEYWORDS;
         
         // 创建临时目录
         Path tempDir = Files.createTempDirectory("pptx_watermark_removal_");
@@ -3082,13 +3212,33 @@ public class PPTTemplateEngine {
      * 4. 如果包含，删除整个形状节点（<p:sp>）
      */
     private int processSlideXML(Path xmlFile, String[] watermarkKeywords) throws Exception {
-        int removedCount = 0;
-        
         DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
         factory.setNamespaceAware(true);
         DocumentBuilder builder = factory.newDocumentBuilder();
         Document doc = builder.parse(xmlFile.toFile());
         
+        int removedCount = removeWatermarkShapes(doc, watermarkKeywords);
+        
+        // 如果修改了，保存文件
+        if (removedCount > 0) {
+            TransformerFactory transformerFactory = TransformerFactory.newInstance();
+            Transformer transformer = transformerFactory.newTransformer();
+            DOMSource source = new DOMSource(doc);
+            StreamResult result = new StreamResult(xmlFile.toFile());
+            transformer.transform(source, result);
+        }
+        
+        return removedCount;
+    }
+    
+    /**
+     * 从已解析的 slide / slideMaster / slideLayout XML 中删除包含水印文本的形状节点
+     * 
+     * @return 删除的形状数量
+     */
+    private int removeWatermarkShapes(Document doc, String[] watermarkKeywords) {
+        int removedCount = 0;
+        
         boolean modified = false;
         
         // 定义命名空间
@@ -3205,15 +3355,6 @@ public class PPTTemplateEngine {
             }
         }
         
-        // 如果修改了，保存文件
-        if (modified) {
-            TransformerFactory transformerFactory = TransformerFactory.newInstance();
-            Transformer transformer = transformerFactory.newTransformer();
-            DOMSource source = new DOMSource(doc);
-            StreamResult result = new StreamResult(xmlFile.toFile());
-            transformer.transform(source, result);
-        }
-        
         return removedCount;
     }
     
@@ -3301,12 +3442,20 @@ public class PPTTemplateEngine {
     /**
      * 保存PPT到文件
      * 
-     * 在保存之后会通过 XML 操作移除 Aspose.Slides 评估版水印。
+     * 保存时直接在输出流上移除 Aspose.Slides 评估版水印（见 save(OutputStream)），不再写完后解压、重写文件。
+     * Aspose 的输出无法按流读取时，退回到先保存、再通过 XML 操作移除水印的方式。
      * 
      * @param filename 输出文件名
      * @throws IOException 如果保存失败
      */
     public void save(String filename) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename))) {
+            save(out);
+            return;
+        } catch (ZipException e) {
+            System.err.println("警告：流式移除水印失败（" + e.getMessage() + "），改为保存后处理文件");
+        }
+        
         // 先保存文件
         presentation.save(filename, SaveFormat.Pptx);
         
@@ -3321,8 +3470,155 @@ public class PPTTemplateEngine {
         }
     }
     
+    // 管道缓冲区大小：Aspose 写入线程最多领先过滤线程这么多字节
+    private static final int SAVE_PIPE_BUFFER = 256 * 1024;
+    
+    /**
+     * 保存PPT到输出流，不经过文件系统
+     * 
+     * Aspose 在后台线程把 PPTX 写入管道，当前线程按 zip 条目边读边写到 out：
+     * - slide / slideMaster / slideLayout 的 XML 读入内存，删除水印形状后重新压缩
+     *   （其中不含水印关键词的条目不解析 DOM，原样写出）
+     * - 其余条目（图片、媒体等）按块直接拷贝
+     * 内存占用以单个 XML 条目和管道缓冲区为上限，与演示文稿总大小无关。
+     * 调用方负责关闭 out。
+     * 
+     * @param out 输出流
+     * @throws IOException 如果保存失败
+     */
+    public void save(OutputStream out) throws IOException {
+        PipedInputStream pipeIn = new PipedInputStream(SAVE_PIPE_BUFFER);
+        PipedOutputStream pipeOut = new PipedOutputStream(pipeIn);
+        Throwable[] writerError = new Throwable[1];
+        Thread writer = new Thread(() -> {
+            try (OutputStream o = pipeOut) {
+                presentation.save(o, SaveFormat.Pptx);
+            } catch (Throwable e) {
+                writerError[0] = e;
+            }
+        }, "pptx-save-writer");
+        writer.setDaemon(true);
+        writer.start();
+        
+        int removedCount;
+        try {
+            removedCount = copyWithoutWatermarks(pipeIn, out);
+        } finally {
+            // 提前失败时关闭读端，让写入线程不再阻塞在管道上
+            pipeIn.close();
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("保存PPT被中断", e);
+            }
+        }
+        if (writerError[0] != null) {
+            throw new IOException("保存PPT失败: " + writerError[0].getMessage(), writerError[0]);
+        }
+        if (removedCount > 0) {
+            System.out.println("✓ 保存时移除 " + removedCount + " 个水印");
+        }
+    }
+    
+    /**
+     * 按 zip 条目把 PPTX 从 in 拷贝到 out，拷贝过程中删除水印形状
+     * 
+     * @return 删除的水印形状数量
+     */
+    private int copyWithoutWatermarks(InputStream in, OutputStream out) throws IOException {
+        int removedCount = 0;
+        ZipInputStream zin = new ZipInputStream(in);
+        ZipOutputStream zout = new ZipOutputStream(out);
+        byte[] buffer = new byte[8192];
+        ZipEntry entry;
+        while ((entry = zin.getNextEntry()) != null) {
+            ZipEntry outEntry = new ZipEntry(entry.getName());
+            if (entry.getTime() != -1) {
+                outEntry.setTime(entry.getTime());
+            }
+            zout.putNextEntry(outEntry);
+            if (isWatermarkCandidate(entry.getName())) {
+                byte[] xml = zin.readAllBytes();
+                String lower = new String(xml, StandardCharsets.UTF_8).toLowerCase(Locale.ROOT);
+                boolean mayContain = false;
+                for (String keyword : WATERMARK_KEYWORDS) {
+                    if (lower.contains(keyword.toLowerCase(Locale.ROOT))) {
+                        mayContain = true;
+                        break;
+                    }
+                }
+                if (mayContain) {
+                    try {
+                        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+                        factory.setNamespaceAware(true);
+                        Document doc = factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+                        int count = removeWatermarkShapes(doc, WATERMARK_KEYWORDS);
+                        if (count > 0) {
+                            ByteArrayOutputStream filtered = new ByteArrayOutputStream(xml.length);
+                            TransformerFactory.newInstance().newTransformer()
+                                .transform(new DOMSource(doc), new StreamResult(filtered));
+                            xml = filtered.toByteArray();
+                            removedCount += count;
+                        }
+                    } catch (Exception e) {
+                        System.err.println("警告：处理 " + entry.getName() + " 的水印时出错，原样保存: " + e.getMessage());
+                    }
+                }
+                zout.write(xml);
+            } else {
+                int len;
+                while ((len = zin.read(buffer)) > 0) {
+                    zout.write(buffer, 0, len);
+                }
+            }
+            zout.closeEntry();
+        }
+        zout.finish();
+        zout.flush();
+        // 读完中央目录等剩余字节，写入线程才能正常结束
+        byte[] rest = new byte[8192];
+        while (in.read(rest) >= 0) {
+            // 丢弃
+        }
+        return removedCount;
+    }
+    
+    /**
+     * 可能带水印的条目：幻灯片、母版、版式的 XML
+     */
+    private static boolean isWatermarkCandidate(String name) {
+        if (!name.endsWith(".xml")) {
+            return false;
+        }
+        if (name.startsWith("ppt/slides/slide")) {
+            return name.indexOf('/', "ppt/slides/".length()) < 0;
+        }
+        if (name.startsWith("ppt/slideMasters/")) {
+            return name.indexOf('/', "ppt/slideMasters/".length()) < 0;
+        }
+        if (name.startsWith("ppt/slideLayouts/")) {
+            return name.indexOf('/', "ppt/slideLayouts/".length()) < 0;
+        }
+        return false;
+    }
+    
+    /**
+     * 正在生成的演示文稿（包内可见，供基准测试直接克隆幻灯片）
+     */
+    Presentation getPresentation() {
+        return presentation;
+    }
+    
+    /**
+     * 加载演示文稿时使用的内存配置
+     */
+    public MemoryProfile getMemoryProfile() {
+        return memoryProfile;
+    }
+    
     /**
-     * 关闭演示文稿
+     * 关闭演示文稿（低内存配置下同时删除临时文件、释放源文件）
      * 
      * @throws IOException 如果关闭失败
      */
@@ -0,0 +1,178 @@
+package com.pptfactory.template.engine;
+
+import com.pptfactory.style.StyleStrategy;
+import com.pptfactory.util.OOXMLPackageMerger;
+import com.pptfactory.util.OOXMLSlideCopier;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 大型PPT的分片并行渲染
+ *
+ * 单个 Aspose Presentation 只能在一个线程上渲染，几百页的PPT渲染时间随页数线性增长。
+ * 分片模式把幻灯片列表按顺序切成若干连续的分片，每个分片在线程池中用各自的 PPTTemplateEngine
+ * （各自的 Presentation）渲染并保存到内存，最后由 OOXMLPackageMerger 在 OOXML 包层面按原顺序合并：
+ * 相同的版式、母版和媒体只保留一份，不同的母版作为新母版导入。
+ *
+ * - 第一个分片插入安全生产类型固定的前四张幻灯片，最后一个分片插入固定的最后一张
+ * - 每个分片都要加载一次模板，分片太小时得不偿失，每个分片至少 MIN_SLIDES_PER_SHARD 页
+ *   （页数不足两个分片时直接单线程渲染，不做合并）
+ * - 各分片保存时已经去掉评估版水印，合并不经过 Aspose，不会再产生水印
+ * - 风格策略对象每个分片单独创建（styleFactory），不在线程之间共享
+ *
+ * 使用方法：
+ * new ShardedRenderer(templateFile, () -> new SafetyStyle(), 8).render(slidesData, "output.pptx");
+ * 或 GeneratePPT 的 --shards 参数
+ */
+public class ShardedRenderer {
+
+    // 每个分片的最少页数（分片的固定开销是加载模板和保存，约等于渲染十几页）
+    public static final int MIN_SLIDES_PER_SHARD = 20;
+
+    private final String templateFile;
+    private final Supplier<StyleStrategy> styleFactory;
+    private final int threads;
+
+    /**
+     * @param templateFile 模板PPT文件路径
+     * @param styleFactory 风格策略工厂，每个分片调用一次
+     * @param threads 并行渲染的线程数（即最多的分片数），小于 1 时取 CPU 核数
+     */
+    public ShardedRenderer(String templateFile, Supplier<StyleStrategy> styleFactory, int threads) {
+        this.templateFile = templateFile;
+        this.styleFactory = styleFactory;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * 分片渲染并保存到文件
+     *
+     * @param slidesData 包含 slides 数组的Map（与 renderFromJson 相同）
+     * @param outputFile 输出文件路径
+     * @return 实际使用的分片数
+     */
+    public int render(Map<String, Object> slidesData, String outputFile) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+            return render(slidesData, out);
+        }
+    }
+
+    /**
+     * 分片渲染并写出到输出流（调用方负责关闭）
+     *
+     * @param slidesData 包含 slides 数组的Map
+     * @param out 输出流
+     * @return 实际使用的分片数
+     */
+    @SuppressWarnings("unchecked")
+    public int render(Map<String, Object> slidesData, OutputStream out) throws IOException {
+        Object slidesObj = slidesData.get("slides");
+        List<Map<String, Object>> slides = slidesObj instanceof List
+                ? (List<Map<String, Object>>) slidesObj : new ArrayList<>();
+        List<List<Map<String, Object>>> shards = split(slides, shardCount(slides.size()));
+
+        if (shards.size() == 1) {
+            // 页数太少，直接单线程渲染
+            PPTTemplateEngine engine = new PPTTemplateEngine(templateFile, styleFactory.get());
+            try {
+                engine.renderSlides(slides, true, true);
+                engine.save(out);
+            } finally {
+                engine.close();
+            }
+            return 1;
+        }
+
+        System.out.println("分片渲染: " + slides.size() + " 张幻灯片，" + shards.size() + " 个分片，" + threads + " 个线程");
+        long start = System.nanoTime();
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(threads, shards.size()), r -> {
+            Thread t = new Thread(r, "pptx-shard-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        List<OOXMLSlideCopier.TemplatePackage> packages = new ArrayList<>(shards.size());
+        try {
+            List<Future<OOXMLSlideCopier.TemplatePackage>> futures = new ArrayList<>(shards.size());
+            for (int i = 0; i < shards.size(); i++) {
+                final int index = i;
+                final boolean first = i == 0;
+                final boolean last = i == shards.size() - 1;
+                futures.add(workers.submit(() -> renderShard(index, shards.get(index), first, last)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    packages.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    throw new IOException("分片 " + (i + 1) + " 渲染失败: " + cause.getMessage(), cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("分片渲染被中断", e);
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        long renderMs = (System.nanoTime() - start) / 1_000_000;
+
+        long mergeStart = System.nanoTime();
+        try {
+            OOXMLPackageMerger.merge(packages, out);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("合并分片失败: " + e.getMessage(), e);
+        }
+        System.out.println(String.format("✓ 分片渲染完成: 渲染 %d ms，合并 %.0f ms", renderMs, (System.nanoTime() - mergeStart) / 1e6));
+        return shards.size();
+    }
+
+    /**
+     * 在当前线程上用新的引擎渲染一个分片，保存到内存
+     */
+    private OOXMLSlideCopier.TemplatePackage renderShard(int index, List<Map<String, Object>> slides,
+                                                          boolean first, boolean last) throws Exception {
+        long start = System.nanoTime();
+        PPTTemplateEngine engine = new PPTTemplateEngine(templateFile, styleFactory.get());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            engine.renderSlides(slides, first, last);
+            engine.save(bytes);
+        } finally {
+            engine.close();
+        }
+        System.out.println(String.format("  ✓ 分片 %d（%d 页）渲染完成，耗时 %.0f ms，%d KB",
+                index + 1, slides.size(), (System.nanoTime() - start) / 1e6, bytes.size() / 1024));
+        return OOXMLSlideCopier.read(new ByteArrayInputStream(bytes.toByteArray()), "分片 " + (index + 1));
+    }
+
+    /**
+     * 分片数：不超过线程数，且每个分片至少 MIN_SLIDES_PER_SHARD 页
+     */
+    int shardCount(int slideCount) {
+        return Math.max(1, Math.min(threads, slideCount / MIN_SLIDES_PER_SHARD));
+    }
+
+    /**
+     * 按顺序切成 count 个连续分片，各分片页数相差不超过 1
+     */
+    static <T> List<List<T>> split(List<T> items, int count) {
+        List<List<T>> shards = new ArrayList<>(count);
+        int base = items.size() / count;
+        int extra = items.size() % count;
+        int from = 0;
+        for (int i = 0; i < count; i++) {
+            int size = base + (i < extra ? 1 : 0);
+            shards.add(items.subList(from, from + size));
+            from += size;
+        }
+        return shards;
+    }
+}
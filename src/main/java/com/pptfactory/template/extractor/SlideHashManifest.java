@@ -0,0 +1,191 @@
+package com.pptfactory.template.extractor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pptfactory.util.OOXMLSlideCopier;
+
+import java.io.File;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 模板提取清单：记录每个源幻灯片的内容哈希及其在 master_template.pptx 中的索引
+ *
+ * 清单与模板文件放在一起（templates/master_template.pptx -> templates/master_template.manifest.json）。
+ * 重新提取时按源页码对比哈希：
+ * - 哈希相同：模板页保持不动
+ * - 哈希不同：在原索引处替换为新的模板页
+ * - 清单中没有的页：追加到模板末尾
+ * 源PPT中已不存在的页保留原模板页和清单记录（删除会使后面的模板页索引整体前移）。
+ *
+ * 哈希由 OOXMLSlideCopier.TemplatePackage.slideContentHash 直接从 zip 包计算，不需要 Aspose 加载源PPT。
+ */
+public class SlideHashManifest {
+
+    /**
+     * 清单中的一页
+     */
+    public static class Entry {
+        private final int sourcePage;
+        private final String hash;
+        private final int masterIndex;
+
+        public Entry(int sourcePage, String hash, int masterIndex) {
+            this.sourcePage = sourcePage;
+            this.hash = hash;
+            this.masterIndex = masterIndex;
+        }
+
+        public int getSourcePage() { return sourcePage; }
+        public String getHash() { return hash; }
+        public int getMasterIndex() { return masterIndex; }
+    }
+
+    /**
+     * 增量提取计划（源页码均从1开始）
+     */
+    public static class Plan {
+        public final List<Integer> unchanged = new ArrayList<>();
+        public final List<Integer> changed = new ArrayList<>();
+        public final List<Integer> added = new ArrayList<>();
+        public final List<Integer> missing = new ArrayList<>();
+
+        public boolean isEmpty() {
+            return changed.isEmpty() && added.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "未变化 " + unchanged.size() + " 页，变化 " + changed.size() + " 页，新增 " + added.size()
+                    + " 页，源PPT中已不存在 " + missing.size() + " 页";
+        }
+    }
+
+    private final String sourceFile;
+    private final Map<Integer, Entry> entries = new TreeMap<>();
+
+    public SlideHashManifest(String sourceFile) {
+        this.sourceFile = sourceFile;
+    }
+
+    public String getSourceFile() {
+        return sourceFile;
+    }
+
+    public Entry get(int sourcePage) {
+        return entries.get(sourcePage);
+    }
+
+    public void put(int sourcePage, String hash, int masterIndex) {
+        entries.put(sourcePage, new Entry(sourcePage, hash, masterIndex));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 模板文件对应的清单文件
+     */
+    public static File manifestFileFor(String templateFile) {
+        String base = templateFile.toLowerCase().endsWith(".pptx")
+                ? templateFile.substring(0, templateFile.length() - 5) : templateFile;
+        return new File(base + ".manifest.json");
+    }
+
+    /**
+     * 计算源PPT第 startPage 到 endPage 页（从1开始，含两端）的内容哈希
+     */
+    public static Map<Integer, String> hashSourcePages(String sourceFile, int startPage, int endPage) throws Exception {
+        OOXMLSlideCopier.TemplatePackage pkg = OOXMLSlideCopier.load(sourceFile);
+        Map<Integer, String> hashes = new LinkedHashMap<>();
+        for (int page = startPage; page <= endPage && page <= pkg.getSlideCount(); page++) {
+            hashes.put(page, pkg.slideContentHash(page));
+        }
+        return hashes;
+    }
+
+    /**
+     * 对比当前源页哈希，给出增量提取计划
+     */
+    public Plan plan(Map<Integer, String> hashes) {
+        Plan plan = new Plan();
+        for (Map.Entry<Integer, String> e : hashes.entrySet()) {
+            Entry entry = entries.get(e.getKey());
+            if (entry == null) {
+                plan.added.add(e.getKey());
+            } else if (entry.hash.equals(e.getValue())) {
+                plan.unchanged.add(e.getKey());
+            } else {
+                plan.changed.add(e.getKey());
+            }
+        }
+        for (Integer page : entries.keySet()) {
+            if (!hashes.containsKey(page)) {
+                plan.missing.add(page);
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * 读取清单，文件不存在或无法解析时返回 null（调用方回退为全量提取）
+     */
+    public static SlideHashManifest load(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            JsonNode root = new ObjectMapper().readTree(file);
+            SlideHashManifest manifest = new SlideHashManifest(root.path("sourceFile").asText(""));
+            for (JsonNode node : root.path("slides")) {
+                manifest.put(node.path("sourcePage").asInt(), node.path("hash").asText(), node.path("masterIndex").asInt());
+            }
+            return manifest;
+        } catch (Exception e) {
+            System.err.println("警告：读取模板清单失败，将全量提取: " + file + "，" + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 写入清单（先写临时文件再原子替换）
+     */
+    public void save(File file) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode root = mapper.createObjectNode();
+        root.put("sourceFile", sourceFile);
+        ArrayNode slides = root.putArray("slides");
+        for (Entry entry : entries.values()) {
+            ObjectNode node = slides.addObject();
+            node.put("sourcePage", entry.sourcePage);
+            node.put("hash", entry.hash);
+            node.put("masterIndex", entry.masterIndex);
+        }
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        Path tmp = Files.createTempFile(dir.toPath(), "manifest", ".json.tmp");
+        try {
+            mapper.writerWithDefaultPrettyPrinter().writeValue(tmp.toFile(), root);
+            try {
+                Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
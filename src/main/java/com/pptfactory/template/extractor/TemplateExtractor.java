@@ -1,6 +1,7 @@
 package com.pptfactory.template.extractor;
 
 import com.aspose.slides.*;
+import com.pptfactory.util.NoImagePlaceholderCache;
 
 import java.io.*;
 import java.nio.file.*;
@@ -23,9 +24,13 @@ import org.w3c.dom.NodeList;
  * 专门负责从源PPT文件中提取模板，生成 master_template.pptx 文件。
  * 模板提取包括：
  * - 从源PPT提取幻灯片
- * - 去除水印
- * - 替换文本为模板文字
- * - 替换图片为占位符
+ * - 替换文本为模板文字（在内存中的克隆页上完成）
+ * - 替换图片为占位符（在内存中的克隆页上完成）
+ * - 保存一次，并去除保存时产生的水印
+ * 
+ * 增量提取：每次提取后在模板旁写出清单（SlideHashManifest），记录每个源页的内容哈希和模板索引。
+ * 再次提取同一源文件时只处理新增或变化的页，拼接进已有模板，未变化的模板页保持不动；
+ * 没有任何变化时直接跳过。-Dpptfactory.extract.full=true 强制全量提取。
  * 
  * 注意：此工具类与模板引擎（PPTTemplateEngine）分离，模板引擎只负责使用模板，不负责生成模板。
  */
@@ -38,6 +43,8 @@ public class TemplateExtractor {
     /**
      * 从源PPT文件提取模板，生成 master_template.pptx
      * 
+     * 模板和清单都已存在时按清单增量提取（见类注释）。
+     * 
      * @param sourceFile 源PPT文件路径（如 "1.2 安全生产方针政策.pptx"）
      * @param outputFile 输出模板文件路径（如 "templates/master_template.pptx"）
      * @param startPage 开始页码（从1开始，例如第5页）
@@ -80,65 +87,78 @@ public class TemplateExtractor {
             
             System.out.println("提取范围: 第" + startPage + "页到第" + actualEndPage + "页（共" + (actualEndPage - startPage + 1) + "页）");
             
-            // 创建模板PPT
-            Presentation templatePresentation = new Presentation();
-            
-            // 设置幻灯片尺寸（与源PPT一致）
-            templatePresentation.getSlideSize().setSize(
-                (float)sourcePresentation.getSlideSize().getSize().getWidth(),
-                (float)sourcePresentation.getSlideSize().getSize().getHeight(),
-                sourcePresentation.getSlideSize().getType()
-            );
+            // 源页内容哈希（直接读 zip 包），与上次提取的清单对比决定全量还是增量
+            Map<Integer, String> hashes = null;
+            try {
+                hashes = SlideHashManifest.hashSourcePages(sourceFile, startPage, actualEndPage);
+            } catch (Exception e) {
+                System.err.println("警告：计算源幻灯片哈希失败，将全量提取且不记录清单: " + e.getMessage());
+            }
+            File manifestFile = SlideHashManifest.manifestFileFor(outputFile);
+            SlideHashManifest manifest = null;
+            if (hashes != null && output.exists() && !Boolean.getBoolean("pptfactory.extract.full")) {
+                manifest = SlideHashManifest.load(manifestFile);
+                if (manifest != null && !source.getName().equals(manifest.getSourceFile())) {
+                    System.out.println("提示：模板清单对应的源文件为 " + manifest.getSourceFile() + "，将全量提取");
+                    manifest = null;
+                }
+            }
             
-            // 删除默认空白页
-            if (templatePresentation.getSlides().size() > 0) {
-                templatePresentation.getSlides().removeAt(0);
+            // 本次新克隆到模板中的幻灯片（只对这些页替换文本和图片）
+            List<ISlide> extracted = new ArrayList<>();
+            Presentation templatePresentation = null;
+            if (manifest != null) {
+                SlideHashManifest.Plan plan = manifest.plan(hashes);
+                System.out.println("模板清单对比: " + plan);
+                for (Integer page : plan.missing) {
+                    System.out.println("  ⚠ 源PPT第" + page + "页已不在提取范围内，保留模板索引 " + manifest.get(page).getMasterIndex() + " 处的模板页");
+                }
+                if (plan.isEmpty()) {
+                    System.out.println("✓ 源幻灯片没有变化，模板保持不变: " + outputFile);
+                    return;
+                }
+                templatePresentation = spliceIntoTemplate(sourcePresentation, outputFile, manifest, plan, hashes, extracted);
+            }
+            if (templatePresentation == null) {
+                manifest = hashes != null ? new SlideHashManifest(source.getName()) : null;
+                templatePresentation = buildFullTemplate(sourcePresentation, startPage, actualEndPage, manifest, hashes, extracted);
             }
             
-            // 复制幻灯片（从 startPage-1 到 actualEndPage-1，因为索引从0开始）
-            for (int i = startPage - 1; i < actualEndPage; i++) {
-                ISlide slide = sourcePresentation.getSlides().get_Item(i);
-                templatePresentation.getSlides().addClone(slide);
-                System.out.println("  ✓ 已复制第" + (i + 1) + "页");
+            // 直接在内存中的克隆页上替换文本和图片，不再保存-重新加载-再保存
+            System.out.println("\n处理文本和图片...");
+            Map<String, IPPImage> noImageBySize = new HashMap<>();
+            for (ISlide slide : extracted) {
+                // 替换文本为模板文字
+                replaceAllTextWithTemplateText(slide);
+                
+                // 替换图片为占位符
+                replaceAllImagesWithNoImage(slide, templatePresentation, noImageBySize);
             }
             
-            // 保存临时文件
+            // 保存（只保存一次）
             templatePresentation.save(outputFile, SaveFormat.Pptx);
             templatePresentation.dispose();
-
             
-            // 去除水印
+            // 去除水印（Aspose 在保存时添加，只需在最终文件上处理一次）
             System.out.println("\n去除水印...");
             try {
-                TemplateExtractor.removeWatermarksFromXML(outputFile);
+                removeWatermarksFromXML(outputFile);
                 System.out.println("✓ 水印已去除");
             } catch (Exception e) {
                 System.err.println("警告：去除水印失败: " + e.getMessage());
             }
             
-            // 重新加载并处理文本和图片
-            System.out.println("\n处理文本和图片...");
-            Presentation finalTemplate = new Presentation(outputFile);
-            
-            for (int i = 0; i < finalTemplate.getSlides().size(); i++) {
-                ISlide slide = finalTemplate.getSlides().get_Item(i);
-                
-                // 替换文本为模板文字
-                replaceAllTextWithTemplateText(slide);
-                
-                // 替换图片为占位符
-                replaceAllImagesWithNoImage(slide, finalTemplate);
-            }
-            
-            // 保存最终文件
-            finalTemplate.save(outputFile, SaveFormat.Pptx);
-            finalTemplate.dispose();
-            
-            // 再次去除水印（Aspose可能在保存时重新添加）
+            // 模板文件落盘后再写清单，中途失败时下次仍会重新处理这些页
             try {
-                removeWatermarksFromXML(outputFile);
+                if (manifest != null) {
+                    manifest.save(manifestFile);
+                    System.out.println("✓ 已更新模板清单: " + manifestFile.getPath() + "（" + manifest.size() + " 页）");
+                } else {
+                    Files.deleteIfExists(manifestFile.toPath());
+                }
             } catch (Exception e) {
-                System.err.println("警告：最终去除水印失败: " + e.getMessage());
+                System.err.println("警告：写入模板清单失败，下次将全量提取: " + e.getMessage());
+                Files.deleteIfExists(manifestFile.toPath());
             }
             
             System.out.println("\n=== 模板提取完成 ===");
@@ -152,6 +172,75 @@ public class TemplateExtractor {
     }
     
 
+    /**
+     * 全量提取：新建模板，按页序克隆源PPT第 startPage 到 endPage 页
+     * 
+     * @param manifest 不为空时记录每页的哈希和模板索引
+     */
+    private static Presentation buildFullTemplate(Presentation sourcePresentation, int startPage, int endPage,
+                                                  SlideHashManifest manifest, Map<Integer, String> hashes,
+                                                  List<ISlide> extracted) {
+        // 创建模板PPT
+        Presentation templatePresentation = new Presentation();
+        
+        // 设置幻灯片尺寸（与源PPT一致）
+        templatePresentation.getSlideSize().setSize(
+            (float)sourcePresentation.getSlideSize().getSize().getWidth(),
+            (float)sourcePresentation.getSlideSize().getSize().getHeight(),
+            sourcePresentation.getSlideSize().getType()
+        );
+        
+        // 删除默认空白页
+        if (templatePresentation.getSlides().size() > 0) {
+            templatePresentation.getSlides().removeAt(0);
+        }
+        
+        // 复制幻灯片（从 startPage-1 到 endPage-1，因为索引从0开始）
+        for (int i = startPage - 1; i < endPage; i++) {
+            ISlide slide = sourcePresentation.getSlides().get_Item(i);
+            extracted.add(templatePresentation.getSlides().addClone(slide));
+            if (manifest != null) {
+                manifest.put(i + 1, hashes.get(i + 1), templatePresentation.getSlides().size() - 1);
+            }
+            System.out.println("  ✓ 已复制第" + (i + 1) + "页");
+        }
+        return templatePresentation;
+    }
+    
+    /**
+     * 增量提取：加载已有模板，变化的页在原索引处替换，新增的页追加到末尾，其余模板页不动
+     * 
+     * @return 拼接后的模板；清单中的索引与已有模板对不上时返回 null（调用方回退为全量提取）
+     */
+    private static Presentation spliceIntoTemplate(Presentation sourcePresentation, String outputFile,
+                                                   SlideHashManifest manifest, SlideHashManifest.Plan plan,
+                                                   Map<Integer, String> hashes, List<ISlide> extracted) {
+        Presentation templatePresentation = new Presentation(outputFile);
+        ISlideCollection slides = templatePresentation.getSlides();
+        for (Integer page : plan.changed) {
+            if (manifest.get(page).getMasterIndex() >= slides.size()) {
+                System.out.println("提示：模板清单与 " + outputFile + " 不一致（共 " + slides.size() + " 页），将全量提取");
+                templatePresentation.dispose();
+                return null;
+            }
+        }
+        
+        for (Integer page : plan.changed) {
+            int masterIndex = manifest.get(page).getMasterIndex();
+            slides.removeAt(masterIndex);
+            extracted.add(slides.insertClone(masterIndex, sourcePresentation.getSlides().get_Item(page - 1)));
+            manifest.put(page, hashes.get(page), masterIndex);
+            System.out.println("  ✓ 已替换第" + page + "页（模板索引: " + masterIndex + "）");
+        }
+        for (Integer page : plan.added) {
+            extracted.add(slides.addClone(sourcePresentation.getSlides().get_Item(page - 1)));
+            manifest.put(page, hashes.get(page), slides.size() - 1);
+            System.out.println("  ✓ 已追加第" + page + "页（模板索引: " + (slides.size() - 1) + "）");
+        }
+        return templatePresentation;
+    }
+    
+
     /**
      * 替换幻灯片中的所有文本为"模板文字模板文字模板文字"，保持原有样式和字数
      */
@@ -434,43 +523,47 @@ public class TemplateExtractor {
     }
     
     /**
-     * 替换幻灯片中的所有图片为"No Image"占位符（顶部图标除外）
+     * 替换幻灯片中的所有图片为"No Image"占位符（顶部图标除外，包括组合形状中的图片）
+     * 
+     * 占位图来自 NoImagePlaceholderCache；取整尺寸相同的图片框共用 noImageBySize 中的同一张图片，
+     * 模板文件中不会为每个图片框各存一份占位图。
      */
-    private static void replaceAllImagesWithNoImage(ISlide slide, Presentation presentation) {
+    private static void replaceAllImagesWithNoImage(ISlide slide, Presentation presentation, Map<String, IPPImage> noImageBySize) {
         double topHeaderThreshold = 72.0; // Y坐标小于72点的图片被认为是顶部图标
         
-        for (int i = 0; i < slide.getShapes().size(); i++) {
-            IShape shape = slide.getShapes().get_Item(i);
-            
-            if (shape instanceof IPictureFrame) {
-                IPictureFrame pictureFrame = (IPictureFrame) shape;
-                float y = pictureFrame.getFrame().getY();
-                
-                if (y >= topHeaderThreshold) {
-                    // 替换为非顶部图标的图片
-                    // 这里可以创建一个带"No Image"文字的占位符
-                    // 简化处理：直接删除图片（实际项目中可能需要创建占位符）
+        List<IPictureFrame> frames = new ArrayList<>();
+        collectImagesToReplace(slide.getShapes(), frames, topHeaderThreshold);
+        
+        for (IPictureFrame pictureFrame : frames) {
+            try {
+                float width = pictureFrame.getFrame().getWidth();
+                float height = pictureFrame.getFrame().getHeight();
+                String sizeKey = NoImagePlaceholderCache.sizeKey(width, height);
+                IPPImage noImage = noImageBySize.get(sizeKey);
+                if (noImage == null) {
+                    noImage = presentation.getImages().addImage(NoImagePlaceholderCache.getPng((int) width, (int) height));
+                    noImageBySize.put(sizeKey, noImage);
                 }
-            } else if (shape instanceof IGroupShape) {
-                replaceImagesInGroupShape((IGroupShape) shape, presentation, topHeaderThreshold);
+                pictureFrame.getPictureFormat().getPicture().setImage(noImage);
+            } catch (Exception e) {
+                System.err.println("警告：替换图片为占位图失败: " + e.getMessage());
             }
         }
     }
     
     /**
-     * 递归处理组合形状中的图片
+     * 递归收集需要替换的图片框（Y坐标不小于阈值的图片，包括组合形状中的图片）
      */
-    private static void replaceImagesInGroupShape(IGroupShape groupShape, Presentation presentation, double threshold) {
-        for (int i = 0; i < groupShape.getShapes().size(); i++) {
-            IShape shape = groupShape.getShapes().get_Item(i);
+    private static void collectImagesToReplace(IShapeCollection shapes, List<IPictureFrame> frames, double threshold) {
+        for (int i = 0; i < shapes.size(); i++) {
+            IShape shape = shapes.get_Item(i);
             if (shape instanceof IPictureFrame) {
                 IPictureFrame pictureFrame = (IPictureFrame) shape;
-                float y = pictureFrame.getFrame().getY();
-                if (y >= threshold) {
-                    // 处理图片替换
+                if (pictureFrame.getFrame().getY() >= threshold) {
+                    frames.add(pictureFrame);
                 }
             } else if (shape instanceof IGroupShape) {
-                replaceImagesInGroupShape((IGroupShape) shape, presentation, threshold);
+                collectImagesToReplace(((IGroupShape) shape).getShapes(), frames, threshold);
             }
         }
     }
@@ -4,7 +4,9 @@ import com.aspose.slides.ISlide;
 import com.aspose.slides.Presentation;
 import com.aspose.slides.SaveFormat;
 import com.aspose.slides.exceptions.FileNotFoundException;
+import com.pptfactory.template.extractor.SlideHashManifest;
 import java.io.File;
+import java.nio.file.Files;
 import java.util.Locale;
 
 public class CopyPPTSlideUtil {
@@ -98,6 +100,9 @@ public class CopyPPTSlideUtil {
             // 保存临时文件
             templatePresentation.save(outputFile, SaveFormat.Pptx);
             templatePresentation.dispose();
+            
+            // 输出文件是整体重写的，TemplateExtractor 的增量清单已不再对应
+            Files.deleteIfExists(SlideHashManifest.manifestFileFor(outputFile).toPath());
         } finally {
             if (sourcePresentation != null) {
                 sourcePresentation.dispose();
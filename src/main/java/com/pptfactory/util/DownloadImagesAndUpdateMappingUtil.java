@@ -24,22 +24,33 @@ public class DownloadImagesAndUpdateMappingUtil {
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
     public static void main(String[] args) throws Exception {
-        // 1. 读取映射文件
-        List<Map<String, Object>> mappings = readMappings();
-        if (mappings == null) {
-            System.err.println("未能读取映射文件或格式错误");
-            return;
-        }
-        // 2. 获取新PPT文件名（假设和图片目录名一致）
+        // 1. 获取新PPT文件名（假设和图片目录名一致）
         String pptFileName = getLatestPptFileName();
         if (pptFileName == null) {
             System.err.println("未找到新生成的PPT文件");
             return;
         }
         String imageDir = IMAGE_BASE_DIR + "/" + pptFileName.substring(0, pptFileName.lastIndexOf('.'));
+
+        // 2. 下载图片，生成图片路径映射并写回映射文件
+        downloadImages(MAPPING_FILE, imageDir);
+        System.out.println("图片下载及路径映射已完成，结果已写回: " + MAPPING_FILE);
+    }
+
+    /**
+     * 下载映射文件中 图片链接映射 的图片，生成 图片路径映射 并写回映射文件（指定映射文件和图片目录，供批量任务调用）
+     *
+     * @param mappingFile 映射文件路径
+     * @param imageDir 图片保存目录（不存在时创建）
+     * @return 下载成功的图片数量
+     */
+    public static int downloadImages(String mappingFile, String imageDir) throws IOException {
+        // 1. 读取映射文件
+        List<Map<String, Object>> mappings = readMappings(mappingFile);
         Files.createDirectories(Paths.get(imageDir));
 
-        // 3. 遍历每一页，下载图片，生成图片路径映射
+        // 2. 遍历每一页，下载图片，生成图片路径映射
+        int downloaded = 0;
         for (int i = 0; i < mappings.size(); i++) {
             Map<String, Object> mapping = mappings.get(i);
             Map<String, String> imageUrlMap = getStringMap(mapping.get("图片链接映射"));
@@ -55,6 +66,7 @@ public class DownloadImagesAndUpdateMappingUtil {
                 boolean ok = downloadImage(url, imgPath);
                 if (ok) {
                     imagePathMap.put(label, imgPath);
+                    downloaded++;
                     System.out.println("已下载: " + label + " => " + imgPath);
                 } else {
                     System.err.println("下载失败: " + label + " => " + url);
@@ -65,19 +77,19 @@ public class DownloadImagesAndUpdateMappingUtil {
                 mapping.put("图片路径映射", imagePathMap);
             }
         }
-        // 4. 写回映射文件
-        writeMappings(mappings);
-        System.out.println("图片下载及路径映射已完成，结果已写回: " + MAPPING_FILE);
+        // 3. 写回映射文件
+        writeMappings(mappingFile, mappings);
+        return downloaded;
     }
 
-    private static List<Map<String, Object>> readMappings() throws IOException {
-        try (InputStream is = new FileInputStream(MAPPING_FILE)) {
+    private static List<Map<String, Object>> readMappings(String mappingFile) throws IOException {
+        try (InputStream is = new FileInputStream(mappingFile)) {
             return MAPPER.readValue(is, new TypeReference<List<Map<String, Object>>>() {});
         }
     }
 
-    private static void writeMappings(List<Map<String, Object>> mappings) throws IOException {
-        try (Writer writer = new OutputStreamWriter(new FileOutputStream(MAPPING_FILE), StandardCharsets.UTF_8)) {
+    private static void writeMappings(String mappingFile, List<Map<String, Object>> mappings) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(mappingFile), StandardCharsets.UTF_8)) {
             MAPPER.writerWithDefaultPrettyPrinter().writeValue(writer, mappings);
         }
     }
@@ -0,0 +1,179 @@
+package com.pptfactory.util;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * "No Image" 占位图缓存
+ *
+ * 模板提取时每个图片框都要生成一张"No Image"占位图。原来每个图片框都重新绘制 BufferedImage 并用 ImageIO 编码，
+ * 而大部分图片框尺寸相同或相近。这里按取整后的尺寸缓存编码好的字节：
+ * - 宽高按 SIZE_STEP 像素取整（图片框会把图片拉伸到自身大小，几个像素的差别看不出来）
+ * - 同一尺寸、格式、文字只绘制和编码一次
+ * - sizeKey() 给出取整后的尺寸键，调用方可据此在同一个演示文稿内复用同一张图片（IPPImage / media 文件）；
+ *   不按宽高比复用：占位图按第一个图片框的像素尺寸和字号绘制，拉伸到更大的同比例图片框上文字会发虚
+ *
+ * 缓存为进程级 LRU，最多保留 MAX_ENTRIES 项。返回的字节数组是副本，调用方可以随意修改。
+ */
+public class NoImagePlaceholderCache {
+
+    public static final String DEFAULT_TEXT = "No Image";
+
+    /**
+     * 尺寸取整步长（像素）
+     */
+    private static final int SIZE_STEP = 8;
+    private static final int MIN_SIZE = 16;
+    static final int MAX_ENTRIES = 256;
+
+    private static final Map<String, byte[]> CACHE = new LinkedHashMap<String, byte[]>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private static long hits = 0;
+    private static long misses = 0;
+
+    private NoImagePlaceholderCache() {
+    }
+
+    /**
+     * 获取 PNG 格式的"No Image"占位图
+     */
+    public static byte[] getPng(int width, int height) throws IOException {
+        return getEncoded(width, height, "png", DEFAULT_TEXT);
+    }
+
+    /**
+     * 获取指定格式的占位图（format 为 ImageIO 格式名，如 png、jpg），返回缓存内容的副本
+     */
+    public static byte[] getEncoded(int width, int height, String format, String text) throws IOException {
+        int w = roundSize(width);
+        int h = roundSize(height);
+        String key = w + "x" + h + ":" + format + ":" + text;
+        synchronized (CACHE) {
+            byte[] cached = CACHE.get(key);
+            if (cached != null) {
+                hits++;
+                return cached.clone();
+            }
+            misses++;
+        }
+
+        BufferedImage image = createNoImageImage(w, h, text);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, format, baos)) {
+            throw new IOException("不支持的图片格式: " + format);
+        }
+        byte[] bytes = baos.toByteArray();
+        synchronized (CACHE) {
+            CACHE.put(key, bytes);
+        }
+        return bytes.clone();
+    }
+
+    /**
+     * 取整后的尺寸键（与缓存的取整规则一致），尺寸键相同的图片框可共用同一张占位图
+     */
+    public static String sizeKey(double width, double height) {
+        return roundSize((int) width) + "x" + roundSize((int) height);
+    }
+
+    /**
+     * 宽高按 SIZE_STEP 取整，且不小于 MIN_SIZE
+     */
+    static int roundSize(int size) {
+        int rounded = Math.round(size / (float) SIZE_STEP) * SIZE_STEP;
+        return Math.max(MIN_SIZE, rounded);
+    }
+
+    public static String stats() {
+        synchronized (CACHE) {
+            return "缓存 " + CACHE.size() + " 项，命中 " + hits + "，未命中 " + misses;
+        }
+    }
+
+    static int size() {
+        synchronized (CACHE) {
+            return CACHE.size();
+        }
+    }
+
+    static long hits() {
+        synchronized (CACHE) {
+            return hits;
+        }
+    }
+
+    static long misses() {
+        synchronized (CACHE) {
+            return misses;
+        }
+    }
+
+    public static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+    /**
+     * 创建带有指定文字的图片
+     * @param width 图片宽度
+     * @param height 图片高度
+     * @param text 要显示的文字
+     * @return BufferedImage对象
+     */
+    public static BufferedImage createNoImageImage(int width, int height, String text) {
+        // 创建图片
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+
+        // 获取 Graphics2D 对象用于绘制
+        Graphics2D g2d = image.createGraphics();
+
+        // 设置抗锯齿
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+        // 填充白色背景
+        g2d.setColor(Color.WHITE);
+        g2d.fillRect(0, 0, width, height);
+
+        // 绘制边框
+        g2d.setColor(Color.LIGHT_GRAY);
+        g2d.setStroke(new BasicStroke(2.0f));
+        g2d.drawRect(2, 2, width - 4, height - 4);
+
+        // 绘制文字，根据图片大小调整字体大小
+        g2d.setColor(Color.GRAY);
+        int fontSize = Math.max(12, Math.min(width, height) / 10);
+        g2d.setFont(new Font("Arial", Font.PLAIN, fontSize));
+
+        // 计算文字位置（居中）
+        FontMetrics fm = g2d.getFontMetrics();
+        int textWidth = fm.stringWidth(text);
+        int textHeight = fm.getHeight();
+        int x = (width - textWidth) / 2;
+        int y = (height - textHeight) / 2 + fm.getAscent();
+        g2d.drawString(text, x, y);
+
+        // 释放资源
+        g2d.dispose();
+
+        return image;
+    }
+}
@@ -0,0 +1,573 @@
+package com.pptfactory.util;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 纯 OOXML 的PPTX合并工具（不依赖 Aspose）
+ *
+ * 把多个PPTX（例如分片并行渲染的结果）按顺序合并成一个，幻灯片顺序为各文件依次拼接：
+ * 1. 以第一个文件为基础，保留它的 presentation.xml、母版、版式、主题和属性部件
+ * 2. 后续文件的幻灯片连同其引用的部件一起导入，部件在合并结果中统一协调：
+ *    - 版式：内容（版式XML、所属母版XML以及版式引用的图片等）与已有版式完全相同时直接复用
+ *    - 版式没有匹配时，把它所属的整个母版（连同主题和全部版式）作为新母版导入，
+ *      登记到 presentation.xml 的 sldMasterIdLst，并重新分配母版/版式 id，避免重复
+ *    - 媒体（ppt/media）：字节相同则复用，否则改名导入
+ *    - 其余部件（图表、嵌入对象等）改名导入，关系文件中的 Target 改写为新名称
+ * 3. 重建 sldIdLst、裁剪不可达部件，同步 [Content_Types].xml 和 docProps/app.xml（与 OOXMLSlideCopier 相同）
+ *
+ * 与 OOXMLSlideCopier 一样不拷贝备注页和批注。
+ *
+ * 使用方法：
+ * mvn exec:java -Dexec.mainClass="com.pptfactory.util.OOXMLPackageMerger" -Dexec.args="输出.pptx 1.pptx 2.pptx ..."
+ */
+public class OOXMLPackageMerger {
+
+    private static final String SLIDE_LAYOUT_TYPE = "application/vnd.openxmlformats-officedocument.presentationml.slideLayout+xml";
+    private static final String SLIDE_MASTER_TYPE = "application/vnd.openxmlformats-officedocument.presentationml.slideMaster+xml";
+    private static final String SLIDE_MASTER_REL_TYPE = "http://schemas.openxmlformats.org/officeDocument/2006/relationships/slideMaster";
+    // sldMasterId / sldLayoutId 的取值下限（ECMA-376 规定不小于 2^31）
+    private static final long MIN_MASTER_ID = 2147483648L;
+
+    /**
+     * 主方法
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.out.println("用法: OOXMLPackageMerger <输出.pptx> <输入1.pptx> <输入2.pptx> ...");
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            List<OOXMLSlideCopier.TemplatePackage> packages = new ArrayList<>();
+            for (int i = 1; i < args.length; i++) {
+                packages.add(OOXMLSlideCopier.load(args[i]));
+            }
+            merge(packages, args[0]);
+            System.out.println("✓ 完成！输出文件: " + args[0] + "，耗时 " + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception e) {
+            System.err.println("错误: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 合并到文件（先写临时文件，再原子替换）
+     */
+    public static void merge(List<OOXMLSlideCopier.TemplatePackage> packages, String outputFile) throws Exception {
+        Path target = Paths.get(outputFile).toAbsolutePath();
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        Path tempFile = Files.createTempFile(target.getParent(), "merged_", ".pptx");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempFile))) {
+                merge(packages, out);
+            }
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * 按顺序合并多个PPTX，写出到输出流
+     *
+     * @param packages 待合并的PPTX（至少一个）
+     * @param out 输出流（调用方负责关闭）
+     */
+    public static void merge(List<OOXMLSlideCopier.TemplatePackage> packages, OutputStream out) throws Exception {
+        if (packages.isEmpty()) {
+            throw new IllegalArgumentException("没有需要合并的PPTX");
+        }
+        new OOXMLPackageMerger(packages.get(0)).mergeAll(packages, out);
+    }
+
+    /**
+     * 一个输入包的内容类型（Override 按部件名，Default 按扩展名）
+     */
+    private static class ContentTypes {
+        final Map<String, String> overrides = new HashMap<>();
+        final Map<String, String> defaults = new HashMap<>();
+
+        ContentTypes(byte[] xml) throws Exception {
+            Document doc = OOXMLSlideCopier.parseXml(xml);
+            NodeList list = doc.getElementsByTagNameNS(OOXMLSlideCopier.CT_NS, "Override");
+            for (int i = 0; i < list.getLength(); i++) {
+                Element e = (Element) list.item(i);
+                String partName = e.getAttribute("PartName");
+                overrides.put(partName.startsWith("/") ? partName.substring(1) : partName, e.getAttribute("ContentType"));
+            }
+            list = doc.getElementsByTagNameNS(OOXMLSlideCopier.CT_NS, "Default");
+            for (int i = 0; i < list.getLength(); i++) {
+                Element e = (Element) list.item(i);
+                defaults.put(e.getAttribute("Extension").toLowerCase(Locale.ROOT), e.getAttribute("ContentType"));
+            }
+        }
+
+        String of(String part) {
+            String type = overrides.get(part);
+            return type != null ? type : defaults.get(extensionOf(part));
+        }
+    }
+
+    // 合并结果的部件
+    private final Map<String, byte[]> parts = new LinkedHashMap<>();
+    private final ContentTypes baseTypes;
+    // 导入部件需要追加的 Override（部件名 -> 内容类型）和 Default（扩展名 -> 内容类型）
+    private final Map<String, String> addedOverrides = new LinkedHashMap<>();
+    private final Map<String, String> addedDefaults = new LinkedHashMap<>();
+    // 版式内容指纹 -> 合并结果中的版式部件
+    private final Map<String, String> layoutsByKey = new HashMap<>();
+    // 媒体内容指纹（扩展名 + SHA-256） -> 合并结果中的媒体部件
+    private final Map<String, String> mediaByKey = new HashMap<>();
+    // 新导入的母版（按导入顺序），需要登记到 presentation.xml
+    private final List<String> importedMasters = new ArrayList<>();
+    private final List<String> newSlides = new ArrayList<>();
+    private long nextMasterId;
+
+    private OOXMLPackageMerger(OOXMLSlideCopier.TemplatePackage base) throws Exception {
+        baseTypes = new ContentTypes(base.getPart(OOXMLSlideCopier.CONTENT_TYPES));
+        long maxId = MIN_MASTER_ID - 1;
+        for (Map.Entry<String, byte[]> e : base.getParts().entrySet()) {
+            String name = e.getKey();
+            if (name.startsWith("ppt/slides/")) {
+                continue;
+            }
+            parts.put(name, e.getValue());
+            if (name.startsWith("ppt/media/")) {
+                mediaByKey.putIfAbsent(extensionOf(name) + ":" + sha256(e.getValue()), name);
+            }
+        }
+        for (Map.Entry<String, byte[]> e : parts.entrySet()) {
+            String type = baseTypes.of(e.getKey());
+            if (SLIDE_LAYOUT_TYPE.equals(type)) {
+                layoutsByKey.putIfAbsent(layoutKey(parts, e.getKey()), e.getKey());
+            } else if (SLIDE_MASTER_TYPE.equals(type) || OOXMLSlideCopier.PRESENTATION.equals(e.getKey())) {
+                maxId = Math.max(maxId, maxIdAttribute(e.getValue()));
+            }
+        }
+        nextMasterId = maxId + 1;
+    }
+
+    private void mergeAll(List<OOXMLSlideCopier.TemplatePackage> packages, OutputStream out) throws Exception {
+        for (int k = 0; k < packages.size(); k++) {
+            OOXMLSlideCopier.TemplatePackage pkg = packages.get(k);
+            ContentTypes types = k == 0 ? baseTypes : new ContentTypes(pkg.getPart(OOXMLSlideCopier.CONTENT_TYPES));
+            // 输入部件名 -> 合并结果中的部件名（null 表示丢弃）
+            Map<String, String> imported = new HashMap<>();
+            if (k == 0) {
+                for (String name : parts.keySet()) {
+                    imported.put(name, name);
+                }
+            }
+            // 先给本包的全部幻灯片分配新名称，页间超链接可以指向后面的页
+            List<String> targets = new ArrayList<>();
+            for (int i = 1; i <= pkg.getSlideCount(); i++) {
+                String newName = "ppt/slides/slide" + (newSlides.size() + 1) + ".xml";
+                newSlides.add(newName);
+                targets.add(newName);
+                imported.put(pkg.getSlidePart(i), newName);
+            }
+            for (int i = 1; i <= pkg.getSlideCount(); i++) {
+                String source = pkg.getSlidePart(i);
+                String newName = targets.get(i - 1);
+                parts.put(newName, pkg.getPart(source));
+                byte[] rels = pkg.getPart(OOXMLSlideCopier.relsPathOf(source));
+                if (rels != null) {
+                    parts.put(OOXMLSlideCopier.relsPathOf(newName), rewriteRels(pkg, types, imported, rels, source, newName, true));
+                }
+            }
+        }
+
+        // 登记新导入的母版，重建 presentation.xml 及其关系
+        if (!importedMasters.isEmpty()) {
+            registerMasters();
+        }
+        Map<String, String> slideRids = new LinkedHashMap<>();
+        parts.put(OOXMLSlideCopier.PRESENTATION_RELS,
+                OOXMLSlideCopier.rewritePresentationRels(parts.get(OOXMLSlideCopier.PRESENTATION_RELS), newSlides, slideRids));
+        parts.put(OOXMLSlideCopier.PRESENTATION,
+                OOXMLSlideCopier.rewritePresentation(parts.get(OOXMLSlideCopier.PRESENTATION), slideRids));
+
+        // 裁剪不可达部件（包括不再被引用的备注页），同步内容类型和页数
+        Set<String> reachable = OOXMLSlideCopier.collectReachableParts(parts);
+        parts.keySet().removeIf(name -> !OOXMLSlideCopier.CONTENT_TYPES.equals(name) && !reachable.contains(name));
+        byte[] contentTypes = addContentTypes(parts.get(OOXMLSlideCopier.CONTENT_TYPES));
+        parts.put(OOXMLSlideCopier.CONTENT_TYPES, OOXMLSlideCopier.rewriteContentTypes(contentTypes, parts.keySet(), newSlides));
+        if (parts.containsKey(OOXMLSlideCopier.APP_PROPS)) {
+            parts.put(OOXMLSlideCopier.APP_PROPS, OOXMLSlideCopier.rewriteAppProps(parts.get(OOXMLSlideCopier.APP_PROPS), newSlides.size()));
+        }
+
+        ZipOutputStream zos = new ZipOutputStream(out);
+        OOXMLSlideCopier.writeEntry(zos, OOXMLSlideCopier.CONTENT_TYPES, parts.get(OOXMLSlideCopier.CONTENT_TYPES));
+        for (Map.Entry<String, byte[]> e : parts.entrySet()) {
+            if (!OOXMLSlideCopier.CONTENT_TYPES.equals(e.getKey())) {
+                OOXMLSlideCopier.writeEntry(zos, e.getKey(), e.getValue());
+            }
+        }
+        zos.finish();
+    }
+
+    /**
+     * 导入一个被引用的部件，返回它在合并结果中的名称（null 表示丢弃该关系）
+     */
+    private String importPart(OOXMLSlideCopier.TemplatePackage pkg, ContentTypes types, Map<String, String> imported,
+                              String source) throws Exception {
+        if (imported.containsKey(source)) {
+            return imported.get(source);
+        }
+        byte[] data = pkg.getPart(source);
+        if (data == null) {
+            // 输入包中引用了不存在的部件，保留原关系
+            return source;
+        }
+        String type = types.of(source);
+        if (SLIDE_LAYOUT_TYPE.equals(type)) {
+            String existing = layoutsByKey.get(layoutKey(pkg.getParts(), source));
+            if (existing != null) {
+                imported.put(source, existing);
+                return existing;
+            }
+            // 没有相同的版式：导入它所属的整个母版
+            String master = masterOf(pkg.getParts(), source);
+            if (master != null && !imported.containsKey(master)) {
+                importMaster(pkg, types, imported, master);
+                return imported.get(source);
+            }
+            return copyPart(pkg, types, imported, source);
+        }
+        if (SLIDE_MASTER_TYPE.equals(type)) {
+            importMaster(pkg, types, imported, source);
+            return imported.get(source);
+        }
+        if (source.startsWith("ppt/media/")) {
+            String key = extensionOf(source) + ":" + sha256(data);
+            String existing = mediaByKey.get(key);
+            if (existing != null) {
+                imported.put(source, existing);
+                return existing;
+            }
+            String name = copyPart(pkg, types, imported, source);
+            mediaByKey.put(key, name);
+            return name;
+        }
+        return copyPart(pkg, types, imported, source);
+    }
+
+    /**
+     * 作为新母版导入：母版、主题和全部版式都改名拷贝（版式不与已有版式匹配，保证只属于这个母版）
+     */
+    private void importMaster(OOXMLSlideCopier.TemplatePackage pkg, ContentTypes types, Map<String, String> imported,
+                              String master) throws Exception {
+        String newMaster = uniqueName(master);
+        imported.put(master, newMaster);
+        // 先为母版的版式分配新名称，版式关系中指回母版时直接使用
+        List<String> layouts = new ArrayList<>();
+        Map<String, String> masterTargets = OOXMLSlideCopier.readRelationshipTargets(
+                pkg.getPart(OOXMLSlideCopier.relsPathOf(master)), OOXMLSlideCopier.parentDir(master));
+        for (String target : masterTargets.values()) {
+            // 之前已匹配到已有版式的也重新拷贝：新母版的版式列表只能引用属于它自己的版式
+            if (SLIDE_LAYOUT_TYPE.equals(types.of(target)) && pkg.getPart(target) != null && !layouts.contains(target)) {
+                String newLayout = uniqueName(target);
+                imported.put(target, newLayout);
+                // 先占位，保证后续 uniqueName 不会重复分配
+                parts.put(newLayout, pkg.getPart(target));
+                layouts.add(target);
+            }
+        }
+        putPart(pkg, types, imported, master, newMaster, renumberLayoutIds(pkg.getPart(master)));
+        for (String layout : layouts) {
+            putPart(pkg, types, imported, layout, imported.get(layout), pkg.getPart(layout));
+        }
+        for (String layout : layouts) {
+            layoutsByKey.putIfAbsent(layoutKey(parts, imported.get(layout)), imported.get(layout));
+        }
+        importedMasters.add(newMaster);
+    }
+
+    /**
+     * 以新名称拷贝部件及其关系
+     */
+    private String copyPart(OOXMLSlideCopier.TemplatePackage pkg, ContentTypes types, Map<String, String> imported,
+                            String source) throws Exception {
+        String name = uniqueName(source);
+        imported.put(source, name);
+        putPart(pkg, types, imported, source, name, pkg.getPart(source));
+        return name;
+    }
+
+    private void putPart(OOXMLSlideCopier.TemplatePackage pkg, ContentTypes types, Map<String, String> imported,
+                         String source, String name, byte[] data) throws Exception {
+        parts.put(name, data);
+        String type = types.overrides.get(source);
+        if (type != null) {
+            addedOverrides.put(name, type);
+        } else {
+            String ext = extensionOf(name);
+            String defaultType = types.defaults.get(ext);
+            if (defaultType != null && baseTypes.defaults.get(ext) == null) {
+                addedDefaults.putIfAbsent(ext, defaultType);
+            }
+        }
+        byte[] rels = pkg.getPart(OOXMLSlideCopier.relsPathOf(source));
+        if (rels != null) {
+            parts.put(OOXMLSlideCopier.relsPathOf(name), rewriteRels(pkg, types, imported, rels, source, name, false));
+        }
+    }
+
+    /**
+     * 改写关系文件：内部关系的目标逐个导入，Target 改为相对新部件的路径
+     *
+     * @param slide 是否是幻灯片的关系（去掉备注页和批注关系）
+     */
+    private byte[] rewriteRels(OOXMLSlideCopier.TemplatePackage pkg, ContentTypes types, Map<String, String> imported,
+                               byte[] rels, String source, String name, boolean slide) throws Exception {
+        Document doc = OOXMLSlideCopier.parseXml(rels);
+        String sourceDir = OOXMLSlideCopier.parentDir(source);
+        String targetDir = OOXMLSlideCopier.parentDir(name);
+        List<Element> toRemove = new ArrayList<>();
+        NodeList list = doc.getElementsByTagNameNS(OOXMLSlideCopier.PKG_REL_NS, "Relationship");
+        for (int i = 0; i < list.getLength(); i++) {
+            Element rel = (Element) list.item(i);
+            String type = rel.getAttribute("Type");
+            if (slide && (type.endsWith("/notesSlide") || type.endsWith("/comments"))) {
+                toRemove.add(rel);
+                continue;
+            }
+            if ("External".equals(rel.getAttribute("TargetMode"))) {
+                continue;
+            }
+            String target = importPart(pkg, types, imported, OOXMLSlideCopier.resolve(sourceDir, rel.getAttribute("Target")));
+            if (target == null) {
+                toRemove.add(rel);
+            } else {
+                rel.setAttribute("Target", relativize(targetDir, target));
+            }
+        }
+        for (Element rel : toRemove) {
+            rel.getParentNode().removeChild(rel);
+        }
+        return OOXMLSlideCopier.toBytes(doc);
+    }
+
+    /**
+     * 把新导入的母版登记到 presentation.xml 的 sldMasterIdLst 和 presentation.xml.rels
+     */
+    private void registerMasters() throws Exception {
+        Document rels = OOXMLSlideCopier.parseXml(parts.get(OOXMLSlideCopier.PRESENTATION_RELS));
+        Element relsRoot = rels.getDocumentElement();
+        int maxRid = 0;
+        NodeList list = rels.getElementsByTagNameNS(OOXMLSlideCopier.PKG_REL_NS, "Relationship");
+        for (int i = 0; i < list.getLength(); i++) {
+            String id = ((Element) list.item(i)).getAttribute("Id");
+            if (id.startsWith("rId")) {
+                try {
+                    maxRid = Math.max(maxRid, Integer.parseInt(id.substring(3)));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+
+        Document pres = OOXMLSlideCopier.parseXml(parts.get(OOXMLSlideCopier.PRESENTATION));
+        Element root = pres.getDocumentElement();
+        String prefix = root.getPrefix() == null ? "" : root.getPrefix() + ":";
+        NodeList lists = pres.getElementsByTagNameNS(OOXMLSlideCopier.PML_NS, "sldMasterIdLst");
+        Element sldMasterIdLst;
+        if (lists.getLength() > 0) {
+            sldMasterIdLst = (Element) lists.item(0);
+        } else {
+            // sldMasterIdLst 是 presentation 的第一个子元素
+            sldMasterIdLst = pres.createElementNS(OOXMLSlideCopier.PML_NS, prefix + "sldMasterIdLst");
+            root.insertBefore(sldMasterIdLst, root.getFirstChild());
+        }
+
+        for (String master : importedMasters) {
+            String rid = "rId" + (++maxRid);
+            Element rel = rels.createElementNS(OOXMLSlideCopier.PKG_REL_NS, "Relationship");
+            rel.setAttribute("Id", rid);
+            rel.setAttribute("Type", SLIDE_MASTER_REL_TYPE);
+            rel.setAttribute("Target", relativize("ppt", master));
+            relsRoot.appendChild(rel);
+
+            Element sldMasterId = pres.createElementNS(OOXMLSlideCopier.PML_NS, prefix + "sldMasterId");
+            sldMasterId.setAttribute("id", String.valueOf(nextMasterId++));
+            sldMasterId.setAttributeNS(OOXMLSlideCopier.REL_NS, "r:id", rid);
+            sldMasterIdLst.appendChild(sldMasterId);
+        }
+        parts.put(OOXMLSlideCopier.PRESENTATION_RELS, OOXMLSlideCopier.toBytes(rels));
+        parts.put(OOXMLSlideCopier.PRESENTATION, OOXMLSlideCopier.toBytes(pres));
+    }
+
+    /**
+     * 导入的母版中 sldLayoutId 的 id 重新分配（母版和版式的 id 在整个演示文稿中必须唯一）
+     */
+    private byte[] renumberLayoutIds(byte[] masterXml) throws Exception {
+        Document doc = OOXMLSlideCopier.parseXml(masterXml);
+        NodeList list = doc.getElementsByTagNameNS(OOXMLSlideCopier.PML_NS, "sldLayoutId");
+        if (list.getLength() == 0) {
+            return masterXml;
+        }
+        for (int i = 0; i < list.getLength(); i++) {
+            ((Element) list.item(i)).setAttribute("id", String.valueOf(nextMasterId++));
+        }
+        return OOXMLSlideCopier.toBytes(doc);
+    }
+
+    /**
+     * 在 Content_Types 中为导入的部件追加 Override 和缺少的 Default
+     */
+    private byte[] addContentTypes(byte[] xml) throws Exception {
+        if (addedOverrides.isEmpty() && addedDefaults.isEmpty()) {
+            return xml;
+        }
+        Document doc = OOXMLSlideCopier.parseXml(xml);
+        Element root = doc.getDocumentElement();
+        // Default 必须排在 Override 之前
+        Node firstOverride = null;
+        for (Node n = root.getFirstChild(); n != null; n = n.getNextSibling()) {
+            if (n instanceof Element && "Override".equals(n.getLocalName())) {
+                firstOverride = n;
+                break;
+            }
+        }
+        for (Map.Entry<String, String> e : addedDefaults.entrySet()) {
+            Element def = doc.createElementNS(OOXMLSlideCopier.CT_NS, "Default");
+            def.setAttribute("Extension", e.getKey());
+            def.setAttribute("ContentType", e.getValue());
+            root.insertBefore(def, firstOverride);
+        }
+        for (Map.Entry<String, String> e : addedOverrides.entrySet()) {
+            Element override = doc.createElementNS(OOXMLSlideCopier.CT_NS, "Override");
+            override.setAttribute("PartName", "/" + e.getKey());
+            override.setAttribute("ContentType", e.getValue());
+            root.appendChild(override);
+        }
+        return OOXMLSlideCopier.toBytes(doc);
+    }
+
+    /**
+     * 版式的内容指纹：版式XML，加上按 Id 排序的各关系目标的内容（母版、图片等）
+     * 不同包中同一模板的版式即使部件名不同，指纹也相同
+     */
+    private static String layoutKey(Map<String, byte[]> parts, String layout) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(parts.get(layout));
+        Map<String, String> targets = OOXMLSlideCopier.readRelationshipTargets(
+                parts.get(OOXMLSlideCopier.relsPathOf(layout)), OOXMLSlideCopier.parentDir(layout));
+        for (Map.Entry<String, String> e : new TreeMap<>(targets).entrySet()) {
+            digest.update(e.getKey().getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            byte[] data = parts.get(e.getValue());
+            if (data != null) {
+                digest.update(data);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * 版式所属的母版部件名
+     */
+    private static String masterOf(Map<String, byte[]> parts, String layout) throws Exception {
+        byte[] rels = parts.get(OOXMLSlideCopier.relsPathOf(layout));
+        if (rels == null) {
+            return null;
+        }
+        Document doc = OOXMLSlideCopier.parseXml(rels);
+        NodeList list = doc.getElementsByTagNameNS(OOXMLSlideCopier.PKG_REL_NS, "Relationship");
+        for (int i = 0; i < list.getLength(); i++) {
+            Element rel = (Element) list.item(i);
+            if (SLIDE_MASTER_REL_TYPE.equals(rel.getAttribute("Type"))) {
+                return OOXMLSlideCopier.resolve(OOXMLSlideCopier.parentDir(layout), rel.getAttribute("Target"));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * XML 中 sldMasterId / sldLayoutId 的最大 id
+     */
+    private static long maxIdAttribute(byte[] xml) throws Exception {
+        Document doc = OOXMLSlideCopier.parseXml(xml);
+        long max = 0;
+        for (String tag : new String[]{"sldMasterId", "sldLayoutId"}) {
+            NodeList list = doc.getElementsByTagNameNS(OOXMLSlideCopier.PML_NS, tag);
+            for (int i = 0; i < list.getLength(); i++) {
+                try {
+                    max = Math.max(max, Long.parseLong(((Element) list.item(i)).getAttribute("id")));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 与已有部件不重名的新名称：ppt/media/image3.png -> ppt/media/image{n}.png（同目录、同前缀、最小可用编号）
+     */
+    private String uniqueName(String source) {
+        String dir = OOXMLSlideCopier.parentDir(source);
+        String file = source.substring(source.lastIndexOf('/') + 1);
+        int dot = file.lastIndexOf('.');
+        String stem = dot >= 0 ? file.substring(0, dot) : file;
+        String ext = dot >= 0 ? file.substring(dot) : "";
+        String base = stem.replaceAll("\\d+$", "");
+        for (int n = 1; ; n++) {
+            String name = (dir.isEmpty() ? "" : dir + "/") + base + n + ext;
+            if (!parts.containsKey(name)) {
+                return name;
+            }
+        }
+    }
+
+    /**
+     * 从 fromDir 指向包内部件 target 的相对路径，例如 ppt/slides + ppt/media/image1.png -> ../media/image1.png
+     */
+    private static String relativize(String fromDir, String target) {
+        String[] from = fromDir.isEmpty() ? new String[0] : fromDir.split("/");
+        String[] to = target.split("/");
+        int common = 0;
+        while (common < from.length && common < to.length - 1 && from[common].equals(to[common])) {
+            common++;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = common; i < from.length; i++) {
+            sb.append("../");
+        }
+        for (int i = common; i < to.length; i++) {
+            sb.append(to[i]);
+            if (i < to.length - 1) {
+                sb.append('/');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String extensionOf(String part) {
+        int dot = part.lastIndexOf('.');
+        return dot >= 0 ? part.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static String sha256(byte[] data) throws Exception {
+        return toHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
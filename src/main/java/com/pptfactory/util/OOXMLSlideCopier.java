@@ -0,0 +1,595 @@
+package com.pptfactory.util;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 纯 OOXML 的幻灯片拷贝工具（不依赖 Aspose）
+ *
+ * 直接在 zip 包层面从模板PPTX中挑选 slideN.xml 及其关系文件，组装成新的PPTX：
+ * 1. 按选中的页面顺序生成 ppt/slides/slide1.xml ... slideN.xml，拷贝并改写各自的 .rels
+ * 2. 重建 presentation.xml 的 sldIdLst 和 presentation.xml.rels 中的幻灯片关系（重新编号 id / rId）
+ * 3. 从 _rels/.rels 出发按关系可达性裁剪未被引用的部件（未选中的幻灯片、备注页、只被它们引用的媒体等），
+ *    版式、母版、主题和被引用的媒体原样保留
+ * 4. 同步 [Content_Types].xml 和 docProps/app.xml 中的页数
+ *
+ * 由于整个过程不经过 Aspose 加载和保存，输出文件中不会产生评估版水印，无需再做去水印处理。
+ * 备注页不会被拷贝（生产流程本来就会清空备注）。
+ *
+ * 注意：同一模板页被选中多次时，图表、嵌入对象等非媒体部件会被多页共享引用。
+ *
+ * 使用方法：
+ * mvn exec:java -Dexec.mainClass="com.pptfactory.util.OOXMLSlideCopier" -Dexec.args="模板.pptx 输出.pptx 3,1,5"
+ */
+public class OOXMLSlideCopier {
+
+    static final String PKG_REL_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+    static final String CT_NS = "http://schemas.openxmlformats.org/package/2006/content-types";
+    static final String PML_NS = "http://schemas.openxmlformats.org/presentationml/2006/main";
+    static final String REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String SLIDE_REL_TYPE = "http://schemas.openxmlformats.org/officeDocument/2006/relationships/slide";
+    private static final String SLIDE_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.presentationml.slide+xml";
+
+    static final String CONTENT_TYPES = "[Content_Types].xml";
+    static final String PRESENTATION = "ppt/presentation.xml";
+    static final String PRESENTATION_RELS = "ppt/_rels/presentation.xml.rels";
+    static final String APP_PROPS = "docProps/app.xml";
+
+    /**
+     * 已读入内存的模板包：所有部件的原始字节，以及按 sldIdLst 顺序排列的幻灯片部件名
+     * 只读，可以在多次拷贝之间复用（例如守护进程常驻）
+     */
+    public static class TemplatePackage {
+        private final String source;
+        private final Map<String, byte[]> parts;
+        private final List<String> slideParts;
+
+        TemplatePackage(String source, Map<String, byte[]> parts, List<String> slideParts) {
+            this.source = source;
+            this.parts = Collections.unmodifiableMap(parts);
+            this.slideParts = Collections.unmodifiableList(slideParts);
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        /**
+         * 全部部件（只读）：部件名 -> 原始字节
+         */
+        Map<String, byte[]> getParts() {
+            return parts;
+        }
+
+        public int getSlideCount() {
+            return slideParts.size();
+        }
+
+        /**
+         * 获取第 pageIndex 页（从1开始）对应的部件名，例如 ppt/slides/slide12.xml
+         */
+        public String getSlidePart(int pageIndex) {
+            return slideParts.get(pageIndex - 1);
+        }
+
+        /**
+         * 获取部件的原始字节（只读，调用方不要修改），不存在时返回 null
+         */
+        public byte[] getPart(String name) {
+            return parts.get(name);
+        }
+
+        /**
+         * 第 pageIndex 页（从1开始）的内容哈希（SHA-256，十六进制）
+         *
+         * 覆盖幻灯片XML及其直接引用的部件（版式、媒体、图表等），备注页和批注不参与计算，
+         * 只改备注不会被视为幻灯片变化。
+         */
+        public String slideContentHash(int pageIndex) throws Exception {
+            String slidePart = getSlidePart(pageIndex);
+            java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-256");
+            digest.update(parts.get(slidePart));
+            Map<String, String> targets = readRelationshipTargets(parts.get(relsPathOf(slidePart)), parentDir(slidePart));
+            for (String target : new TreeSet<>(targets.values())) {
+                byte[] data = parts.get(target);
+                if (data == null || target.contains("notesSlide") || target.contains("/comments/")) {
+                    continue;
+                }
+                digest.update(target.substring(target.lastIndexOf('/') + 1).getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                digest.update(data);
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        }
+    }
+
+    /**
+     * 主方法
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.out.println("用法: OOXMLSlideCopier <模板.pptx> <输出.pptx> <页码列表，逗号分隔，从1开始>");
+            return;
+        }
+        try {
+            List<Integer> pageIndices = new ArrayList<>();
+            for (String s : args[2].split(",")) {
+                if (!s.trim().isEmpty()) {
+                    pageIndices.add(Integer.parseInt(s.trim()));
+                }
+            }
+            long start = System.currentTimeMillis();
+            copySlides(args[0], pageIndices, args[1]);
+            System.out.println("✓ 完成！输出文件: " + args[1] + "，耗时 " + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception e) {
+            System.err.println("错误: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 读取模板PPTX到内存
+     *
+     * @param pptxPath 模板文件路径
+     * @return 模板包
+     * @throws Exception 如果文件不存在或结构不完整
+     */
+    public static TemplatePackage load(String pptxPath) throws Exception {
+        File file = new File(pptxPath);
+        if (!file.exists()) {
+            throw new RuntimeException("模板文件不存在: " + pptxPath);
+        }
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return read(in, pptxPath);
+        }
+    }
+
+    /**
+     * 从输入流读取PPTX到内存（例如渲染到内存中的PPT），调用方负责关闭输入流
+     *
+     * @param in PPTX 字节流
+     * @param source 来源说明，用于错误信息
+     * @return 模板包
+     * @throws Exception 如果结构不完整
+     */
+    public static TemplatePackage read(InputStream in, String source) throws Exception {
+        Map<String, byte[]> parts = new LinkedHashMap<>();
+        ZipInputStream zis = new ZipInputStream(in);
+        ZipEntry entry;
+        while ((entry = zis.getNextEntry()) != null) {
+            if (!entry.isDirectory()) {
+                parts.put(entry.getName(), zis.readAllBytes());
+            }
+            zis.closeEntry();
+        }
+
+        if (!parts.containsKey(PRESENTATION) || !parts.containsKey(PRESENTATION_RELS)) {
+            throw new RuntimeException("不是有效的PPTX文件（缺少 presentation.xml）: " + source);
+        }
+
+        // 按 sldIdLst 的顺序确定幻灯片部件
+        Map<String, String> presRels = readRelationshipTargets(parts.get(PRESENTATION_RELS), "ppt");
+        Document pres = parseXml(parts.get(PRESENTATION));
+        List<String> slideParts = new ArrayList<>();
+        NodeList sldIds = pres.getElementsByTagNameNS(PML_NS, "sldId");
+        for (int i = 0; i < sldIds.getLength(); i++) {
+            Element sldId = (Element) sldIds.item(i);
+            String rid = sldId.getAttributeNS(REL_NS, "id");
+            String target = presRels.get(rid);
+            if (target == null || !parts.containsKey(target)) {
+                throw new RuntimeException("presentation.xml 中的幻灯片关系无效: " + rid);
+            }
+            slideParts.add(target);
+        }
+
+        return new TemplatePackage(source, parts, slideParts);
+    }
+
+    /**
+     * 从模板文件拷贝指定的幻灯片到新文件
+     *
+     * @param templateFile 模板PPTX路径
+     * @param pageIndices 需要拷贝的页面索引列表（从1开始，可重复）
+     * @param outputFile 输出文件路径
+     */
+    public static void copySlides(String templateFile, List<Integer> pageIndices, String outputFile) throws Exception {
+        copySlides(load(templateFile), pageIndices, outputFile);
+    }
+
+    /**
+     * 从已加载的模板包拷贝指定的幻灯片到新文件（先写临时文件，再原子替换）
+     */
+    public static void copySlides(TemplatePackage template, List<Integer> pageIndices, String outputFile) throws Exception {
+        Path target = Paths.get(outputFile).toAbsolutePath();
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        Path tempFile = Files.createTempFile(target.getParent(), "slides_", ".pptx");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempFile))) {
+                copySlides(template, pageIndices, out);
+            }
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * 从已加载的模板包拷贝指定的幻灯片，写出到输出流
+     *
+     * @param template 模板包
+     * @param pageIndices 需要拷贝的页面索引列表（从1开始，可重复）
+     * @param out 输出流（调用方负责关闭）
+     */
+    public static void copySlides(TemplatePackage template, List<Integer> pageIndices, OutputStream out) throws Exception {
+        int totalSlides = template.getSlideCount();
+        for (int pageIndex : pageIndices) {
+            if (pageIndex < 1 || pageIndex > totalSlides) {
+                throw new IllegalArgumentException("页面索引超出范围: " + pageIndex + " (模板共有 " + totalSlides + " 页)");
+            }
+        }
+
+        // 工作副本：去掉模板中全部幻灯片部件，再按新顺序写入
+        Map<String, byte[]> parts = new LinkedHashMap<>();
+        for (Map.Entry<String, byte[]> e : template.parts.entrySet()) {
+            if (!e.getKey().startsWith("ppt/slides/")) {
+                parts.put(e.getKey(), e.getValue());
+            }
+        }
+
+        // 模板幻灯片部件 -> 第一次出现时的新部件名，用于改写页间超链接
+        Map<String, String> newNameBySource = new HashMap<>();
+        List<String> newSlides = new ArrayList<>();
+        for (int i = 0; i < pageIndices.size(); i++) {
+            String source = template.getSlidePart(pageIndices.get(i));
+            String newName = "ppt/slides/slide" + (i + 1) + ".xml";
+            newSlides.add(newName);
+            newNameBySource.putIfAbsent(source, newName);
+        }
+
+        for (int i = 0; i < newSlides.size(); i++) {
+            String source = template.getSlidePart(pageIndices.get(i));
+            String newName = newSlides.get(i);
+            parts.put(newName, template.parts.get(source));
+            byte[] rels = template.parts.get(relsPathOf(source));
+            if (rels != null) {
+                parts.put(relsPathOf(newName), rewriteSlideRels(rels, source, newNameBySource));
+            }
+        }
+
+        // 重建 presentation.xml 及其关系
+        Map<String, String> slideRids = new LinkedHashMap<>();
+        parts.put(PRESENTATION_RELS, rewritePresentationRels(parts.get(PRESENTATION_RELS), newSlides, slideRids));
+        parts.put(PRESENTATION, rewritePresentation(parts.get(PRESENTATION), slideRids));
+
+        // 裁剪不可达部件
+        Set<String> reachable = collectReachableParts(parts);
+        parts.keySet().removeIf(name -> !CONTENT_TYPES.equals(name) && !reachable.contains(name));
+
+        parts.put(CONTENT_TYPES, rewriteContentTypes(parts.get(CONTENT_TYPES), parts.keySet(), newSlides));
+        if (parts.containsKey(APP_PROPS)) {
+            parts.put(APP_PROPS, rewriteAppProps(parts.get(APP_PROPS), newSlides.size()));
+        }
+
+        ZipOutputStream zos = new ZipOutputStream(out);
+        // [Content_Types].xml 放在第一个条目
+        writeEntry(zos, CONTENT_TYPES, parts.get(CONTENT_TYPES));
+        for (Map.Entry<String, byte[]> e : parts.entrySet()) {
+            if (!CONTENT_TYPES.equals(e.getKey())) {
+                writeEntry(zos, e.getKey(), e.getValue());
+            }
+        }
+        zos.finish();
+    }
+
+    /**
+     * 改写幻灯片的关系文件：去掉备注页和批注关系，页间超链接指向新的部件名
+     */
+    private static byte[] rewriteSlideRels(byte[] rels, String sourceSlide, Map<String, String> newNameBySource) throws Exception {
+        Document doc = parseXml(rels);
+        String baseDir = parentDir(sourceSlide);
+        List<Element> toRemove = new ArrayList<>();
+        NodeList list = doc.getElementsByTagNameNS(PKG_REL_NS, "Relationship");
+        for (int i = 0; i < list.getLength(); i++) {
+            Element rel = (Element) list.item(i);
+            String type = rel.getAttribute("Type");
+            if (type.endsWith("/notesSlide") || type.endsWith("/comments")) {
+                toRemove.add(rel);
+            } else if (SLIDE_REL_TYPE.equals(type) && !"External".equals(rel.getAttribute("TargetMode"))) {
+                String targetSlide = resolve(baseDir, rel.getAttribute("Target"));
+                String newName = newNameBySource.get(targetSlide);
+                if (newName != null) {
+                    rel.setAttribute("Target", newName.substring("ppt/slides/".length()));
+                } else {
+                    // 目标页未被选中：改为指向第一页，避免悬空关系
+                    System.err.println("警告：" + sourceSlide + " 中的页间链接目标 " + targetSlide + " 未被拷贝，改为指向第一页");
+                    rel.setAttribute("Target", "slide1.xml");
+                }
+            }
+        }
+        for (Element rel : toRemove) {
+            rel.getParentNode().removeChild(rel);
+        }
+        return toBytes(doc);
+    }
+
+    /**
+     * 去掉原有幻灯片（及备注页）关系，按新顺序追加，rId 从现有最大编号之后开始
+     */
+    static byte[] rewritePresentationRels(byte[] rels, List<String> newSlides, Map<String, String> slideRids) throws Exception {
+        Document doc = parseXml(rels);
+        Element root = doc.getDocumentElement();
+        List<Element> toRemove = new ArrayList<>();
+        int maxRid = 0;
+        NodeList list = doc.getElementsByTagNameNS(PKG_REL_NS, "Relationship");
+        for (int i = 0; i < list.getLength(); i++) {
+            Element rel = (Element) list.item(i);
+            String type = rel.getAttribute("Type");
+            // 部分工具（如 POI）会在 presentation.xml.rels 中登记备注页，一并去掉
+            if (SLIDE_REL_TYPE.equals(type) || type.endsWith("/notesSlide")) {
+                toRemove.add(rel);
+                continue;
+            }
+            String id = rel.getAttribute("Id");
+            if (id.startsWith("rId")) {
+                try {
+                    maxRid = Math.max(maxRid, Integer.parseInt(id.substring(3)));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        for (Element rel : toRemove) {
+            root.removeChild(rel);
+        }
+
+        for (String slide : newSlides) {
+            String rid = "rId" + (++maxRid);
+            Element rel = doc.createElementNS(PKG_REL_NS, "Relationship");
+            rel.setAttribute("Id", rid);
+            rel.setAttribute("Type", SLIDE_REL_TYPE);
+            rel.setAttribute("Target", slide.substring("ppt/".length()));
+            root.appendChild(rel);
+            slideRids.put(slide, rid);
+        }
+        return toBytes(doc);
+    }
+
+    /**
+     * 重建 sldIdLst（id 从 256 开始重新编号），并去掉引用旧幻灯片的自定义放映和分节信息
+     */
+    static byte[] rewritePresentation(byte[] xml, Map<String, String> slideRids) throws Exception {
+        Document doc = parseXml(xml);
+        Element root = doc.getDocumentElement();
+
+        NodeList lists = doc.getElementsByTagNameNS(PML_NS, "sldIdLst");
+        Element sldIdLst;
+        if (lists.getLength() > 0) {
+            sldIdLst = (Element) lists.item(0);
+            while (sldIdLst.getFirstChild() != null) {
+                sldIdLst.removeChild(sldIdLst.getFirstChild());
+            }
+        } else {
+            // sldIdLst 必须紧跟在 sldMasterIdLst / notesMasterIdLst / handoutMasterIdLst 之后
+            sldIdLst = doc.createElementNS(PML_NS, root.getPrefix() == null ? "sldIdLst" : root.getPrefix() + ":sldIdLst");
+            Node anchor = null;
+            for (Node n = root.getFirstChild(); n != null; n = n.getNextSibling()) {
+                if (n instanceof Element && !"sldMasterIdLst".equals(n.getLocalName())
+                        && !"notesMasterIdLst".equals(n.getLocalName())
+                        && !"handoutMasterIdLst".equals(n.getLocalName())) {
+                    anchor = n;
+                    break;
+                }
+            }
+            root.insertBefore(sldIdLst, anchor);
+        }
+
+        int id = 256;
+        for (String rid : slideRids.values()) {
+            Element sldId = doc.createElementNS(PML_NS, sldIdLst.getPrefix() == null ? "sldId" : sldIdLst.getPrefix() + ":sldId");
+            sldId.setAttribute("id", String.valueOf(id++));
+            sldId.setAttributeNS(REL_NS, "r:id", rid);
+            sldIdLst.appendChild(sldId);
+        }
+
+        removeElements(doc.getElementsByTagNameNS(PML_NS, "custShowLst"));
+        // p14:sectionLst 位于 extLst/ext 中，连同外层 ext 一起删除
+        NodeList sections = doc.getElementsByTagNameNS("*", "sectionLst");
+        List<Node> exts = new ArrayList<>();
+        for (int i = 0; i < sections.getLength(); i++) {
+            Node parent = sections.item(i).getParentNode();
+            if (parent != null && "ext".equals(parent.getLocalName())) {
+                exts.add(parent);
+            }
+        }
+        for (Node ext : exts) {
+            ext.getParentNode().removeChild(ext);
+        }
+
+        return toBytes(doc);
+    }
+
+    /**
+     * 去掉已裁剪部件和旧幻灯片的 Override，为新幻灯片添加 Override
+     */
+    static byte[] rewriteContentTypes(byte[] xml, Set<String> keptParts, List<String> newSlides) throws Exception {
+        Document doc = parseXml(xml);
+        Element root = doc.getDocumentElement();
+        List<Element> toRemove = new ArrayList<>();
+        NodeList list = doc.getElementsByTagNameNS(CT_NS, "Override");
+        for (int i = 0; i < list.getLength(); i++) {
+            Element override = (Element) list.item(i);
+            String partName = override.getAttribute("PartName");
+            String name = partName.startsWith("/") ? partName.substring(1) : partName;
+            if (name.startsWith("ppt/slides/") || !keptParts.contains(name)) {
+                toRemove.add(override);
+            }
+        }
+        for (Element override : toRemove) {
+            root.removeChild(override);
+        }
+        for (String slide : newSlides) {
+            Element override = doc.createElementNS(CT_NS, "Override");
+            override.setAttribute("PartName", "/" + slide);
+            override.setAttribute("ContentType", SLIDE_CONTENT_TYPE);
+            root.appendChild(override);
+        }
+        return toBytes(doc);
+    }
+
+    /**
+     * 更新 docProps/app.xml 中的页数统计
+     */
+    static byte[] rewriteAppProps(byte[] xml, int slideCount) throws Exception {
+        Document doc = parseXml(xml);
+        NodeList slides = doc.getElementsByTagNameNS("*", "Slides");
+        for (int i = 0; i < slides.getLength(); i++) {
+            slides.item(i).setTextContent(String.valueOf(slideCount));
+        }
+        NodeList notes = doc.getElementsByTagNameNS("*", "Notes");
+        for (int i = 0; i < notes.getLength(); i++) {
+            notes.item(i).setTextContent("0");
+        }
+        return toBytes(doc);
+    }
+
+    /**
+     * 从包关系 _rels/.rels 出发，沿所有内部关系收集可达部件（包括各自的 .rels 文件）
+     */
+    static Set<String> collectReachableParts(Map<String, byte[]> parts) throws Exception {
+        Set<String> reachable = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        reachable.add("_rels/.rels");
+        for (String target : readRelationshipTargets(parts.get("_rels/.rels"), "").values()) {
+            if (reachable.add(target)) {
+                queue.add(target);
+            }
+        }
+        while (!queue.isEmpty()) {
+            String part = queue.poll();
+            String relsPath = relsPathOf(part);
+            byte[] rels = parts.get(relsPath);
+            if (rels == null) {
+                continue;
+            }
+            reachable.add(relsPath);
+            for (String target : readRelationshipTargets(rels, parentDir(part)).values()) {
+                if (parts.containsKey(target) && reachable.add(target)) {
+                    queue.add(target);
+                }
+            }
+        }
+        return reachable;
+    }
+
+    /**
+     * 读取关系文件中的内部关系：Id -> 解析后的部件名
+     */
+    static Map<String, String> readRelationshipTargets(byte[] rels, String baseDir) throws Exception {
+        Map<String, String> targets = new LinkedHashMap<>();
+        if (rels == null) {
+            return targets;
+        }
+        Document doc = parseXml(rels);
+        NodeList list = doc.getElementsByTagNameNS(PKG_REL_NS, "Relationship");
+        for (int i = 0; i < list.getLength(); i++) {
+            Element rel = (Element) list.item(i);
+            if ("External".equals(rel.getAttribute("TargetMode"))) {
+                continue;
+            }
+            targets.put(rel.getAttribute("Id"), resolve(baseDir, rel.getAttribute("Target")));
+        }
+        return targets;
+    }
+
+    /**
+     * ppt/slides/slide1.xml -> ppt/slides/_rels/slide1.xml.rels
+     */
+    static String relsPathOf(String part) {
+        int idx = part.lastIndexOf('/');
+        String dir = idx >= 0 ? part.substring(0, idx + 1) : "";
+        return dir + "_rels/" + part.substring(idx + 1) + ".rels";
+    }
+
+    static String parentDir(String part) {
+        int idx = part.lastIndexOf('/');
+        return idx >= 0 ? part.substring(0, idx) : "";
+    }
+
+    /**
+     * 把关系中的相对 Target 解析为包内部件名（处理 ../ 和以 / 开头的绝对路径）
+     */
+    static String resolve(String baseDir, String target) {
+        String path = target.startsWith("/") ? target.substring(1) : (baseDir.isEmpty() ? target : baseDir + "/" + target);
+        Deque<String> segments = new ArrayDeque<>();
+        for (String seg : path.split("/")) {
+            if (seg.isEmpty() || ".".equals(seg)) {
+                continue;
+            }
+            if ("..".equals(seg)) {
+                segments.pollLast();
+            } else {
+                segments.addLast(seg);
+            }
+        }
+        return String.join("/", segments);
+    }
+
+    private static void removeElements(NodeList list) {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < list.getLength(); i++) {
+            nodes.add(list.item(i));
+        }
+        for (Node n : nodes) {
+            n.getParentNode().removeChild(n);
+        }
+    }
+
+    static Document parseXml(byte[] bytes) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        Document doc = builder.parse(new ByteArrayInputStream(bytes));
+        doc.setXmlStandalone(true);
+        return doc;
+    }
+
+    static byte[] toBytes(Document doc) throws Exception {
+        TransformerFactory transformerFactory = TransformerFactory.newInstance();
+        Transformer transformer = transformerFactory.newTransformer();
+        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+        transformer.setOutputProperty(OutputKeys.INDENT, "no");
+        transformer.setOutputProperty(OutputKeys.STANDALONE, "yes");
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        transformer.transform(new DOMSource(doc), new StreamResult(bos));
+        return bos.toByteArray();
+    }
+
+    static void writeEntry(ZipOutputStream zos, String name, byte[] data) throws IOException {
+        zos.putNextEntry(new ZipEntry(name));
+        zos.write(data);
+        zos.closeEntry();
+    }
+}
@@ -0,0 +1,214 @@
+package com.pptfactory.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步写后（write-behind）入库
+ *
+ * produce 流程在每页文本、图片确定后调用 publish() 发布页面事件，立即返回；
+ * 后台线程从有界队列中取事件，凑够 maxBatch 条或等待超过 flushIntervalMillis 后，
+ * 按 ppt_name 分组调用 PptMappingBulkLoader.replacePages 一次写入。
+ * 同一批次内同一页的多次事件只写最后一次。
+ *
+ * 队列满时 publish() 不阻塞渲染流程，丢弃事件并打印警告（可事后用 PptMappingBulkLoader 全量补录）。
+ * close() 停止接收新事件，写完队列中剩余的事件后再返回；创建时会注册 JVM 关闭钩子，保证进程退出前落库。
+ *
+ * 配置（环境变量）：DB_SINK_QUEUE_SIZE（默认1000）、DB_SINK_FLUSH_MS（默认500），
+ * 每批条数与连接配置同 PptPagePersistence（DB_BATCH_SIZE 等）
+ */
+public class PersistenceWriteBehindSink implements AutoCloseable {
+
+    public static final int DEFAULT_QUEUE_SIZE = 1000;
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 500;
+    private static final long CLOSE_TIMEOUT_MS = 60_000;
+
+    /**
+     * 页面事件
+     */
+    private static class PageEvent {
+        final String pptName;
+        final PptMappingBulkLoader.PageRows page;
+
+        PageEvent(String pptName, PptMappingBulkLoader.PageRows page) {
+            this.pptName = pptName;
+            this.page = page;
+        }
+    }
+
+    private final PptMappingBulkLoader loader;
+    private final AutoCloseable ownedResource;
+    private final BlockingQueue<PageEvent> queue;
+    private final int maxBatch;
+    private final long flushIntervalMillis;
+    private final Thread flusher;
+    private final Thread shutdownHook;
+    private volatile boolean running = true;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public PersistenceWriteBehindSink(PptMappingBulkLoader loader, int queueSize, int maxBatch, long flushIntervalMillis) {
+        this(loader, null, queueSize, maxBatch, flushIntervalMillis);
+    }
+
+    private PersistenceWriteBehindSink(PptMappingBulkLoader loader, AutoCloseable ownedResource,
+                                       int queueSize, int maxBatch, long flushIntervalMillis) {
+        if (queueSize <= 0 || maxBatch <= 0 || flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("队列大小、批大小和刷新间隔必须大于0");
+        }
+        this.loader = loader;
+        this.ownedResource = ownedResource;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.maxBatch = maxBatch;
+        this.flushIntervalMillis = flushIntervalMillis;
+
+        this.flusher = new Thread(this::runFlusher, "persist-write-behind");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+
+        this.shutdownHook = new Thread(this::close, "persist-write-behind-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * 按环境变量创建（连接池和批大小同 PptPagePersistence.fromEnv），close() 时一并关闭连接池
+     */
+    public static PersistenceWriteBehindSink fromEnv() {
+        PptPagePersistence persistence = PptPagePersistence.fromEnv();
+        int queueSize = PptPagePersistence.intEnv("DB_SINK_QUEUE_SIZE", DEFAULT_QUEUE_SIZE);
+        long flushMs = PptPagePersistence.intEnv("DB_SINK_FLUSH_MS", (int) DEFAULT_FLUSH_INTERVAL_MS);
+        return new PersistenceWriteBehindSink(new PptMappingBulkLoader(persistence), persistence,
+                queueSize, persistence.getBatchSize(), flushMs);
+    }
+
+    /**
+     * 发布一页（不阻塞）
+     *
+     * @return false 表示已关闭或队列已满，事件被丢弃
+     */
+    public boolean publish(String pptName, PptMappingBulkLoader.PageRows page) {
+        if (!running) {
+            dropped.incrementAndGet();
+            System.err.println("警告：入库队列已关闭，丢弃 " + pptName + " 第 " + page.getPageNumber() + " 页");
+            return false;
+        }
+        if (!queue.offer(new PageEvent(pptName, page))) {
+            dropped.incrementAndGet();
+            System.err.println("警告：入库队列已满，丢弃 " + pptName + " 第 " + page.getPageNumber() + " 页");
+            return false;
+        }
+        published.incrementAndGet();
+        return true;
+    }
+
+    public long getPublishedCount() { return published.get(); }
+    public long getWrittenCount() { return written.get(); }
+    public long getDroppedCount() { return dropped.get(); }
+    public long getFailedCount() { return failed.get(); }
+    public int getPendingCount() { return queue.size(); }
+
+    /**
+     * 停止接收事件，等待队列中剩余事件写完
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+        }
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException ignored) {
+                // JVM 正在关闭
+            }
+        }
+        // 不中断入库线程（避免打断正在执行的 JDBC 调用），它会在一个刷新间隔内发现 running=false 并排空队列
+        try {
+            flusher.join(CLOSE_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher.isAlive()) {
+            System.err.println("警告：入库线程在 " + CLOSE_TIMEOUT_MS + " ms 内未结束，剩余 " + queue.size() + " 条未写入");
+        } else if (!queue.isEmpty()) {
+            // 关闭瞬间才入队的事件，由当前线程补写
+            List<PageEvent> rest = new ArrayList<>();
+            queue.drainTo(rest);
+            flush(rest);
+        }
+        if (ownedResource != null) {
+            try {
+                ownedResource.close();
+            } catch (Exception e) {
+                System.err.println("警告：关闭连接池失败: " + e.getMessage());
+            }
+        }
+        System.out.println("   ✓ 异步入库已关闭（发布 " + published.get() + "，写入 " + written.get()
+                + "，丢弃 " + dropped.get() + "，失败 " + failed.get() + "）");
+    }
+
+    private void runFlusher() {
+        List<PageEvent> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                PageEvent first = running ? queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS) : queue.poll();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + flushIntervalMillis;
+                while (batch.size() < maxBatch && running) {
+                    long wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0) {
+                        break;
+                    }
+                    PageEvent next = queue.poll(wait, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            queue.drainTo(batch, maxBatch - batch.size());
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<PageEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        // 按 ppt_name 分组，同一页只保留最后一次事件
+        Map<String, Map<Integer, PptMappingBulkLoader.PageRows>> byPpt = new LinkedHashMap<>();
+        for (PageEvent event : batch) {
+            byPpt.computeIfAbsent(event.pptName, k -> new LinkedHashMap<>())
+                    .put(event.page.getPageNumber(), event.page);
+        }
+        for (Map.Entry<String, Map<Integer, PptMappingBulkLoader.PageRows>> e : byPpt.entrySet()) {
+            List<PptMappingBulkLoader.PageRows> pages = new ArrayList<>(e.getValue().values());
+            try {
+                loader.replacePages(e.getKey(), pages);
+                written.addAndGet(pages.size());
+            } catch (Exception ex) {
+                failed.addAndGet(pages.size());
+                System.err.println("警告：异步入库失败 " + e.getKey() + "（" + pages.size() + " 页）: " + ex.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package com.pptfactory.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 将一次 produce 的结果整体写入 ppt_page / ppt_text_map / ppt_image_map
+ *
+ * 输入：
+ * - produce/ppt内容映射.txt：每页的模板页编号、文本映射、图片提示词准备、图片链接映射、图片路径映射
+ * - produce/ppt内容页.txt（可选）：每页的结构化内容，写入 ppt_page.page_json / page_text
+ *
+ * 写入方式：
+ * 1. 同一个事务内先按 ppt_name 删除三张表的旧数据，再插入新数据，重复执行结果一致
+ * 2. 使用多行 INSERT（INSERT ... VALUES (...),(...)），每条语句最多 batchSize 行
+ * 3. 任一步失败整体回滚
+ *
+ * 用法：
+ * java -cp <classpath-with-mysql-connector> com.pptfactory.util.PptMappingBulkLoader <ppt_name> [produce目录]
+ *
+ * DB 配置同 PptPagePersistence：DB_URL, DB_USER, DB_PASS, DB_POOL_SIZE, DB_BATCH_SIZE
+ */
+public class PptMappingBulkLoader {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String MAPPING_FILE_NAME = "ppt内容映射.txt";
+    private static final String CONTENT_FILE_NAME = "ppt内容页.txt";
+
+    private static final String PAGE_COLUMNS = "ppt_name, page_number, template_id, template_page_index, page_json, page_text, image_prompts";
+    private static final String TEXT_MAP_COLUMNS = "ppt_name, page_number, map_key, map_value";
+    private static final String IMAGE_MAP_COLUMNS = "ppt_name, page_number, map_key, prompt_prepare, prompt, image_url, image_path";
+
+    private static final String INSERT_ONLY = "";
+    private static final String PAGE_UPSERT_SUFFIX = " ON DUPLICATE KEY UPDATE template_id = VALUES(template_id), "
+            + "template_page_index = VALUES(template_page_index), "
+            + "page_json = COALESCE(VALUES(page_json), page_json), "
+            + "page_text = COALESCE(VALUES(page_text), page_text), "
+            + "image_prompts = VALUES(image_prompts), updated_at = CURRENT_TIMESTAMP";
+
+    private final SimpleConnectionPool pool;
+    private final int batchSize;
+
+    /**
+     * 一页要写入的数据
+     */
+    public static class PageRows {
+        int pageNumber;
+        String templateId;
+        Integer templatePageIndex;
+        String pageJson;
+        String pageText;
+        String imagePrompts;
+        final Map<String, String> textMap = new LinkedHashMap<>();
+        final List<String[]> imageRows = new ArrayList<>();
+
+        public int getPageNumber() { return pageNumber; }
+        public String getTemplateId() { return templateId; }
+        public Map<String, String> getTextMap() { return textMap; }
+        public List<String[]> getImageRows() { return imageRows; }
+    }
+
+    /**
+     * 写入结果统计
+     */
+    public static class LoadResult {
+        public int pages;
+        public int textRows;
+        public int imageRows;
+
+        @Override
+        public String toString() {
+            return "页 " + pages + "，文本映射 " + textRows + "，图片映射 " + imageRows;
+        }
+    }
+
+    public PptMappingBulkLoader(SimpleConnectionPool pool, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("批大小必须大于0: " + batchSize);
+        }
+        this.pool = pool;
+        this.batchSize = batchSize;
+    }
+
+    public PptMappingBulkLoader(PptPagePersistence persistence) {
+        this(persistence.getPool(), persistence.getBatchSize());
+    }
+
+    public static void main(String[] args) {
+        if (args == null || args.length == 0) {
+            System.err.println("必须提供 ppt_name（示例 new_ppt_20251217123045）作为第一个参数");
+            System.exit(1);
+        }
+        String pptName = args[0];
+        String produceDir = args.length > 1 ? args[1] : "produce";
+
+        try (PptPagePersistence persistence = PptPagePersistence.fromEnv()) {
+            PptMappingBulkLoader loader = new PptMappingBulkLoader(persistence);
+            LoadResult result = loader.loadProduceRun(pptName, produceDir);
+            System.out.println("入库完成: " + pptName + "（" + result + "）");
+        } catch (Exception e) {
+            System.err.println("错误: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(10);
+        }
+    }
+
+    /**
+     * 读取 produce 目录下的映射文件和内容页文件并入库
+     */
+    public LoadResult loadProduceRun(String pptName, String produceDir) throws Exception {
+        Path mappingPath = Paths.get(produceDir, MAPPING_FILE_NAME);
+        if (!Files.exists(mappingPath)) {
+            throw new RuntimeException("映射文件不存在: " + mappingPath);
+        }
+        Path contentPath = Paths.get(produceDir, CONTENT_FILE_NAME);
+        List<PageRows> pages = readPages(mappingPath, Files.exists(contentPath) ? contentPath : null);
+        return load(pptName, pages);
+    }
+
+    /**
+     * 解析映射文件（以及可选的内容页文件），按页组装要写入的行
+     */
+    public static List<PageRows> readPages(Path mappingPath, Path contentPath) throws Exception {
+        JsonNode mappings = MAPPER.readTree(Files.readString(mappingPath, StandardCharsets.UTF_8));
+        if (!mappings.isArray()) {
+            throw new RuntimeException("映射文件格式错误，应为 JSON 数组: " + mappingPath);
+        }
+
+        JsonNode contents = null;
+        if (contentPath != null) {
+            try {
+                contents = MAPPER.readTree(Files.readString(contentPath, StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                System.err.println("警告：内容页文件不是有效 JSON，page_json 将为空: " + contentPath);
+            }
+            if (contents != null && !contents.isArray()) {
+                contents = null;
+            }
+        }
+
+        TemplateMetadataCatalog catalog = null;
+        try {
+            catalog = TemplateMetadataCatalog.getDefault();
+        } catch (Exception e) {
+            System.err.println("警告：无法加载模板元信息，template_page_index 将为空: " + e.getMessage());
+        }
+
+        List<PageRows> pages = new ArrayList<>();
+        for (int i = 0; i < mappings.size(); i++) {
+            JsonNode content = contents != null && i < contents.size() ? contents.get(i) : null;
+            pages.add(toPageRows(i + 1, mappings.get(i), content, catalog));
+        }
+        return pages;
+    }
+
+    /**
+     * 把映射文件中的一页（以及可选的内容页）转换成要写入的行
+     *
+     * @param pageNumber 页码，从1开始
+     * @param mapping ppt内容映射.txt 中的一项
+     * @param content ppt内容页.txt 中对应的一项，可为 null
+     * @param catalog 模板元信息目录，可为 null（此时 template_page_index 为空）
+     */
+    public static PageRows toPageRows(int pageNumber, JsonNode mapping, JsonNode content, TemplateMetadataCatalog catalog) {
+        PageRows page = new PageRows();
+        page.pageNumber = pageNumber;
+        page.templateId = textOrNull(mapping.get("模板页编号"));
+        if (catalog != null && page.templateId != null) {
+            TemplateMetadataCatalog.TemplateMetadata meta = catalog.get(page.templateId);
+            if (meta != null) {
+                page.templatePageIndex = meta.getPageIndex();
+            }
+        }
+
+        if (content != null) {
+            page.pageJson = content.isTextual() ? null : content.toString();
+            page.pageText = PptPagePersistence.extractPageText(content);
+        }
+
+        JsonNode textMap = mapping.get("文本映射");
+        if (textMap != null && textMap.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> it = textMap.fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> e = it.next();
+                page.textMap.put(e.getKey(), textOrNull(e.getValue()));
+            }
+        }
+
+        JsonNode prepare = mapping.get("图片提示词准备");
+        JsonNode prompts = mapping.get("图片提示词");
+        JsonNode urls = mapping.get("图片链接映射");
+        JsonNode paths = mapping.get("图片路径映射");
+        if (prepare != null && prepare.isObject() && prepare.size() > 0) {
+            page.imagePrompts = prepare.toString();
+        }
+        Set<String> imageKeys = new LinkedHashSet<>();
+        collectKeys(prepare, imageKeys);
+        collectKeys(prompts, imageKeys);
+        collectKeys(urls, imageKeys);
+        collectKeys(paths, imageKeys);
+        for (String key : imageKeys) {
+            page.imageRows.add(new String[]{
+                    key,
+                    textOrNull(prepare != null ? prepare.get(key) : null),
+                    textOrNull(prompts != null ? prompts.get(key) : null),
+                    textOrNull(urls != null ? urls.get(key) : null),
+                    textOrNull(paths != null ? paths.get(key) : null)
+            });
+        }
+        return page;
+    }
+
+    /**
+     * 在一个事务内替换 pptName 的全部页、文本映射和图片映射
+     */
+    public LoadResult load(String pptName, List<PageRows> pages) throws SQLException {
+        LoadResult result = new LoadResult();
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // 先删子表，再删 ppt_page
+                for (String table : new String[]{"ppt_image_map", "ppt_text_map", "ppt_page"}) {
+                    try (PreparedStatement del = conn.prepareStatement("DELETE FROM " + table + " WHERE ppt_name = ?")) {
+                        del.setString(1, pptName);
+                        del.executeUpdate();
+                    }
+                }
+
+                insertPages(conn, pptName, pages, INSERT_ONLY, result);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 在一个事务内只替换 pages 中出现的页：删除这些页旧的文本映射和图片映射，
+     * ppt_page 按主键 upsert（新数据中 page_json / page_text 为空时保留库中原值）。
+     * 供 PersistenceWriteBehindSink 按页增量写入。
+     */
+    public LoadResult replacePages(String pptName, List<PageRows> pages) throws SQLException {
+        LoadResult result = new LoadResult();
+        if (pages.isEmpty()) {
+            return result;
+        }
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                StringBuilder in = new StringBuilder();
+                for (int i = 0; i < pages.size(); i++) {
+                    in.append(i == 0 ? "?" : ",?");
+                }
+                for (String table : new String[]{"ppt_image_map", "ppt_text_map"}) {
+                    try (PreparedStatement del = conn.prepareStatement(
+                            "DELETE FROM " + table + " WHERE ppt_name = ? AND page_number IN (" + in + ")")) {
+                        del.setString(1, pptName);
+                        for (int i = 0; i < pages.size(); i++) {
+                            del.setInt(i + 2, pages.get(i).pageNumber);
+                        }
+                        del.executeUpdate();
+                    }
+                }
+                insertPages(conn, pptName, pages, PAGE_UPSERT_SUFFIX, result);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        return result;
+    }
+
+    private void insertPages(Connection conn, String pptName, List<PageRows> pages, String pageSuffix, LoadResult result) throws SQLException {
+        List<Object[]> pageRows = new ArrayList<>();
+        List<Object[]> textRows = new ArrayList<>();
+        List<Object[]> imageRows = new ArrayList<>();
+        for (PageRows page : pages) {
+            pageRows.add(new Object[]{pptName, page.pageNumber, page.templateId, page.templatePageIndex,
+                    page.pageJson, page.pageText, page.imagePrompts});
+            for (Map.Entry<String, String> e : page.textMap.entrySet()) {
+                textRows.add(new Object[]{pptName, page.pageNumber, e.getKey(), e.getValue()});
+            }
+            for (String[] row : page.imageRows) {
+                imageRows.add(new Object[]{pptName, page.pageNumber, row[0], row[1], row[2], row[3], row[4]});
+            }
+        }
+
+        result.pages = insertRows(conn, "ppt_page", PAGE_COLUMNS, 7, pageRows, pageSuffix);
+        result.textRows = insertRows(conn, "ppt_text_map", TEXT_MAP_COLUMNS, 4, textRows, INSERT_ONLY);
+        result.imageRows = insertRows(conn, "ppt_image_map", IMAGE_MAP_COLUMNS, 7, imageRows, INSERT_ONLY);
+    }
+
+    /**
+     * 多行 INSERT，每条语句最多 batchSize 行；整批大小相同的语句复用同一个 PreparedStatement
+     */
+    private int insertRows(Connection conn, String table, String columns, int columnCount, List<Object[]> rows, String suffix) throws SQLException {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        PreparedStatement full = null;
+        try {
+            int offset = 0;
+            while (offset < rows.size()) {
+                int n = Math.min(batchSize, rows.size() - offset);
+                if (n == batchSize) {
+                    if (full == null) {
+                        full = conn.prepareStatement(buildInsertSql(table, columns, columnCount, n) + suffix);
+                    }
+                    bindRows(full, rows, offset, n);
+                    full.executeUpdate();
+                } else {
+                    try (PreparedStatement tail = conn.prepareStatement(buildInsertSql(table, columns, columnCount, n) + suffix)) {
+                        bindRows(tail, rows, offset, n);
+                        tail.executeUpdate();
+                    }
+                }
+                offset += n;
+            }
+        } finally {
+            if (full != null) {
+                full.close();
+            }
+        }
+        return rows.size();
+    }
+
+    private static String buildInsertSql(String table, String columns, int columnCount, int rowCount) {
+        StringBuilder row = new StringBuilder("(");
+        for (int c = 0; c < columnCount; c++) {
+            row.append(c == 0 ? "?" : ",?");
+        }
+        row.append(")");
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (").append(columns).append(") VALUES ");
+        for (int r = 0; r < rowCount; r++) {
+            if (r > 0) sql.append(",");
+            sql.append(row);
+        }
+        return sql.toString();
+    }
+
+    private static void bindRows(PreparedStatement ps, List<Object[]> rows, int offset, int count) throws SQLException {
+        int idx = 1;
+        for (int r = offset; r < offset + count; r++) {
+            for (Object v : rows.get(r)) {
+                if (v == null) {
+                    ps.setNull(idx++, Types.VARCHAR);
+                } else if (v instanceof Integer) {
+                    ps.setInt(idx++, (Integer) v);
+                } else {
+                    ps.setString(idx++, v.toString());
+                }
+            }
+        }
+    }
+
+    private static void collectKeys(JsonNode node, Set<String> keys) {
+        if (node != null && node.isObject()) {
+            node.fieldNames().forEachRemaining(keys::add);
+        }
+    }
+
+    private static String textOrNull(JsonNode node) {
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        return node.isValueNode() ? node.asText() : node.toString();
+    }
+}
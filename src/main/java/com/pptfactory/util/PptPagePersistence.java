@@ -0,0 +1,172 @@
+package com.pptfactory.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Optional;
+
+/**
+ * ppt_page / ppt_contents 的批量入库层
+ *
+ * 1. 单条语句完成 upsert：INSERT ... ON DUPLICATE KEY UPDATE，重复执行不再先失败一次再 UPDATE
+ * 2. JDBC 批处理：每 batchSize 行 executeBatch 一次，整份数据在同一个事务里提交
+ * 3. 连接来自 SimpleConnectionPool，多次调用复用连接
+ *
+ * DB 配置通过环境变量：DB_URL, DB_USER, DB_PASS, DB_POOL_SIZE（默认4）, DB_BATCH_SIZE（默认100）
+ * MySQL 的 DB_URL 需要带 rewriteBatchedStatements=true（默认 URL 已带上）：不带时 Connector/J 仍把批处理中的
+ * 每一行单独发给服务器，executeBatch 没有减少往返；自定义 DB_URL 时请保留该参数，缺少时 fromEnv() 会打印警告。
+ * 测试时可使用 H2 的 MySQL 兼容模式（jdbc:h2:mem:xxx;MODE=MySQL），语句不需要改动。
+ */
+public class PptPagePersistence implements AutoCloseable {
+
+    public static final String DEFAULT_DB_URL = "jdbc:mysql://127.0.0.1:3306/pptfactory?useUnicode=true&characterEncoding=utf8mb4&serverTimezone=UTC&rewriteBatchedStatements=true";
+    public static final int DEFAULT_POOL_SIZE = 4;
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final String UPSERT_PAGE_SQL =
+            "INSERT INTO ppt_page (ppt_name, page_number, page_json, page_text) VALUES (?,?,?,?) "
+                    + "ON DUPLICATE KEY UPDATE page_json = VALUES(page_json), page_text = VALUES(page_text), updated_at = CURRENT_TIMESTAMP";
+
+    private static final String UPSERT_CONTENTS_SQL =
+            "INSERT INTO ppt_contents (ppt_name, contents, raw_text, page_count, source_file) VALUES (?,?,?,?,?) "
+                    + "ON DUPLICATE KEY UPDATE contents = VALUES(contents), raw_text = VALUES(raw_text), "
+                    + "page_count = VALUES(page_count), source_file = VALUES(source_file), updated_at = CURRENT_TIMESTAMP";
+
+    private final SimpleConnectionPool pool;
+    private final int batchSize;
+
+    public PptPagePersistence(String url, String user, String pass, int poolSize, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("批大小必须大于0: " + batchSize);
+        }
+        loadMySqlDriver();
+        this.pool = new SimpleConnectionPool(url, user, pass, poolSize);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 按环境变量创建
+     */
+    public static PptPagePersistence fromEnv() {
+        String dbUrl = Optional.ofNullable(System.getenv("DB_URL")).orElse(DEFAULT_DB_URL);
+        if (dbUrl.startsWith("jdbc:mysql:") && !dbUrl.contains("rewriteBatchedStatements=true")) {
+            System.err.println("警告：DB_URL 未设置 rewriteBatchedStatements=true，批量写入会逐行发送到 MySQL");
+        }
+        String dbUser = Optional.ofNullable(System.getenv("DB_USER")).orElse("root");
+        String dbPass = Optional.ofNullable(System.getenv("DB_PASS")).orElse("");
+        int poolSize = intEnv("DB_POOL_SIZE", DEFAULT_POOL_SIZE);
+        int batchSize = intEnv("DB_BATCH_SIZE", DEFAULT_BATCH_SIZE);
+        return new PptPagePersistence(dbUrl, dbUser, dbPass, poolSize, batchSize);
+    }
+
+    public SimpleConnectionPool getPool() {
+        return pool;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * 将每一页写入 ppt_page，主键 (ppt_name, page_number) 已存在时覆盖 page_json / page_text
+     *
+     * @return 写入的页数
+     */
+    public int upsertPages(String pptName, ArrayNode pages) throws SQLException {
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(UPSERT_PAGE_SQL)) {
+                int pending = 0;
+                for (int i = 0; i < pages.size(); i++) {
+                    JsonNode pageNode = pages.get(i);
+                    String pageJsonStr = pageNode.isTextual() ? null : pageNode.toString();
+
+                    ps.setString(1, pptName);
+                    ps.setInt(2, extractPageNumber(pageNode, i + 1));
+                    if (pageJsonStr != null) ps.setString(3, pageJsonStr); else ps.setNull(3, Types.VARCHAR);
+                    ps.setString(4, extractPageText(pageNode));
+                    ps.addBatch();
+
+                    if (++pending >= batchSize) {
+                        ps.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    ps.executeBatch();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        return pages.size();
+    }
+
+    /**
+     * 将整份内容写入 ppt_contents，主键 ppt_name 已存在时覆盖
+     */
+    public void upsertContents(String pptName, String contentsJson, String rawText,
+                               int pageCount, String sourceFile) throws SQLException {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement(UPSERT_CONTENTS_SQL)) {
+            ps.setString(1, pptName);
+            ps.setString(2, contentsJson);
+            ps.setString(3, rawText);
+            ps.setInt(4, pageCount);
+            ps.setString(5, sourceFile);
+            ps.executeUpdate();
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    static int extractPageNumber(JsonNode pageNode, int defaultNum) {
+        if (pageNode == null) return defaultNum;
+        if (pageNode.has("page") && pageNode.get("page").canConvertToInt()) {
+            return pageNode.get("page").asInt();
+        }
+        return defaultNum;
+    }
+
+    static String extractPageText(JsonNode pageNode) {
+        if (pageNode == null) return "";
+        if (pageNode.isTextual()) return pageNode.asText();
+        // 尝试从常见字段组合摘要
+        StringBuilder sb = new StringBuilder();
+        if (pageNode.has("title")) sb.append(pageNode.get("title").asText()).append(" ");
+        if (pageNode.has("body")) sb.append(pageNode.get("body").asText()).append(" ");
+        if (sb.length() > 0) return sb.toString().trim();
+        // fallback: 返回整个 JSON 的紧凑字符串
+        return pageNode.toString();
+    }
+
+    static int intEnv(String name, int defaultValue) {
+        String v = System.getenv(name);
+        if (v == null || v.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(v.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("警告：环境变量 " + name + " 不是有效整数（" + v + "），使用默认值 " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static void loadMySqlDriver() {
+        // Ensure MySQL driver loaded (if available on classpath)
+        try {
+            Class.forName("com.mysql.cj.jdbc.Driver");
+        } catch (ClassNotFoundException ignored) {
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package com.pptfactory.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * PPT生产守护进程
+ *
+ * 常驻 JVM，启动时通过 ProduceUtil.warmUp() 把模板PPT、元信息常驻内存并完成预热，
+ * 之后通过本机 HTTP 接口接收生产任务，避免每次生产都冷启动 JVM、重新读取模板和元信息。
+ *
+ * 接口（仅监听 127.0.0.1）：
+ * - POST /jobs        提交任务，返回 202 和任务ID；队列已满时返回 429（带 Retry-After）
+ *                     请求体可以为空（使用 produce/ppt内容映射.txt），
+ *                     也可以是映射数组本身（ppt内容映射.txt 的内容），
+ *                     或者 {"mapping_file": "...", "image_mappings": true}
+ *                     （mapping_file 必须位于 produce/ 目录内；请求体不是合法 JSON 时返回 400）
+ * - GET  /jobs/{id}   查询任务状态：QUEUED / RUNNING / SUCCEEDED / FAILED
+ * - GET  /status      查询守护进程状态（队列长度、容量、已完成任务数）
+ *
+ * 任务由单个工作线程按提交顺序串行执行（同一映射文件会被生产和图片映射步骤改写），
+ * 等待队列有界，满了之后直接拒绝，由调用方稍后重试。
+ * 请求体带映射内容时写入 produce/jobs/ 下任务自己的目录，任务状态被淘汰时一并删除。
+ *
+ * 使用方法：
+ * mvn exec:java -Dexec.mainClass="com.pptfactory.util.ProduceDaemon" -Dexec.args="[端口] [队列容量]"
+ */
+public class ProduceDaemon {
+
+    // 设置Locale为US，避免Aspose.Slides不支持某些Locale格式的问题
+    static {
+        Locale.setDefault(Locale.US);
+    }
+
+    private static final String PROJECT_ROOT = System.getProperty("user.dir");
+    private static final String OUTPUT_DIR = PROJECT_ROOT + "/produce";
+    private static final String JOBS_DIR = OUTPUT_DIR + "/jobs";
+
+    private static final int DEFAULT_PORT = 18080;
+    private static final int DEFAULT_QUEUE_CAPACITY = 16;
+    // 内存中最多保留的任务状态条数，超出后丢弃最早的已结束任务（连同任务目录）
+    private static final int MAX_TRACKED_JOBS = 1000;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final int port;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor worker;
+    private final Map<String, Job> jobs;
+    private final AtomicLong jobSequence = new AtomicLong();
+    private final AtomicLong completedJobs = new AtomicLong();
+    private final AtomicLong failedJobs = new AtomicLong();
+    private final AtomicLong rejectedJobs = new AtomicLong();
+    private HttpServer server;
+
+    /**
+     * 任务状态
+     */
+    public enum JobStatus {
+        QUEUED, RUNNING, SUCCEEDED, FAILED
+    }
+
+    /**
+     * 单个生产任务
+     */
+    static class Job {
+        final String id;
+        final String mappingFile;
+        final boolean imageMappings;
+        final Path jobDir; // 任务自己的映射文件目录（produce/jobs/ 下），使用已有映射文件时为 null
+        final long submittedAt = System.currentTimeMillis();
+        volatile JobStatus status = JobStatus.QUEUED;
+        volatile long startedAt;
+        volatile long finishedAt;
+        volatile String outputFile;
+        volatile String error;
+
+        Job(String id, String mappingFile, boolean imageMappings, Path jobDir) {
+            this.id = id;
+            this.mappingFile = mappingFile;
+            this.imageMappings = imageMappings;
+            this.jobDir = jobDir;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("job_id", id);
+            map.put("status", status.name());
+            map.put("mapping_file", mappingFile);
+            map.put("output_file", outputFile);
+            map.put("error", error);
+            map.put("submitted_at", submittedAt);
+            if (startedAt > 0) {
+                map.put("queued_ms", startedAt - submittedAt);
+            }
+            if (finishedAt > 0) {
+                map.put("run_ms", finishedAt - startedAt);
+            }
+            return map;
+        }
+    }
+
+    public ProduceDaemon(int port, int queueCapacity) {
+        this.port = port;
+        this.queueCapacity = queueCapacity;
+        this.worker = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "produce-worker");
+                    t.setDaemon(false);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.jobs = Collections.synchronizedMap(new LinkedHashMap<String, Job>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Job> eldest) {
+                if (size() <= MAX_TRACKED_JOBS) {
+                    return false;
+                }
+                JobStatus s = eldest.getValue().status;
+                if (s != JobStatus.SUCCEEDED && s != JobStatus.FAILED) {
+                    return false;
+                }
+                deleteJobDir(eldest.getValue().jobDir);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * 主方法
+     */
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int queueCapacity = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_QUEUE_CAPACITY;
+
+        try {
+            System.out.println("=== PPT生产守护进程 ===");
+            ProduceDaemon daemon = new ProduceDaemon(port, queueCapacity);
+            daemon.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(daemon::stop, "produce-daemon-shutdown"));
+        } catch (Exception e) {
+            System.err.println("错误: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 预热并启动 HTTP 服务
+     */
+    public void start() throws Exception {
+        System.out.println("1. 预热：加载模板和元信息");
+        ProduceUtil.warmUp();
+
+        System.out.println("\n2. 启动 HTTP 服务");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        // HTTP 请求处理只做入队和查询，少量线程即可
+        ExecutorService httpExecutor = Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "produce-http");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(httpExecutor);
+        server.createContext("/jobs", this::handleJobs);
+        server.createContext("/status", this::handleStatus);
+        server.start();
+        System.out.println("   ✓ 已监听 http://127.0.0.1:" + port + "（队列容量 " + queueCapacity + "）");
+    }
+
+    /**
+     * 停止接收新任务，等待队列中的任务执行完毕后释放常驻资源
+     */
+    public void stop() {
+        System.out.println("\n正在停止PPT生产守护进程...");
+        if (server != null) {
+            server.stop(0);
+        }
+        worker.shutdown();
+        try {
+            if (!worker.awaitTermination(10, TimeUnit.MINUTES)) {
+                System.err.println("警告：等待任务结束超时，仍有 " + worker.getQueue().size() + " 个任务未执行");
+                worker.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            worker.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        ProduceUtil.releaseResident();
+        System.out.println("✓ 已停止");
+    }
+
+    /**
+     * 提交任务，队列已满时抛出 RejectedExecutionException
+     */
+    public Job submit(String mappingFile, boolean imageMappings) {
+        return submit(mappingFile, imageMappings, null);
+    }
+
+    /**
+     * 提交任务，jobDir 为任务自己的目录（任务状态被淘汰时删除），队列已满时抛出 RejectedExecutionException
+     */
+    Job submit(String mappingFile, boolean imageMappings, Path jobDir) {
+        String id = new SimpleDateFormat("yyyyMMddHHmmss").format(new Date()) + "-" + jobSequence.incrementAndGet();
+        Job job = new Job(id, mappingFile, imageMappings, jobDir);
+        jobs.put(id, job);
+        try {
+            worker.execute(() -> runJob(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(id);
+            rejectedJobs.incrementAndGet();
+            throw e;
+        }
+        return job;
+    }
+
+    public Job getJob(String id) {
+        return jobs.get(id);
+    }
+
+    private void runJob(Job job) {
+        job.startedAt = System.currentTimeMillis();
+        job.status = JobStatus.RUNNING;
+        System.out.println("\n=== 开始任务 " + job.id + " ===");
+        try {
+            String outputFile = ProduceUtil.producePPT(job.mappingFile, OUTPUT_DIR);
+            if (job.imageMappings) {
+                ProduceUtil.generateImageMappings(outputFile, job.mappingFile);
+            }
+            job.outputFile = outputFile;
+            job.status = JobStatus.SUCCEEDED;
+            completedJobs.incrementAndGet();
+        } catch (Throwable e) {
+            job.error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            job.status = JobStatus.FAILED;
+            failedJobs.incrementAndGet();
+            System.err.println("任务 " + job.id + " 失败: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            job.finishedAt = System.currentTimeMillis();
+            System.out.println("=== 任务 " + job.id + " 结束: " + job.status + "，耗时 " + (job.finishedAt - job.startedAt) + " ms ===");
+        }
+    }
+
+    private void handleJobs(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+
+            if ("POST".equalsIgnoreCase(method) && ("/jobs".equals(path) || "/jobs/".equals(path))) {
+                handleSubmit(exchange);
+            } else if ("GET".equalsIgnoreCase(method) && path.startsWith("/jobs/")) {
+                String id = path.substring("/jobs/".length());
+                Job job = getJob(id);
+                if (job == null) {
+                    sendJson(exchange, 404, Collections.singletonMap("error", "任务不存在: " + id));
+                } else {
+                    sendJson(exchange, 200, job.toMap());
+                }
+            } else {
+                sendJson(exchange, 405, Collections.singletonMap("error", "不支持的请求: " + method + " " + path));
+            }
+        } catch (Exception e) {
+            sendJson(exchange, 500, Collections.singletonMap("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void handleSubmit(HttpExchange exchange) throws IOException {
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readAllBytes();
+        }
+        String text = new String(body, StandardCharsets.UTF_8).trim();
+
+        String mappingFile = OUTPUT_DIR + "/ppt内容映射.txt";
+        boolean imageMappings = true;
+        String jobMappingContent = null;
+
+        if (!text.isEmpty()) {
+            Map<String, Object> request = null;
+            try {
+                if (text.startsWith("[")) {
+                    // 请求体就是映射数组，校验后写入任务自己的映射文件
+                    MAPPER.readValue(text, new TypeReference<List<Map<String, Object>>>() {});
+                    jobMappingContent = text;
+                } else {
+                    request = MAPPER.readValue(text, new TypeReference<Map<String, Object>>() {});
+                }
+            } catch (JsonProcessingException e) {
+                sendJson(exchange, 400, Collections.singletonMap("error", "请求体不是合法的 JSON: " + e.getOriginalMessage()));
+                return;
+            }
+            if (request != null) {
+                Object mf = request.get("mapping_file");
+                if (mf != null && !mf.toString().isBlank()) {
+                    mappingFile = resolveMappingFile(mf.toString());
+                    if (mappingFile == null) {
+                        sendJson(exchange, 400, Collections.singletonMap("error", "mapping_file 必须位于 " + OUTPUT_DIR + " 内: " + mf));
+                        return;
+                    }
+                }
+                Object im = request.get("image_mappings");
+                if (im != null) {
+                    imageMappings = Boolean.parseBoolean(im.toString());
+                }
+                Object mappings = request.get("mappings");
+                if (mappings instanceof List) {
+                    jobMappingContent = MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(mappings);
+                }
+            }
+        }
+
+        Path jobDir = null;
+        if (jobMappingContent != null) {
+            jobDir = Paths.get(JOBS_DIR, "job_" + System.currentTimeMillis() + "_" + UUID.randomUUID().toString().substring(0, 8));
+            Files.createDirectories(jobDir);
+            Path jobMapping = jobDir.resolve("ppt内容映射.txt");
+            Files.writeString(jobMapping, jobMappingContent, StandardCharsets.UTF_8);
+            mappingFile = jobMapping.toString();
+        } else if (!new File(mappingFile).exists()) {
+            sendJson(exchange, 400, Collections.singletonMap("error", "映射文件不存在: " + mappingFile));
+            return;
+        }
+
+        try {
+            Job job = submit(mappingFile, imageMappings, jobDir);
+            Map<String, Object> resp = job.toMap();
+            resp.put("queue_size", worker.getQueue().size());
+            sendJson(exchange, 202, resp);
+        } catch (RejectedExecutionException e) {
+            // 背压：队列已满，拒绝并提示稍后重试
+            deleteJobDir(jobDir);
+            exchange.getResponseHeaders().set("Retry-After", "5");
+            Map<String, Object> resp = new LinkedHashMap<>();
+            resp.put("error", "任务队列已满，请稍后重试");
+            resp.put("queue_capacity", queueCapacity);
+            sendJson(exchange, 429, resp);
+        }
+    }
+
+    /**
+     * 解析客户端指定的映射文件：相对路径按项目根目录解析，规范化（含符号链接）后必须位于 OUTPUT_DIR 内，否则返回 null
+     */
+    static String resolveMappingFile(String value) {
+        try {
+            File file = new File(value);
+            if (!file.isAbsolute()) {
+                file = new File(PROJECT_ROOT, value);
+            }
+            Path resolved = file.getCanonicalFile().toPath();
+            Path outputRoot = new File(OUTPUT_DIR).getCanonicalFile().toPath();
+            return resolved.startsWith(outputRoot) && !resolved.equals(outputRoot) ? resolved.toString() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 删除任务目录（任务生成的输出PPT在 OUTPUT_DIR 下，不受影响）
+     */
+    static void deleteJobDir(Path jobDir) {
+        if (jobDir == null || !Files.exists(jobDir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(jobDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException e) {
+                    System.err.println("警告：删除任务文件失败: " + p + "，" + e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("警告：删除任务目录失败: " + jobDir + "，" + e.getMessage());
+        }
+    }
+
+    private void handleStatus(HttpExchange exchange) throws IOException {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("queue_size", worker.getQueue().size());
+        status.put("queue_capacity", queueCapacity);
+        status.put("running", worker.getActiveCount());
+        status.put("completed", completedJobs.get());
+        status.put("failed", failedJobs.get());
+        status.put("rejected", rejectedJobs.get());
+        sendJson(exchange, 200, status);
+    }
+
+    private static void sendJson(HttpExchange exchange, int code, Object body) throws IOException {
+        byte[] bytes = MAPPER.writerWithDefaultPrettyPrinter().writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
@@ -1,12 +1,7 @@
 package com.pptfactory.util;
 
-import com.aspose.slides.ISlide;
-import com.aspose.slides.IShape;
-import com.aspose.slides.IPictureFrame;
-import com.aspose.slides.IShapeCollection;
-import com.aspose.slides.Presentation;
-import com.aspose.slides.SaveFormat;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.*;
 import java.nio.file.*;
@@ -41,24 +36,42 @@ import java.util.Optional;
  * 
  * 功能：
  * 1. 解析ppt内容映射.txt文件
- * 2. 根据模板页编号找到对应的元信息文件，获取page_index
- * 3. 从master_template.pptx拷贝对应页面到新文件
- * 4. 清除水印
- * 5. 清除备注信息
+ * 2. 根据模板页编号从元信息目录（TemplateMetadataCatalog）获取page_index
+ * 3. 从master_template.pptx拷贝对应页面到新文件（OOXMLSlideCopier，纯 zip/XML 操作，不经过 Aspose，不产生水印）
+ * 4. 清除备注信息
+ * 5. 替换文本（替换前按字体度量预检每个文本框，选出放得下的字号，见 TextFitPlanner）
+ * 6. （可选，-Dproduce.persist=true）每页文本替换完、图片提示词生成完后立即把该页发布到 PersistenceWriteBehindSink 异步入库
  */
 public class ProduceUtil {
     
-    // 设置Locale为US，避免Aspose.Slides不支持某些Locale格式的问题
-    static {
-        Locale.setDefault(Locale.US);
-    }
-    
     private static final String PROJECT_ROOT = System.getProperty("user.dir");
     private static final String MAPPING_FILE = PROJECT_ROOT + "/produce/ppt内容映射.txt";
-    private static final String METADATA_DIR = PROJECT_ROOT + "/templates/metadata";
     private static final String TEMPLATE_FILE = PROJECT_ROOT + "/templates/master_template.pptx";
     private static final String OUTPUT_DIR = PROJECT_ROOT + "/produce";
     
+    // 是否额外把图片扫描结果写成 ppt_image_info_<时间戳>.json（-Dproduce.imageInfoJson=true 开启，便于调试）
+    private static final boolean WRITE_IMAGE_INFO_JSON = Boolean.getBoolean("produce.imageInfoJson");
+    
+    // 是否在生产过程中把每页结果异步写入数据库（-Dproduce.persist=true 开启，连接配置见 PersistenceWriteBehindSink）
+    private static final boolean PERSIST_ENABLED = Boolean.getBoolean("produce.persist");
+    
+    // 是否按字体度量调整文本框字号（-Dproduce.fit=false 关闭）
+    private static final boolean FIT_ENABLED = !"false".equals(System.getProperty("produce.fit"));
+    
+    // 预检发现文本溢出时是否中止生产（-Dproduce.fit.strict=true 开启，默认只打印警告）
+    private static final boolean FIT_STRICT = Boolean.getBoolean("produce.fit.strict");
+    
+    /**
+     * 异步入库队列，为 null 时不入库
+     */
+    private static PersistenceWriteBehindSink persistenceSink = null;
+    
+    /**
+     * 常驻模式（守护进程）下保留在内存中的模板包，为 null 时每次生产都重新读取模板
+     */
+    private static OOXMLSlideCopier.TemplatePackage residentTemplate = null;
+    private static final Object RESIDENT_LOCK = new Object();
+    
     /**
      * 主方法
      */
@@ -85,9 +98,21 @@ public class ProduceUtil {
      * @throws Exception 如果处理失败
      */
     public static String producePPT() throws Exception {
+        return producePPT(MAPPING_FILE, OUTPUT_DIR);
+    }
+    
+    /**
+     * 生产PPT文件（指定映射文件和输出目录，供守护进程按任务调用）
+     * 
+     * @param mappingFile 映射文件路径（ppt内容映射.txt 格式）
+     * @param outputDir 输出目录
+     * @return 生成的PPT文件路径
+     * @throws Exception 如果处理失败
+     */
+    public static String producePPT(String mappingFile, String outputDir) throws Exception {
         // 1. 解析映射文件
-        System.out.println("1. 解析映射文件: " + MAPPING_FILE);
-        List<Map<String, Object>> mappings = parseMappingFile();
+        System.out.println("1. 解析映射文件: " + mappingFile);
+        List<Map<String, Object>> mappings = parseMappingFile(mappingFile);
         System.out.println("   ✓ 解析到 " + mappings.size() + " 个页面映射");
         
         // 2. 收集需要拷贝的页面索引
@@ -100,27 +125,40 @@ public class ProduceUtil {
             System.out.println("   ✓ 模板 " + templateId + " -> 页面索引 " + pageIndex);
         }
         
+        OOXMLSlideCopier.TemplatePackage template = resolveTemplate();
+        
+        // 排版预检：在拷贝之前算出每个文本框的字号，溢出在这里就能发现
+        TextFitPlanner.Plan fitPlan = null;
+        if (FIT_ENABLED) {
+            System.out.println("\n   排版预检");
+            fitPlan = TextFitPlanner.plan(template, pageIndices, mappings, TemplateMetadataCatalog.getDefault());
+            List<String> overflows = fitPlan.getOverflows();
+            for (String overflow : overflows) {
+                System.out.println("   ⚠ 文本溢出: " + overflow);
+            }
+            System.out.println("   ✓ " + fitPlan.getResizeCount() + " 个文本框需要调整字号，" + overflows.size() + " 个溢出");
+            if (!overflows.isEmpty() && FIT_STRICT) {
+                throw new RuntimeException("排版预检发现 " + overflows.size() + " 个文本框溢出，已中止生产");
+            }
+        }
+        
         // 3. 生成输出文件名
-        String outputFileName = generateOutputFileName();
-        String outputFile = OUTPUT_DIR + "/" + outputFileName;
+        String outputFileName = generateOutputFileName(outputDir);
+        String outputFile = outputDir + "/" + outputFileName;
         System.out.println("\n3. 输出文件: " + outputFile);
         
         // 4. 拷贝幻灯片
         System.out.println("\n4. 拷贝幻灯片");
-        copySlidesFromTemplate(pageIndices, outputFile);
+        copySlidesFromTemplate(template, pageIndices, outputFile, outputDir);
         System.out.println("   ✓ 已拷贝 " + pageIndices.size() + " 个页面");
         
-        // 5. 清除水印
-        System.out.println("\n5. 清除水印");
-        CleanWatermarksUtil.removeWatermarksFromXML(outputFile);
-        
-        // 6. 清除备注
-        System.out.println("\n6. 清除备注信息");
+        // 5. 清除备注（拷贝时已不带备注页，这里兜底清理幻灯片上的残留）
+        System.out.println("\n5. 清除备注信息");
         CleanAllNoteTextUtil.cleanAllNoteText(outputFile);
         
-        // 7. 替换文本
-        System.out.println("\n7. 替换文本内容");
-        replaceTextsInPPT(outputFile, mappings);
+        // 6. 替换文本（每页替换完即发布到异步入库队列，不等待数据库写入）
+        System.out.println("\n6. 替换文本内容");
+        replaceTextsInPPT(outputFile, mappings, fitPlan);
         
         return outputFile;
     }
@@ -129,10 +167,10 @@ public class ProduceUtil {
      * 解析映射文件
      */
     @SuppressWarnings("unchecked")
-    private static List<Map<String, Object>> parseMappingFile() throws Exception {
-        File mappingFile = new File(MAPPING_FILE);
+    private static List<Map<String, Object>> parseMappingFile(String mappingFilePath) throws Exception {
+        File mappingFile = new File(mappingFilePath);
         if (!mappingFile.exists()) {
-            throw new RuntimeException("映射文件不存在: " + MAPPING_FILE);
+            throw new RuntimeException("映射文件不存在: " + mappingFilePath);
         }
         
         ObjectMapper mapper = new ObjectMapper();
@@ -140,116 +178,173 @@ public class ProduceUtil {
     }
     
     /**
-     * 从元信息文件中获取page_index
+     * 从元信息目录中获取page_index（目录只在首次使用时加载一次）
      */
-    @SuppressWarnings("unchecked")
     private static int getPageIndexFromMetadata(String templateId) throws Exception {
-        String metadataFile = METADATA_DIR + "/" + templateId + ".json";
-        File file = new File(metadataFile);
-        
-        if (!file.exists()) {
-            throw new RuntimeException("元信息文件不存在: " + metadataFile);
+        return TemplateMetadataCatalog.getDefault().getPageIndex(templateId);
+    }
+    
+    /**
+     * 生成输出文件名
+     * 格式：new_ppt_[年月日时分秒].pptx
+     * 同一秒内已存在同名文件时（守护进程连续处理任务），追加 _1、_2 ... 后缀
+     */
+    private static synchronized String generateOutputFileName(String outputDir) {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMddHHmmss");
+        String timestamp = sdf.format(new Date());
+        String name = "new_ppt_" + timestamp + ".pptx";
+        int suffix = 1;
+        while (new File(outputDir, name).exists()) {
+            name = "new_ppt_" + timestamp + "_" + suffix + ".pptx";
+            suffix++;
+        }
+        return name;
+    }
+    
+    /**
+     * 进入常驻模式：加载并保留模板包、重新加载模板元信息目录，
+     * 并做一次空跑拷贝让拷贝和XML处理代码完成类加载和JIT预热。
+     * 之后的 producePPT 调用不再重复加载模板和元信息。
+     * 
+     * @throws Exception 如果模板或元信息加载失败
+     */
+    public static void warmUp() throws Exception {
+        synchronized (RESIDENT_LOCK) {
+            File templateFile = new File(TEMPLATE_FILE);
+            if (!templateFile.exists()) {
+                throw new RuntimeException("模板文件不存在: " + TEMPLATE_FILE);
+            }
+            
+            long start = System.currentTimeMillis();
+            if (residentTemplate == null) {
+                residentTemplate = OOXMLSlideCopier.load(TEMPLATE_FILE);
+            }
+            System.out.println("   ✓ 模板已常驻内存: " + TEMPLATE_FILE + "（共 " + residentTemplate.getSlideCount() + " 页）");
+            
+            TemplateMetadataCatalog catalog = TemplateMetadataCatalog.reloadDefault();
+            System.out.println("   ✓ 已加载 " + catalog.size() + " 个模板元信息");
+            
+            // 空跑一次拷贝，触发类加载和热点代码编译（不落盘）
+            if (residentTemplate.getSlideCount() > 0) {
+                OOXMLSlideCopier.copySlides(residentTemplate, Collections.singletonList(1), new ByteArrayOutputStream());
+            }
+            System.out.println("   ✓ 预热完成，耗时 " + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+    
+    /**
+     * 指定异步入库队列（守护进程或测试使用）；传 null 关闭入库
+     */
+    public static synchronized void setPersistenceSink(PersistenceWriteBehindSink sink) {
+        persistenceSink = sink;
+    }
+    
+    /**
+     * 获取异步入库队列：已指定则直接返回，否则在 -Dproduce.persist=true 时按环境变量创建
+     */
+    private static synchronized PersistenceWriteBehindSink getPersistenceSink() {
+        if (persistenceSink == null && PERSIST_ENABLED) {
+            persistenceSink = PersistenceWriteBehindSink.fromEnv();
+            System.out.println("   ✓ 已开启异步入库");
+        }
+        return persistenceSink;
+    }
+    
+    /**
+     * 按页发布到异步入库队列：每页的文本或图片提示词确定后立即发布，不等整份PPT处理完
+     * ppt_name 取输出文件名（不含扩展名），同一页多次发布时以最后一次为准
+     */
+    private static final class PagePublisher {
+        private final PersistenceWriteBehindSink sink;
+        private final String pptName;
+        private final TemplateMetadataCatalog catalog;
+        private final ObjectMapper mapper = new ObjectMapper();
+        private int count = 0;
+        
+        private PagePublisher(PersistenceWriteBehindSink sink, String pptName, TemplateMetadataCatalog catalog) {
+            this.sink = sink;
+            this.pptName = pptName;
+            this.catalog = catalog;
         }
         
-        ObjectMapper mapper = new ObjectMapper();
-        Map<String, Object> metadata = mapper.readValue(file, new TypeReference<Map<String, Object>>() {});
-        
-        Object pageIndexObj = metadata.get("page_index");
-        if (pageIndexObj == null) {
-            throw new RuntimeException("元信息文件中没有找到 page_index: " + metadataFile);
+        /**
+         * 未开启入库时返回 null
+         */
+        static PagePublisher open(String pptxFile) {
+            PersistenceWriteBehindSink sink = getPersistenceSink();
+            if (sink == null) {
+                return null;
+            }
+            TemplateMetadataCatalog catalog = null;
+            try {
+                catalog = TemplateMetadataCatalog.getDefault();
+            } catch (Exception e) {
+                System.err.println("警告：无法加载模板元信息，template_page_index 将为空: " + e.getMessage());
+            }
+            return new PagePublisher(sink, new File(pptxFile).getName().replaceFirst("\\.pptx$", ""), catalog);
         }
         
-        // 处理可能是Integer或Long的情况
-        int pageIndex;
-        if (pageIndexObj instanceof Integer) {
-            pageIndex = (Integer) pageIndexObj;
-        } else if (pageIndexObj instanceof Long) {
-            pageIndex = ((Long) pageIndexObj).intValue();
-        } else {
-            pageIndex = Integer.parseInt(pageIndexObj.toString());
+        /**
+         * 发布一页（映射在发布时转换成行数据，之后修改映射不影响已发布的内容）
+         */
+        void publish(int pageNumber, Map<String, Object> mapping) {
+            JsonNode node = mapper.valueToTree(mapping);
+            if (sink.publish(pptName, PptMappingBulkLoader.toPageRows(pageNumber, node, null, catalog))) {
+                count++;
+            }
         }
         
-        return pageIndex;
+        void printSummary() {
+            System.out.println("   ✓ 已发布 " + count + " 页到异步入库队列: " + pptName);
+        }
     }
     
     /**
-     * 生成输出文件名
-     * 格式：new_ppt_[年月日时分秒].pptx
+     * 退出常驻模式，释放常驻的模板包
      */
-    private static String generateOutputFileName() {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMddHHmmss");
-        String timestamp = sdf.format(new Date());
-        return "new_ppt_" + timestamp + ".pptx";
+    public static void releaseResident() {
+        synchronized (RESIDENT_LOCK) {
+            residentTemplate = null;
+        }
+    }
+    
+    /**
+     * 本次生产使用的模板包
+     * 常驻模式下直接使用内存中的模板包（只读，可并发使用），否则从模板文件读取
+     */
+    private static OOXMLSlideCopier.TemplatePackage resolveTemplate() throws Exception {
+        OOXMLSlideCopier.TemplatePackage template;
+        synchronized (RESIDENT_LOCK) {
+            template = residentTemplate;
+        }
+        if (template == null) {
+            template = OOXMLSlideCopier.load(TEMPLATE_FILE);
+        }
+        return template;
     }
     
     /**
      * 从模板文件拷贝指定的幻灯片到新文件
+     * 直接在 OOXML 包层面拷贝 slideN.xml 及其版式、母版、媒体，不加载 Aspose
      * 
+     * @param template 模板包
      * @param pageIndices 需要拷贝的页面索引列表（从1开始）
      * @param outputFile 输出文件路径
+     * @param outputDirPath 输出目录
      */
-    private static void copySlidesFromTemplate(List<Integer> pageIndices, String outputFile) throws Exception {
-        // 检查模板文件是否存在
-        File templateFile = new File(TEMPLATE_FILE);
-        if (!templateFile.exists()) {
-            throw new RuntimeException("模板文件不存在: " + TEMPLATE_FILE);
-        }
-        
+    private static void copySlidesFromTemplate(OOXMLSlideCopier.TemplatePackage template, List<Integer> pageIndices,
+                                               String outputFile, String outputDirPath) throws Exception {
         // 确保输出目录存在
-        File outputDir = new File(OUTPUT_DIR);
+        File outputDir = new File(outputDirPath);
         if (!outputDir.exists()) {
             outputDir.mkdirs();
         }
         
-        Presentation templatePresentation = null;
-        Presentation newPresentation = null;
+        System.out.println("   模板PPT共有 " + template.getSlideCount() + " 页");
         
-        try {
-            // 加载模板PPT
-            templatePresentation = new Presentation(TEMPLATE_FILE);
-            int totalSlides = templatePresentation.getSlides().size();
-            System.out.println("   模板PPT共有 " + totalSlides + " 页");
-            
-            // 验证页面索引
-            for (int pageIndex : pageIndices) {
-                if (pageIndex < 1 || pageIndex > totalSlides) {
-                    throw new IllegalArgumentException("页面索引超出范围: " + pageIndex + " (模板共有 " + totalSlides + " 页)");
-                }
-            }
-            
-            // 创建新PPT
-            newPresentation = new Presentation();
-            
-            // 设置幻灯片尺寸（与模板PPT一致）
-            newPresentation.getSlideSize().setSize(
-                (float) templatePresentation.getSlideSize().getSize().getWidth(),
-                (float) templatePresentation.getSlideSize().getSize().getHeight(),
-                templatePresentation.getSlideSize().getType()
-            );
-            
-            // 删除默认空白页
-            if (newPresentation.getSlides().size() > 0) {
-                newPresentation.getSlides().removeAt(0);
-            }
-            
-            // 按照顺序拷贝幻灯片（pageIndex从1开始，数组索引从0开始）
-            for (int i = 0; i < pageIndices.size(); i++) {
-                int pageIndex = pageIndices.get(i);
-                ISlide sourceSlide = templatePresentation.getSlides().get_Item(pageIndex - 1);
-                newPresentation.getSlides().addClone(sourceSlide);
-                System.out.println("   ✓ 已拷贝第 " + (i + 1) + " 个页面 (模板第 " + pageIndex + " 页)");
-            }
-            
-            // 保存新PPT
-            newPresentation.save(outputFile, SaveFormat.Pptx);
-            
-        } finally {
-            if (templatePresentation != null) {
-                templatePresentation.dispose();
-            }
-            if (newPresentation != null) {
-                newPresentation.dispose();
-            }
+        OOXMLSlideCopier.copySlides(template, pageIndices, outputFile);
+        for (int i = 0; i < pageIndices.size(); i++) {
+            System.out.println("   ✓ 已拷贝第 " + (i + 1) + " 个页面 (模板第 " + pageIndices.get(i) + " 页)");
         }
     }
     
@@ -258,9 +353,11 @@ public class ProduceUtil {
      * 
      * @param pptxFile PPTX文件路径
      * @param mappings 映射关系列表（第1条对应第1页，第2条对应第2页）
+     * @param fitPlan 排版预检结果，替换后按它调整字号；为 null 时保持模板字号
      */
     @SuppressWarnings("unchecked")
-    private static void replaceTextsInPPT(String pptxFile, List<Map<String, Object>> mappings) throws Exception {
+    static void replaceTextsInPPT(String pptxFile, List<Map<String, Object>> mappings,
+                                          TextFitPlanner.Plan fitPlan) throws Exception {
         // 创建临时目录
         Path tempDir = Files.createTempDirectory("pptx_replace_");
         
@@ -277,7 +374,8 @@ public class ProduceUtil {
                 throw new RuntimeException("幻灯片数量(" + slideFiles.size() + ")少于映射数量(" + mappings.size() + ")");
             }
             
-            // 3. 按照映射顺序替换文本（第1条映射对应第1页，第2条映射对应第2页）
+            // 3. 按照映射顺序替换文本（第1条映射对应第1页，第2条映射对应第2页），每页替换完即发布
+            PagePublisher publisher = PagePublisher.open(pptxFile);
             for (int i = 0; i < mappings.size(); i++) {
                 int slideIndex = i + 1; // 幻灯片页码从1开始
                 Map<String, Object> mapping = mappings.get(i);
@@ -286,34 +384,21 @@ public class ProduceUtil {
                 Map<String, Object> textMapping = (Map<String, Object>) mapping.get("文本映射");
                 if (textMapping == null || textMapping.isEmpty()) {
                     System.out.println("   跳过第 " + slideIndex + " 页（无文本映射）");
-                    continue;
-                }
-                
-                // 获取对应的slide文件
-                String slideFileName = slideFiles.get(slideIndex - 1);
-                Path slidePath = tempDir.resolve("ppt/slides").resolve(slideFileName);
-                
-                System.out.println("   处理第 " + slideIndex + " 页: " + slideFileName);
-                
-                // 替换该页面的所有文本
-                boolean replaced = false;
-                for (Map.Entry<String, Object> entry : textMapping.entrySet()) {
-                    String oldText = entry.getKey();
-                    String newText = entry.getValue().toString();
-                    
-                    if (processSlideXML(slidePath, oldText, newText)) {
-                        System.out.println("     ✓ 替换: '" + oldText + "' -> '" + 
-                            (newText.length() > 30 ? newText.substring(0, 30) + "..." : newText) + "'");
-                        replaced = true;
-                    } else {
-                        System.out.println("     ⚠ 未找到: '" + oldText + "'");
-                    }
+                } else {
+                    // 获取对应的slide文件
+                    String slideFileName = slideFiles.get(slideIndex - 1);
+                    Path slidePath = tempDir.resolve("ppt/slides").resolve(slideFileName);
+                    System.out.println("   处理第 " + slideIndex + " 页: " + slideFileName);
+                    replacePageTexts(slidePath, slideIndex, textMapping, fitPlan);
                 }
                 
-                if (!replaced) {
-                    System.out.println("     ⚠ 第 " + slideIndex + " 页未进行任何替换");
+                if (publisher != null) {
+                    publisher.publish(slideIndex, mapping);
                 }
             }
+            if (publisher != null) {
+                publisher.printSummary();
+            }
             
             // 4. 重新打包为PPTX
             System.out.println("   重新打包为PPTX...");
@@ -335,6 +420,50 @@ public class ProduceUtil {
         }
     }
     
+    /**
+     * 替换一页的所有文本，有替换时按排版预检结果调整字号
+     */
+    private static void replacePageTexts(Path slidePath, int slideIndex, Map<String, Object> textMapping,
+                                         TextFitPlanner.Plan fitPlan) throws Exception {
+        boolean replaced = false;
+        for (Map.Entry<String, Object> entry : textMapping.entrySet()) {
+            String oldText = entry.getKey();
+            String newText = entry.getValue().toString();
+            
+            if (processSlideXML(slidePath, oldText, newText)) {
+                System.out.println("     ✓ 替换: '" + oldText + "' -> '" + 
+                    (newText.length() > 30 ? newText.substring(0, 30) + "..." : newText) + "'");
+                replaced = true;
+            } else {
+                System.out.println("     ⚠ 未找到: '" + oldText + "'");
+            }
+        }
+        
+        if (!replaced) {
+            System.out.println("     ⚠ 第 " + slideIndex + " 页未进行任何替换");
+        } else if (fitPlan != null) {
+            applyFitPlan(fitPlan, slidePath, slideIndex);
+        }
+    }
+    
+    /**
+     * 按排版预检结果调整该页文本框的字号
+     */
+    private static void applyFitPlan(TextFitPlanner.Plan fitPlan, Path slidePath, int slideIndex) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Document doc = factory.newDocumentBuilder().parse(slidePath.toFile());
+        if (fitPlan.applyToSlide(doc, slideIndex)) {
+            saveXMLDocument(doc, slidePath);
+            for (TextFitPlanner.ShapeFit fit : fitPlan.getPage(slideIndex)) {
+                if (fit.needsResize()) {
+                    System.out.println(String.format("     ✓ 文本框 %s 字号 %.1f -> %.1f",
+                            fit.shapeId, fit.templateFontSize, fit.result.fontSize));
+                }
+            }
+        }
+    }
+    
     /**
      * 解压PPTX文件
      */
@@ -602,151 +731,152 @@ public class ProduceUtil {
      */
     @SuppressWarnings("unchecked")
     public static void generateImageMappings(String pptxFile) throws Exception {
+        generateImageMappings(pptxFile, MAPPING_FILE);
+    }
+    
+    /**
+     * 生成图片映射（指定映射文件，供守护进程按任务调用）
+     * 
+     * @param pptxFile 新生成的PPTX文件路径
+     * @param mappingFile 映射文件路径，生成的图片提示词写回此文件
+     * @throws Exception 如果处理失败
+     */
+    @SuppressWarnings("unchecked")
+    public static void generateImageMappings(String pptxFile, String mappingFile) throws Exception {
         // 1. 解析映射文件
-        System.out.println("1. 解析映射文件: " + MAPPING_FILE);
-        List<Map<String, Object>> mappings = parseMappingFile();
+        System.out.println("1. 解析映射文件: " + mappingFile);
+        List<Map<String, Object>> mappings = parseMappingFile(mappingFile);
         System.out.println("   ✓ 解析到 " + mappings.size() + " 个页面映射");
         
-        // 2. 创建临时目录并解压PPTX
-        Path tempDir = Files.createTempDirectory("pptx_image_mapping_");
-        try {
-            System.out.println("\n2. 解压PPTX文件: " + pptxFile);
-            unzipPPTX(pptxFile, tempDir.toString());
-            
-            // 3. 使用 ScanPPTImageInfoUtil 扫描 PPTX，获取图片注释与显示尺寸
-            System.out.println("\n3. 使用 ScanPPTImageInfoUtil 扫描 PPTX，获取图片注释与显示尺寸");
-            // ScanPPTImageInfoUtil 会在 produce 目录下生成 ppt_image_info_*.json
-            ScanPPTImageInfoUtil.scanPptx(pptxFile);
+        // 2. 扫描 PPTX（单次读取，结果直接在内存中返回），获取图片注释与显示尺寸
+        System.out.println("\n2. 扫描 PPTX 图片注释与显示尺寸: " + pptxFile);
+        List<ScanPPTImageInfoUtil.ImageInfo> items = ScanPPTImageInfoUtil.scan(pptxFile);
+        System.out.println("   ✓ 发现 " + items.size() + " 个带注释的图片");
+        if (WRITE_IMAGE_INFO_JSON) {
+            Path reportPath = Paths.get(new File(mappingFile).getAbsoluteFile().getParent(),
+                    "ppt_image_info_" + System.currentTimeMillis() + ".json");
+            ScanPPTImageInfoUtil.writeReport(pptxFile, items, reportPath);
+            System.out.println("   ✓ 扫描结果已保存: " + reportPath);
+        }
 
-            // 找到刚生成的最新文件
-            File produceDir = new File(PROJECT_ROOT, "produce");
-            File[] jsonFiles = produceDir.listFiles((d, name) -> name.startsWith("ppt_image_info_") && name.endsWith(".json"));
-            if (jsonFiles == null || jsonFiles.length == 0) {
-                System.out.println("   未找到 ScanPPTImageInfoUtil 生成的结果文件，跳过图片映射生成");
-                return;
-            }
-            File latest = Arrays.stream(jsonFiles).max(Comparator.comparingLong(File::lastModified)).get();
+        // 按 slide_index 分组
+        Map<Integer, List<ScanPPTImageInfoUtil.ImageInfo>> bySlide = new HashMap<>();
+        for (ScanPPTImageInfoUtil.ImageInfo it : items) {
+            bySlide.computeIfAbsent(it.getSlideIndex(), k -> new ArrayList<>()).add(it);
+        }
 
-            ObjectMapper mapper = new ObjectMapper();
-            @SuppressWarnings("unchecked")
-            Map<String, Object> scanResult = mapper.readValue(latest, Map.class);
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> items = (List<Map<String, Object>>) scanResult.getOrDefault("items", Collections.emptyList());
+        boolean hasNewMappings = false;
 
-            // 按 slide_index 分组
-            Map<Integer, List<Map<String, Object>>> bySlide = new HashMap<>();
-            for (Map<String, Object> it : items) {
-                Object si = it.get("slide_index");
-                if (si == null) continue;
-                int idx = (si instanceof Number) ? ((Number) si).intValue() : Integer.parseInt(si.toString());
-                bySlide.computeIfAbsent(idx, k -> new ArrayList<>()).add(it);
+        // 遍历映射并匹配扫描结果，每页的图片提示词生成完即发布
+        PagePublisher publisher = PagePublisher.open(pptxFile);
+        for (int i = 0; i < mappings.size(); i++) {
+            int slideIndex = i + 1;
+            Map<String, Object> mapping = mappings.get(i);
+            List<ScanPPTImageInfoUtil.ImageInfo> slideItems = bySlide.getOrDefault(slideIndex, Collections.emptyList());
+            if (collectImagePrompts(slideIndex, mapping, slideItems)) {
+                hasNewMappings = true;
             }
+            if (publisher != null) {
+                publisher.publish(slideIndex, mapping);
+            }
+        }
+        if (publisher != null) {
+            publisher.printSummary();
+        }
 
-            boolean hasNewMappings = false;
-
-            // 遍历映射并匹配扫描结果
-            for (int i = 0; i < mappings.size(); i++) {
-                int slideIndex = i + 1;
-                Map<String, Object> mapping = mappings.get(i);
-                Map<String, Object> textMapping = (Map<String, Object>) mapping.get("文本映射");
-                if (textMapping == null || textMapping.isEmpty()) {
-                    System.out.println("   跳过第 " + slideIndex + " 页（无文本映射）");
-                    continue;
-                }
-
-                Map<String, String> imageAnnotationMapping = (Map<String, String>) mapping.get("图片提示词准备");
-                if (imageAnnotationMapping == null) {
-                    Map<String, String> legacy = (Map<String, String>) mapping.get("图片标注映射");
-                    if (legacy != null) {
-                        imageAnnotationMapping = new LinkedHashMap<>(legacy);
-                        hasNewMappings = true;
-                    } else {
-                        imageAnnotationMapping = new LinkedHashMap<>();
-                    }
-                    mapping.put("图片提示词准备", imageAnnotationMapping);
-                }
-
-                List<Map<String, Object>> slideItems = bySlide.getOrDefault(slideIndex, Collections.emptyList());
-                if (slideItems.isEmpty()) {
-                    System.out.println("   第 " + slideIndex + " 页未发现图片注释");
-                    continue;
-                }
+        // 保存映射
+        if (hasNewMappings) {
+            System.out.println("\n3. 更新映射文件");
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(new File(mappingFile), mappings);
+            System.out.println("   ✓ 已更新映射文件: " + mappingFile);
+        } else {
+            System.out.println("\n3. 无需更新映射文件（没有新的图片映射）");
+        }
+    }
+    
+    /**
+     * 为一页生成图片提示词，写入该页映射的 图片提示词准备
+     * 
+     * @return 该页映射是否有新增或迁移的内容
+     */
+    @SuppressWarnings("unchecked")
+    private static boolean collectImagePrompts(int slideIndex, Map<String, Object> mapping,
+                                               List<ScanPPTImageInfoUtil.ImageInfo> slideItems) {
+        boolean hasNewMappings = false;
+        Map<String, Object> textMapping = (Map<String, Object>) mapping.get("文本映射");
+        if (textMapping == null || textMapping.isEmpty()) {
+            System.out.println("   跳过第 " + slideIndex + " 页（无文本映射）");
+            return false;
+        }
 
-                System.out.println("   处理第 " + slideIndex + " 页，发现 " + slideItems.size() + " 个注释图片");
+        Map<String, String> imageAnnotationMapping = (Map<String, String>) mapping.get("图片提示词准备");
+        if (imageAnnotationMapping == null) {
+            Map<String, String> legacy = (Map<String, String>) mapping.get("图片标注映射");
+            if (legacy != null) {
+                imageAnnotationMapping = new LinkedHashMap<>(legacy);
+                hasNewMappings = true;
+            } else {
+                imageAnnotationMapping = new LinkedHashMap<>();
+            }
+            mapping.put("图片提示词准备", imageAnnotationMapping);
+        }
 
-                for (Map<String, Object> it : slideItems) {
-                    String title = Optional.ofNullable(it.get("annotation")).map(Object::toString).orElse("");
-                    if (title == null || title.trim().isEmpty()) continue;
-                    if ("警告".equals(title.trim())) continue;
-                    if (!(title.contains("我是文本") || title.contains("我是长文本"))) continue;
+        if (slideItems.isEmpty()) {
+            System.out.println("   第 " + slideIndex + " 页未发现图片注释");
+            return hasNewMappings;
+        }
 
-                    if (imageAnnotationMapping.containsKey(title)) continue;
+        System.out.println("   处理第 " + slideIndex + " 页，发现 " + slideItems.size() + " 个注释图片");
 
-                    // 拆分标注并匹配文本映射
-                    String[] parts = title.split("\\|");
-                    List<String> replacementTexts = new ArrayList<>();
-                    List<String> otherInfo = new ArrayList<>();
-                    for (String part : parts) {
-                        part = part.trim();
-                        if (part.isEmpty()) continue;
-                        String replacement = null;
-                        if (textMapping.containsKey(part)) replacement = textMapping.get(part).toString();
-                        else {
-                            String longKey = part.replace("我是文本", "我是长文本");
-                            if (textMapping.containsKey(longKey)) replacement = textMapping.get(longKey).toString();
-                            else {
-                                String shortKey = part.replace("我是长文本", "我是文本");
-                                if (textMapping.containsKey(shortKey)) replacement = textMapping.get(shortKey).toString();
-                            }
-                        }
-                        if (replacement != null && !replacement.isEmpty()) replacementTexts.add(replacement);
-                        else { otherInfo.add(part); }
-                    }
+        for (ScanPPTImageInfoUtil.ImageInfo it : slideItems) {
+            String title = Optional.ofNullable(it.getAnnotation()).orElse("");
+            if (title == null || title.trim().isEmpty()) continue;
+            if ("警告".equals(title.trim())) continue;
+            if (!(title.contains("我是文本") || title.contains("我是长文本"))) continue;
 
-                    // 图片大小信息：优先使用扫描结果中的 width_px_120dpi/height_px_120dpi
-                    String imageSizeInfo = "";
-                    int widthPx = -1, heightPx = -1;
-                    Object wObj = it.get("width_px_120dpi");
-                    Object hObj = it.get("height_px_120dpi");
-                    if (wObj instanceof Number) widthPx = ((Number) wObj).intValue();
-                    if (hObj instanceof Number) heightPx = ((Number) hObj).intValue();
-                    if (widthPx <= 0 || heightPx <= 0) {
-                        Object wc = it.get("width_cm");
-                        Object hc = it.get("height_cm");
-                        if (wc instanceof Number && hc instanceof Number) {
-                            widthPx = (int) Math.round(((Number) wc).doubleValue() * 120);
-                            heightPx = (int) Math.round(((Number) hc).doubleValue() * 120);
-                        }
-                    }
-                    if (widthPx > 0 && heightPx > 0) {
-                        imageSizeInfo = String.format("图片尺寸为像素%d宽 × %d像素高", widthPx, heightPx);
-                    }
+            if (imageAnnotationMapping.containsKey(title)) continue;
 
-                    if (!replacementTexts.isEmpty() || !otherInfo.isEmpty()) {
-                        List<String> promptParts = new ArrayList<>();
-                        promptParts.addAll(replacementTexts);
-                        promptParts.addAll(otherInfo);
-                        if (!imageSizeInfo.isEmpty()) promptParts.add(imageSizeInfo);
-                        String imagePrompt = String.join("|", promptParts);
-                        imageAnnotationMapping.put(title, imagePrompt);
-                        hasNewMappings = true;
-                        System.out.println("       生成图片提示词: " + title + " => " + (imagePrompt.length() > 80 ? imagePrompt.substring(0,80)+"..." : imagePrompt));
+            // 拆分标注并匹配文本映射
+            String[] parts = title.split("\\|");
+            List<String> replacementTexts = new ArrayList<>();
+            List<String> otherInfo = new ArrayList<>();
+            for (String part : parts) {
+                part = part.trim();
+                if (part.isEmpty()) continue;
+                String replacement = null;
+                if (textMapping.containsKey(part)) replacement = textMapping.get(part).toString();
+                else {
+                    String longKey = part.replace("我是文本", "我是长文本");
+                    if (textMapping.containsKey(longKey)) replacement = textMapping.get(longKey).toString();
+                    else {
+                        String shortKey = part.replace("我是长文本", "我是文本");
+                        if (textMapping.containsKey(shortKey)) replacement = textMapping.get(shortKey).toString();
                     }
                 }
+                if (replacement != null && !replacement.isEmpty()) replacementTexts.add(replacement);
+                else { otherInfo.add(part); }
             }
 
-            // 保存映射
-            if (hasNewMappings) {
-                System.out.println("\n4. 更新映射文件");
-                mapper.writerWithDefaultPrettyPrinter().writeValue(new File(MAPPING_FILE), mappings);
-                System.out.println("   ✓ 已更新映射文件: " + MAPPING_FILE);
-            } else {
-                System.out.println("\n4. 无需更新映射文件（没有新的图片映射）");
+            // 图片大小信息：使用扫描结果中按 120dpi 换算的显示尺寸
+            String imageSizeInfo = "";
+            int widthPx = it.getWidthPx120dpi();
+            int heightPx = it.getHeightPx120dpi();
+            if (widthPx > 0 && heightPx > 0) {
+                imageSizeInfo = String.format("图片尺寸为像素%d宽 × %d像素高", widthPx, heightPx);
+            }
+
+            if (!replacementTexts.isEmpty() || !otherInfo.isEmpty()) {
+                List<String> promptParts = new ArrayList<>();
+                promptParts.addAll(replacementTexts);
+                promptParts.addAll(otherInfo);
+                if (!imageSizeInfo.isEmpty()) promptParts.add(imageSizeInfo);
+                String imagePrompt = String.join("|", promptParts);
+                imageAnnotationMapping.put(title, imagePrompt);
+                hasNewMappings = true;
+                System.out.println("       生成图片提示词: " + title + " => " + (imagePrompt.length() > 80 ? imagePrompt.substring(0,80)+"..." : imagePrompt));
             }
-        } finally {
-            // 清理临时目录
-            cleanTempDirectory(tempDir);
         }
+        return hasNewMappings;
     }
     
     /**
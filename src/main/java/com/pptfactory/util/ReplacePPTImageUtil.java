@@ -523,12 +523,13 @@ public class ReplacePPTImageUtil {
                     int width = originalImage != null ? originalImage.getWidth() : 400;
                     int height = originalImage != null ? originalImage.getHeight() : 300;
                     
-                    // 创建带有"No Image"文字的图片
-                    java.awt.image.BufferedImage noImageImage = createNoImageImage(width, height, "No Image");
+                    // 带有"No Image"文字的图片：同一取整尺寸只绘制、编码一次
+                    String extension = getFileExtension(imagePath.getFileName().toString());
+                    String format = extension.equals("jpg") || extension.equals("jpeg") ? "jpg" : "png";
+                    byte[] noImageBytes = NoImagePlaceholderCache.getEncoded(width, height, format, NoImagePlaceholderCache.DEFAULT_TEXT);
                     
                     // 保存替换后的图片
-                    String extension = getFileExtension(imagePath.getFileName().toString());
-                    javax.imageio.ImageIO.write(noImageImage, extension.equals("jpg") || extension.equals("jpeg") ? "jpg" : "png", imagePath.toFile());
+                    Files.write(imagePath, noImageBytes);
                     
                     replacedCount++;
                     System.out.println("已替换图片: " + imagePath.getFileName());
@@ -537,7 +538,7 @@ public class ReplacePPTImageUtil {
                 }
             }
             
-            System.out.println("共替换了 " + replacedCount + " 个图片");
+            System.out.println("共替换了 " + replacedCount + " 个图片（" + NoImagePlaceholderCache.stats() + "）");
             
             // 7. 重新打包为PPTX
             System.out.println("重新打包为PPTX...");
@@ -570,59 +571,6 @@ public class ReplacePPTImageUtil {
         }
     }
     
-    /**
-     * 创建带有指定文字的图片
-     * @param width 图片宽度
-     * @param height 图片高度
-     * @param text 要显示的文字
-     * @return BufferedImage对象
-     */
-    private static java.awt.image.BufferedImage createNoImageImage(int width, int height, String text) {
-        // 创建图片
-        java.awt.image.BufferedImage image = new java.awt.image.BufferedImage(
-            width, height, java.awt.image.BufferedImage.TYPE_INT_RGB);
-        
-        // 获取 Graphics2D 对象用于绘制
-        java.awt.Graphics2D g2d = image.createGraphics();
-        
-        // 设置抗锯齿
-        g2d.setRenderingHint(java.awt.RenderingHints.KEY_ANTIALIASING, 
-            java.awt.RenderingHints.VALUE_ANTIALIAS_ON);
-        g2d.setRenderingHint(java.awt.RenderingHints.KEY_TEXT_ANTIALIASING,
-            java.awt.RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-        
-        // 填充白色背景
-        g2d.setColor(java.awt.Color.WHITE);
-        g2d.fillRect(0, 0, width, height);
-        
-        // 绘制边框
-        g2d.setColor(java.awt.Color.LIGHT_GRAY);
-        g2d.setStroke(new java.awt.BasicStroke(2.0f));
-        g2d.drawRect(2, 2, width - 4, height - 4);
-        
-        // 绘制文字
-        g2d.setColor(java.awt.Color.GRAY);
-        // 根据图片大小调整字体大小
-        int fontSize = Math.max(12, Math.min(width, height) / 10);
-        java.awt.Font font = new java.awt.Font("Arial", java.awt.Font.PLAIN, fontSize);
-        g2d.setFont(font);
-        
-        // 计算文字位置（居中）
-        java.awt.FontMetrics fm = g2d.getFontMetrics();
-        int textWidth = fm.stringWidth(text);
-        int textHeight = fm.getHeight();
-        int x = (width - textWidth) / 2;
-        int y = (height - textHeight) / 2 + fm.getAscent();
-        
-        // 绘制文字
-        g2d.drawString(text, x, y);
-        
-        // 释放资源
-        g2d.dispose();
-        
-        return image;
-    }
-    
     /**
      * 清理临时目录
      */
@@ -124,7 +124,7 @@ public class ReplacePPTImagesByMappingUtil {
      * @param mappings 每页的内容映射
      * @return 是否有图片被替换
      */
-    private static boolean replaceImages(String pptxPath, List<Map<String, Object>> mappings) throws Exception {
+    static boolean replaceImages(String pptxPath, List<Map<String, Object>> mappings) throws Exception {
         Path tempDir = null;
         try {
             // 创建临时目录
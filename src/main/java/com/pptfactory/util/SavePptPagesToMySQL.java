@@ -9,16 +9,14 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.sql.*;
-import java.util.Optional;
 
 /**
  * 将 produce/ppt内容页.txt 中的数据保存到 MySQL 表 ppt_contents
  * Usage:
  *   java -cp <classpath-with-mysql-connector> com.pptfactory.util.SavePptPagesToMySQL <ppt_name> [path/to/produce/ppt内容页.txt]
  *
- * DB 配置通过环境变量：DB_URL, DB_USER, DB_PASS
- * 示例 DB_URL: jdbc:mysql://localhost:3306/pptfactory?useUnicode=true&characterEncoding=utf8mb4&serverTimezone=UTC
+ * DB 配置通过环境变量：DB_URL, DB_USER, DB_PASS（写入由 PptPagePersistence 完成）
+ * 示例 DB_URL: jdbc:mysql://localhost:3306/pptfactory?useUnicode=true&characterEncoding=utf8mb4&serverTimezone=UTC&rewriteBatchedStatements=true
  */
 public class SavePptPagesToMySQL {
     private static final ObjectMapper MAPPER = new ObjectMapper();
@@ -31,10 +29,6 @@ public class SavePptPagesToMySQL {
         String pptName = args[0];
         String inputPath = args.length > 1 ? args[1] : "produce/ppt内容页.txt";
 
-        String dbUrl = Optional.ofNullable(System.getenv("DB_URL")).orElse("jdbc:mysql://127.0.0.1:3306/pptfactory?useUnicode=true&characterEncoding=utf8mb4&serverTimezone=UTC");
-        String dbUser = Optional.ofNullable(System.getenv("DB_USER")).orElse("root");
-        String dbPass = Optional.ofNullable(System.getenv("DB_PASS")).orElse("");
-
         try {
             Path p = Paths.get(inputPath);
             if (!Files.exists(p)) {
@@ -65,7 +59,9 @@ public class SavePptPagesToMySQL {
 
             int pageCount = contentsNode.isArray() ? contentsNode.size() : 1;
 
-            upsertToDb(dbUrl, dbUser, dbPass, pptName, contentsNode.toString(), raw, pageCount, inputPath);
+            try (PptPagePersistence persistence = PptPagePersistence.fromEnv()) {
+                persistence.upsertContents(pptName, contentsNode.toString(), raw, pageCount, inputPath);
+            }
 
             System.out.println("保存成功: " + pptName);
         } catch (Exception e) {
@@ -74,47 +70,4 @@ public class SavePptPagesToMySQL {
             System.exit(10);
         }
     }
-
-    private static void upsertToDb(String url, String user, String pass,
-                                   String pptName, String contentsJson, String rawText,
-                                   int pageCount, String sourceFile) throws SQLException {
-        // Ensure MySQL driver loaded (if available on classpath)
-        try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-        } catch (ClassNotFoundException ignored) {
-        }
-
-        String insertSql = "INSERT INTO ppt_contents (ppt_name, contents, raw_text, page_count, source_file) VALUES (?,?,?,?,?)";
-        String updateSql = "UPDATE ppt_contents SET contents = ?, raw_text = ?, page_count = ?, source_file = ?, updated_at = CURRENT_TIMESTAMP WHERE ppt_name = ?";
-
-        try (Connection conn = DriverManager.getConnection(url, user, pass)) {
-            conn.setAutoCommit(false);
-            // Try insert
-            try (PreparedStatement ins = conn.prepareStatement(insertSql)) {
-                ins.setString(1, pptName);
-                ins.setString(2, contentsJson);
-                ins.setString(3, rawText);
-                ins.setInt(4, pageCount);
-                ins.setString(5, sourceFile);
-                ins.executeUpdate();
-                conn.commit();
-                return;
-            } catch (SQLException ex) {
-                // 如果插入失败（例如主键冲突），执行更新
-                conn.rollback();
-                try (PreparedStatement upd = conn.prepareStatement(updateSql)) {
-                    upd.setString(1, contentsJson);
-                    upd.setString(2, rawText);
-                    upd.setInt(3, pageCount);
-                    upd.setString(4, sourceFile);
-                    upd.setString(5, pptName);
-                    int updated = upd.executeUpdate();
-                    conn.commit();
-                    if (updated == 0) {
-                        throw new SQLException("更新失败且未插入新行");
-                    }
-                }
-            }
-        }
-    }
 }
@@ -4,10 +4,8 @@ import org.w3c.dom.*;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
-import java.awt.image.BufferedImage;
 import java.io.*;
 import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -16,55 +14,200 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 /**
  * 扫描 PPTX 中每页的图片，查找图片的可选文字（cNvPr title/descr）不为空的图片，
  * 并且读取图片在幻灯片中展示时的宽/高（从 slide XML 中的 a:ext cx/cy 获取，单位为 EMU）。
- * 输出结果到控制台并保存到 produce/ppt_image_info_<timestamp>.json
+ * scan() 在内存中返回扫描结果；scanPptx() 额外输出到控制台并保存到 produce/ppt_image_info_<timestamp>.json
  */
 public class ScanPPTImageInfoUtil {
 
     private static final String PML_NS = "http://schemas.openxmlformats.org/presentationml/2006/main";
     private static final String DML_NS = "http://schemas.openxmlformats.org/drawingml/2006/main";
     private static final String REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    /**
+     * 一张带标注图片的扫描结果
+     * 尺寸未知时对应字段为 -1
+     */
+    public static class ImageInfo {
+        private final String slideFile;
+        private final int slideIndex;
+        private final int pictureIndexOnSlide;
+        private final String annotation;
+        private final String mediaFile;
+        private final long widthEmu;
+        private final long heightEmu;
+        private final int imagePixelWidth;
+        private final int imagePixelHeight;
+
+        ImageInfo(String slideFile, int slideIndex, int pictureIndexOnSlide, String annotation, String mediaFile,
+                  long widthEmu, long heightEmu, int imagePixelWidth, int imagePixelHeight) {
+            this.slideFile = slideFile;
+            this.slideIndex = slideIndex;
+            this.pictureIndexOnSlide = pictureIndexOnSlide;
+            this.annotation = annotation;
+            this.mediaFile = mediaFile;
+            this.widthEmu = widthEmu;
+            this.heightEmu = heightEmu;
+            this.imagePixelWidth = imagePixelWidth;
+            this.imagePixelHeight = imagePixelHeight;
+        }
+
+        public String getSlideFile() { return slideFile; }
+        /** 幻灯片序号（从1开始） */
+        public int getSlideIndex() { return slideIndex; }
+        public int getPictureIndexOnSlide() { return pictureIndexOnSlide; }
+        /** 图片可选文字（cNvPr title，为空时取 descr） */
+        public String getAnnotation() { return annotation; }
+        /** ppt/media 下的文件名，没有时为空字符串 */
+        public String getMediaFile() { return mediaFile; }
+        public long getWidthEmu() { return widthEmu; }
+        public long getHeightEmu() { return heightEmu; }
+        public int getImagePixelWidth() { return imagePixelWidth; }
+        public int getImagePixelHeight() { return imagePixelHeight; }
+
+        /** 是否能确定图片在幻灯片上的显示尺寸 */
+        public boolean hasDisplaySize() { return widthEmu > 0 && heightEmu > 0; }
+        public double getWidthCm() { return hasDisplaySize() ? round(emuToCm(widthEmu), 2) : -1; }
+        public double getHeightCm() { return hasDisplaySize() ? round(emuToCm(heightEmu), 2) : -1; }
+        /** 按 120dpi 换算的显示宽度（像素） */
+        public int getWidthPx120dpi() { return hasDisplaySize() ? (int) Math.round(emuToPixels(widthEmu, 120)) : -1; }
+        /** 按 120dpi 换算的显示高度（像素） */
+        public int getHeightPx120dpi() { return hasDisplaySize() ? (int) Math.round(emuToPixels(heightEmu, 120)) : -1; }
+
+        /**
+         * 转换为与 ppt_image_info_*.json 中 items 相同结构的 Map
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("slide_file", slideFile);
+            record.put("slide_index", slideIndex);
+            record.put("picture_index_on_slide", pictureIndexOnSlide);
+            record.put("annotation", annotation);
+            record.put("media_file", mediaFile);
+            if (hasDisplaySize()) {
+                record.put("width_emu", widthEmu);
+                record.put("height_emu", heightEmu);
+                record.put("width_cm", getWidthCm());
+                record.put("height_cm", getHeightCm());
+                record.put("width_px_120dpi", getWidthPx120dpi());
+                record.put("height_px_120dpi", getHeightPx120dpi());
+            }
+            if (imagePixelWidth > 0 && imagePixelHeight > 0) {
+                record.put("image_pixel_width", imagePixelWidth);
+                record.put("image_pixel_height", imagePixelHeight);
+            }
+            return record;
+        }
+
+        @Override
+        public String toString() {
+            return toMap().toString();
+        }
+    }
+
     public static void main(String[] args) throws Exception {
         String pptxPath = args != null && args.length > 0 ? args[0] : "templates/master_template.pptx";
         scanPptx(pptxPath);
     }
 
-    public static void scanPptx(String pptxPath) throws Exception {
+    /**
+     * 扫描 PPTX 并把结果写入 produce/ppt_image_info_<timestamp>.json
+     *
+     * @param pptxPath PPTX 文件路径
+     * @return 写出的 JSON 文件路径，PPTX 不存在时返回 null
+     */
+    public static Path scanPptx(String pptxPath) throws Exception {
         Path pptx = Paths.get(pptxPath);
         if (!Files.exists(pptx)) {
             System.err.println("PPTX 文件不存在: " + pptxPath);
-            return;
+            return null;
         }
 
-        Path tempDir = createTempDirInProject("scan_pptx_");
-        try {
-            unzipPPTX(pptx.toString(), tempDir.toString());
+        List<ImageInfo> infos = scan(pptxPath);
 
-            List<String> slideFiles = getAvailableSlides(tempDir);
-            Map<String, Object> report = new LinkedHashMap<>();
-            List<Map<String, Object>> items = new ArrayList<>();
+        // 输出到控制台（简洁格式）
+        for (ImageInfo info : infos) {
+            System.out.println(info);
+        }
+
+        // 写入 produce 目录的 json 文件
+        // 如果 pptx 是相对路径且没有上两级父路径，fallback 到当前工作目录
+        Path projectRoot;
+        if (pptx.getParent() != null && pptx.getParent().getParent() != null) {
+            projectRoot = pptx.getParent().getParent();
+        } else {
+            projectRoot = Paths.get(System.getProperty("user.dir"));
+        }
+        Path produceDir = projectRoot.resolve("produce");
+        String outName = "ppt_image_info_" + System.currentTimeMillis() + ".json";
+        Path outPath = produceDir.resolve(outName);
+        writeReport(pptxPath, infos, outPath);
+        System.out.println("保存结果到: " + outPath.toString());
+        return outPath;
+    }
+
+    /**
+     * 把扫描结果写成 JSON 报告（{scanned_at, pptx, items}），annotation 为 "警告" 的条目不写入
+     *
+     * @param pptxPath 被扫描的 PPTX 路径（写入报告）
+     * @param infos 扫描结果
+     * @param outPath 输出文件路径
+     */
+    public static void writeReport(String pptxPath, List<ImageInfo> infos, Path outPath) throws IOException {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (ImageInfo info : infos) {
+            if ("警告".equals(info.getAnnotation())) {
+                continue;
+            }
+            items.add(info.toMap());
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("scanned_at", System.currentTimeMillis());
+        report.put("pptx", pptxPath);
+        report.put("items", items);
+
+        if (outPath.getParent() != null && !Files.exists(outPath.getParent())) {
+            Files.createDirectories(outPath.getParent());
+        }
+        // 使用内部实现将 JSON 写为 UTF-8、漂亮格式（不转义非 ASCII）
+        writeJsonPretty(outPath, report);
+    }
+
+    /**
+     * 扫描 PPTX 中每页带标注（cNvPr title/descr 不为空）的图片，直接在内存中返回结果
+     *
+     * 只打开一次 zip 包，按需读取幻灯片、关系文件和媒体文件头，不解压到磁盘、不写任何文件。
+     *
+     * @param pptxPath PPTX 文件路径
+     * @return 按幻灯片、图片顺序排列的扫描结果
+     */
+    public static List<ImageInfo> scan(String pptxPath) throws Exception {
+        List<ImageInfo> infos = new ArrayList<>();
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        DocumentBuilder builder = factory.newDocumentBuilder();
+
+        try (ZipFile zipFile = new ZipFile(pptxPath)) {
+            List<String> slideFiles = getAvailableSlides(zipFile);
 
             for (int si = 0; si < slideFiles.size(); si++) {
                 String slideFile = slideFiles.get(si);
-                Path slidePath = tempDir.resolve("ppt/slides").resolve(slideFile);
-                Path relPath = tempDir.resolve("ppt/slides/_rels").resolve(slideFile + ".rels");
+                ZipEntry slideEntry = zipFile.getEntry("ppt/slides/" + slideFile);
+                ZipEntry relEntry = zipFile.getEntry("ppt/slides/_rels/" + slideFile + ".rels");
                 Map<String, String> relations = new HashMap<>();
-                if (Files.exists(relPath)) {
-                    relations = parseSlideRelations(relPath);
+                if (relEntry != null) {
+                    try (InputStream in = zipFile.getInputStream(relEntry)) {
+                        relations = parseSlideRelations(builder.parse(in));
+                    }
                 }
 
-                // parse slide xml
-                DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-                factory.setNamespaceAware(true);
-                DocumentBuilder builder = factory.newDocumentBuilder();
-                Document doc = builder.parse(slidePath.toFile());
-
-                final String PML_NS = "http://schemas.openxmlformats.org/presentationml/2006/main";
-                final String DML_NS = "http://schemas.openxmlformats.org/drawingml/2006/main";
-                final String REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+                Document doc;
+                try (InputStream in = zipFile.getInputStream(slideEntry)) {
+                    doc = builder.parse(in);
+                }
 
                 NodeList picNodes = doc.getElementsByTagNameNS(PML_NS, "pic");
                 if (picNodes == null) continue;
@@ -112,87 +255,47 @@ public class ScanPPTImageInfoUtil {
                         cy = finalExt[1];
                     }
 
-                    Map<String, Object> record = new LinkedHashMap<>();
-                    record.put("slide_file", slideFile);
-                    record.put("slide_index", si + 1);
-                    record.put("picture_index_on_slide", i + 1);
-                    record.put("annotation", title);
-                    record.put("media_file", mediaFileName == null ? "" : mediaFileName);
-
-                    // convert EMU to cm and pixels (120 dpi)
-                    if (cx > 0 && cy > 0) {
-                        double widthCm = emuToCm(cx);
-                        double heightCm = emuToCm(cy);
-                        double widthPx120 = emuToPixels(cx, 120);
-                        double heightPx120 = emuToPixels(cy, 120);
-                        record.put("width_emu", cx);
-                        record.put("height_emu", cy);
-                        record.put("width_cm", round(widthCm, 2));
-                        record.put("height_cm", round(heightCm, 2));
-                        record.put("width_px_120dpi", (int)Math.round(widthPx120));
-                        record.put("height_px_120dpi", (int)Math.round(heightPx120));
-                    }
-
-                    // 如果有 media 文件，读取实际像素尺寸
+                    // 如果有 media 文件，只读取图片头获取实际像素尺寸
+                    int pixelWidth = -1, pixelHeight = -1;
                     if (mediaFileName != null) {
-                        Path mediaPath = tempDir.resolve("ppt/media").resolve(mediaFileName);
-                        if (Files.exists(mediaPath)) {
-                            try {
-                                BufferedImage img = ImageIO.read(mediaPath.toFile());
-                                if (img != null) {
-                                    record.put("image_pixel_width", img.getWidth());
-                                    record.put("image_pixel_height", img.getHeight());
-                                }
-                            } catch (Exception e) {
-                                // ignore
+                        ZipEntry mediaEntry = zipFile.getEntry("ppt/media/" + mediaFileName);
+                        if (mediaEntry != null) {
+                            int[] size = readImageSize(zipFile, mediaEntry);
+                            if (size != null) {
+                                pixelWidth = size[0];
+                                pixelHeight = size[1];
                             }
                         }
                     }
 
-                    items.add(record);
+                    infos.add(new ImageInfo(slideFile, si + 1, i + 1, title,
+                            mediaFileName == null ? "" : mediaFileName,
+                            cx > 0 && cy > 0 ? cx : -1L, cx > 0 && cy > 0 ? cy : -1L,
+                            pixelWidth, pixelHeight));
                 }
             }
+        }
+        return infos;
+    }
 
-            report.put("scanned_at", System.currentTimeMillis());
-            report.put("pptx", pptxPath);
-            report.put("items", items);
-
-            // 输出到控制台（简洁格式）
-            for (Map<String, Object> it : items) {
-                System.out.println(it);
-            }
-
-            // 写入 produce 目录的 json 文件
-            // 如果 pptx 是相对路径且没有上两级父路径，fallback 到当前工作目录
-            Path projectRoot;
-            if (pptx.getParent() != null && pptx.getParent().getParent() != null) {
-                projectRoot = pptx.getParent().getParent();
-            } else {
-                projectRoot = Paths.get(System.getProperty("user.dir"));
-            }
-            Path produceDir = projectRoot.resolve("produce");
-            if (!Files.exists(produceDir)) Files.createDirectories(produceDir);
-            String outName = "ppt_image_info_" + System.currentTimeMillis() + ".json";
-            Path outPath = produceDir.resolve(outName);
-
-            // 过滤掉 annotation 为 "警告" 的条目
-            if (report.get("items") instanceof List) {
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> repItems = (List<Map<String, Object>>) report.get("items");
-                repItems.removeIf(it -> {
-                    Object a = it.get("annotation");
-                    return a != null && "警告".equals(a.toString());
-                });
+    /**
+     * 通过 ImageReader 只解析图片头获取宽高，不解码整张图片；无法识别时返回 null
+     */
+    private static int[] readImageSize(ZipFile zipFile, ZipEntry entry) {
+        try (InputStream in = zipFile.getInputStream(entry);
+             ImageInputStream iis = ImageIO.createImageInputStream(new BufferedInputStream(in))) {
+            if (iis == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                return new int[]{reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
             }
-
-            // 使用内部实现将 JSON 写为 UTF-8、漂亮格式（不转义非 ASCII）
-            writeJsonPretty(outPath, report);
-            System.out.println("保存结果到: " + outPath.toString());
-
-        } finally {
-            // 清理临时目录
-            // 留下临时目录以便调试；如果想删除可解除下面注释
-            // cleanTempDirectory(tempDir);
+        } catch (Exception e) {
+            return null;
         }
     }
 
@@ -438,55 +541,28 @@ public class ScanPPTImageInfoUtil {
         return null;
     }
 
-    // --- 下面是 PPTX 解压与关系解析的辅助方法（与项目中其他 util 方法类似） ---
-
-    private static void unzipPPTX(String zipFilePath, String destDirectory) throws IOException {
-        try (ZipFile zipFile = new ZipFile(zipFilePath)) {
-            Enumeration<? extends ZipEntry> entries = zipFile.entries();
-            while (entries.hasMoreElements()) {
-                ZipEntry entry = entries.nextElement();
-                File entryDestination = new File(destDirectory, entry.getName());
-                if (entry.isDirectory()) {
-                    entryDestination.mkdirs();
-                } else {
-                    entryDestination.getParentFile().mkdirs();
-                    try (InputStream in = zipFile.getInputStream(entry);
-                         OutputStream out = new FileOutputStream(entryDestination)) {
-                        byte[] buffer = new byte[8192];
-                        int len;
-                        while ((len = in.read(buffer)) > 0) {
-                            out.write(buffer, 0, len);
-                        }
-                    }
-                }
-            }
-        }
-    }
+    // --- 下面是 PPTX 包内条目与关系解析的辅助方法 ---
 
-    private static List<String> getAvailableSlides(Path tempDir) throws IOException {
-        Path slidesDir = tempDir.resolve("ppt/slides");
-        if (!Files.exists(slidesDir)) return Collections.emptyList();
+    private static List<String> getAvailableSlides(ZipFile zipFile) {
+        Pattern pattern = Pattern.compile("ppt/slides/(slide(\\d+)\\.xml)");
         List<String> slideFiles = new ArrayList<>();
-        try (DirectoryStream<Path> stream = Files.newDirectoryStream(slidesDir, "slide*.xml")) {
-            for (Path path : stream) slideFiles.add(path.getFileName().toString());
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            Matcher m = pattern.matcher(entries.nextElement().getName());
+            if (m.matches()) slideFiles.add(m.group(1));
         }
         slideFiles.sort((a, b) -> {
-            Pattern pattern = Pattern.compile("slide(\\d+)\\.xml");
-            Matcher ma = pattern.matcher(a); Matcher mb = pattern.matcher(b);
-            if (ma.find() && mb.find()) {
-                return Integer.compare(Integer.parseInt(ma.group(1)), Integer.parseInt(mb.group(1)));
+            Matcher ma = pattern.matcher("ppt/slides/" + a); Matcher mb = pattern.matcher("ppt/slides/" + b);
+            if (ma.matches() && mb.matches()) {
+                return Integer.compare(Integer.parseInt(ma.group(2)), Integer.parseInt(mb.group(2)));
             }
             return a.compareTo(b);
         });
         return slideFiles;
     }
 
-    private static Map<String, String> parseSlideRelations(Path relPath) throws Exception {
+    private static Map<String, String> parseSlideRelations(Document doc) {
         Map<String, String> relations = new HashMap<>();
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        factory.setNamespaceAware(true);
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document doc = builder.parse(relPath.toFile());
         NodeList relationshipNodes = doc.getElementsByTagName("Relationship");
         for (int i = 0; i < relationshipNodes.getLength(); i++) {
             Node node = relationshipNodes.item(i);
@@ -502,39 +578,4 @@ public class ScanPPTImageInfoUtil {
         }
         return relations;
     }
-
-    private static Path getProjectTempDir() throws IOException {
-        Path projectRoot = Paths.get(System.getProperty("user.dir"));
-        Path tempDir = projectRoot.resolve("temp");
-        if (!Files.exists(tempDir)) Files.createDirectories(tempDir);
-        return tempDir;
-    }
-
-    private static Path createTempDirInProject(String prefix) throws IOException {
-        Path projectTempDir = getProjectTempDir();
-        String dirName = prefix + System.currentTimeMillis() + "_" + Thread.currentThread().getId();
-        Path tempDir = projectTempDir.resolve(dirName);
-        Files.createDirectories(tempDir);
-        return tempDir;
-    }
-
-    private static void cleanTempDirectory(Path tempDir) {
-        try {
-            Files.walkFileTree(tempDir, new SimpleFileVisitor<Path>() {
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                    Files.delete(file);
-                    return FileVisitResult.CONTINUE;
-                }
-
-                @Override
-                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
-                    Files.delete(dir);
-                    return FileVisitResult.CONTINUE;
-                }
-            });
-        } catch (IOException e) {
-            System.err.println("清理临时目录时出错: " + e.getMessage());
-        }
-    }
 }
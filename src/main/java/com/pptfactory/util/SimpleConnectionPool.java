@@ -0,0 +1,207 @@
+package com.pptfactory.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 简单的 JDBC 连接池
+ *
+ * 按需创建连接，最多 maxSize 个；getConnection() 返回的连接调用 close() 时归还到池中而不是真正关闭，
+ * 因此可以直接用 try-with-resources。归还时会回滚未提交的事务并恢复 autoCommit。
+ * 池中所有连接都在使用时，getConnection() 最多等待 timeoutMillis，超时抛出 SQLException。
+ *
+ * 只用于本项目的批量入库工具，不追求通用连接池的全部功能（空闲回收、监控等）。
+ */
+public class SimpleConnectionPool implements AutoCloseable {
+
+    private final String url;
+    private final String user;
+    private final String pass;
+    private final int maxSize;
+    private final long timeoutMillis;
+
+    private final BlockingQueue<Connection> idle;
+    private final List<Connection> all = new ArrayList<>();
+    private final AtomicInteger created = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    public SimpleConnectionPool(String url, String user, String pass, int maxSize) {
+        this(url, user, pass, maxSize, 30_000L);
+    }
+
+    public SimpleConnectionPool(String url, String user, String pass, int maxSize, long timeoutMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("连接池大小必须大于0: " + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.pass = pass;
+        this.maxSize = maxSize;
+        this.timeoutMillis = timeoutMillis;
+        this.idle = new ArrayBlockingQueue<>(maxSize);
+    }
+
+    /**
+     * 借出一个连接，用完后调用 close() 归还
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("连接池已关闭");
+        }
+
+        Connection conn = idle.poll();
+        if (conn == null) {
+            conn = tryCreate();
+        }
+        if (conn == null) {
+            try {
+                conn = idle.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("等待数据库连接时被中断", e);
+            }
+            if (conn == null) {
+                throw new SQLException("等待数据库连接超时（" + timeoutMillis + " ms，连接池大小 " + maxSize + "）");
+            }
+        }
+
+        // 连接失效时丢弃并重建
+        if (!isUsable(conn)) {
+            discard(conn);
+            conn = tryCreate();
+            if (conn == null) {
+                throw new SQLException("无法创建新的数据库连接");
+            }
+        }
+        return wrap(conn);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * 当前已创建的物理连接数
+     */
+    public int getCreatedCount() {
+        return created.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (all) {
+            for (Connection c : all) {
+                try {
+                    c.close();
+                } catch (SQLException ignored) {
+                }
+            }
+            all.clear();
+        }
+        idle.clear();
+    }
+
+    private Connection tryCreate() throws SQLException {
+        while (true) {
+            int n = created.get();
+            if (n >= maxSize) {
+                return null;
+            }
+            if (created.compareAndSet(n, n + 1)) {
+                break;
+            }
+        }
+        try {
+            Connection conn = DriverManager.getConnection(url, user, pass);
+            synchronized (all) {
+                all.add(conn);
+            }
+            return conn;
+        } catch (SQLException e) {
+            created.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private static boolean isUsable(Connection conn) {
+        try {
+            return !conn.isClosed() && conn.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(Connection conn) {
+        synchronized (all) {
+            all.remove(conn);
+        }
+        created.decrementAndGet();
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private void release(Connection conn) {
+        if (closed) {
+            discard(conn);
+            return;
+        }
+        try {
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            discard(conn);
+            return;
+        }
+        if (!idle.offer(conn)) {
+            discard(conn);
+        }
+    }
+
+    /**
+     * 用动态代理包装物理连接：close() 改为归还，其它方法原样转发
+     */
+    private Connection wrap(Connection conn) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean returned = false;
+
+            @Override
+            public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                if ("close".equals(name)) {
+                    if (!returned) {
+                        returned = true;
+                        release(conn);
+                    }
+                    return null;
+                }
+                if ("isClosed".equals(name)) {
+                    return returned || conn.isClosed();
+                }
+                if (returned) {
+                    throw new SQLException("连接已归还到连接池");
+                }
+                try {
+                    return method.invoke(conn, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+    }
+}
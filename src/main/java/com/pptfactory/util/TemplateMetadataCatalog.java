@@ -0,0 +1,320 @@
+package com.pptfactory.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * 模板元信息目录（内存索引）
+ *
+ * 启动时一次性读取 templates/metadata/*.json 以及各类型目录 templates/type_xxx/metadata/*.json，
+ * 之后所有查询都走内存中的索引，不再反复创建 ObjectMapper、读文件：
+ * - 按 template_id 查询（通用模板；类型模板用 "类型/模板ID"，例如 "purchase/T002"）
+ * - 按 layout_type 查询
+ * - 按占位符类型查询（包含某种占位符的模板）
+ * - 按占位符组成（各类型的数量，例如 heading×2、body_text×2、image×1）精确查询，
+ *   供后续按版面结构挑选模板使用
+ *
+ * 使用方法：
+ * TemplateMetadataCatalog catalog = TemplateMetadataCatalog.getDefault();
+ * int pageIndex = catalog.getPageIndex("T003");
+ */
+public class TemplateMetadataCatalog {
+
+    private static final String PROJECT_ROOT = System.getProperty("user.dir");
+    private static final String TEMPLATES_DIR = PROJECT_ROOT + "/templates";
+    private static final String TYPE_DIR_PREFIX = "type_";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static volatile TemplateMetadataCatalog defaultCatalog;
+
+    private final String templatesDir;
+    private final Map<String, TemplateMetadata> byId = new LinkedHashMap<>();
+    private final Map<String, List<TemplateMetadata>> byLayoutType = new HashMap<>();
+    private final Map<String, List<TemplateMetadata>> byPlaceholderType = new HashMap<>();
+    private final Map<String, List<TemplateMetadata>> byPlaceholderShape = new HashMap<>();
+
+    /**
+     * 单个模板的元信息（只读）
+     */
+    public static class TemplateMetadata {
+        private final String templateId;
+        private final String templateType;
+        private final int pageIndex;
+        private final String layoutType;
+        private final Map<String, Integer> placeholderCounts;
+        private final Map<String, Object> raw;
+        private final String sourceFile;
+
+        TemplateMetadata(String templateId, String templateType, int pageIndex, String layoutType,
+                         Map<String, Integer> placeholderCounts, Map<String, Object> raw, String sourceFile) {
+            this.templateId = templateId;
+            this.templateType = templateType;
+            this.pageIndex = pageIndex;
+            this.layoutType = layoutType;
+            this.placeholderCounts = Collections.unmodifiableMap(placeholderCounts);
+            this.raw = Collections.unmodifiableMap(raw);
+            this.sourceFile = sourceFile;
+        }
+
+        public String getTemplateId() { return templateId; }
+        /** 模板类型，通用模板为空字符串，templates/type_purchase 下的为 "purchase" */
+        public String getTemplateType() { return templateType; }
+        /** 模板页在 master_template.pptx 中的页码（从1开始），元信息中没有时为 -1 */
+        public int getPageIndex() { return pageIndex; }
+        public String getLayoutType() { return layoutType; }
+        /** 占位符类型 -> 数量（按类型名排序） */
+        public Map<String, Integer> getPlaceholderCounts() { return placeholderCounts; }
+        /** 原始 JSON 内容 */
+        public Map<String, Object> getRaw() { return raw; }
+        public String getSourceFile() { return sourceFile; }
+
+        /** 目录中的键："T003" 或 "purchase/T002" */
+        public String getKey() {
+            return templateType.isEmpty() ? templateId : templateType + "/" + templateId;
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "(page_index=" + pageIndex + ", layout_type=" + layoutType + ", placeholders=" + placeholderCounts + ")";
+        }
+    }
+
+    /**
+     * 主方法：打印目录内容
+     */
+    public static void main(String[] args) {
+        try {
+            TemplateMetadataCatalog catalog = args.length > 0 ? load(args[0]) : getDefault();
+            System.out.println("=== 模板元信息目录: " + catalog.templatesDir + " ===");
+            for (TemplateMetadata m : catalog.getAll()) {
+                System.out.println("  " + m);
+            }
+            System.out.println("✓ 共 " + catalog.size() + " 个模板");
+        } catch (Exception e) {
+            System.err.println("错误: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 获取项目 templates 目录的默认目录（首次调用时加载，之后复用）
+     */
+    public static TemplateMetadataCatalog getDefault() throws Exception {
+        TemplateMetadataCatalog catalog = defaultCatalog;
+        if (catalog == null) {
+            synchronized (TemplateMetadataCatalog.class) {
+                catalog = defaultCatalog;
+                if (catalog == null) {
+                    catalog = load(TEMPLATES_DIR);
+                    defaultCatalog = catalog;
+                }
+            }
+        }
+        return catalog;
+    }
+
+    /**
+     * 重新加载默认目录（元信息文件有修改时调用）
+     */
+    public static synchronized TemplateMetadataCatalog reloadDefault() throws Exception {
+        defaultCatalog = load(TEMPLATES_DIR);
+        return defaultCatalog;
+    }
+
+    /**
+     * 从指定的 templates 目录加载目录
+     *
+     * @param templatesDir templates 目录（其下的 metadata 和 type_xxx/metadata 会被读取）
+     * @return 加载好的目录
+     */
+    public static TemplateMetadataCatalog load(String templatesDir) throws Exception {
+        TemplateMetadataCatalog catalog = new TemplateMetadataCatalog(templatesDir);
+        catalog.loadDirectory(new File(templatesDir, "metadata"), "");
+
+        File[] typeDirs = new File(templatesDir).listFiles(f -> f.isDirectory() && f.getName().startsWith(TYPE_DIR_PREFIX));
+        if (typeDirs != null) {
+            Arrays.sort(typeDirs, Comparator.comparing(File::getName));
+            for (File typeDir : typeDirs) {
+                String type = typeDir.getName().substring(TYPE_DIR_PREFIX.length());
+                catalog.loadDirectory(new File(typeDir, "metadata"), type);
+            }
+        }
+        return catalog;
+    }
+
+    private TemplateMetadataCatalog(String templatesDir) {
+        this.templatesDir = templatesDir;
+    }
+
+    private void loadDirectory(File metadataDir, String templateType) {
+        File[] files = metadataDir.listFiles((d, name) -> name.endsWith(".json"));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        for (File file : files) {
+            try {
+                Map<String, Object> raw = MAPPER.readValue(file, new TypeReference<Map<String, Object>>() {});
+                add(parse(file, raw, templateType));
+            } catch (Exception e) {
+                System.err.println("警告：读取元信息文件失败 " + file.getPath() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TemplateMetadata parse(File file, Map<String, Object> raw, String templateType) {
+        String fileId = file.getName().substring(0, file.getName().length() - ".json".length());
+        Object idObj = raw.get("template_id");
+        String templateId = idObj != null && !idObj.toString().isBlank() ? idObj.toString() : fileId;
+
+        int pageIndex = -1;
+        Object pageIndexObj = raw.get("page_index");
+        if (pageIndexObj instanceof Number) {
+            pageIndex = ((Number) pageIndexObj).intValue();
+        } else if (pageIndexObj != null) {
+            try {
+                pageIndex = Integer.parseInt(pageIndexObj.toString().trim());
+            } catch (NumberFormatException e) {
+                System.err.println("警告：page_index 不是数字 " + file.getPath() + ": " + pageIndexObj);
+            }
+        }
+
+        Object layoutObj = raw.get("layout_type");
+        String layoutType = layoutObj == null ? "" : layoutObj.toString();
+
+        Map<String, Integer> counts = new TreeMap<>();
+        Object placeholders = raw.get("placeholders");
+        if (placeholders instanceof List) {
+            for (Object p : (List<Object>) placeholders) {
+                if (p instanceof Map) {
+                    Object type = ((Map<String, Object>) p).get("type");
+                    if (type != null) {
+                        counts.merge(type.toString(), 1, Integer::sum);
+                    }
+                }
+            }
+        }
+
+        return new TemplateMetadata(templateId, templateType, pageIndex, layoutType, counts, raw, file.getPath());
+    }
+
+    private void add(TemplateMetadata m) {
+        TemplateMetadata previous = byId.put(m.getKey(), m);
+        if (previous != null) {
+            System.err.println("警告：模板ID重复 " + m.getKey() + "，" + m.getSourceFile() + " 覆盖 " + previous.getSourceFile());
+            removeFromIndex(byLayoutType, previous);
+            removeFromIndex(byPlaceholderType, previous);
+            removeFromIndex(byPlaceholderShape, previous);
+        }
+        if (!m.getLayoutType().isEmpty()) {
+            byLayoutType.computeIfAbsent(m.getLayoutType(), k -> new ArrayList<>()).add(m);
+        }
+        for (String type : m.getPlaceholderCounts().keySet()) {
+            byPlaceholderType.computeIfAbsent(type, k -> new ArrayList<>()).add(m);
+        }
+        byPlaceholderShape.computeIfAbsent(shapeKey(m.getPlaceholderCounts()), k -> new ArrayList<>()).add(m);
+    }
+
+    private static void removeFromIndex(Map<String, List<TemplateMetadata>> index, TemplateMetadata m) {
+        for (List<TemplateMetadata> list : index.values()) {
+            list.remove(m);
+        }
+    }
+
+    /**
+     * 占位符组成的规范化键，例如 body_text:2,heading:2,image:1
+     */
+    private static String shapeKey(Map<String, Integer> counts) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Integer> e : new TreeMap<>(counts).entrySet()) {
+            if (e.getValue() == null || e.getValue() <= 0) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(e.getKey()).append(':').append(e.getValue());
+        }
+        return sb.toString();
+    }
+
+    // ---------------------- 查询 ----------------------
+
+    public int size() {
+        return byId.size();
+    }
+
+    public Collection<TemplateMetadata> getAll() {
+        return Collections.unmodifiableCollection(byId.values());
+    }
+
+    /**
+     * 按目录键查询："T003"（通用模板）或 "purchase/T002"（类型模板），不存在时返回 null
+     */
+    public TemplateMetadata get(String key) {
+        return byId.get(key);
+    }
+
+    /**
+     * 按模板类型和模板ID查询，templateType 为空时查询通用模板
+     */
+    public TemplateMetadata get(String templateType, String templateId) {
+        if (templateType == null || templateType.isEmpty()) {
+            return byId.get(templateId);
+        }
+        return byId.get(templateType + "/" + templateId);
+    }
+
+    /**
+     * 获取模板页的 page_index
+     *
+     * @param templateId 模板页编号（例如 T003，或 purchase/T002）
+     * @return page_index（从1开始）
+     */
+    public int getPageIndex(String templateId) {
+        TemplateMetadata m = byId.get(templateId);
+        if (m == null) {
+            throw new RuntimeException("元信息文件不存在: " + templatesDir + "/metadata/" + templateId + ".json");
+        }
+        if (m.getPageIndex() < 0) {
+            throw new RuntimeException("元信息文件中没有找到 page_index: " + m.getSourceFile());
+        }
+        return m.getPageIndex();
+    }
+
+    public List<TemplateMetadata> findByLayoutType(String layoutType) {
+        return Collections.unmodifiableList(byLayoutType.getOrDefault(layoutType, Collections.emptyList()));
+    }
+
+    /**
+     * 查询包含指定类型占位符的模板
+     */
+    public List<TemplateMetadata> findByPlaceholderType(String placeholderType) {
+        return Collections.unmodifiableList(byPlaceholderType.getOrDefault(placeholderType, Collections.emptyList()));
+    }
+
+    /**
+     * 查询占位符组成与给定数量完全一致的模板，例如 {section_title=1, heading=2, body_text=2, image=1}
+     */
+    public List<TemplateMetadata> findByPlaceholderCounts(Map<String, Integer> counts) {
+        return Collections.unmodifiableList(byPlaceholderShape.getOrDefault(shapeKey(counts), Collections.emptyList()));
+    }
+
+    /**
+     * 查询至少包含 minCount 个指定类型占位符的模板
+     */
+    public List<TemplateMetadata> findByMinPlaceholderCount(String placeholderType, int minCount) {
+        List<TemplateMetadata> result = new ArrayList<>();
+        for (TemplateMetadata m : byPlaceholderType.getOrDefault(placeholderType, Collections.emptyList())) {
+            if (m.getPlaceholderCounts().getOrDefault(placeholderType, 0) >= minCount) {
+                result.add(m);
+            }
+        }
+        return result;
+    }
+}
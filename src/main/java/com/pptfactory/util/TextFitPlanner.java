@@ -0,0 +1,378 @@
+package com.pptfactory.util;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 渲染前的文本排版预检
+ *
+ * 在拷贝幻灯片之前，直接读取模板包中每个模板页的 slide XML：
+ * 1. 找出包含文本映射键（模板占位文字）的文本框，按映射替换后得到最终文本
+ * 2. 文本框大小取自 a:xfrm（扣除 a:bodyPr 内边距），字体取自 a:rPr 的 a:ea / a:latin
+ * 3. 字号范围：按位置匹配模板元信息中的占位符（bbox 重叠最多的非图片占位符），取其 font_size；
+ *    字号上限不超过模板原字号；元信息没有范围时取 [原字号 * MIN_SCALE, 原字号]
+ * 4. 用 TextFitter 选出能放下的最大字号，最小字号仍放不下的标记为溢出
+ *
+ * 预检结果在替换文本时通过 applyToSlide() 写回各文本框的 sz，溢出在渲染前就能发现，
+ * 不需要渲染后再打开检查、手工调整。
+ */
+public class TextFitPlanner {
+
+    static final String A_NS = "http://schemas.openxmlformats.org/drawingml/2006/main";
+    static final String P_NS = "http://schemas.openxmlformats.org/presentationml/2006/main";
+    private static final double EMU_PER_POINT = 12700.0;
+    private static final double DEFAULT_FONT_SIZE = 18.0;
+    private static final double MIN_FONT_SIZE = 10.0;
+    private static final double MIN_SCALE = 0.6;
+
+    /**
+     * 一个文本框的排版结果
+     */
+    public static class ShapeFit {
+        public final String shapeId;
+        public final String placeholderType;
+        public final double templateFontSize;
+        public final TextFitter.FitResult result;
+
+        ShapeFit(String shapeId, String placeholderType, double templateFontSize, TextFitter.FitResult result) {
+            this.shapeId = shapeId;
+            this.placeholderType = placeholderType;
+            this.templateFontSize = templateFontSize;
+            this.result = result;
+        }
+
+        /**
+         * 是否需要改写字号（与模板字号相差不到半磅时保持原样）
+         */
+        public boolean needsResize() {
+            return Math.abs(result.fontSize - templateFontSize) >= 0.5;
+        }
+    }
+
+    /**
+     * 整份PPT的预检结果：输出页码（从1开始）-> 各文本框排版结果
+     */
+    public static class Plan {
+        final Map<Integer, List<ShapeFit>> byPage = new LinkedHashMap<>();
+
+        public List<ShapeFit> getPage(int pageNumber) {
+            return byPage.getOrDefault(pageNumber, new ArrayList<>());
+        }
+
+        public List<String> getOverflows() {
+            List<String> overflows = new ArrayList<>();
+            for (Map.Entry<Integer, List<ShapeFit>> e : byPage.entrySet()) {
+                for (ShapeFit fit : e.getValue()) {
+                    if (fit.result.overflow) {
+                        overflows.add("第 " + e.getKey() + " 页 文本框 " + fit.shapeId
+                                + (fit.placeholderType != null ? "（" + fit.placeholderType + "）" : "") + ": " + fit.result);
+                    }
+                }
+            }
+            return overflows;
+        }
+
+        public int getResizeCount() {
+            int count = 0;
+            for (List<ShapeFit> fits : byPage.values()) {
+                for (ShapeFit fit : fits) {
+                    if (fit.needsResize()) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        /**
+         * 把本页选定的字号写回 slide XML（按 p:cNvPr 的 id 定位文本框）
+         *
+         * @return 是否有改动
+         */
+        public boolean applyToSlide(Document slide, int pageNumber) {
+            Map<String, ShapeFit> fits = new LinkedHashMap<>();
+            for (ShapeFit fit : getPage(pageNumber)) {
+                if (fit.needsResize()) {
+                    fits.put(fit.shapeId, fit);
+                }
+            }
+            if (fits.isEmpty()) {
+                return false;
+            }
+            boolean changed = false;
+            NodeList shapes = slide.getElementsByTagNameNS(P_NS, "sp");
+            for (int i = 0; i < shapes.getLength(); i++) {
+                Element sp = (Element) shapes.item(i);
+                ShapeFit fit = fits.get(shapeId(sp));
+                Element txBody = firstChild(sp, P_NS, "txBody");
+                if (fit == null || txBody == null) {
+                    continue;
+                }
+                setFontSize(txBody, fit.result.fontSize);
+                changed = true;
+            }
+            return changed;
+        }
+    }
+
+    private TextFitPlanner() {
+    }
+
+    /**
+     * 预检整份PPT
+     *
+     * @param template 模板包
+     * @param pageIndices 每个输出页对应的模板页（从1开始）
+     * @param mappings 每个输出页的映射（含 模板页编号、文本映射）
+     * @param catalog 模板元信息目录，可为 null（此时只按模板原字号收缩）
+     */
+    @SuppressWarnings("unchecked")
+    public static Plan plan(OOXMLSlideCopier.TemplatePackage template, List<Integer> pageIndices,
+                            List<Map<String, Object>> mappings, TemplateMetadataCatalog catalog) throws Exception {
+        Plan plan = new Plan();
+        double[] slideSize = slideSize(template);
+        for (int i = 0; i < mappings.size() && i < pageIndices.size(); i++) {
+            Map<String, Object> mapping = mappings.get(i);
+            Object textMapping = mapping.get("文本映射");
+            if (!(textMapping instanceof Map) || ((Map<?, ?>) textMapping).isEmpty()) {
+                continue;
+            }
+            Object templateId = mapping.get("模板页编号");
+            List<Map<String, Object>> placeholders = placeholdersOf(
+                    catalog != null && templateId != null ? catalog.get(templateId.toString()) : null);
+            byte[] slideXml = template.getPart(template.getSlidePart(pageIndices.get(i)));
+            plan.byPage.put(i + 1, planSlide(parse(slideXml), (Map<String, Object>) textMapping, placeholders, slideSize));
+        }
+        return plan;
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Map<String, Object>> placeholdersOf(TemplateMetadataCatalog.TemplateMetadata metadata) {
+        List<Map<String, Object>> placeholders = new ArrayList<>();
+        if (metadata != null && metadata.getRaw().get("placeholders") instanceof List) {
+            for (Object p : (List<Object>) metadata.getRaw().get("placeholders")) {
+                if (p instanceof Map) {
+                    placeholders.add((Map<String, Object>) p);
+                }
+            }
+        }
+        return placeholders;
+    }
+
+    private static List<ShapeFit> planSlide(Document slide, Map<String, Object> textMapping,
+                                            List<Map<String, Object>> placeholders, double[] slideSize) {
+        List<ShapeFit> fits = new ArrayList<>();
+        NodeList shapes = slide.getElementsByTagNameNS(P_NS, "sp");
+        for (int i = 0; i < shapes.getLength(); i++) {
+            Element sp = (Element) shapes.item(i);
+            Element txBody = firstChild(sp, P_NS, "txBody");
+            Element xfrm = descendant(sp, A_NS, "xfrm");
+            if (txBody == null || xfrm == null) {
+                continue;
+            }
+            String original = shapeText(txBody);
+            String text = original;
+            for (Map.Entry<String, Object> e : textMapping.entrySet()) {
+                if (e.getValue() != null && text.contains(e.getKey())) {
+                    text = text.replace(e.getKey(), e.getValue().toString());
+                }
+            }
+            if (text.equals(original)) {
+                continue;
+            }
+
+            Element off = firstChild(xfrm, A_NS, "off");
+            Element ext = firstChild(xfrm, A_NS, "ext");
+            if (off == null || ext == null) {
+                continue;
+            }
+            double x = emu(off, "x"), y = emu(off, "y"), cx = emu(ext, "cx"), cy = emu(ext, "cy");
+            Element bodyPr = firstChild(txBody, A_NS, "bodyPr");
+            double width = cx - inset(bodyPr, "lIns", 91440) - inset(bodyPr, "rIns", 91440);
+            double height = cy - inset(bodyPr, "tIns", 45720) - inset(bodyPr, "bIns", 45720);
+            if (width <= 0 || height <= 0) {
+                continue;
+            }
+
+            double templateSize = templateFontSize(txBody);
+            Map<String, Object> placeholder = matchPlaceholder(placeholders, x / slideSize[0], y / slideSize[1],
+                    cx / slideSize[0], cy / slideSize[1]);
+            double[] range = placeholder != null ? TextFitter.parseRange(placeholder.get("font_size")) : null;
+            double min;
+            double max;
+            if (range != null) {
+                min = range[0];
+                max = Math.max(range[0], Math.min(range[1], templateSize));
+            } else {
+                max = templateSize;
+                min = Math.min(max, Math.max(MIN_FONT_SIZE, templateSize * MIN_SCALE));
+            }
+
+            TextFitter.FitResult result = TextFitter.fit(text, width / EMU_PER_POINT, height / EMU_PER_POINT, min, max,
+                    typeface(txBody, "ea"), typeface(txBody, "latin"));
+            fits.add(new ShapeFit(shapeId(sp), placeholder != null ? String.valueOf(placeholder.get("type")) : null,
+                    templateSize, result));
+        }
+        return fits;
+    }
+
+    /**
+     * 与文本框重叠面积最大的非图片占位符（bbox 为相对页面的 [x, y, w, h]），没有重叠时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> matchPlaceholder(List<Map<String, Object>> placeholders,
+                                                        double x, double y, double w, double h) {
+        Map<String, Object> best = null;
+        double bestOverlap = 0;
+        for (Map<String, Object> p : placeholders) {
+            if ("image".equals(p.get("type")) || !(p.get("bbox") instanceof List)) {
+                continue;
+            }
+            List<Object> bbox = (List<Object>) p.get("bbox");
+            if (bbox.size() < 4) {
+                continue;
+            }
+            double px = ((Number) bbox.get(0)).doubleValue(), py = ((Number) bbox.get(1)).doubleValue();
+            double pw = ((Number) bbox.get(2)).doubleValue(), ph = ((Number) bbox.get(3)).doubleValue();
+            double ox = Math.min(x + w, px + pw) - Math.max(x, px);
+            double oy = Math.min(y + h, py + ph) - Math.max(y, py);
+            if (ox > 0 && oy > 0 && ox * oy > bestOverlap) {
+                bestOverlap = ox * oy;
+                best = p;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 文本框的全部文本，段落之间用 \n 分隔
+     */
+    private static String shapeText(Element txBody) {
+        StringBuilder sb = new StringBuilder();
+        NodeList paragraphs = txBody.getElementsByTagNameNS(A_NS, "p");
+        for (int i = 0; i < paragraphs.getLength(); i++) {
+            if (i > 0) {
+                sb.append('\n');
+            }
+            NodeList texts = ((Element) paragraphs.item(i)).getElementsByTagNameNS(A_NS, "t");
+            for (int j = 0; j < texts.getLength(); j++) {
+                sb.append(texts.item(j).getTextContent());
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 模板原字号：取第一个带 sz 的 a:rPr / a:endParaRPr / a:defRPr（单位为百分之一磅）
+     */
+    private static double templateFontSize(Element txBody) {
+        for (String tag : new String[] {"rPr", "endParaRPr", "defRPr"}) {
+            NodeList list = txBody.getElementsByTagNameNS(A_NS, tag);
+            for (int i = 0; i < list.getLength(); i++) {
+                String sz = ((Element) list.item(i)).getAttribute("sz");
+                if (!sz.isEmpty()) {
+                    try {
+                        return Integer.parseInt(sz) / 100.0;
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+            }
+        }
+        return DEFAULT_FONT_SIZE;
+    }
+
+    /**
+     * 第一个 a:rPr 中的字体（a:ea / a:latin），主题字体引用（+mn-ea 等）返回 null
+     */
+    private static String typeface(Element txBody, String tag) {
+        NodeList list = txBody.getElementsByTagNameNS(A_NS, tag);
+        for (int i = 0; i < list.getLength(); i++) {
+            String face = ((Element) list.item(i)).getAttribute("typeface");
+            if (!face.isEmpty() && !face.startsWith("+")) {
+                return face;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 把文本框内所有文本部分的字号设为 size（a:r 缺少 a:rPr 时补上），并去掉自动缩放比例
+     */
+    private static void setFontSize(Element txBody, double size) {
+        String sz = String.valueOf(Math.round(size * 100));
+        NodeList runs = txBody.getElementsByTagNameNS(A_NS, "r");
+        for (int i = 0; i < runs.getLength(); i++) {
+            Element run = (Element) runs.item(i);
+            Element rPr = firstChild(run, A_NS, "rPr");
+            if (rPr == null) {
+                rPr = run.getOwnerDocument().createElementNS(A_NS, "a:rPr");
+                run.insertBefore(rPr, run.getFirstChild());
+            }
+            rPr.setAttribute("sz", sz);
+        }
+        NodeList ends = txBody.getElementsByTagNameNS(A_NS, "endParaRPr");
+        for (int i = 0; i < ends.getLength(); i++) {
+            ((Element) ends.item(i)).setAttribute("sz", sz);
+        }
+        Element bodyPr = firstChild(txBody, A_NS, "bodyPr");
+        Element normAutofit = bodyPr != null ? firstChild(bodyPr, A_NS, "normAutofit") : null;
+        if (normAutofit != null) {
+            normAutofit.removeAttribute("fontScale");
+            normAutofit.removeAttribute("lnSpcReduction");
+        }
+    }
+
+    static double[] slideSize(OOXMLSlideCopier.TemplatePackage template) throws Exception {
+        Element sldSz = descendant(parse(template.getPart("ppt/presentation.xml")).getDocumentElement(), P_NS, "sldSz");
+        if (sldSz == null) {
+            return new double[] {12192000, 6858000};
+        }
+        return new double[] {emu(sldSz, "cx"), emu(sldSz, "cy")};
+    }
+
+    private static String shapeId(Element sp) {
+        Element cNvPr = descendant(sp, P_NS, "cNvPr");
+        return cNvPr != null ? cNvPr.getAttribute("id") : "";
+    }
+
+    static double emu(Element e, String attr) {
+        String v = e.getAttribute(attr);
+        return v.isEmpty() ? 0 : Double.parseDouble(v);
+    }
+
+    private static double inset(Element bodyPr, String attr, double defaultValue) {
+        if (bodyPr == null || bodyPr.getAttribute(attr).isEmpty()) {
+            return defaultValue;
+        }
+        return Double.parseDouble(bodyPr.getAttribute(attr));
+    }
+
+    static Element firstChild(Element parent, String ns, String localName) {
+        for (Node n = parent.getFirstChild(); n != null; n = n.getNextSibling()) {
+            if (n instanceof Element && ns.equals(n.getNamespaceURI()) && localName.equals(n.getLocalName())) {
+                return (Element) n;
+            }
+        }
+        return null;
+    }
+
+    static Element descendant(Element parent, String ns, String localName) {
+        NodeList list = parent.getElementsByTagNameNS(ns, localName);
+        return list.getLength() > 0 ? (Element) list.item(0) : null;
+    }
+
+    static Document parse(byte[] xml) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+    }
+}
@@ -0,0 +1,241 @@
+package com.pptfactory.util;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 基于字体度量的文本排版估算
+ *
+ * 按字形宽度把文本折行，估算在给定文本框内需要的行数和高度，并在字号范围内选出能放下的最大字号。
+ * - 字形宽度按（字体, 字符）缓存，单位为 em（字号为1时的宽度），同一字体的同一字符只测量一次
+ * - 中日韩字符可以在任意字符间折行，西文按单词折行；句末标点不放到行首
+ * - 字体未安装或不含该字符时按经验宽度估算：全角字符 1em，其余 0.55em
+ *
+ * 行高按字号的 LINE_SPACING 倍估算（PowerPoint 单倍行距约为 1.2 倍字号）。
+ */
+public class TextFitter {
+
+    public static final double LINE_SPACING = 1.2;
+    public static final String DEFAULT_EA_FONT = "Microsoft YaHei";
+    public static final String DEFAULT_LATIN_FONT = "Arial";
+
+    /**
+     * 字号搜索步长（点）
+     */
+    private static final double SIZE_STEP = 0.5;
+    private static final float REFERENCE_SIZE = 100f;
+    private static final double FALLBACK_WIDE = 1.0;
+    private static final double FALLBACK_NARROW = 0.55;
+    private static final String NO_LINE_START = "，。、；：！？）》」』】〉,.;:!?)]}%";
+
+    private static final Pattern RANGE_PATTERN = Pattern.compile("(\\d+(?:\\.\\d+)?)(?:\\s*[-~～]\\s*(\\d+(?:\\.\\d+)?))?");
+    private static final FontRenderContext FRC = new FontRenderContext(null, true, true);
+    private static final Map<String, Font> FONTS = new ConcurrentHashMap<>();
+    private static final Map<String, Map<Integer, Double>> ADVANCES = new ConcurrentHashMap<>();
+
+    private TextFitter() {
+    }
+
+    /**
+     * 排版结果
+     */
+    public static class FitResult {
+        public final double fontSize;
+        public final int lines;
+        public final double requiredHeight;
+        public final double availableHeight;
+        public final boolean overflow;
+
+        FitResult(double fontSize, int lines, double requiredHeight, double availableHeight, boolean overflow) {
+            this.fontSize = fontSize;
+            this.lines = lines;
+            this.requiredHeight = requiredHeight;
+            this.availableHeight = availableHeight;
+            this.overflow = overflow;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("字号 %.1f，%d 行，需要高度 %.1f / 可用 %.1f%s",
+                    fontSize, lines, requiredHeight, availableHeight, overflow ? "（溢出）" : "");
+        }
+    }
+
+    /**
+     * 在 [minSize, maxSize] 内选出能放进文本框的最大字号；最小字号仍放不下时返回最小字号并标记溢出
+     *
+     * @param text 文本（\n 为段落分隔）
+     * @param width 文本框可用宽度（点）
+     * @param height 文本框可用高度（点）
+     * @param eaFont 中日韩字体，null 使用默认
+     * @param latinFont 西文字体，null 使用默认
+     */
+    public static FitResult fit(String text, double width, double height, double minSize, double maxSize,
+                                String eaFont, String latinFont) {
+        if (maxSize < minSize) {
+            maxSize = minSize;
+        }
+        for (double size = maxSize; size >= minSize - 1e-9; size -= SIZE_STEP) {
+            int lines = countLines(text, width, size, eaFont, latinFont);
+            double required = lines * size * LINE_SPACING;
+            if (required <= height) {
+                return new FitResult(size, lines, required, height, false);
+            }
+        }
+        int lines = countLines(text, width, minSize, eaFont, latinFont);
+        return new FitResult(minSize, lines, lines * minSize * LINE_SPACING, height, true);
+    }
+
+    /**
+     * 按字号 size 在宽度 width 内折行后的总行数（每个段落至少一行）
+     */
+    public static int countLines(String text, double width, double size, String eaFont, String latinFont) {
+        if (text == null || text.isEmpty()) {
+            return 1;
+        }
+        double widthEm = width / size;
+        int total = 0;
+        for (String paragraph : text.split("\n", -1)) {
+            total += countParagraphLines(paragraph, widthEm, eaFont, latinFont);
+        }
+        return total;
+    }
+
+    private static int countParagraphLines(String paragraph, double widthEm, String eaFont, String latinFont) {
+        int lines = 1;
+        double lineWidth = 0;
+        int i = 0;
+        while (i < paragraph.length()) {
+            int cp = paragraph.codePointAt(i);
+            int end;
+            if (isWide(cp) || Character.isWhitespace(cp)) {
+                end = i + Character.charCount(cp);
+            } else {
+                // 西文单词作为一个整体，不在单词中间折行
+                end = i;
+                while (end < paragraph.length()) {
+                    int c = paragraph.codePointAt(end);
+                    if (isWide(c) || Character.isWhitespace(c)) {
+                        break;
+                    }
+                    end += Character.charCount(c);
+                }
+            }
+            String token = paragraph.substring(i, end);
+            double tokenWidth = measure(token, eaFont, latinFont);
+
+            if (lineWidth + tokenWidth <= widthEm) {
+                lineWidth += tokenWidth;
+            } else if (lineWidth > 0 && NO_LINE_START.indexOf(token.charAt(0)) >= 0) {
+                // 标点不放到行首，挂在当前行末尾
+                lineWidth += tokenWidth;
+            } else if (Character.isWhitespace(cp)) {
+                // 行末空格不占宽度
+            } else if (tokenWidth > widthEm) {
+                // 单个单词比一行还宽：逐字符折开
+                for (int k = 0; k < token.length(); ) {
+                    int c = token.codePointAt(k);
+                    double w = advance(fontFor(c, eaFont, latinFont), c);
+                    if (lineWidth + w > widthEm && lineWidth > 0) {
+                        lines++;
+                        lineWidth = 0;
+                    }
+                    lineWidth += w;
+                    k += Character.charCount(c);
+                }
+            } else {
+                lines++;
+                lineWidth = tokenWidth;
+            }
+            i = end;
+        }
+        return lines;
+    }
+
+    /**
+     * 文本宽度（em）
+     */
+    public static double measure(String text, String eaFont, String latinFont) {
+        double width = 0;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            width += advance(fontFor(cp, eaFont, latinFont), cp);
+            i += Character.charCount(cp);
+        }
+        return width;
+    }
+
+    /**
+     * 单个字符在指定字体下的宽度（em），按（字体, 字符）缓存
+     */
+    public static double advance(String family, int codePoint) {
+        Map<Integer, Double> byChar = ADVANCES.computeIfAbsent(family, k -> new ConcurrentHashMap<>());
+        Double cached = byChar.get(codePoint);
+        if (cached != null) {
+            return cached;
+        }
+        double value;
+        Font font = FONTS.computeIfAbsent(family, f -> new Font(f, Font.PLAIN, 1).deriveFont(REFERENCE_SIZE));
+        if (font.canDisplay(codePoint)) {
+            GlyphVector gv = font.createGlyphVector(FRC, new String(Character.toChars(codePoint)));
+            value = gv.getGlyphMetrics(0).getAdvance() / REFERENCE_SIZE;
+        } else {
+            value = isWide(codePoint) ? FALLBACK_WIDE : FALLBACK_NARROW;
+        }
+        byChar.put(codePoint, value);
+        return value;
+    }
+
+    /**
+     * 解析元信息中的范围字符串，如 "32-44"、"10-25 chars"、"24"；无法解析时返回 null
+     */
+    public static double[] parseRange(Object value) {
+        if (value == null) {
+            return null;
+        }
+        Matcher m = RANGE_PATTERN.matcher(value.toString());
+        if (!m.find()) {
+            return null;
+        }
+        double min = Double.parseDouble(m.group(1));
+        double max = m.group(2) != null ? Double.parseDouble(m.group(2)) : min;
+        return new double[] {Math.min(min, max), Math.max(min, max)};
+    }
+
+    public static String cacheStats() {
+        int chars = 0;
+        for (Map<Integer, Double> m : ADVANCES.values()) {
+            chars += m.size();
+        }
+        return "字体 " + ADVANCES.size() + " 个，字形宽度 " + chars + " 项";
+    }
+
+    private static String fontFor(int codePoint, String eaFont, String latinFont) {
+        if (isWide(codePoint)) {
+            return eaFont != null ? eaFont : DEFAULT_EA_FONT;
+        }
+        return latinFont != null ? latinFont : DEFAULT_LATIN_FONT;
+    }
+
+    /**
+     * 全角字符：中日韩文字、全角标点和符号
+     */
+    static boolean isWide(int cp) {
+        Character.UnicodeBlock block = Character.UnicodeBlock.of(cp);
+        return block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS
+                || block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_A
+                || block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_B
+                || block == Character.UnicodeBlock.CJK_COMPATIBILITY_IDEOGRAPHS
+                || block == Character.UnicodeBlock.CJK_SYMBOLS_AND_PUNCTUATION
+                || block == Character.UnicodeBlock.HALFWIDTH_AND_FULLWIDTH_FORMS && cp < 0xFF61
+                || block == Character.UnicodeBlock.HIRAGANA
+                || block == Character.UnicodeBlock.KATAKANA
+                || block == Character.UnicodeBlock.HANGUL_SYLLABLES
+                || block == Character.UnicodeBlock.GENERAL_PUNCTUATION && (cp == 0x201C || cp == 0x201D || cp == 0x2018 || cp == 0x2019 || cp == 0x2014 || cp == 0x2026);
+    }
+}
@@ -0,0 +1,117 @@
+package com.pptfactory.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 本地模拟大模型服务（测试用）
+ *
+ * 提供 OpenAI 兼容的 POST /v1/chat/completions 流式接口：把一份固定的 {"slides": [...]} JSON
+ * 切成小段，以 SSE（data: {"choices":[{"delta":{"content":"..."}}]}）逐段输出，
+ * 每一页之间等待 slideDelayMs 毫秒，模拟模型逐页生成的速度；JSON 前后带 ```json 代码块标记。
+ *
+ * 使用方法：
+ * MockModelServer server = MockModelServer.start(20, 100);
+ * ContentGenerator generator = new ContentGenerator("mock", server.getEndpoint(), null);
+ * ...
+ * server.stop();
+ */
+public class MockModelServer {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int CHUNK_SIZE = 16;
+
+    private final HttpServer server;
+    private final int slideCount;
+    private final long slideDelayMs;
+
+    private MockModelServer(int slideCount, long slideDelayMs) throws IOException {
+        this.slideCount = slideCount;
+        this.slideDelayMs = slideDelayMs;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/v1/chat/completions", this::handle);
+        server.setExecutor(null);
+    }
+
+    /**
+     * 在随机端口上启动
+     *
+     * @param slideCount 输出的页数
+     * @param slideDelayMs 每一页的生成耗时（毫秒）
+     */
+    public static MockModelServer start(int slideCount, long slideDelayMs) throws IOException {
+        MockModelServer mock = new MockModelServer(slideCount, slideDelayMs);
+        mock.server.start();
+        return mock;
+    }
+
+    public String getEndpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/chat/completions";
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            in.readAllBytes();
+        }
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            send(out, "```json\n{\"slides\": [");
+            for (int i = 0; i < slideCount; i++) {
+                String slide = MAPPER.writeValueAsString(slide(i));
+                String text = (i > 0 ? ",\n" : "\n") + slide;
+                long pause = slideDelayMs / Math.max(1, (text.length() + CHUNK_SIZE - 1) / CHUNK_SIZE);
+                for (int start = 0; start < text.length(); start += CHUNK_SIZE) {
+                    sleep(pause);
+                    send(out, text.substring(start, Math.min(text.length(), start + CHUNK_SIZE)));
+                }
+            }
+            send(out, "\n]}\n```");
+            out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void send(OutputStream out, String content) throws IOException {
+        ObjectNode event = MAPPER.createObjectNode();
+        event.putArray("choices").addObject().putObject("delta").put("content", content);
+        out.write(("data: " + MAPPER.writeValueAsString(event) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static Map<String, Object> slide(int i) {
+        Map<String, Object> slide = new LinkedHashMap<>();
+        if (i == 0) {
+            slide.put("layout", "title_page");
+            slide.put("title", "安全生产培训");
+            slide.put("subtitle", "模拟模型输出");
+        } else {
+            slide.put("layout", "content_page");
+            slide.put("title", "第 " + (i + 1) + " 页：安全要点");
+            slide.put("bullets", Arrays.asList("遵守操作规程", "正确佩戴防护用品", "发现隐患及时上报"));
+        }
+        return slide;
+    }
+
+    private static void sleep(long ms) throws InterruptedException {
+        if (ms > 0) {
+            Thread.sleep(ms);
+        }
+    }
+}
@@ -3,6 +3,12 @@ package com.pptfactory.ai;
 import java.util.Map;
 import java.util.List;
 import java.util.Locale;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * ContentGenerator 单步调试测试类
@@ -11,6 +17,9 @@ import java.util.Locale;
  * - 内容生成器初始化
  * - 用户输入处理
  * - 结构化内容生成
+ * - 流式生成（连接本地模拟模型服务 MockModelServer，逐页回调、Flow.Publisher 订阅）
+ * - 生成缓存（同样的需求文本第二次生成直接命中磁盘缓存）
+ * - 模板元信息修改后，缓存键中的模板集合指纹随之更新（不需要重启进程）
  * 
  * 使用方法：
  * 1. 在IDE中打开此文件
@@ -63,6 +72,107 @@ public class TestContentGenerator {
                 }
             }
             
+            // 测试4: 流式生成，逐页回调
+            System.out.println("\n[测试4] 流式生成（本地模拟模型服务，20页，每页100ms）...");
+            MockModelServer server = MockModelServer.start(20, 100);
+            File cacheDir = Files.createTempDirectory("llm_cache_").toFile();
+            try {
+                GenerationCache cache = new GenerationCache(cacheDir, 3600_000L, 1024 * 1024);
+                ContentGenerator streaming = new ContentGenerator("mock", server.getEndpoint(), null, cache);
+                long start = System.nanoTime();
+                long[] firstSlideAt = {0};
+                
+                // 设置断点：在 SlideStreamParser.drain 中查看每一页何时解析完成
+                int count = streaming.generateSlides(userInput, (index, slide) -> {
+                    if (index == 0) {
+                        firstSlideAt[0] = System.nanoTime();
+                    }
+                    System.out.println("  收到第 " + (index + 1) + " 页: " + slide.get("title"));
+                });
+                long end = System.nanoTime();
+                System.out.println(String.format("  首页耗时 %.0f ms，全部 %d 页耗时 %.0f ms",
+                        (firstSlideAt[0] - start) / 1e6, count, (end - start) / 1e6));
+                System.out.println("  ✓ 流式回调完成");
+                
+                // 测试5: 同样的需求文本（只有空白不同）再次生成，命中缓存
+                System.out.println("\n[测试5] 再次生成，命中生成缓存...");
+                start = System.nanoTime();
+                int cachedCount = streaming.generateSlides("  " + userInput + "\r\n\r\n", (index, slide) -> { });
+                System.out.println(String.format("  全部 %d 页耗时 %.0f ms", cachedCount, (System.nanoTime() - start) / 1e6));
+                System.out.println("  缓存统计: " + cache.getStats());
+                System.out.println("  ✓ 缓存命中完成");
+                
+                // 测试6: 以 Flow.Publisher 订阅（换一个需求文本，不走缓存）
+                System.out.println("\n[测试6] Flow.Publisher 订阅...");
+                CountDownLatch done = new CountDownLatch(1);
+                AtomicInteger received = new AtomicInteger();
+                streaming.streamSlides(userInput + "（第二版）").subscribe(new Flow.Subscriber<Map<String, Object>>() {
+                    private Flow.Subscription subscription;
+                    
+                    @Override
+                    public void onSubscribe(Flow.Subscription subscription) {
+                        this.subscription = subscription;
+                        subscription.request(1);
+                    }
+                    
+                    @Override
+                    public void onNext(Map<String, Object> slide) {
+                        received.incrementAndGet();
+                        subscription.request(1);
+                    }
+                    
+                    @Override
+                    public void onError(Throwable e) {
+                        System.err.println("  流式生成失败: " + e.getMessage());
+                        done.countDown();
+                    }
+                    
+                    @Override
+                    public void onComplete() {
+                        done.countDown();
+                    }
+                });
+                done.await(30, TimeUnit.SECONDS);
+                System.out.println("  订阅收到 " + received.get() + " 页");
+                System.out.println("  ✓ Flow.Publisher 订阅完成");
+            } finally {
+                server.stop();
+                File[] cached = cacheDir.listFiles();
+                if (cached != null) {
+                    for (File f : cached) {
+                        f.delete();
+                    }
+                }
+                cacheDir.delete();
+            }
+            
+            // 测试7: 修改模板元信息后缓存键随之变化
+            System.out.println("\n[测试7] 修改模板元信息后重新计算模板集合指纹...");
+            File templatesDir = Files.createTempDirectory("templates_").toFile();
+            File metadataDir = new File(templatesDir, "metadata");
+            metadataDir.mkdirs();
+            File metadataFile = new File(metadataDir, "T001.json");
+            try {
+                Files.writeString(metadataFile.toPath(), "{\"layout_type\": \"title_page\", \"placeholders\": [{\"type\": \"title\"}]}");
+                GenerationCache fingerprinted = new GenerationCache(templatesDir, 3600_000L, 1024 * 1024, templatesDir.getPath());
+                String before = fingerprinted.key(userInput, "mock");
+                
+                // 只改说明文字（文件大小变化，占位符结构不变）：重新计算，但缓存键不变
+                Files.writeString(metadataFile.toPath(), "{\"layout_type\": \"title_page\", \"note\": \"封面\", \"placeholders\": [{\"type\": \"title\"}]}");
+                String restyled = fingerprinted.key(userInput, "mock");
+                System.out.println("  只改说明文字后缓存键" + (restyled.equals(before) ? "不变" : "变化（不符合预期）"));
+                
+                // 增加一个图片占位符：缓存键变化
+                Files.writeString(metadataFile.toPath(), "{\"layout_type\": \"title_page\", \"placeholders\": [{\"type\": \"title\"}, {\"type\": \"image\"}]}");
+                String restructured = fingerprinted.key(userInput, "mock");
+                System.out.println("  增加占位符后缓存键" + (restructured.equals(before) ? "不变（不符合预期）" : "变化"));
+                System.out.println("  ✓ 模板集合指纹检查完成");
+            } finally {
+                metadataFile.delete();
+                metadataDir.delete();
+                templatesDir.delete();
+            }
+            
             System.out.println("\n=== 所有测试完成 ===");
             
         } catch (Exception e) {
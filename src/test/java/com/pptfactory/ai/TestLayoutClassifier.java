@@ -1,5 +1,7 @@
 package com.pptfactory.ai;
 
+import com.pptfactory.util.TemplateMetadataCatalog;
+
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
@@ -14,6 +16,7 @@ import java.util.Locale;
  * - 布局分类器初始化
  * - 单个内容布局分类
  * - 批量幻灯片布局分类
+ * - 按模板特征索引匹配模板页（需要在项目根目录运行，读取 templates/metadata）
  * 
  * 使用方法：
  * 1. 在IDE中打开此文件
@@ -105,6 +108,47 @@ public class TestLayoutClassifier {
             
             System.out.println("  ✓ 批量分类完成");
             
+            // 测试6: 按模板特征索引匹配模板页
+            System.out.println("\n[测试6] 按模板特征索引匹配模板页...");
+            TemplateFeatureIndex index = TemplateFeatureIndex.fromDefaultCatalog();
+            LayoutClassifier templateClassifier = new LayoutClassifier(index);
+            System.out.println("  索引模板数量: " + index.size());
+            
+            Map<String, Object> twoParagraphs = new HashMap<>();
+            twoParagraphs.put("title", "安全帽的作用");
+            twoParagraphs.put("subtitle", "个人防护");
+            twoParagraphs.put("image_path", "/path/to/helmet.jpg");
+            List<Map<String, Object>> paragraphs = new ArrayList<>();
+            for (String heading : Arrays.asList("防冲击", "防穿刺")) {
+                Map<String, Object> p = new HashMap<>();
+                p.put("heading", heading);
+                p.put("text", "安全帽能够吸收和分散坠落物体的冲击力，减轻对头部的伤害。");
+                paragraphs.add(p);
+            }
+            twoParagraphs.put("bullets", paragraphs);
+            
+            // 设置断点：在 TemplateFeatureIndex.nearest 中查看内容向量和距离
+            System.out.println("  最接近的模板: " + templateClassifier.classifyTemplate(twoParagraphs));
+            System.out.println("  前3个候选: " + index.nearest(twoParagraphs, 3));
+            
+            // autoClassifySlides 写入的 template_id 是目录键，可直接在模板目录中查到
+            Map<String, Object> indexedData = new HashMap<>();
+            indexedData.put("slides", Arrays.asList(twoParagraphs));
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> indexedSlides = (List<Map<String, Object>>) templateClassifier.autoClassifySlides(indexedData).get("slides");
+            Object templateKey = indexedSlides.get(0).get("template_id");
+            System.out.println("  自动分类写入的 template_id: " + templateKey
+                    + "，目录中" + (templateKey != null && TemplateMetadataCatalog.getDefault().get(templateKey.toString()) != null ? "可以" : "无法") + "查到");
+            
+            List<Map<String, Object>> batch = new ArrayList<>();
+            for (int i = 0; i < 5000; i++) {
+                batch.add(i % 2 == 0 ? twoParagraphs : contentPageContent);
+            }
+            long start = System.nanoTime();
+            List<TemplateFeatureIndex.Match> matches = templateClassifier.classifyTemplates(batch);
+            System.out.println(String.format("  批量匹配 %d 页耗时 %.2f ms", matches.size(), (System.nanoTime() - start) / 1e6));
+            System.out.println("  ✓ 模板匹配完成");
+            
             System.out.println("\n=== 所有测试完成 ===");
             
         } catch (Exception e) {
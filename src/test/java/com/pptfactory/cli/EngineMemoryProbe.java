@@ -0,0 +1,253 @@
+package com.pptfactory.cli;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pptfactory.template.engine.MemoryProfile;
+import com.pptfactory.template.engine.PPTTemplateEngine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.*;
+
+/**
+ * 单个引擎的堆内存占用测量工具
+ *
+ * 在同一个 JVM 中依次用默认配置和低内存配置（MemoryProfile）各创建 N 个引擎，全部保持存活，
+ * 分别在加载模板之后和渲染示例数据之后做完整 GC，用（GC 后的堆使用量 - 基线）/ N 得到每个引擎常驻的堆内存。
+ * 同时给出在给定内存上限下最多能同时存活多少个已渲染的引擎，用于确定 RenderServer 的并发数和每个节点的容器数。
+ *
+ * 注意：
+ * - 测量的是 GC 之后仍然存活的堆内存，不包括渲染和保存过程中的临时分配（峰值会更高，保存时约多一份输出PPT的 XML）
+ * - 低内存配置下落到临时文件的数据不计入堆内存，临时目录占用单独报告（需要用 --temp-dir 指定临时目录）
+ * - 需要在项目根目录运行（按相对路径读取 templates/、config/ 和示例数据）
+ * - 放在测试目录中（不打进发布的 jar），与 GeneratePPT 同包，复用其模板和风格的查找规则
+ *
+ * 使用方法：
+ * java -cp "target/classes:target/test-classes:<classpath>" com.pptfactory.cli.EngineMemoryProbe --engines 4 --limit-mb 2048
+ * 参数：
+ *   --style <style>          风格（默认 safety）
+ *   --template <template>    模板（默认 safety）
+ *   --input <file>           渲染用的 slides.json（默认 examples/safety_slides.json，不存在时只测加载）
+ *   --engines N              每种配置同时存活的引擎数（默认 4）
+ *   --profile default|low|both  测量哪种配置（默认 both）
+ *   --threshold-mb N         低内存配置的内存阈值（默认 8）
+ *   --temp-dir DIR           低内存配置的临时目录（默认系统临时目录，此时不报告临时目录占用）
+ *   --limit-mb N             内存上限，用于估算可同时存活的引擎数（默认为 JVM 最大堆）
+ */
+public class EngineMemoryProbe {
+
+    // 设置Locale为US，避免Aspose.Slides不支持某些Locale格式的问题
+    static {
+        Locale.setDefault(Locale.US);
+    }
+
+    private static final long MB = 1024 * 1024;
+
+    /**
+     * 一种配置的测量结果（字节）
+     */
+    static class Result {
+        final MemoryProfile profile;
+        final int engines;
+        long baseline;
+        long loaded;
+        long rendered;
+        long tempDisk;
+
+        Result(MemoryProfile profile, int engines) {
+            this.profile = profile;
+            this.engines = engines;
+        }
+
+        long perEngineLoaded() {
+            return Math.max(0, loaded - baseline) / engines;
+        }
+
+        long perEngineRendered() {
+            return Math.max(0, rendered - baseline) / engines;
+        }
+    }
+
+    public static void main(String[] args) {
+        String style = "safety";
+        String template = "safety";
+        String input = "examples/safety_slides.json";
+        int engines = 4;
+        String profile = "both";
+        long thresholdMb = MemoryProfile.DEFAULT_THRESHOLD_MB;
+        String tempDir = null;
+        long limitMb = Runtime.getRuntime().maxMemory() / MB;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("参数缺少取值: " + arg);
+                }
+                switch (arg) {
+                    case "--style": style = args[++i]; break;
+                    case "--template": template = args[++i]; break;
+                    case "--input": input = args[++i]; break;
+                    case "--engines": engines = Integer.parseInt(args[++i]); break;
+                    case "--profile": profile = args[++i]; break;
+                    case "--threshold-mb": thresholdMb = Long.parseLong(args[++i]); break;
+                    case "--temp-dir": tempDir = args[++i]; break;
+                    case "--limit-mb": limitMb = Long.parseLong(args[++i]); break;
+                    default: throw new IllegalArgumentException("未知参数: " + arg);
+                }
+            }
+            if (engines < 1) {
+                throw new IllegalArgumentException("--engines 必须大于 0");
+            }
+
+            String templateFile = GeneratePPT.getTemplateFile(template);
+            if (templateFile == null) {
+                templateFile = "templates/default/theme.pptx";
+            }
+            Map<String, Object> slidesData = null;
+            if (new File(input).exists()) {
+                slidesData = new ObjectMapper().readValue(new File(input), new TypeReference<Map<String, Object>>() {});
+            } else {
+                System.out.println("提示：未找到示例数据 " + input + "，只测量加载模板后的内存");
+            }
+
+            List<MemoryProfile> profiles = new ArrayList<>();
+            if (!"low".equals(profile)) {
+                profiles.add(MemoryProfile.DEFAULT);
+            }
+            if (!"default".equals(profile)) {
+                profiles.add(MemoryProfile.lowMemory(thresholdMb, tempDir));
+            }
+
+            // 先完整渲染一次，让类加载、静态缓存和 JIT 不计入第一种配置的测量结果
+            System.out.println("预热...");
+            measure(templateFile, style, slidesData, MemoryProfile.DEFAULT, 1, null);
+
+            List<Result> results = new ArrayList<>();
+            for (MemoryProfile p : profiles) {
+                System.out.println("\n测量: " + p + "，" + engines + " 个引擎");
+                results.add(measure(templateFile, style, slidesData, p, engines, p.isLowMemory() ? tempDir : null));
+            }
+            printReport(results, slidesData != null, limitMb);
+        } catch (Exception e) {
+            System.err.println("错误：" + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 用一种配置创建 count 个引擎并保持存活，测量加载后和渲染后的常驻堆内存
+     */
+    static Result measure(String templateFile, String style, Map<String, Object> slidesData,
+                          MemoryProfile profile, int count, String tempDir) throws IOException {
+        Result result = new Result(profile, count);
+        List<PPTTemplateEngine> live = new ArrayList<>(count);
+        PrintStreamSilencer silencer = new PrintStreamSilencer();
+        try {
+            result.baseline = settledHeap();
+            silencer.silence();
+            for (int i = 0; i < count; i++) {
+                live.add(new PPTTemplateEngine(templateFile, GeneratePPT.getStyleStrategy(style), profile));
+            }
+            silencer.restore();
+            result.loaded = settledHeap();
+
+            if (slidesData != null) {
+                silencer.silence();
+                for (PPTTemplateEngine engine : live) {
+                    engine.renderFromJson(slidesData);
+                }
+                silencer.restore();
+                result.rendered = settledHeap();
+                // 保存一次确认渲染结果完整（保存的临时分配不计入常驻内存）
+                silencer.silence();
+                live.get(0).save(OutputStream.nullOutputStream());
+                silencer.restore();
+            } else {
+                result.rendered = result.loaded;
+            }
+            if (tempDir != null) {
+                result.tempDisk = directorySize(new File(tempDir));
+            }
+        } finally {
+            silencer.restore();
+            for (PPTTemplateEngine engine : live) {
+                engine.close();
+            }
+        }
+        return result;
+    }
+
+    private static void printReport(List<Result> results, boolean rendered, long limitMb) {
+        System.out.println("\n=== 每个引擎的常驻堆内存 ===");
+        System.out.println(String.format("%-36s %10s %10s %12s %10s", "配置", "加载后", "渲染后", "临时目录", "可同时存活"));
+        for (Result r : results) {
+            long perEngine = rendered ? r.perEngineRendered() : r.perEngineLoaded();
+            long capacity = perEngine > 0 ? Math.max(0, limitMb * MB - r.baseline) / perEngine : -1;
+            System.out.println(String.format("%-36s %7.1f MB %7.1f MB %9.1f MB %10s",
+                    r.profile, r.perEngineLoaded() / (double) MB, r.perEngineRendered() / (double) MB,
+                    r.tempDisk / (double) MB, capacity >= 0 ? String.valueOf(capacity) : "-"));
+        }
+        System.out.println("（可同时存活 = (内存上限 " + limitMb + " MB - 基线) / 每个引擎" + (rendered ? "渲染后" : "加载后")
+                + "的常驻内存，未计入渲染和保存时的临时分配，实际并发数应留出余量）");
+        if (results.size() == 2 && results.get(0).perEngineRendered() > 0) {
+            double saved = 1 - results.get(1).perEngineRendered() / (double) results.get(0).perEngineRendered();
+            System.out.println(String.format("✓ 低内存配置每个引擎节省 %.0f%% 堆内存", saved * 100));
+        }
+    }
+
+    /**
+     * 多次 GC 直到堆使用量稳定，返回 GC 后的堆使用量
+     */
+    static long settledHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long previous = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            long used = memory.getHeapMemoryUsage().getUsed();
+            if (Math.abs(previous - used) < MB) {
+                return used;
+            }
+            previous = used;
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static long directorySize(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return 0;
+        }
+        long size = 0;
+        for (File f : files) {
+            size += f.isDirectory() ? directorySize(f) : f.length();
+        }
+        return size;
+    }
+
+    /**
+     * 测量期间丢弃引擎的控制台输出（每张幻灯片都会打印日志）
+     */
+    private static class PrintStreamSilencer {
+        private final PrintStream original = System.out;
+
+        void silence() {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        void restore() {
+            System.setOut(original);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.pptfactory.template.engine;
 
+import com.pptfactory.style.SafetyStyle;
+import com.pptfactory.template.extractor.SlideHashManifest;
 import com.pptfactory.template.extractor.TemplateExtractor;
 import java.io.File;
 import java.util.Locale;
@@ -12,6 +14,8 @@ import java.util.Locale;
  * - 模板文字替换
  * - 模板图片替换
  * - master_template.pptx生成
+ * - 按模板清单增量提取（源PPT未变化时跳过）
+ * - 引擎重建 master_template.pptx 后清单失效，再次提取走全量
  * 
  * 使用方法：
  * 1. 确保使用Java 17或更高版本运行（项目要求Java 17+）
@@ -123,7 +127,48 @@ public class TestTemplateExtraction {
             // 测试4: 验证模板图片替换
             System.out.println("\n[测试4] 验证模板图片替换...");
             System.out.println("  请手动打开 " + templateFile + " 检查图片是否已替换为'No Image'占位符");
-            
+
+            // 测试5: 源PPT未变化时再次提取，应按清单跳过，模板文件不被改写
+            System.out.println("\n[测试5] 按清单增量提取...");
+            File manifestFile = SlideHashManifest.manifestFileFor(templateFile);
+            if (!manifestFile.exists()) {
+                System.err.println("✗ 模板清单未生成: " + manifestFile.getPath());
+            } else {
+                long lastModified = masterTemplate.lastModified();
+                TemplateExtractor.extractTemplate(sourceFile, templateFile, 5, -1);
+                if (masterTemplate.lastModified() == lastModified) {
+                    System.out.println("✓ 源PPT未变化，模板文件未被改写");
+                } else {
+                    System.err.println("✗ 源PPT未变化，但模板文件被重新写入");
+                }
+            }
+
+            // 测试6: 引擎重建模板后清单应被删除，再次增量提取应走全量并重新生成清单
+            System.out.println("\n[测试6] 引擎重建模板后增量提取...");
+            String engineTemplate = new File("templates/safety/theme.pptx").exists()
+                    ? "templates/safety/theme.pptx" : "templates/default/theme.pptx";
+            PPTTemplateEngine engine = new PPTTemplateEngine(engineTemplate, new SafetyStyle());
+            try {
+                engine.extractClassicLayouts(sourceFile);
+            } finally {
+                engine.close();
+            }
+            if (manifestFile.exists()) {
+                System.err.println("✗ 引擎重建模板后，过期的模板清单仍然存在");
+            } else {
+                System.out.println("✓ 引擎重建模板后已删除模板清单");
+                TemplateExtractor.extractTemplate(sourceFile, templateFile, 5, -1);
+                SlideHashManifest rebuilt = SlideHashManifest.load(manifestFile);
+                com.aspose.slides.Presentation rebuiltTemplate = new com.aspose.slides.Presentation(templateFile);
+                int rebuiltCount = rebuiltTemplate.getSlides().size();
+                rebuiltTemplate.dispose();
+                if (rebuilt != null && rebuilt.size() == rebuiltCount) {
+                    System.out.println("✓ 已全量提取并重新生成清单（" + rebuilt.size() + " 页）");
+                } else {
+                    System.err.println("✗ 清单与模板不一致: 清单 " + (rebuilt != null ? rebuilt.size() : 0) + " 页，模板 " + rebuiltCount + " 页");
+                }
+            }
+
             System.out.println("\n=== 所有测试完成 ===");
             System.out.println("请手动检查 " + templateFile + " 的内容是否符合预期");
             
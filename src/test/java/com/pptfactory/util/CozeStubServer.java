@@ -0,0 +1,225 @@
+package com.pptfactory.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coze 图片工作流的本地桩服务（压测用）
+ *
+ * 模拟 CozeConfig.ENDPOINT 的 /v1/workflow/run 接口，仅监听 127.0.0.1：
+ * - POST /v1/workflow/run  等待 latency ± jitter 毫秒后，按 errorRate 的概率返回 500（GenerateImagesViaCozeUtil 视为临时错误），
+ *       否则返回与 Coze 相同结构的响应 {"code":0,"data":"{\"output\":\"http://127.0.0.1:端口/images/N.png\"}"}
+ * - GET  /images/N.png     返回启动时预先生成的 PNG 图片（按 N 轮流使用 16 张，尺寸可配置）
+ * 各类请求的次数可以通过 getter 读取，用于压测报告。
+ *
+ * 使用方法：
+ * java -cp "target/classes:target/test-classes:<classpath>" com.pptfactory.util.CozeStubServer [端口] [延迟ms] [错误率] [图片宽x高]
+ * GenerateImagesViaCozeUtil.generateImages(映射文件, "http://127.0.0.1:端口/v1/workflow/run", null, false, false)
+ */
+public class CozeStubServer {
+
+    private static final String WORKFLOW_PATH = "/v1/workflow/run";
+    private static final String IMAGES_PATH = "/images/";
+    private static final int IMAGE_VARIANTS = 16;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double errorRate;
+    private final byte[][] images;
+    private final AtomicLong imageCounter = new AtomicLong();
+    private final AtomicLong workflowCalls = new AtomicLong();
+    private final AtomicLong workflowErrors = new AtomicLong();
+    private final AtomicLong imageDownloads = new AtomicLong();
+    private final AtomicLong imageBytes = new AtomicLong();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param latencyMs 工作流接口的平均延迟（毫秒）
+     * @param jitterMs 延迟的随机抖动（毫秒，均匀分布在 ±jitterMs 内）
+     * @param errorRate 返回 500 的概率（0-1）
+     * @param imageWidth 图片宽度（像素）
+     * @param imageHeight 图片高度（像素）
+     */
+    public CozeStubServer(long latencyMs, long jitterMs, double errorRate, int imageWidth, int imageHeight) throws IOException {
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("错误率必须在 0-1 之间: " + errorRate);
+        }
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.errorRate = errorRate;
+        this.images = new byte[IMAGE_VARIANTS][];
+        for (int i = 0; i < IMAGE_VARIANTS; i++) {
+            images[i] = renderImage(imageWidth, imageHeight, i);
+        }
+    }
+
+    /**
+     * 启动服务
+     *
+     * @param port 端口，0 表示随机选择空闲端口
+     */
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        // 每个请求一个线程：延迟在处理线程上等待，不能让慢请求阻塞其他请求
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "coze-stub");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext(WORKFLOW_PATH, this::handleWorkflow);
+        server.createContext(IMAGES_PATH, this::handleImage);
+        server.start();
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * 传给 GenerateImagesViaCozeUtil.generateImages 的接口地址
+     */
+    public String getEndpoint() {
+        return "http://127.0.0.1:" + getPort() + WORKFLOW_PATH;
+    }
+
+    public long getWorkflowCalls() { return workflowCalls.get(); }
+    public long getWorkflowErrors() { return workflowErrors.get(); }
+    public long getImageDownloads() { return imageDownloads.get(); }
+    public long getImageBytes() { return imageBytes.get(); }
+
+    private void handleWorkflow(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, "{\"code\":405,\"msg\":\"method not allowed\"}");
+                return;
+            }
+            workflowCalls.incrementAndGet();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long delay = latencyMs + (jitterMs > 0 ? random.nextLong(-jitterMs, jitterMs + 1) : 0);
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+            if (random.nextDouble() < errorRate) {
+                workflowErrors.incrementAndGet();
+                send(exchange, 500, "{\"code\":5000,\"msg\":\"stub injected error\"}");
+                return;
+            }
+            String url = "http://127.0.0.1:" + getPort() + IMAGES_PATH + imageCounter.incrementAndGet() + ".png";
+            // data 字段与 Coze 一样是字符串形式的 JSON
+            String data = MAPPER.writeValueAsString(Collections.singletonMap("output", url));
+            Map<String, Object> body = Map.of("code", 0, "msg", "Success", "data", data);
+            send(exchange, 200, MAPPER.writeValueAsString(body));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleImage(HttpExchange exchange) throws IOException {
+        try {
+            String name = exchange.getRequestURI().getPath().substring(IMAGES_PATH.length());
+            long index;
+            try {
+                index = Long.parseLong(name.replace(".png", ""));
+            } catch (NumberFormatException e) {
+                send(exchange, 404, "not found");
+                return;
+            }
+            byte[] image = images[(int) (index % IMAGE_VARIANTS)];
+            exchange.getResponseHeaders().set("Content-Type", "image/png");
+            exchange.sendResponseHeaders(200, image.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(image);
+            }
+            imageDownloads.incrementAndGet();
+            imageBytes.addAndGet(image.length);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * 生成一张带随机色块的 PNG（色块让压缩后的大小接近真实图片，而不是纯色图的几百字节）
+     */
+    private static byte[] renderImage(int width, int height, int seed) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(seed);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(new Color(random.nextInt(0xFFFFFF)));
+            g.fillRect(0, 0, width, height);
+            for (int i = 0; i < 200; i++) {
+                g.setColor(new Color(random.nextInt(0xFFFFFF)));
+                g.fillRect(random.nextInt(width), random.nextInt(height),
+                        1 + random.nextInt(Math.max(1, width / 4)), 1 + random.nextInt(Math.max(1, height / 4)));
+            }
+        } finally {
+            g.dispose();
+        }
+        // 少量噪点
+        for (int i = 0; i < width * height / 20; i++) {
+            image.setRGB(random.nextInt(width), random.nextInt(height), random.nextInt(0xFFFFFF));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * 主方法：单独启动桩服务，直到进程退出
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 18090;
+        long latency = args.length > 1 ? Long.parseLong(args[1]) : 2000;
+        double errorRate = args.length > 2 ? Double.parseDouble(args[2]) : 0.0;
+        String[] size = (args.length > 3 ? args[3] : "1024x768").split("x");
+        CozeStubServer stub = new CozeStubServer(latency, latency / 4, errorRate,
+                Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+        stub.start(port);
+        System.out.println("✓ Coze 桩服务已启动: " + stub.getEndpoint() + "（延迟 " + latency + " ms，错误率 " + errorRate + "）");
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,479 @@
+package com.pptfactory.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 生产流程的端到端压测工具
+ *
+ * 用 SyntheticInputGenerator 为每个任务生成一份 slides.json 和 ppt内容映射.txt（页数、内容随种子变化），
+ * 然后按 concurrency 个线程并发执行完整的生产流程：
+ * 1. ProduceUtil.producePPT（拷贝模板页、替换文本）
+ * 2. ProduceUtil.generateImageMappings（扫描图片注释，生成 图片提示词准备）
+ * 3. GenerateImagesViaCozeUtil.generateImages（调用本地 Coze 桩服务 CozeStubServer，延迟和错误率可配置）
+ * 4. DownloadImagesAndUpdateMappingUtil.downloadImages（从桩服务下载生成的图片）
+ * 5. ReplacePPTImagesByMappingUtil.replaceImages（按图片路径映射替换图片）
+ *
+ * 报告：吞吐量（任务/分钟、页/秒）、任务耗时的 p50/p90/p99/最大值、各阶段平均耗时、Coze 调用和错误次数、
+ * 峰值 RSS（/proc/self/status 的 VmHWM，非 Linux 时为采样到的最大已提交内存）、峰值堆使用量、
+ * 峰值临时磁盘占用（工作目录 + 系统临时目录和项目 temp/ 目录下 pptx_ 开头的临时文件），
+ * 同时写入 工作目录/report.json。运行期间各工具的控制台输出被丢弃。
+ *
+ * 需要在项目根目录运行（按相对路径读取 templates/）。
+ *
+ * 使用方法：
+ * java -cp "target/classes:target/test-classes:<classpath>" com.pptfactory.util.ProduceLoadTest --jobs 20 --concurrency 4 --pages 30
+ * 参数：
+ *   --jobs N              任务数（默认 10）
+ *   --concurrency N       并发数（默认 2）
+ *   --pages N 或 MIN-MAX  每个任务的页数（默认 10-30）
+ *   --coze-latency MS     Coze 接口平均延迟（默认 1500）
+ *   --coze-jitter MS      延迟抖动（默认 latency/4）
+ *   --coze-error-rate R   Coze 接口返回 500 的概率（默认 0.02）
+ *   --image-size WxH      生成图片的尺寸（默认 1024x768）
+ *   --seed N              随机种子（默认 42）
+ *   --work-dir DIR        工作目录（默认 target/loadtest，每次运行前清空）
+ *   --generate-only       只生成输入，不执行生产流程
+ *   --keep                保留各任务的输出（默认任务完成后删除，避免磁盘占用随任务数增长）
+ */
+public class ProduceLoadTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String[] PHASES = {"produce", "imageMappings", "coze", "download", "replaceImages"};
+    private static final long SAMPLE_INTERVAL_MS = 200;
+
+    /**
+     * 压测参数
+     */
+    static class Options {
+        int jobs = 10;
+        int concurrency = 2;
+        int minPages = 10;
+        int maxPages = 30;
+        long cozeLatencyMs = 1500;
+        long cozeJitterMs = -1;
+        double cozeErrorRate = 0.02;
+        int imageWidth = 1024;
+        int imageHeight = 768;
+        long seed = 42L;
+        String workDir = "target/loadtest";
+        boolean generateOnly = false;
+        boolean keep = false;
+
+        static Options parse(String[] args) {
+            Options o = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--generate-only": o.generateOnly = true; continue;
+                    case "--keep": o.keep = true; continue;
+                    default: break;
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("参数缺少取值: " + arg);
+                }
+                String value = args[++i];
+                switch (arg) {
+                    case "--jobs": o.jobs = Integer.parseInt(value); break;
+                    case "--concurrency": o.concurrency = Integer.parseInt(value); break;
+                    case "--pages": {
+                        String[] range = value.split("-");
+                        o.minPages = Integer.parseInt(range[0]);
+                        o.maxPages = range.length > 1 ? Integer.parseInt(range[1]) : o.minPages;
+                        break;
+                    }
+                    case "--coze-latency": o.cozeLatencyMs = Long.parseLong(value); break;
+                    case "--coze-jitter": o.cozeJitterMs = Long.parseLong(value); break;
+                    case "--coze-error-rate": o.cozeErrorRate = Double.parseDouble(value); break;
+                    case "--image-size": {
+                        String[] size = value.toLowerCase(Locale.ROOT).split("x");
+                        o.imageWidth = Integer.parseInt(size[0]);
+                        o.imageHeight = Integer.parseInt(size[1]);
+                        break;
+                    }
+                    case "--seed": o.seed = Long.parseLong(value); break;
+                    case "--work-dir": o.workDir = value; break;
+                    default: throw new IllegalArgumentException("未知参数: " + arg);
+                }
+            }
+            if (o.jobs < 1 || o.concurrency < 1 || o.minPages < 1 || o.maxPages < o.minPages) {
+                throw new IllegalArgumentException("任务数、并发数、页数必须为正数，且页数范围有效");
+            }
+            if (o.cozeJitterMs < 0) {
+                o.cozeJitterMs = o.cozeLatencyMs / 4;
+            }
+            return o;
+        }
+    }
+
+    /**
+     * 单个任务的结果
+     */
+    static class JobResult {
+        final int job;
+        final int pages;
+        final long[] phaseMs = new long[PHASES.length];
+        long totalMs;
+        int images;
+        String error;
+
+        JobResult(int job, int pages) {
+            this.job = job;
+            this.pages = pages;
+        }
+    }
+
+    /**
+     * 后台采样峰值内存和临时磁盘占用
+     */
+    static class ResourceSampler implements Runnable {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final List<Path> watchedDirs;
+        private final Path workDir;
+        private final AtomicLong peakHeap = new AtomicLong();
+        private final AtomicLong peakCommitted = new AtomicLong();
+        private final AtomicLong peakDisk = new AtomicLong();
+        private volatile boolean running = true;
+
+        ResourceSampler(Path workDir, List<Path> watchedDirs) {
+            this.workDir = workDir;
+            this.watchedDirs = watchedDirs;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                sample();
+                try {
+                    Thread.sleep(SAMPLE_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        void sample() {
+            long heap = memory.getHeapMemoryUsage().getUsed();
+            long committed = memory.getHeapMemoryUsage().getCommitted() + memory.getNonHeapMemoryUsage().getCommitted();
+            peakHeap.accumulateAndGet(heap, Math::max);
+            peakCommitted.accumulateAndGet(committed, Math::max);
+            long disk = directorySize(workDir);
+            for (Path dir : watchedDirs) {
+                try (Stream<Path> entries = Files.list(dir)) {
+                    disk += entries.filter(p -> p.getFileName().toString().startsWith("pptx_"))
+                            .mapToLong(ProduceLoadTest::directorySize).sum();
+                } catch (IOException ignored) {
+                    // 目录不存在或遍历时条目被删除
+                }
+            }
+            peakDisk.accumulateAndGet(disk, Math::max);
+        }
+
+        void stop() {
+            running = false;
+        }
+
+        /**
+         * 峰值 RSS：Linux 上读取 VmHWM（内核记录的进程常驻内存峰值），否则用采样到的最大已提交内存估计
+         */
+        long peakRss() {
+            try {
+                for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                    if (line.startsWith("VmHWM:")) {
+                        return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                    }
+                }
+            } catch (Exception ignored) {
+                // 非 Linux
+            }
+            return peakCommitted.get();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("错误: " + e.getMessage());
+            System.err.println("用法: ProduceLoadTest [--jobs N] [--concurrency N] [--pages N|MIN-MAX] [--coze-latency MS] "
+                    + "[--coze-jitter MS] [--coze-error-rate R] [--image-size WxH] [--seed N] [--work-dir DIR] [--generate-only] [--keep]");
+            System.exit(1);
+            return;
+        }
+        run(options);
+    }
+
+    /**
+     * 执行一次压测
+     */
+    static void run(Options options) throws Exception {
+        Path workDir = Paths.get(options.workDir).toAbsolutePath();
+        deleteRecursively(workDir);
+        Files.createDirectories(workDir);
+
+        // 1. 生成输入
+        System.out.println("=== 生成合成输入 ===");
+        long genStart = System.nanoTime();
+        SyntheticInputGenerator generator = SyntheticInputGenerator.fromDefaults(options.seed);
+        Random pageRandom = new Random(options.seed);
+        List<Path> jobDirs = new ArrayList<>(options.jobs);
+        int[] pageCounts = new int[options.jobs];
+        int totalPages = 0;
+        for (int j = 0; j < options.jobs; j++) {
+            int pages = options.minPages + pageRandom.nextInt(options.maxPages - options.minPages + 1);
+            Path jobDir = Files.createDirectories(workDir.resolve(String.format("job_%04d", j + 1)));
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(jobDir.resolve("slides.json").toFile(), generator.slides(pages));
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(jobDir.resolve("ppt内容映射.txt").toFile(), generator.mapping(pages));
+            jobDirs.add(jobDir);
+            pageCounts[j] = pages;
+            totalPages += pages;
+        }
+        System.out.println(String.format("✓ %d 个任务，共 %d 页，耗时 %.0f ms: %s",
+                options.jobs, totalPages, (System.nanoTime() - genStart) / 1e6, workDir));
+        if (options.generateOnly) {
+            return;
+        }
+
+        // 2. 启动 Coze 桩服务和资源采样
+        CozeStubServer stub = new CozeStubServer(options.cozeLatencyMs, options.cozeJitterMs, options.cozeErrorRate,
+                options.imageWidth, options.imageHeight);
+        stub.start(0);
+        System.out.println("✓ Coze 桩服务: " + stub.getEndpoint() + String.format("（延迟 %d±%d ms，错误率 %.1f%%）",
+                options.cozeLatencyMs, options.cozeJitterMs, options.cozeErrorRate * 100));
+
+        List<Path> watched = Arrays.asList(Paths.get(System.getProperty("java.io.tmpdir")),
+                Paths.get(System.getProperty("user.dir"), "temp"));
+        ResourceSampler sampler = new ResourceSampler(workDir, watched);
+        Thread samplerThread = new Thread(sampler, "loadtest-sampler");
+        samplerThread.setDaemon(true);
+        samplerThread.start();
+
+        // 3. 并发执行
+        System.out.println("=== 执行 " + options.jobs + " 个任务，并发 " + options.concurrency + " ===");
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream(), false, StandardCharsets.UTF_8);
+        ExecutorService workers = Executors.newFixedThreadPool(options.concurrency);
+        List<Future<JobResult>> futures = new ArrayList<>(options.jobs);
+        AtomicInteger finished = new AtomicInteger();
+        long start = System.nanoTime();
+        System.setOut(discard);
+        System.setErr(discard);
+        try {
+            for (int j = 0; j < options.jobs; j++) {
+                final int job = j + 1;
+                final Path jobDir = jobDirs.get(j);
+                final int pages = pageCounts[j];
+                futures.add(workers.submit(() -> {
+                    JobResult result = runJob(job, pages, jobDir, stub.getEndpoint(), options.keep);
+                    int done = finished.incrementAndGet();
+                    originalOut.println(String.format("  [%d/%d] 任务 %d（%d 页）%s，耗时 %d ms", done, options.jobs,
+                            job, pages, result.error == null ? "完成" : "失败: " + result.error, result.totalMs));
+                    return result;
+                }));
+            }
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } finally {
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        sampler.stop();
+        samplerThread.interrupt();
+        sampler.sample();
+        stub.stop();
+
+        List<JobResult> results = new ArrayList<>(options.jobs);
+        for (Future<JobResult> f : futures) {
+            results.add(f.get());
+        }
+        report(options, results, elapsedMs, stub, sampler, workDir);
+    }
+
+    /**
+     * 在任务目录中执行一次完整的生产流程
+     */
+    static JobResult runJob(int job, int pages, Path jobDir, String cozeEndpoint, boolean keep) {
+        JobResult result = new JobResult(job, pages);
+        String mappingFile = jobDir.resolve("ppt内容映射.txt").toString();
+        long jobStart = System.nanoTime();
+        long t = jobStart;
+        try {
+            String pptx = ProduceUtil.producePPT(mappingFile, jobDir.toString());
+            t = lap(result, 0, t);
+
+            ProduceUtil.generateImageMappings(pptx, mappingFile);
+            t = lap(result, 1, t);
+
+            GenerateImagesViaCozeUtil.generateImages(mappingFile, cozeEndpoint, null, false, false);
+            t = lap(result, 2, t);
+
+            result.images = DownloadImagesAndUpdateMappingUtil.downloadImages(mappingFile, jobDir.resolve("images").toString());
+            t = lap(result, 3, t);
+
+            if (result.images > 0) {
+                List<Map<String, Object>> mappings = MAPPER.readValue(new File(mappingFile),
+                        new TypeReference<List<Map<String, Object>>>() {});
+                ReplacePPTImagesByMappingUtil.replaceImages(pptx, mappings);
+            }
+            lap(result, 4, t);
+        } catch (Exception e) {
+            result.error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        } finally {
+            result.totalMs = (System.nanoTime() - jobStart) / 1_000_000;
+            if (!keep) {
+                deleteRecursively(jobDir);
+            }
+        }
+        return result;
+    }
+
+    private static long lap(JobResult result, int phase, long since) {
+        long now = System.nanoTime();
+        result.phaseMs[phase] = (now - since) / 1_000_000;
+        return now;
+    }
+
+    /**
+     * 打印报告并写入 report.json
+     */
+    private static void report(Options options, List<JobResult> results, long elapsedMs, CozeStubServer stub,
+                               ResourceSampler sampler, Path workDir) throws IOException {
+        List<Long> latencies = new ArrayList<>();
+        long[] phaseTotals = new long[PHASES.length];
+        int pages = 0;
+        int images = 0;
+        int failedJobs = 0;
+        for (JobResult r : results) {
+            if (r.error != null) {
+                failedJobs++;
+                continue;
+            }
+            latencies.add(r.totalMs);
+            pages += r.pages;
+            images += r.images;
+            for (int i = 0; i < PHASES.length; i++) {
+                phaseTotals[i] += r.phaseMs[i];
+            }
+        }
+        Collections.sort(latencies);
+        int succeeded = latencies.size();
+        double seconds = Math.max(elapsedMs, 1) / 1000.0;
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("jobs", options.jobs);
+        report.put("concurrency", options.concurrency);
+        report.put("succeeded", succeeded);
+        report.put("failed", failedJobs);
+        report.put("pages", pages);
+        report.put("images", images);
+        report.put("elapsedMs", elapsedMs);
+        report.put("jobsPerMinute", round(succeeded * 60.0 / seconds));
+        report.put("pagesPerSecond", round(pages / seconds));
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("p50", percentile(latencies, 50));
+        latency.put("p90", percentile(latencies, 90));
+        latency.put("p99", percentile(latencies, 99));
+        latency.put("max", latencies.isEmpty() ? 0 : latencies.get(latencies.size() - 1));
+        report.put("jobLatencyMs", latency);
+        Map<String, Object> phases = new LinkedHashMap<>();
+        for (int i = 0; i < PHASES.length; i++) {
+            phases.put(PHASES[i], succeeded == 0 ? 0 : phaseTotals[i] / succeeded);
+        }
+        report.put("phaseMeanMs", phases);
+        Map<String, Object> coze = new LinkedHashMap<>();
+        coze.put("latencyMs", options.cozeLatencyMs);
+        coze.put("jitterMs", options.cozeJitterMs);
+        coze.put("errorRate", options.cozeErrorRate);
+        coze.put("calls", stub.getWorkflowCalls());
+        coze.put("errors", stub.getWorkflowErrors());
+        coze.put("imageDownloads", stub.getImageDownloads());
+        coze.put("imageBytes", stub.getImageBytes());
+        report.put("coze", coze);
+        report.put("peakRssBytes", sampler.peakRss());
+        report.put("peakHeapUsedBytes", sampler.peakHeap.get());
+        report.put("peakTempDiskBytes", sampler.peakDisk.get());
+        List<String> errors = new ArrayList<>();
+        for (JobResult r : results) {
+            if (r.error != null) {
+                errors.add("job " + r.job + ": " + r.error);
+            }
+        }
+        report.put("errors", errors);
+
+        System.out.println("\n=== 压测结果 ===");
+        System.out.println(String.format("任务: %d 成功 / %d 失败，%d 页，%d 张图片，总耗时 %.1f s",
+                succeeded, failedJobs, pages, images, seconds));
+        System.out.println(String.format("吞吐量: %.1f 任务/分钟，%.2f 页/秒", succeeded * 60.0 / seconds, pages / seconds));
+        System.out.println(String.format("任务耗时: p50 %d ms，p90 %d ms，p99 %d ms，最大 %d ms",
+                latency.get("p50"), latency.get("p90"), latency.get("p99"), latency.get("max")));
+        StringBuilder phaseLine = new StringBuilder("各阶段平均:");
+        for (Map.Entry<String, Object> e : phases.entrySet()) {
+            phaseLine.append(' ').append(e.getKey()).append(' ').append(e.getValue()).append(" ms");
+        }
+        System.out.println(phaseLine);
+        System.out.println(String.format("Coze 桩服务: %d 次调用，%d 次注入错误，%d 次图片下载（%.1f MB）",
+                stub.getWorkflowCalls(), stub.getWorkflowErrors(), stub.getImageDownloads(), stub.getImageBytes() / 1048576.0));
+        System.out.println(String.format("峰值 RSS: %.1f MB，峰值堆使用: %.1f MB，峰值临时磁盘: %.1f MB",
+                sampler.peakRss() / 1048576.0, sampler.peakHeap.get() / 1048576.0, sampler.peakDisk.get() / 1048576.0));
+        for (String error : errors) {
+            System.out.println("⚠ " + error);
+        }
+        Path reportFile = workDir.resolve("report.json");
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+        System.out.println("✓ 报告已保存: " + reportFile);
+    }
+
+    private static long percentile(List<Long> sorted, int p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    static long directorySize(Path path) {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try (Stream<Path> paths = Files.walk(path)) {
+            return paths.filter(Files::isRegularFile).mapToLong(p -> p.toFile().length()).sum();
+        } catch (Exception e) {
+            // 遍历时条目被删除
+            return 0;
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (Exception e) {
+            System.err.println("警告：删除目录失败 " + dir + ": " + e.getMessage());
+        }
+    }
+}
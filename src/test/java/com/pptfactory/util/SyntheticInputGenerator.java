@@ -0,0 +1,297 @@
+package com.pptfactory.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * 压测用的合成输入生成器
+ *
+ * 按模板元信息生成任意规模的输入：
+ * - ppt内容映射.txt：随机选取模板页，文本映射 的键取自模板页上的原文本（TextFitPlanner.templateTexts），
+ *   值为随机中文，长度在对应占位符的 suggested_length 范围内（没有元信息时按键名估计：标题 6-15 字、长文本 40-80 字、其他 10-25 字）
+ * - slides.json：GeneratePPT / RenderServer 的输入，布局取自 examples 中使用的布局，
+ *   标题、正文长度按元信息中同类占位符（heading / body_text 等）的 suggested_length 随机生成
+ * 相同的种子生成相同的内容，便于前后对比。
+ *
+ * 使用方法：
+ * java -cp "target/classes:target/test-classes:<classpath>" com.pptfactory.util.SyntheticInputGenerator [页数] [输出目录] [种子]
+ */
+public class SyntheticInputGenerator {
+
+    private static final String PROJECT_ROOT = System.getProperty("user.dir");
+    private static final String TEMPLATE_FILE = PROJECT_ROOT + "/templates/master_template.pptx";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // 常用汉字（随机文本的字符池）
+    private static final String CJK = "安全生产责任制度管理规定操作规程作业人员设备检查隐患排查治理应急预案演练培训教育防护用品"
+            + "佩戴使用维护保养巡检记录报告事故预防措施风险评估控制标准要求企业员工现场监督落实整改考核"
+            + "煤矿井下瓦斯通风顶板支护运输提升机电排水防火防尘职业健康权利义务班组长调度值班交接确认";
+
+    private static final String[] SLIDE_LAYOUTS = {
+        "title_with_content", "two_column", "three_column", "classic_image_text_5",
+        "classic_image_text_6", "pure_content", "quote_page", "chapter_cover"
+    };
+
+    /**
+     * 一个可用的模板页
+     */
+    private static class TemplatePage {
+        final String templateId;
+        final Map<String, Map<String, Object>> texts;
+
+        TemplatePage(String templateId, Map<String, Map<String, Object>> texts) {
+            this.templateId = templateId;
+            this.texts = texts;
+        }
+    }
+
+    private final Random random;
+    private final List<TemplatePage> pages = new ArrayList<>();
+    // 占位符类型 -> 元信息中出现过的字数范围
+    private final Map<String, List<double[]>> lengthsByType = new HashMap<>();
+
+    /**
+     * @param template 模板包（master_template.pptx）
+     * @param catalog 模板元信息目录
+     * @param seed 随机种子
+     */
+    @SuppressWarnings("unchecked")
+    public SyntheticInputGenerator(OOXMLSlideCopier.TemplatePackage template, TemplateMetadataCatalog catalog,
+                                   long seed) throws Exception {
+        this.random = new Random(seed);
+        List<TemplateMetadataCatalog.TemplateMetadata> all = new ArrayList<>(catalog.getAll());
+        all.sort(Comparator.comparing(TemplateMetadataCatalog.TemplateMetadata::getKey));
+        for (TemplateMetadataCatalog.TemplateMetadata metadata : all) {
+            if (metadata.getRaw().get("placeholders") instanceof List) {
+                for (Object p : (List<Object>) metadata.getRaw().get("placeholders")) {
+                    if (p instanceof Map) {
+                        Map<String, Object> placeholder = (Map<String, Object>) p;
+                        double[] range = TextFitter.parseRange(placeholder.get("suggested_length"));
+                        if (range != null) {
+                            lengthsByType.computeIfAbsent(String.valueOf(placeholder.get("type")), k -> new ArrayList<>()).add(range);
+                        }
+                    }
+                }
+            }
+            int pageIndex = metadata.getPageIndex();
+            if (metadata.getTemplateId() == null || pageIndex < 1 || pageIndex > template.getSlideCount()) {
+                continue;
+            }
+            Map<String, Map<String, Object>> texts = templateTexts(template, pageIndex, metadata);
+            if (!texts.isEmpty()) {
+                pages.add(new TemplatePage(metadata.getTemplateId(), texts));
+            }
+        }
+        if (pages.isEmpty()) {
+            throw new RuntimeException("模板元信息中没有可用的模板页（需要 page_index 在模板范围内且模板页上有文本）");
+        }
+    }
+
+    /**
+     * 模板页上每段原文本（a:t，即 文本映射 的键）及其所在文本框按位置匹配到的元信息占位符（没有匹配时为 null），按出现顺序排列
+     *
+     * 用于按占位符的 suggested_length 生成长度合理的替换文本（文本框的定位和匹配规则与 TextFitPlanner 相同）。
+     *
+     * @param template 模板包
+     * @param pageIndex 模板页（从1开始）
+     * @param metadata 该页的模板元信息，可为 null
+     */
+    static Map<String, Map<String, Object>> templateTexts(OOXMLSlideCopier.TemplatePackage template, int pageIndex,
+                                                          TemplateMetadataCatalog.TemplateMetadata metadata) throws Exception {
+        double[] slideSize = TextFitPlanner.slideSize(template);
+        List<Map<String, Object>> placeholders = TextFitPlanner.placeholdersOf(metadata);
+        Document slide = TextFitPlanner.parse(template.getPart(template.getSlidePart(pageIndex)));
+        Map<String, Map<String, Object>> texts = new LinkedHashMap<>();
+        NodeList shapes = slide.getElementsByTagNameNS(TextFitPlanner.P_NS, "sp");
+        for (int i = 0; i < shapes.getLength(); i++) {
+            Element sp = (Element) shapes.item(i);
+            Element txBody = TextFitPlanner.firstChild(sp, TextFitPlanner.P_NS, "txBody");
+            if (txBody == null) {
+                continue;
+            }
+            Map<String, Object> placeholder = null;
+            Element xfrm = TextFitPlanner.descendant(sp, TextFitPlanner.A_NS, "xfrm");
+            Element off = xfrm != null ? TextFitPlanner.firstChild(xfrm, TextFitPlanner.A_NS, "off") : null;
+            Element ext = xfrm != null ? TextFitPlanner.firstChild(xfrm, TextFitPlanner.A_NS, "ext") : null;
+            if (off != null && ext != null) {
+                placeholder = TextFitPlanner.matchPlaceholder(placeholders,
+                        TextFitPlanner.emu(off, "x") / slideSize[0], TextFitPlanner.emu(off, "y") / slideSize[1],
+                        TextFitPlanner.emu(ext, "cx") / slideSize[0], TextFitPlanner.emu(ext, "cy") / slideSize[1]);
+            }
+            NodeList runs = txBody.getElementsByTagNameNS(TextFitPlanner.A_NS, "t");
+            for (int j = 0; j < runs.getLength(); j++) {
+                String text = runs.item(j).getTextContent().trim();
+                if (!text.isEmpty() && !texts.containsKey(text)) {
+                    texts.put(text, placeholder);
+                }
+            }
+        }
+        return texts;
+    }
+
+    /**
+     * 使用默认模板（templates/master_template.pptx）和默认元信息目录
+     */
+    public static SyntheticInputGenerator fromDefaults(long seed) throws Exception {
+        return new SyntheticInputGenerator(OOXMLSlideCopier.load(TEMPLATE_FILE), TemplateMetadataCatalog.getDefault(), seed);
+    }
+
+    /**
+     * 生成 ppt内容映射.txt 的内容
+     *
+     * @param pageCount 页数
+     */
+    public List<Map<String, Object>> mapping(int pageCount) {
+        List<Map<String, Object>> mappings = new ArrayList<>(pageCount);
+        for (int i = 0; i < pageCount; i++) {
+            TemplatePage page = pages.get(random.nextInt(pages.size()));
+            Map<String, Object> textMapping = new LinkedHashMap<>();
+            for (Map.Entry<String, Map<String, Object>> e : page.texts.entrySet()) {
+                textMapping.put(e.getKey(), text(lengthFor(e.getKey(), e.getValue())));
+            }
+            Map<String, Object> mapping = new LinkedHashMap<>();
+            mapping.put("模板页编号", page.templateId);
+            mapping.put("文本映射", textMapping);
+            mappings.add(mapping);
+        }
+        return mappings;
+    }
+
+    /**
+     * 生成 slides.json 的内容（第1页为标题页，其余随机布局）
+     *
+     * @param pageCount 页数
+     */
+    public Map<String, Object> slides(int pageCount) {
+        List<Map<String, Object>> slides = new ArrayList<>(pageCount);
+        for (int i = 0; i < pageCount; i++) {
+            Map<String, Object> slide = new LinkedHashMap<>();
+            String layout = i == 0 ? "title_page" : SLIDE_LAYOUTS[random.nextInt(SLIDE_LAYOUTS.length)];
+            slide.put("layout", layout);
+            switch (layout) {
+                case "title_page":
+                    slide.put("title", text(lengthOfType("title", 6, 15)));
+                    slide.put("subtitle", text(lengthOfType("subtitle", 10, 25)));
+                    break;
+                case "chapter_cover":
+                    slide.put("chapter_title", "第" + (i + 1) + "章");
+                    slide.put("description", text(lengthOfType("section_title", 10, 25)));
+                    break;
+                case "quote_page":
+                    slide.put("quote", text(lengthOfType("heading", 10, 30)));
+                    slide.put("author", text(lengthOfType("caption", 2, 6)));
+                    break;
+                case "pure_content":
+                    slide.put("content", lines(3, "heading", 10, 30));
+                    break;
+                case "two_column":
+                    slide.put("title", text(lengthOfType("heading", 10, 30)));
+                    slide.put("left_content", lines(4, "caption", 4, 12));
+                    slide.put("right_content", lines(4, "caption", 4, 12));
+                    break;
+                case "three_column":
+                    slide.put("title", text(lengthOfType("heading", 10, 30)));
+                    slide.put("left_content", lines(4, "caption", 4, 12));
+                    slide.put("middle_content", lines(4, "caption", 4, 12));
+                    slide.put("right_content", lines(4, "caption", 4, 12));
+                    break;
+                case "title_with_content":
+                    slide.put("title", text(lengthOfType("heading", 10, 30)));
+                    slide.put("bullets", lines(3 + random.nextInt(3), "section_title", 10, 25));
+                    break;
+                default:
+                    slide.put("title", text(lengthOfType("heading", 10, 30)));
+                    slide.put("image_path", "");
+                    slide.put("text", text(lengthOfType("body_text", 60, 150)));
+                    break;
+            }
+            slides.add(slide);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("slides", slides);
+        return result;
+    }
+
+    /**
+     * 随机中文文本：较长的文本每 8-16 字加一个逗号，超过 20 字以句号结尾
+     */
+    public String text(int length) {
+        StringBuilder sb = new StringBuilder(length + length / 8 + 1);
+        int nextComma = 8 + random.nextInt(9);
+        for (int i = 0; i < length; i++) {
+            if (i == nextComma && length - i > 4) {
+                sb.append('，');
+                nextComma = i + 8 + random.nextInt(9);
+            }
+            sb.append(CJK.charAt(random.nextInt(CJK.length())));
+        }
+        if (length > 20) {
+            sb.append('。');
+        }
+        return sb.toString();
+    }
+
+    private List<String> lines(int count, String type, int defaultMin, int defaultMax) {
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(text(lengthOfType(type, defaultMin, defaultMax)));
+        }
+        return lines;
+    }
+
+    private int lengthFor(String key, Map<String, Object> placeholder) {
+        double[] range = placeholder != null ? TextFitter.parseRange(placeholder.get("suggested_length")) : null;
+        if (range != null) {
+            return uniform(range[0], range[1]);
+        }
+        if (key.contains("标题")) {
+            return uniform(6, 15);
+        }
+        if (key.contains("长文本")) {
+            return uniform(40, 80);
+        }
+        return uniform(10, 25);
+    }
+
+    private int lengthOfType(String type, int defaultMin, int defaultMax) {
+        List<double[]> ranges = lengthsByType.get(type);
+        if (ranges == null || ranges.isEmpty()) {
+            return uniform(defaultMin, defaultMax);
+        }
+        double[] range = ranges.get(random.nextInt(ranges.size()));
+        return uniform(range[0], range[1]);
+    }
+
+    private int uniform(double min, double max) {
+        int lo = Math.max(1, (int) Math.round(min));
+        int hi = Math.max(lo, (int) Math.round(max));
+        return lo + random.nextInt(hi - lo + 1);
+    }
+
+    /**
+     * 主方法：生成一份 slides.json 和一份 ppt内容映射.txt
+     */
+    public static void main(String[] args) {
+        try {
+            int pageCount = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+            File outputDir = new File(args.length > 1 ? args[1] : PROJECT_ROOT + "/temp/synthetic");
+            long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+            outputDir.mkdirs();
+
+            SyntheticInputGenerator generator = fromDefaults(seed);
+            File slidesFile = new File(outputDir, "slides.json");
+            File mappingFile = new File(outputDir, "ppt内容映射.txt");
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(slidesFile, generator.slides(pageCount));
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(mappingFile, generator.mapping(pageCount));
+            System.out.println("✓ 已生成 " + pageCount + " 页: " + slidesFile.getPath() + "，" + mappingFile.getPath());
+        } catch (Exception e) {
+            System.err.println("错误: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
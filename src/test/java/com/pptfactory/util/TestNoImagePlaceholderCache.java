@@ -0,0 +1,96 @@
+package com.pptfactory.util;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+
+/**
+ * NoImagePlaceholderCache 单步调试测试类
+ *
+ * 纯 Java，不需要模板文件和 Aspose，测试：
+ * - 尺寸按 8 像素取整，且不小于 16 像素
+ * - 同一取整尺寸只绘制一次，返回的字节数组是副本（修改后不影响缓存）
+ * - 宽高比相同、尺寸不同的图片框得到不同的尺寸键和不同像素尺寸的占位图
+ * - 超过 MAX_ENTRIES 项后淘汰最久未使用的一项
+ *
+ * 使用方法：
+ * 1. 在IDE中打开此文件
+ * 2. 在main方法中设置断点
+ * 3. 以Debug模式运行
+ */
+public class TestNoImagePlaceholderCache {
+
+    public static void main(String[] args) {
+        System.out.println("=== NoImagePlaceholderCache 单步调试测试 ===");
+
+        try {
+            // 测试1: 尺寸取整
+            System.out.println("\n[测试1] 尺寸取整...");
+            check(NoImagePlaceholderCache.roundSize(100) == 104, "100 应取整为 104，实际 " + NoImagePlaceholderCache.roundSize(100));
+            check(NoImagePlaceholderCache.roundSize(99) == 96, "99 应取整为 96，实际 " + NoImagePlaceholderCache.roundSize(99));
+            check(NoImagePlaceholderCache.roundSize(96) == 96, "96 应保持 96");
+            check(NoImagePlaceholderCache.roundSize(3) == 16, "过小的尺寸应取 16，实际 " + NoImagePlaceholderCache.roundSize(3));
+            check(NoImagePlaceholderCache.sizeKey(401.2, 299.7).equals("400x296"),
+                    "尺寸键应为 400x296，实际 " + NoImagePlaceholderCache.sizeKey(401.2, 299.7));
+            System.out.println("✓ 100 -> 104，99 -> 96，3 -> 16，401.2x299.7 -> " + NoImagePlaceholderCache.sizeKey(401.2, 299.7));
+
+            // 测试2: 命中缓存，返回副本
+            System.out.println("\n[测试2] 缓存命中与副本...");
+            NoImagePlaceholderCache.clear();
+            byte[] first = NoImagePlaceholderCache.getPng(400, 300);
+            byte[] second = NoImagePlaceholderCache.getPng(403, 301);
+            check(NoImagePlaceholderCache.misses() == 1 && NoImagePlaceholderCache.hits() == 1,
+                    "取整尺寸相同应只绘制一次: " + NoImagePlaceholderCache.stats());
+            check(first != second && Arrays.equals(first, second), "命中时应返回内容相同的副本");
+            Arrays.fill(first, (byte) 0);
+            byte[] third = NoImagePlaceholderCache.getPng(400, 300);
+            check(Arrays.equals(second, third), "修改返回的字节数组不应影响缓存");
+            System.out.println("✓ " + NoImagePlaceholderCache.stats());
+
+            // 测试3: 宽高比相同、尺寸不同时不共用
+            System.out.println("\n[测试3] 宽高比相同的不同尺寸...");
+            String smallKey = NoImagePlaceholderCache.sizeKey(160, 120);
+            String largeKey = NoImagePlaceholderCache.sizeKey(640, 480);
+            check(!smallKey.equals(largeKey), "4:3 的 160x120 和 640x480 不应共用尺寸键");
+            BufferedImage small = ImageIO.read(new ByteArrayInputStream(NoImagePlaceholderCache.getPng(160, 120)));
+            BufferedImage large = ImageIO.read(new ByteArrayInputStream(NoImagePlaceholderCache.getPng(640, 480)));
+            check(small.getWidth() == 160 && small.getHeight() == 120, "小图应为 160x120，实际 " + small.getWidth() + "x" + small.getHeight());
+            check(large.getWidth() == 640 && large.getHeight() == 480, "大图应为 640x480，实际 " + large.getWidth() + "x" + large.getHeight());
+            check(NoImagePlaceholderCache.sizeKey(639, 481).equals(largeKey), "取整后相同的尺寸应共用尺寸键");
+            System.out.println("✓ " + smallKey + " 与 " + largeKey + " 分别绘制");
+
+            // 测试4: LRU 淘汰
+            System.out.println("\n[测试4] LRU 淘汰...");
+            NoImagePlaceholderCache.clear();
+            int max = NoImagePlaceholderCache.MAX_ENTRIES;
+            for (int i = 0; i < max; i++) {
+                NoImagePlaceholderCache.getPng(16 + 8 * i, 16);
+            }
+            check(NoImagePlaceholderCache.size() == max, "应缓存 " + max + " 项，实际 " + NoImagePlaceholderCache.size());
+            // 访问第一项，使第二项成为最久未使用
+            NoImagePlaceholderCache.getPng(16, 16);
+            NoImagePlaceholderCache.getPng(16 + 8 * max, 16);
+            check(NoImagePlaceholderCache.size() == max, "超过上限后应保持 " + max + " 项，实际 " + NoImagePlaceholderCache.size());
+            long misses = NoImagePlaceholderCache.misses();
+            NoImagePlaceholderCache.getPng(16, 16);
+            check(NoImagePlaceholderCache.misses() == misses, "最近访问过的第一项不应被淘汰");
+            NoImagePlaceholderCache.getPng(24, 16);
+            check(NoImagePlaceholderCache.misses() == misses + 1, "最久未使用的第二项应已被淘汰");
+            System.out.println("✓ " + NoImagePlaceholderCache.stats());
+
+            NoImagePlaceholderCache.clear();
+            System.out.println("\n=== 所有测试完成 ===");
+        } catch (Exception e) {
+            System.err.println("✗ 测试失败: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.pptfactory.util;
+
+import org.apache.poi.sl.usermodel.PictureData;
+import org.apache.poi.xslf.usermodel.*;
+
+import javax.imageio.ImageIO;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * OOXMLPackageMerger 单步调试测试类
+ *
+ * 用 POI 在内存中生成三个待合并的PPTX（模拟分片渲染的输出），测试：
+ * - 合并后的幻灯片数量和顺序
+ * - 相同的母版、版式只保留一份
+ * - 版式不同的PPTX作为新母版导入（连同主题）
+ * - 相同的图片只保留一份
+ * - 页间超链接指向合并后的对应页
+ *
+ * 使用方法：
+ * 1. 在IDE中打开此文件
+ * 2. 在main方法中设置断点
+ * 3. 以Debug模式运行
+ */
+public class TestOOXMLPackageMerger {
+
+    public static void main(String[] args) {
+        System.out.println("=== OOXMLPackageMerger 单步调试测试 ===");
+
+        try {
+            // 测试1: 生成三个分片，第二个分片的版式改名（模拟不同的母版）
+            System.out.println("\n[测试1] 生成分片...");
+            List<OOXMLSlideCopier.TemplatePackage> shards = new ArrayList<>();
+            for (int shard = 1; shard <= 3; shard++) {
+                shards.add(OOXMLSlideCopier.read(new ByteArrayInputStream(createShard(shard, shard == 2)), "分片 " + shard));
+            }
+            System.out.println("✓ 生成 3 个分片，每个 3 页");
+
+            // 测试2: 合并
+            System.out.println("\n[测试2] 合并分片...");
+            ByteArrayOutputStream merged = new ByteArrayOutputStream();
+            long start = System.currentTimeMillis();
+            OOXMLPackageMerger.merge(shards, merged);
+            System.out.println("✓ 合并完成，耗时 " + (System.currentTimeMillis() - start) + " ms，大小 " + merged.size() / 1024 + " KB");
+
+            try (XMLSlideShow show = new XMLSlideShow(new ByteArrayInputStream(merged.toByteArray()))) {
+                // 测试3: 页数和顺序
+                System.out.println("\n[测试3] 检查页数和顺序...");
+                List<String> texts = new ArrayList<>();
+                for (XSLFSlide slide : show.getSlides()) {
+                    texts.add(firstText(slide));
+                }
+                check(texts.equals(Arrays.asList("分片1-第1页", "分片1-第2页", "分片1-第3页", "分片2-第1页", "分片2-第2页",
+                        "分片2-第3页", "分片3-第1页", "分片3-第2页", "分片3-第3页")), "幻灯片顺序: " + texts);
+
+                // 测试4: 母版和版式
+                System.out.println("\n[测试4] 检查母版和版式...");
+                check(show.getSlideMasters().size() == 2, "母版数量: " + show.getSlideMasters().size() + "（期望 2）");
+                XSLFSlideMaster first = show.getSlides().get(0).getSlideMaster();
+                check(show.getSlides().get(6).getSlideMaster() == first, "分片3 复用分片1 的母版");
+                check(show.getSlides().get(3).getSlideMaster() != first, "分片2 使用新导入的母版");
+                check(show.getSlides().get(3).getSlideLayout().getName().startsWith("Alt "),
+                        "分片2 的版式: " + show.getSlides().get(3).getSlideLayout().getName());
+
+                // 测试5: 图片去重
+                System.out.println("\n[测试5] 检查图片...");
+                check(show.getPictureData().size() == 2, "图片数量: " + show.getPictureData().size() + "（期望 2，分片1 和分片3 的图片相同）");
+
+                // 测试6: 页间超链接
+                System.out.println("\n[测试6] 检查页间超链接...");
+                XSLFSlide linked = show.getSlides().get(3);
+                String target = null;
+                for (XSLFShape shape : linked.getShapes()) {
+                    if (shape instanceof XSLFTextShape) {
+                        for (XSLFTextParagraph p : ((XSLFTextShape) shape).getTextParagraphs()) {
+                            for (XSLFTextRun run : p.getTextRuns()) {
+                                if (run.getHyperlink() != null) {
+                                    target = run.getHyperlink().getAddress();
+                                }
+                            }
+                        }
+                    }
+                }
+                check(target != null && target.endsWith("/slide6.xml"), "分片2 第1页的链接目标: " + target + "（期望第6页）");
+            }
+
+            System.out.println("\n=== 测试完成 ===");
+        } catch (Exception e) {
+            System.err.println("测试失败: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 生成一个 3 页的分片：第2页有图片，第1页有指向第3页的超链接
+     */
+    private static byte[] createShard(int shard, boolean renameLayouts) throws Exception {
+        try (XMLSlideShow show = new XMLSlideShow()) {
+            XSLFSlideMaster master = show.getSlideMasters().get(0);
+            if (renameLayouts) {
+                for (XSLFSlideLayout layout : master.getSlideLayouts()) {
+                    layout.getXmlObject().getCSld().setName("Alt " + layout.getName());
+                }
+            }
+            List<XSLFSlide> slides = new ArrayList<>();
+            for (int i = 1; i <= 3; i++) {
+                XSLFSlide slide = show.createSlide(master.getSlideLayouts()[6]);
+                XSLFTextBox box = slide.createTextBox();
+                box.setAnchor(new Rectangle(50, 50, 300, 50));
+                box.setText("分片" + shard + "-第" + i + "页");
+                slides.add(slide);
+            }
+            XSLFPictureData picture = show.addPicture(png(renameLayouts ? 0x3366CC : 0xCC3333), PictureData.PictureType.PNG);
+            slides.get(1).createPicture(picture).setAnchor(new Rectangle(100, 150, 80, 60));
+            XSLFTextBox link = slides.get(0).createTextBox();
+            link.setAnchor(new Rectangle(50, 300, 200, 40));
+            link.setText("最后一页");
+            link.getTextParagraphs().get(0).getTextRuns().get(0).createHyperlink().linkToSlide(slides.get(2));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            show.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] png(int rgb) throws Exception {
+        BufferedImage image = new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 40; x++) {
+            image.setRGB(x, x % 30, rgb);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static String firstText(XSLFSlide slide) {
+        for (XSLFShape shape : slide.getShapes()) {
+            // 只看文本框，不看版式带来的占位符
+            if (shape instanceof XSLFTextBox && !((XSLFTextBox) shape).getText().isBlank()) {
+                return ((XSLFTextBox) shape).getText();
+            }
+        }
+        return "";
+    }
+
+    private static void check(boolean ok, String message) {
+        System.out.println((ok ? "✓ " : "⚠ ") + message);
+    }
+}
@@ -0,0 +1,169 @@
+package com.pptfactory.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * PptPagePersistence 单步调试测试类
+ *
+ * 使用 H2 内存库的 MySQL 兼容模式代替 MySQL，测试：
+ * - 批量 upsert 写入 ppt_page
+ * - 重复执行时覆盖已有行（不产生重复、不报错）
+ * - ppt_contents 的 upsert
+ * - 连接池复用连接
+ * - PptMappingBulkLoader 整体入库 ppt_page / ppt_text_map / ppt_image_map
+ * - PersistenceWriteBehindSink 异步写后入库
+ *
+ * 使用方法：
+ * 1. 在IDE中打开此文件
+ * 2. 在main方法中设置断点
+ * 3. 以Debug模式运行
+ */
+public class TestPptPagePersistence {
+
+    private static final String H2_URL = "jdbc:h2:mem:pptfactory;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    public static void main(String[] args) {
+        System.out.println("=== PptPagePersistence 单步调试测试 ===");
+
+        try (PptPagePersistence persistence = new PptPagePersistence(H2_URL, "sa", "", 2, 7)) {
+            // 测试1: 建表（H2 没有 JSON/LONGTEXT 的 MySQL 语义，用 CLOB 代替）
+            System.out.println("\n[测试1] 创建表...");
+            try (Connection conn = persistence.getPool().getConnection();
+                 Statement st = conn.createStatement()) {
+                st.execute("CREATE TABLE ppt_page (ppt_name VARCHAR(64) NOT NULL, page_number INT NOT NULL, "
+                        + "template_id VARCHAR(32) NULL, template_page_index INT NULL, "
+                        + "page_json CLOB NULL, page_text CLOB NULL, image_prompts CLOB NULL, "
+                        + "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+                        + "updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+                        + "PRIMARY KEY (ppt_name, page_number))");
+                st.execute("CREATE TABLE ppt_contents (ppt_name VARCHAR(64) NOT NULL, contents CLOB NULL, "
+                        + "raw_text CLOB NULL, page_count INT NULL, source_file VARCHAR(255) NULL, "
+                        + "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+                        + "updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+                        + "PRIMARY KEY (ppt_name))");
+                st.execute("CREATE TABLE ppt_text_map (ppt_name VARCHAR(64) NOT NULL, page_number INT NOT NULL, "
+                        + "map_key VARCHAR(512) NOT NULL, map_value CLOB NULL, "
+                        + "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+                        + "PRIMARY KEY (ppt_name, page_number, map_key), "
+                        + "FOREIGN KEY (ppt_name, page_number) REFERENCES ppt_page (ppt_name, page_number) ON DELETE CASCADE)");
+                st.execute("CREATE TABLE ppt_image_map (ppt_name VARCHAR(64) NOT NULL, page_number INT NOT NULL, "
+                        + "map_key VARCHAR(512) NOT NULL, prompt_prepare CLOB NULL, prompt CLOB NULL, "
+                        + "image_url VARCHAR(2048) NULL, image_path VARCHAR(1024) NULL, "
+                        + "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+                        + "PRIMARY KEY (ppt_name, page_number, map_key), "
+                        + "FOREIGN KEY (ppt_name, page_number) REFERENCES ppt_page (ppt_name, page_number) ON DELETE CASCADE)");
+            }
+            System.out.println("✓ 建表完成");
+
+            // 测试2: 首次写入 20 页（批大小 7，共 3 个批次）
+            System.out.println("\n[测试2] 首次批量写入...");
+            ObjectMapper mapper = new ObjectMapper();
+            ArrayNode pages = mapper.createArrayNode();
+            for (int i = 1; i <= 20; i++) {
+                ObjectNode page = pages.addObject();
+                page.put("page", i);
+                page.put("title", "标题" + i);
+                page.put("body", "正文" + i);
+            }
+            int saved = persistence.upsertPages("new_ppt_test", pages);
+            check(saved == 20, "写入页数应为 20，实际 " + saved);
+            check(countPages(persistence) == 20, "ppt_page 行数应为 20");
+            System.out.println("✓ 首次写入 " + saved + " 页");
+
+            // 测试3: 修改内容后重复写入，应覆盖而不是新增
+            System.out.println("\n[测试3] 重复写入（upsert）...");
+            for (int i = 0; i < pages.size(); i++) {
+                ((ObjectNode) pages.get(i)).put("body", "新正文" + (i + 1));
+            }
+            persistence.upsertPages("new_ppt_test", pages);
+            check(countPages(persistence) == 20, "重复写入后 ppt_page 行数仍应为 20");
+            String text = queryString(persistence, "SELECT page_text FROM ppt_page WHERE ppt_name = 'new_ppt_test' AND page_number = 5");
+            check("标题5 新正文5".equals(text), "第5页 page_text 应被覆盖，实际 " + text);
+            System.out.println("✓ 重复写入覆盖成功，第5页: " + text);
+
+            // 测试4: ppt_contents upsert
+            System.out.println("\n[测试4] ppt_contents upsert...");
+            persistence.upsertContents("new_ppt_test", pages.toString(), "raw1", 20, "produce/ppt内容页.txt");
+            persistence.upsertContents("new_ppt_test", pages.toString(), "raw2", 20, "produce/ppt内容页.txt");
+            String raw = queryString(persistence, "SELECT raw_text FROM ppt_contents WHERE ppt_name = 'new_ppt_test'");
+            check("raw2".equals(raw), "ppt_contents.raw_text 应为 raw2，实际 " + raw);
+            System.out.println("✓ ppt_contents upsert 成功");
+
+            // 测试5: 连接池复用
+            System.out.println("\n[测试5] 连接池复用...");
+            int createdCount = persistence.getPool().getCreatedCount();
+            check(createdCount <= 2, "物理连接数不应超过池大小 2，实际 " + createdCount);
+            System.out.println("✓ 物理连接数: " + createdCount);
+
+            // 测试6: 整体入库 produce 结果（需要在项目根目录运行，读取 produce/ppt内容映射.txt）
+            System.out.println("\n[测试6] PptMappingBulkLoader 整体入库...");
+            if (!new File("produce/ppt内容映射.txt").exists()) {
+                System.out.println("⚠ 未找到 produce/ppt内容映射.txt，跳过");
+            } else {
+                PptMappingBulkLoader loader = new PptMappingBulkLoader(persistence);
+                PptMappingBulkLoader.LoadResult first = loader.loadProduceRun("new_ppt_bulk", "produce");
+                PptMappingBulkLoader.LoadResult second = loader.loadProduceRun("new_ppt_bulk", "produce");
+                System.out.println("  第一次: " + first);
+                System.out.println("  第二次: " + second);
+                int textCount = Integer.parseInt(queryString(persistence, "SELECT COUNT(*) FROM ppt_text_map WHERE ppt_name = 'new_ppt_bulk'"));
+                int imageCount = Integer.parseInt(queryString(persistence, "SELECT COUNT(*) FROM ppt_image_map WHERE ppt_name = 'new_ppt_bulk'"));
+                check(textCount == first.textRows, "重复入库后文本映射行数应不变，实际 " + textCount);
+                check(imageCount == first.imageRows, "重复入库后图片映射行数应不变，实际 " + imageCount);
+                System.out.println("✓ 重复入库结果一致");
+            }
+
+            // 测试7: 异步写后入库（同一页发布两次，以最后一次为准；close() 时写完队列）
+            System.out.println("\n[测试7] PersistenceWriteBehindSink 异步入库...");
+            PptMappingBulkLoader loader = new PptMappingBulkLoader(persistence);
+            PersistenceWriteBehindSink sink = new PersistenceWriteBehindSink(loader, 100, 5, 200);
+            for (int i = 1; i <= 12; i++) {
+                ObjectNode mapping = mapper.createObjectNode();
+                mapping.put("模板页编号", "T001");
+                mapping.putObject("文本映射").put("一我是主标题", "旧标题" + i);
+                sink.publish("new_ppt_async", PptMappingBulkLoader.toPageRows(i, mapping, null, null));
+                mapping.putObject("文本映射").put("一我是主标题", "新标题" + i);
+                mapping.putObject("图片路径映射").put("三我是文本", "produce/images/" + i + ".png");
+                sink.publish("new_ppt_async", PptMappingBulkLoader.toPageRows(i, mapping, null, null));
+            }
+            sink.close();
+            check(sink.getDroppedCount() == 0 && sink.getFailedCount() == 0, "不应有丢弃或失败的事件");
+            String title = queryString(persistence, "SELECT map_value FROM ppt_text_map WHERE ppt_name = 'new_ppt_async' AND page_number = 12");
+            check("新标题12".equals(title), "第12页标题应为最后一次发布的值，实际 " + title);
+            int asyncPages = Integer.parseInt(queryString(persistence, "SELECT COUNT(*) FROM ppt_page WHERE ppt_name = 'new_ppt_async'"));
+            int asyncTexts = Integer.parseInt(queryString(persistence, "SELECT COUNT(*) FROM ppt_text_map WHERE ppt_name = 'new_ppt_async'"));
+            check(asyncPages == 12 && asyncTexts == 12, "应写入 12 页、12 条文本映射，实际 " + asyncPages + "/" + asyncTexts);
+            System.out.println("✓ 异步入库完成，第12页标题: " + title);
+
+            System.out.println("\n=== 所有测试完成 ===");
+        } catch (Exception e) {
+            System.err.println("✗ 测试失败: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private static int countPages(PptPagePersistence persistence) throws Exception {
+        return Integer.parseInt(queryString(persistence, "SELECT COUNT(*) FROM ppt_page WHERE ppt_name = 'new_ppt_test'"));
+    }
+
+    private static String queryString(PptPagePersistence persistence, String sql) throws Exception {
+        try (Connection conn = persistence.getPool().getConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.pptfactory.util;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * TextFitter / TextFitPlanner 单步调试测试类
+ *
+ * 纯 Java，不需要模板文件和 Aspose，测试：
+ * - 中日韩文本在任意字符间折行，句末标点不放到行首
+ * - 西文按单词折行，超长单词逐字符折开
+ * - fit() 选出放得下的最大字号，最小字号仍放不下时标记溢出
+ * - parseRange() 解析 "32-44"、"24" 等范围
+ * - Plan.applyToSlide() 改写 a:rPr@sz 并去掉 normAutofit@fontScale
+ *
+ * 折行宽度按 TextFitter.measure() 的结果设置，机器上是否安装了对应字体都不影响断言。
+ *
+ * 使用方法：
+ * 1. 在IDE中打开此文件
+ * 2. 在main方法中设置断点
+ * 3. 以Debug模式运行
+ */
+public class TestTextFitter {
+
+    private static final String EA = TextFitter.DEFAULT_EA_FONT;
+    private static final String LATIN = TextFitter.DEFAULT_LATIN_FONT;
+    private static final double SIZE = 20;
+    private static final double EPS = 1e-6;
+
+    private static final String SLIDE_XML =
+            "<p:sld xmlns:a=\"http://schemas.openxmlformats.org/drawingml/2006/main\""
+                    + " xmlns:p=\"http://schemas.openxmlformats.org/presentationml/2006/main\">"
+                    + "<p:cSld><p:spTree>"
+                    + "<p:sp><p:nvSpPr><p:cNvPr id=\"2\" name=\"标题 1\"/></p:nvSpPr>"
+                    + "<p:txBody><a:bodyPr><a:normAutofit fontScale=\"85000\" lnSpcReduction=\"10000\"/></a:bodyPr>"
+                    + "<a:p><a:r><a:rPr lang=\"zh-CN\" sz=\"4400\"/><a:t>安全生产方针</a:t></a:r>"
+                    + "<a:r><a:t>政策</a:t></a:r><a:endParaRPr sz=\"4400\"/></a:p></p:txBody></p:sp>"
+                    + "<p:sp><p:nvSpPr><p:cNvPr id=\"3\" name=\"内容 2\"/></p:nvSpPr>"
+                    + "<p:txBody><a:bodyPr><a:normAutofit fontScale=\"90000\"/></a:bodyPr>"
+                    + "<a:p><a:r><a:rPr lang=\"zh-CN\" sz=\"1800\"/><a:t>正文</a:t></a:r></a:p></p:txBody></p:sp>"
+                    + "</p:spTree></p:cSld></p:sld>";
+
+    public static void main(String[] args) {
+        System.out.println("=== TextFitter / TextFitPlanner 单步调试测试 ===");
+
+        try {
+            // 测试1: 中日韩文本折行（任意字符间可折行，标点挂在行末）
+            System.out.println("\n[测试1] 中日韩文本折行...");
+            String cjk = "安全生产责任重于泰山人人有责";
+            double five = TextFitter.measure("安全生产责", EA, LATIN) * SIZE + EPS;
+            int cjkLines = TextFitter.countLines(cjk, five, SIZE, EA, LATIN);
+            check(cjkLines == 3, "14 个汉字每行 5 个应折成 3 行，实际 " + cjkLines);
+            int punctLines = TextFitter.countLines("安全生产责，任重于泰山", five, SIZE, EA, LATIN);
+            check(punctLines == 2, "逗号应挂在第一行末尾（共 2 行），实际 " + punctLines);
+            int paraLines = TextFitter.countLines("安全\n生产", five, SIZE, EA, LATIN);
+            check(paraLines == 2, "两个段落应为 2 行，实际 " + paraLines);
+            System.out.println("✓ 中日韩折行: " + cjkLines + " 行，标点不在行首: " + punctLines + " 行");
+
+            // 测试2: 西文按单词折行，超长单词逐字符折开
+            System.out.println("\n[测试2] 西文折行...");
+            double helloWor = TextFitter.measure("hello wor", EA, LATIN) * SIZE + EPS;
+            int wordLines = TextFitter.countLines("hello world", helloWor, SIZE, EA, LATIN);
+            check(wordLines == 2, "world 不应在单词中间折开（共 2 行），实际 " + wordLines);
+            double whole = TextFitter.measure("hello world", EA, LATIN) * SIZE + EPS;
+            int oneLine = TextFitter.countLines("hello world", whole, SIZE, EA, LATIN);
+            check(oneLine == 1, "宽度足够时应为 1 行，实际 " + oneLine);
+            double abcde = TextFitter.measure("abcde", EA, LATIN) * SIZE + EPS;
+            int longWord = TextFitter.countLines("abcdefghij", abcde, SIZE, EA, LATIN);
+            check(longWord >= 2, "比一行还宽的单词应逐字符折开，实际 " + longWord + " 行");
+            System.out.println("✓ 西文折行: 按单词 " + wordLines + " 行，超长单词 " + longWord + " 行");
+
+            // 测试3: fit() 选字号与最小字号溢出
+            System.out.println("\n[测试3] fit() 选字号...");
+            TextFitter.FitResult roomy = TextFitter.fit("安全生产", 400, 200, 24, 44, EA, LATIN);
+            check(!roomy.overflow && roomy.fontSize == 44, "宽松的文本框应取最大字号 44，实际 " + roomy);
+            String longText = "安全生产责任重于泰山，人人都是安全员，事事都是安全事。".repeat(4);
+            TextFitter.FitResult tight = TextFitter.fit(longText, 120, 30, 12, 20, EA, LATIN);
+            check(tight.overflow, "放不下的文本应标记溢出: " + tight);
+            check(tight.fontSize == 12, "溢出时应返回最小字号 12，实际 " + tight.fontSize);
+            check(tight.requiredHeight > tight.availableHeight, "溢出时需要高度应大于可用高度: " + tight);
+            System.out.println("✓ 宽松: " + roomy);
+            System.out.println("✓ 溢出: " + tight);
+
+            // 测试4: parseRange
+            System.out.println("\n[测试4] parseRange...");
+            double[] range = TextFitter.parseRange("32-44");
+            check(range != null && range[0] == 32 && range[1] == 44, "\"32-44\" 应解析为 [32, 44]，实际 " + Arrays.toString(range));
+            double[] single = TextFitter.parseRange("24");
+            check(single != null && single[0] == 24 && single[1] == 24, "\"24\" 应解析为 [24, 24]，实际 " + Arrays.toString(single));
+            double[] reversed = TextFitter.parseRange("44-32");
+            check(reversed != null && reversed[0] == 32 && reversed[1] == 44, "\"44-32\" 应按大小排序，实际 " + Arrays.toString(reversed));
+            check(TextFitter.parseRange("无") == null && TextFitter.parseRange(null) == null, "无法解析时应返回 null");
+            System.out.println("✓ 32-44 -> " + Arrays.toString(range) + "，24 -> " + Arrays.toString(single));
+
+            // 测试5: applyToSlide 改写字号、去掉自动缩放
+            System.out.println("\n[测试5] Plan.applyToSlide...");
+            Document slide = TextFitPlanner.parse(SLIDE_XML.getBytes(StandardCharsets.UTF_8));
+            TextFitPlanner.Plan plan = new TextFitPlanner.Plan();
+            plan.byPage.put(1, Arrays.asList(
+                    new TextFitPlanner.ShapeFit("2", "title", 44, new TextFitter.FitResult(32, 1, 38.4, 60, false)),
+                    new TextFitPlanner.ShapeFit("3", "body", 18, new TextFitter.FitResult(18, 1, 21.6, 100, false))));
+            check(plan.getResizeCount() == 1, "只有文本框 2 需要调整字号，实际 " + plan.getResizeCount());
+            check(!plan.applyToSlide(slide, 2), "没有预检结果的页不应改动");
+            check(plan.applyToSlide(slide, 1), "第 1 页应有改动");
+
+            Element title = shape(slide, 0);
+            NodeList runs = title.getElementsByTagNameNS(TextFitPlanner.A_NS, "r");
+            check(runs.getLength() == 2, "标题应有 2 个文本部分");
+            for (int i = 0; i < runs.getLength(); i++) {
+                Element rPr = TextFitPlanner.firstChild((Element) runs.item(i), TextFitPlanner.A_NS, "rPr");
+                check(rPr != null && "3200".equals(rPr.getAttribute("sz")),
+                        "第 " + (i + 1) + " 个文本部分的 sz 应为 3200（缺少 a:rPr 时补上）");
+            }
+            Element endParaRPr = TextFitPlanner.descendant(title, TextFitPlanner.A_NS, "endParaRPr");
+            check("3200".equals(endParaRPr.getAttribute("sz")), "endParaRPr 的 sz 应为 3200");
+            Element titleAutofit = TextFitPlanner.descendant(title, TextFitPlanner.A_NS, "normAutofit");
+            check(!titleAutofit.hasAttribute("fontScale") && !titleAutofit.hasAttribute("lnSpcReduction"),
+                    "标题的 normAutofit 应去掉 fontScale 和 lnSpcReduction");
+
+            Element body = shape(slide, 1);
+            Element bodyRPr = TextFitPlanner.descendant(body, TextFitPlanner.A_NS, "rPr");
+            check("1800".equals(bodyRPr.getAttribute("sz")), "不需要调整的文本框字号应保持 1800");
+            Element bodyAutofit = TextFitPlanner.descendant(body, TextFitPlanner.A_NS, "normAutofit");
+            check("90000".equals(bodyAutofit.getAttribute("fontScale")), "不需要调整的文本框应保留 fontScale");
+            System.out.println("✓ 文本框 2: 44 -> 32，fontScale 已去掉；文本框 3 保持不变");
+
+            System.out.println("\n字形宽度缓存: " + TextFitter.cacheStats());
+            System.out.println("\n=== 所有测试完成 ===");
+        } catch (Exception e) {
+            System.err.println("✗ 测试失败: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private static Element shape(Document slide, int index) {
+        return (Element) slide.getElementsByTagNameNS(TextFitPlanner.P_NS, "sp").item(index);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+}